@@ -25,6 +25,8 @@ import com.igormaznitsa.ideamindmap.utils.SwingUtils;
 import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.mindmap.ide.commons.DnDUtils;
 import com.igormaznitsa.mindmap.ide.commons.FilePathWithLine;
+import com.igormaznitsa.mindmap.ide.commons.TextChange;
+import com.igormaznitsa.mindmap.ide.commons.TopicTextMap;
 import com.igormaznitsa.mindmap.model.Extra;
 import com.igormaznitsa.mindmap.model.Extra.ExtraType;
 import com.igormaznitsa.mindmap.model.ExtraFile;
@@ -105,6 +107,7 @@ import java.awt.event.KeyEvent;
 import java.awt.geom.Rectangle2D;
 import java.beans.PropertyChangeListener;
 import java.io.File;
+import java.io.IOException;
 import java.io.StringReader;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -138,6 +141,8 @@ public class MindMapDocumentEditor implements AdjustmentListener, DocumentsEdito
   private final FindTextPanel findTextPanel;
   private boolean dragAcceptableType = false;
   private boolean firstLayouting = true;
+  private volatile TopicTextMap topicTextMap;
+  private boolean ignoreDocumentChanges;
 
   public MindMapDocumentEditor(final Project project, final VirtualFile file) {
     this.project = project;
@@ -181,7 +186,9 @@ public class MindMapDocumentEditor implements AdjustmentListener, DocumentsEdito
     this.documentListener = new DocumentAdapter() {
       @Override
       public void documentChanged(DocumentEvent e) {
-        loadMindMapFromDocument();
+        if (!ignoreDocumentChanges) {
+          processDocumentChange(e);
+        }
       }
     };
     this.getDocument().addDocumentListener(this.documentListener);
@@ -259,7 +266,7 @@ public class MindMapDocumentEditor implements AdjustmentListener, DocumentsEdito
       }
 
       if (element != null) {
-        final Rectangle2D bounds = element.getBounds();
+        final Rectangle2D bounds = this.mindMapPanel.getBoundsOnPanel(element.getModel());
         final Dimension viewPortSize = mainScrollPane.getViewport().getExtentSize();
 
         final int x = Math.max(0, (int) Math.round(bounds.getX() - (viewPortSize.getWidth() - bounds.getWidth()) / 2));
@@ -284,13 +291,56 @@ public class MindMapDocumentEditor implements AdjustmentListener, DocumentsEdito
         IdeaUtils.executeWriteAction(getProject(), document, new Runnable() {
           @Override
           public void run() {
-            document.setText(model.packToString());
+            final String text = model.packToString();
+            final TextChange change = TextChange.between(document.getCharsSequence(), text);
+            if (change != null) {
+              // replace only changed range to keep undo records and VCS diff small
+              ignoreDocumentChanges = true;
+              try {
+                document.replaceString(change.getStartOffset(), change.getOldEndOffset(), change.getReplacement());
+              } finally {
+                ignoreDocumentChanges = false;
+              }
+            }
+            topicTextMap = TopicTextMap.build(text);
           }
         });
       }
     }
   }
 
+  private void processDocumentChange(@Nonnull final DocumentEvent event) {
+    final CharSequence text = event.getDocument().getCharsSequence();
+    final TopicTextMap textMap = this.topicTextMap;
+    final int changedTopicIndex = textMap == null ? -1 : textMap.updateForChange(text, event.getOffset(), event.getOldLength(), event.getNewLength());
+    if (changedTopicIndex < 0 || !reloadTopicFromDocument(textMap, text, changedTopicIndex)) {
+      this.topicTextMap = null;
+      loadMindMapFromDocument();
+    }
+  }
+
+  private boolean reloadTopicFromDocument(@Nonnull final TopicTextMap textMap, @Nonnull final CharSequence text, final int topicIndex) {
+    if (this.mindMapPanel.isDisposed()) {
+      return true;
+    }
+
+    final MindMap model = this.mindMapPanel.getModel();
+    final Topic topic = textMap.findTopic(model, topicIndex);
+    if (topic == null) {
+      return false;
+    }
+
+    try {
+      textMap.reloadTopic(topic, text, topicIndex);
+    } catch (IOException ex) {
+      LOGGER.warn("Can't reload topic #" + topicIndex + " from document, whole document will be reloaded");
+      return false;
+    }
+
+    this.mindMapPanel.updateView(false);
+    return true;
+  }
+
   private Runnable makeRunnableSetDocumenttextAction(@Nonnull final MindMapDocumentEditor editorIstance, @Nonnull final String documentText) {
     return new Runnable() {
       @Override
@@ -302,11 +352,14 @@ public class MindMapDocumentEditor implements AdjustmentListener, DocumentsEdito
               try {
                 if (documentText.isEmpty()) {
                   LOGGER.warn("Detected empty text document, default mind-map will be created");
+                  topicTextMap = null;
                   mindMapPanel.setModel(new MindMap(editorIstance, true));
                 } else {
-                  mindMapPanel.setModel(new MindMap(editorIstance, new StringReader(documentText)));
+                  mindMapPanel.setModel(new MindMap(editorIstance, new StringReader(documentText), true));
+                  topicTextMap = TopicTextMap.build(documentText);
                 }
               } catch (Exception ex) {
+                topicTextMap = null;
                 LOGGER.error("Can't parse MindMap text", ex);
                 editorIstance.mindMapPanel.setErrorText("Can't parse mind map content");
               }
@@ -633,7 +686,7 @@ public class MindMapDocumentEditor implements AdjustmentListener, DocumentsEdito
           return;
         }
 
-        final Rectangle2D orig = element.getBounds();
+        final Rectangle2D orig = mindMapPanel.getBoundsOnPanel(element.getModel());
         if (orig == null) {
           return;
         }
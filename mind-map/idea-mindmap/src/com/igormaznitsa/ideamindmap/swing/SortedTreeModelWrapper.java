@@ -16,24 +16,144 @@
 package com.igormaznitsa.ideamindmap.swing;
 
 import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.Topic;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.swing.SwingUtilities;
 import javax.swing.event.TreeModelEvent;
 import javax.swing.event.TreeModelListener;
 import javax.swing.tree.TreeModel;
 import javax.swing.tree.TreePath;
 
+/**
+ * Sorted and filtered view of mind map for JTree. Sorted children lists are
+ * cached and on change of the model they are not dropped but marked as stale,
+ * stale list is validated on next access and rebuilt only if children of the
+ * topic have been really changed. Filter is applied through index of lower
+ * case topic texts, so that it doesn't need expansion of the tree. The index
+ * is built on first filtering, a change of topic text updates only the topic.
+ * Model reports changes of structure only for the whole map, so with active
+ * filter they are collected and applied to the index once in Swing thread.
+ */
 public class SortedTreeModelWrapper implements TreeModel, TreeModelListener {
+
   private final MindMap model;
 
-  private final Map<Object,List<Object>> sortedCache = new HashMap<Object,List<Object>>();
+  private final Map<Object, List<Object>> sortedCache = new HashMap<Object, List<Object>>();
+  private final Set<Object> staleEntries = new HashSet<Object>();
   private final Comparator<Object> comparator;
+  private final List<TreeModelListener> listeners = new CopyOnWriteArrayList<TreeModelListener>();
+
+  private TopicIndex index;
+  private String filter;
+  private Set<Topic> foundTopics;
+  private Set<Topic> visibleTopics;
+  private Topic changedSubtree;
+  private boolean filterRefreshScheduled;
+
+  /**
+   * Index of lower case topic texts. Every record keeps source text of topic
+   * and its lower case form, the lower case form is reused while the source
+   * text is the same.
+   */
+  private static final class TopicIndex {
+
+    private final Map<Topic, String[]> records = new LinkedHashMap<Topic, String[]>();
+
+    private TopicIndex(final MindMap map) {
+      final Topic root = map.getRoot();
+      if (root != null) {
+        addSubtree(root);
+      }
+    }
+
+    private static String[] makeRecord(final Topic topic, final String[] old) {
+      final String text = topic.getText();
+      return old != null && old[0].equals(text) ? old : new String[]{text, text.toLowerCase(Locale.ENGLISH)};
+    }
+
+    private static void collectSubtree(final Topic topic, final Map<Topic, String[]> target, final Map<Topic, String[]> old) {
+      target.put(topic, makeRecord(topic, old.get(topic)));
+      for (final Topic c : topic.getChildren()) {
+        collectSubtree(c, target, old);
+      }
+    }
+
+    private boolean matches(final Topic topic, final String lowerCasedText) {
+      final String[] record = this.records.get(topic);
+      return record != null && record[1].contains(lowerCasedText);
+    }
+
+    /**
+     * Refresh text of topic.
+     *
+     * @param topic changed topic
+     * @return true if the topic is presented in the index
+     */
+    private boolean update(final Topic topic) {
+      final String[] old = this.records.get(topic);
+      if (old != null) {
+        this.records.put(topic, makeRecord(topic, old));
+      }
+      return old != null;
+    }
+
+    private void addSubtree(final Topic topic) {
+      collectSubtree(topic, this.records, this.records);
+    }
+
+    /**
+     * Synchronize subtree of topic with the model after change of its
+     * structure. Records of topics which are placed in the subtree or detached
+     * from the model are replaced by records of current subtree topics.
+     *
+     * @param topic root of changed subtree
+     * @param root current root of the model
+     */
+    private void syncSubtree(final Topic topic, final Topic root) {
+      final Map<Topic, String[]> subtree = new LinkedHashMap<Topic, String[]>();
+      collectSubtree(topic, subtree, this.records);
+      if (topic == root) {
+        this.records.clear();
+      } else {
+        final Iterator<Topic> iterator = this.records.keySet().iterator();
+        while (iterator.hasNext()) {
+          Topic current = iterator.next();
+          while (current != null && current != topic && current != root) {
+            current = current.getParent();
+          }
+          if (current != root) {
+            iterator.remove();
+          }
+        }
+      }
+      this.records.putAll(subtree);
+    }
 
-  public SortedTreeModelWrapper(final MindMap model, final Comparator<Object> comparator){
+    private List<Topic> find(final String lowerCasedText) {
+      final List<Topic> result = new ArrayList<Topic>();
+      for (final Map.Entry<Topic, String[]> e : this.records.entrySet()) {
+        if (e.getValue()[1].contains(lowerCasedText)) {
+          result.add(e.getKey());
+        }
+      }
+      return result;
+    }
+  }
+
+  public SortedTreeModelWrapper(final MindMap model, final Comparator<Object> comparator) {
     this.model = model;
     this.comparator = comparator;
     this.model.addTreeModelListener(this);
@@ -51,18 +171,17 @@ public class SortedTreeModelWrapper implements TreeModel, TreeModelListener {
 
   @Override
   public int getChildCount(final Object parent) {
-    return this.model.getChildCount(parent);
+    return this.visibleTopics == null ? this.model.getChildCount(parent) : this.getChildrenFromCache(parent).size();
   }
 
   @Override
   public boolean isLeaf(final Object node) {
-    return this.model.isLeaf(node);
+    return this.visibleTopics == null ? this.model.isLeaf(node) : this.getChildrenFromCache(node).isEmpty();
   }
 
   @Override
   public void valueForPathChanged(final TreePath path, final Object newValue) {
     this.model.valueForPathChanged(path, newValue);
-    this.sortedCache.clear();
   }
 
   @Override
@@ -71,28 +190,105 @@ public class SortedTreeModelWrapper implements TreeModel, TreeModelListener {
   }
 
   @Override
-  public void addTreeModelListener(TreeModelListener l) {
-    this.model.addTreeModelListener(l);
+  public void addTreeModelListener(final TreeModelListener l) {
+    this.listeners.add(l);
   }
 
   @Override
-  public void removeTreeModelListener(TreeModelListener l) {
-    this.model.removeTreeModelListener(l);
+  public void removeTreeModelListener(final TreeModelListener l) {
+    this.listeners.remove(l);
   }
 
-  private void clear(){
+  /**
+   * Set filter for topics. Only topics which text contains the filter text and
+   * their ancestors are shown.
+   *
+   * @param text filter text, null or empty to remove filter
+   * @return list of topics which text contains the filter, empty if there is no
+   * filter
+   */
+  public List<Topic> setFilter(final String text) {
+    final String normalized = text == null || text.trim().isEmpty() ? null : text.trim().toLowerCase(Locale.ENGLISH);
+    final List<Topic> result = normalized == null ? Collections.<Topic>emptyList() : findInIndex(normalized);
+
+    this.filter = normalized;
+    this.foundTopics = normalized == null ? null : new LinkedHashSet<Topic>(result);
+    this.visibleTopics = normalized == null ? null : makeVisibleSet(result);
     this.sortedCache.clear();
+    this.staleEntries.clear();
+
+    final Topic root = this.model.getRoot();
+    fireStructureChanged(new TreeModelEvent(this, root == null ? null : new Object[]{root}));
+    return result;
+  }
+
+  public boolean isFiltered() {
+    return this.visibleTopics != null;
+  }
+
+  private List<Topic> findInIndex(final String lowerCasedText) {
+    syncIndex();
+    if (this.index == null) {
+      this.index = new TopicIndex(this.model);
+    }
+    return this.index.find(lowerCasedText);
+  }
+
+  private static Set<Topic> makeVisibleSet(final Collection<Topic> found) {
+    final Set<Topic> result = new HashSet<Topic>();
+    for (final Topic t : found) {
+      Topic current = t;
+      while (current != null && result.add(current)) {
+        current = current.getParent();
+      }
+    }
+    return result;
+  }
+
+  public boolean isVisible(final Object node) {
+    return this.visibleTopics == null || this.visibleTopics.contains(node);
+  }
+
+  private boolean isValid(final Object parent, final List<Object> cached) {
+    // deleted topic keeps its parent, so cached children are checked against current children of the parent
+    final Set<Object> current = new HashSet<Object>();
+    final int childCount = this.model.getChildCount(parent);
+    for (int i = 0; i < childCount; i++) {
+      final Object child = this.model.getChild(parent, i);
+      if (isVisible(child)) {
+        current.add(child);
+      }
+    }
+    if (current.size() != cached.size()) {
+      return false;
+    }
+    for (int i = 0; i < cached.size(); i++) {
+      final Object child = cached.get(i);
+      if (!current.contains(child)) {
+        return false;
+      }
+      if (this.comparator != null && i > 0 && this.comparator.compare(cached.get(i - 1), child) > 0) {
+        return false;
+      }
+    }
+    return true;
   }
 
-  private List<Object> getChildrenFromCache(final Object parent){
+  private List<Object> getChildrenFromCache(final Object parent) {
     List<Object> result = this.sortedCache.get(parent);
-    if (result == null){
+    if (result != null && this.staleEntries.remove(parent) && !isValid(parent, result)) {
+      result = null;
+    }
+    if (result == null) {
       result = new ArrayList<Object>();
-      final int childCount = model.getChildCount(parent);
-      for(int i=0;i<childCount;i++){
-        result.add(model.getChild(parent, i));
+      final int childCount = this.model.getChildCount(parent);
+      for (int i = 0; i < childCount; i++) {
+        final Object child = this.model.getChild(parent, i);
+        if (isVisible(child)) {
+          result.add(child);
+        }
       }
-      if (this.comparator!=null){
+      if (this.comparator != null) {
         Collections.sort(result, this.comparator);
       }
       this.sortedCache.put(parent, result);
@@ -100,28 +296,162 @@ public class SortedTreeModelWrapper implements TreeModel, TreeModelListener {
     return result;
   }
 
+  private void markAllStale() {
+    this.staleEntries.addAll(this.sortedCache.keySet());
+  }
+
+  private void markParentStale(final Topic topic) {
+    final Topic parent = topic.getParent();
+    if (parent != null) {
+      this.staleEntries.add(parent);
+    }
+  }
+
+  /**
+   * Recalculate visible topics for changed set of found topics, only lists of
+   * parents of topics which visibility has been changed are marked as stale.
+   */
+  private void updateVisibleTopics() {
+    final Set<Topic> newVisible = makeVisibleSet(this.foundTopics);
+    for (final Topic t : newVisible) {
+      if (!this.visibleTopics.contains(t)) {
+        markParentStale(t);
+      }
+    }
+    for (final Topic t : this.visibleTopics) {
+      if (!newVisible.contains(t)) {
+        markParentStale(t);
+      }
+    }
+    this.visibleTopics = newVisible;
+  }
+
+  private void onTopicChanged(final Object node) {
+    if (node instanceof Topic) {
+      final Topic topic = (Topic) node;
+      markParentStale(topic);
+      if (this.index != null && this.index.update(topic) && this.filter != null) {
+        final boolean found = this.index.matches(topic, this.filter);
+        if (found != this.foundTopics.contains(topic)) {
+          if (found) {
+            this.foundTopics.add(topic);
+          } else {
+            this.foundTopics.remove(topic);
+          }
+          updateVisibleTopics();
+        }
+      }
+    }
+  }
+
+  /**
+   * Apply collected change of structure to the index.
+   */
+  private void syncIndex() {
+    final Topic changed = this.changedSubtree;
+    this.changedSubtree = null;
+    if (changed != null && this.index != null) {
+      final Topic root = this.model.getRoot();
+      if (root == null) {
+        this.index = null;
+      } else {
+        this.index.syncSubtree(changed, root);
+      }
+    }
+  }
+
+  private void refreshFilter() {
+    this.filterRefreshScheduled = false;
+    final Topic root = this.model.getRoot();
+    if (this.filter != null && this.changedSubtree != null && root != null) {
+      final Set<Topic> oldVisible = this.visibleTopics;
+      this.foundTopics = new LinkedHashSet<Topic>(findInIndex(this.filter));
+      updateVisibleTopics();
+      if (!this.visibleTopics.equals(oldVisible)) {
+        fireStructureChanged(new TreeModelEvent(this, new Object[]{root}));
+      }
+    }
+  }
+
+  private void onStructureChanged(final TreePath path) {
+    markAllStale();
+    final Topic root = this.model.getRoot();
+    if (this.filter == null || root == null) {
+      // index is not needed without filter, it will be built on demand
+      this.index = null;
+      this.changedSubtree = null;
+    } else {
+      final Object changed = path == null ? root : path.getLastPathComponent();
+      if (!(changed instanceof Topic)) {
+        this.index = null;
+      }
+      this.changedSubtree = changed instanceof Topic && (this.changedSubtree == null || this.changedSubtree == changed) ? (Topic) changed : root;
+      if (!this.filterRefreshScheduled) {
+        this.filterRefreshScheduled = true;
+        SwingUtilities.invokeLater(new Runnable() {
+          @Override
+          public void run() {
+            refreshFilter();
+          }
+        });
+      }
+    }
+  }
+
+  private void fireStructureChanged(final TreeModelEvent e) {
+    for (final TreeModelListener l : this.listeners) {
+      l.treeStructureChanged(e);
+    }
+  }
+
   @Override
   public void treeNodesChanged(final TreeModelEvent e) {
-
+    final TreePath path = e.getTreePath();
+    if (path != null) {
+      final Object[] children = e.getChildren();
+      if (children == null) {
+        onTopicChanged(path.getLastPathComponent());
+      } else {
+        for (final Object c : children) {
+          onTopicChanged(c);
+        }
+      }
+    }
+    for (final TreeModelListener l : this.listeners) {
+      l.treeNodesChanged(e);
+    }
   }
 
   @Override
   public void treeNodesInserted(final TreeModelEvent e) {
-    clear();
+    onStructureChanged(e.getTreePath());
+    for (final TreeModelListener l : this.listeners) {
+      l.treeNodesInserted(e);
+    }
   }
 
   @Override
   public void treeNodesRemoved(final TreeModelEvent e) {
-    clear();
+    onStructureChanged(e.getTreePath());
+    for (final TreeModelListener l : this.listeners) {
+      l.treeNodesRemoved(e);
+    }
   }
 
   @Override
   public void treeStructureChanged(final TreeModelEvent e) {
-    clear();
+    onStructureChanged(e.getTreePath());
+    fireStructureChanged(e);
   }
 
-  public void dispose(){
-    clear();
+  public void dispose() {
+    this.sortedCache.clear();
+    this.staleEntries.clear();
+    this.index = null;
+    this.foundTopics = null;
+    this.visibleTopics = null;
+    this.changedSubtree = null;
+    this.listeners.clear();
     this.model.removeTreeModelListener(this);
   }
 
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.ide.commons;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Minimal range replacement which converts one text into another one.
+ *
+ * @since 1.4.5
+ */
+@Immutable
+public final class TextChange {
+
+  private final int startOffset;
+  private final int oldEndOffset;
+  private final String replacement;
+
+  private TextChange(final int startOffset, final int oldEndOffset, @Nonnull final String replacement) {
+    this.startOffset = startOffset;
+    this.oldEndOffset = oldEndOffset;
+    this.replacement = replacement;
+  }
+
+  /**
+   * Find minimal changed range between two texts, the range is detected as the
+   * text between common prefix and common suffix.
+   *
+   * @param oldText the old text, must not be null
+   * @param newText the new text, must not be null
+   * @return change which converts the old text into the new one or null if
+   * texts are equal
+   */
+  @Nullable
+  public static TextChange between(@Nonnull final CharSequence oldText, @Nonnull final CharSequence newText) {
+    final int oldLength = oldText.length();
+    final int newLength = newText.length();
+    final int minLength = Math.min(oldLength, newLength);
+
+    int prefix = 0;
+    while (prefix < minLength && oldText.charAt(prefix) == newText.charAt(prefix)) {
+      prefix++;
+    }
+
+    if (prefix == oldLength && prefix == newLength) {
+      return null;
+    }
+
+    int suffix = 0;
+    final int maxSuffix = minLength - prefix;
+    while (suffix < maxSuffix && oldText.charAt(oldLength - 1 - suffix) == newText.charAt(newLength - 1 - suffix)) {
+      suffix++;
+    }
+
+    return new TextChange(prefix, oldLength - suffix, newText.subSequence(prefix, newLength - suffix).toString());
+  }
+
+  public int getStartOffset() {
+    return this.startOffset;
+  }
+
+  public int getOldEndOffset() {
+    return this.oldEndOffset;
+  }
+
+  public int getOldLength() {
+    return this.oldEndOffset - this.startOffset;
+  }
+
+  @Nonnull
+  public String getReplacement() {
+    return this.replacement;
+  }
+
+  @Nonnull
+  public String apply(@Nonnull final CharSequence oldText) {
+    return new StringBuilder(oldText.length() - getOldLength() + this.replacement.length())
+        .append(oldText, 0, this.startOffset)
+        .append(this.replacement)
+        .append(oldText, this.oldEndOffset, oldText.length())
+        .toString();
+  }
+
+  @Override
+  @Nonnull
+  public String toString() {
+    return "TextChange(" + this.startOffset + ".." + this.oldEndOffset + " -> " + this.replacement.length() + " chars)";
+  }
+}
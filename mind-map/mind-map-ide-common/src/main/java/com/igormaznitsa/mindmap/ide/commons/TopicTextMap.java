@@ -0,0 +1,331 @@
+/*
+ * Copyright 2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.ide.commons;
+
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
+import com.igormaznitsa.mindmap.model.Extra;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.ModelUtils;
+import com.igormaznitsa.mindmap.model.Topic;
+import com.igormaznitsa.mindmap.model.parser.MindMapLexer;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Map between topics of a mind map and their text blocks in a document. Topic
+ * blocks are indexed in document order (which is the same as the order of
+ * topic iteration in mind map) and each block starts with the topic level
+ * token and ends in the start of the next topic block. Allows to detect
+ * document changes which touch only one topic and reload only that topic.
+ *
+ * @since 1.4.5
+ */
+public final class TopicTextMap {
+
+  private final int[] starts;
+  private final int[] levels;
+  private final int size;
+  private int textLength;
+  private final boolean incrementalAllowed;
+
+  private TopicTextMap(@Nonnull final int[] starts, @Nonnull final int[] levels, final int size, final int textLength, final boolean incrementalAllowed) {
+    this.starts = starts;
+    this.levels = levels;
+    this.size = size;
+    this.textLength = textLength;
+    this.incrementalAllowed = incrementalAllowed;
+  }
+
+  /**
+   * Build map for mind map text.
+   *
+   * @param text mind map text, must not be null
+   * @return built map, must not be null
+   */
+  @Nonnull
+  public static TopicTextMap build(@Nonnull final CharSequence text) {
+    final MindMapLexer lexer = new MindMapLexer();
+    lexer.start(text, 0, text.length(), MindMapLexer.TokenType.HEAD_LINE);
+
+    int[] starts = new int[64];
+    int[] levels = new int[64];
+    int size = 0;
+    int depth = 0;
+    boolean headerEnded = false;
+    boolean incrementalAllowed = true;
+
+    while (true) {
+      final int oldOffset = lexer.getCurrentPosition().getOffset();
+      lexer.advance();
+      final MindMapLexer.TokenType token = lexer.getTokenType();
+      if (token == null || oldOffset == lexer.getCurrentPosition().getOffset()) {
+        break;
+      }
+
+      if (token == MindMapLexer.TokenType.HEAD_DELIMITER) {
+        headerEnded = true;
+      } else if (headerEnded && token == MindMapLexer.TokenType.TOPIC_LEVEL) {
+        final int level = ModelUtils.calcCharsOnStart('#', lexer.getTokenText());
+
+        // repeat logic of topic parser to keep the same topic indexes
+        boolean record = false;
+        if (level == depth + 1) {
+          depth = level;
+          record = true;
+        } else if (level == depth) {
+          record = true;
+        } else if (level < depth && size > 0) {
+          depth = level;
+          record = true;
+        }
+
+        if (record) {
+          if (level == 1 && size > 0) {
+            // parser keeps only the last root, topic indexes can't be matched
+            incrementalAllowed = false;
+          }
+          if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            levels = Arrays.copyOf(levels, size * 2);
+          }
+          starts[size] = lexer.getTokenStartOffset();
+          levels[size] = level;
+          size++;
+        }
+      }
+    }
+
+    return new TopicTextMap(starts, levels, size, text.length(), incrementalAllowed && headerEnded);
+  }
+
+  public int size() {
+    return this.size;
+  }
+
+  public int getTextLength() {
+    return this.textLength;
+  }
+
+  public int getTopicStart(final int index) {
+    checkIndex(index);
+    return this.starts[index];
+  }
+
+  public int getTopicEnd(final int index) {
+    checkIndex(index);
+    return index + 1 < this.size ? this.starts[index + 1] : this.textLength;
+  }
+
+  public int getTopicLevel(final int index) {
+    checkIndex(index);
+    return this.levels[index];
+  }
+
+  private void checkIndex(final int index) {
+    if (index < 0 || index >= this.size) {
+      throw new IndexOutOfBoundsException("Wrong topic index : " + index);
+    }
+  }
+
+  /**
+   * Find index of topic block which contains offset.
+   *
+   * @param offset offset in text
+   * @return index of topic block or -1 if the offset is in the header
+   */
+  public int findTopicIndex(final int offset) {
+    int index = Arrays.binarySearch(this.starts, 0, this.size, offset);
+    if (index < 0) {
+      index = -index - 2;
+    }
+    return index;
+  }
+
+  /**
+   * Update map for a document change if the change touches only one topic
+   * block and doesn't change topic structure.
+   *
+   * @param newText text of document after change, must not be null
+   * @param offset start offset of changed fragment
+   * @param oldLength length of the old fragment
+   * @param newLength length of the new fragment
+   * @return index of changed topic if the map has been updated or -1 if the
+   * change is not local one and map must be rebuilt
+   */
+  public int updateForChange(@Nonnull final CharSequence newText, final int offset, final int oldLength, final int newLength) {
+    if (!this.incrementalAllowed || newText.length() != this.textLength - oldLength + newLength) {
+      return -1;
+    }
+
+    final int index = findTopicIndex(offset);
+    if (index < 0 || offset + oldLength > getTopicEnd(index)) {
+      return -1;
+    }
+
+    final int delta = newLength - oldLength;
+    final int blockStart = this.starts[index];
+    final int newBlockEnd = getTopicEnd(index) + delta;
+
+    if (newBlockEnd < newText.length() && newText.charAt(newBlockEnd - 1) != '\n') {
+      return -1;
+    }
+
+    if (!isSingleCompletedTopicBlock(newText, blockStart, newBlockEnd, this.levels[index])) {
+      return -1;
+    }
+
+    for (int i = index + 1; i < this.size; i++) {
+      this.starts[i] += delta;
+    }
+    this.textLength += delta;
+
+    return index;
+  }
+
+  private static boolean isSingleCompletedTopicBlock(@Nonnull final CharSequence text, final int start, final int end, final int expectedLevel) {
+    final MindMapLexer lexer = new MindMapLexer();
+    lexer.start(text, start, end, MindMapLexer.TokenType.WHITESPACE);
+
+    boolean first = true;
+    MindMapLexer.TokenType lastToken = null;
+    while (true) {
+      final int oldOffset = lexer.getCurrentPosition().getOffset();
+      lexer.advance();
+      final MindMapLexer.TokenType token = lexer.getTokenType();
+      if (token == null || oldOffset == lexer.getCurrentPosition().getOffset()) {
+        break;
+      }
+
+      if (!lexer.getCurrentPosition().isTokenCompleted()) {
+        return false;
+      }
+
+      if (first) {
+        if (token != MindMapLexer.TokenType.TOPIC_LEVEL || ModelUtils.calcCharsOnStart('#', lexer.getTokenText()) != expectedLevel) {
+          return false;
+        }
+        first = false;
+      } else if (token == MindMapLexer.TokenType.TOPIC_LEVEL) {
+        return false;
+      }
+      lastToken = token;
+    }
+    // started but not finished code snippet would swallow next topics
+    return !first
+        && lexer.getCurrentPosition().getOffset() == end
+        && lastToken != MindMapLexer.TokenType.CODE_SNIPPET_START
+        && lastToken != MindMapLexer.TokenType.CODE_SNIPPET_BODY;
+  }
+
+  /**
+   * Find topic in mind map for its block index. Position of the topic among
+   * children on every level of its path is calculated from the block levels,
+   * so that only topics on the path are visited.
+   *
+   * @param map mind map, must not be null
+   * @param index index of topic block
+   * @return found topic or null
+   */
+  @Nullable
+  public Topic findTopic(@Nonnull final MindMap map, final int index) {
+    if (index < 0 || index >= this.size) {
+      return null;
+    }
+
+    final int targetLevel = this.levels[index];
+    final int[] positions = new int[targetLevel + 1];
+    Arrays.fill(positions, -1);
+    for (int i = 1; i <= index; i++) {
+      final int level = this.levels[i];
+      if (level <= targetLevel) {
+        positions[level]++;
+        for (int l = level + 1; l <= targetLevel; l++) {
+          positions[l] = -1;
+        }
+      }
+    }
+
+    Topic result = map.getRoot();
+    for (int level = 2; result != null && level <= targetLevel; level++) {
+      final List<Topic> children = result.getChildren();
+      final int position = positions[level];
+      result = position >= 0 && position < children.size() ? children.get(position) : null;
+    }
+    return result;
+  }
+
+  /**
+   * Parse topic block and replace own content of the target topic (text,
+   * extras, attributes and code snippets) by parsed one. Children of the
+   * target topic are not touched.
+   *
+   * @param target topic to get parsed content, must not be null
+   * @param text document text, must not be null
+   * @param index index of topic block
+   * @throws IOException if the block can't be parsed
+   */
+  public void reloadTopic(@Nonnull final Topic target, @Nonnull final CharSequence text, final int index) throws IOException {
+    final int level = getTopicLevel(index);
+    final String block = '#' + text.subSequence(getTopicStart(index) + level, getTopicEnd(index)).toString();
+
+    final MindMapLexer lexer = new MindMapLexer();
+    lexer.start(block, 0, block.length(), MindMapLexer.TokenType.WHITESPACE);
+
+    final Topic parsed = Topic.parse(new MindMap(null, false), lexer);
+    if (parsed == null) {
+      throw new IOException("Can't parse topic block #" + index);
+    }
+
+    final MindMap map = target.getMap();
+    map.lock();
+    try {
+      target.setText(parsed.getText());
+
+      target.removeExtras();
+      final Extra<?>[] extras = parsed.extrasToArray();
+      if (extras.length > 0) {
+        target.setExtra(extras);
+      }
+
+      for (final String name : copyKeys(target.getAttributes())) {
+        target.setAttribute(name, null);
+      }
+      for (final Map.Entry<String, String> e : parsed.getAttributes().entrySet()) {
+        target.setAttribute(e.getKey(), e.getValue());
+      }
+
+      for (final String language : copyKeys(target.getCodeSnippets())) {
+        target.setCodeSnippet(language, null);
+      }
+      for (final Map.Entry<String, String> e : parsed.getCodeSnippets().entrySet()) {
+        target.setCodeSnippet(e.getKey(), e.getValue());
+      }
+    } finally {
+      map.unlock();
+    }
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  private static List<String> copyKeys(@Nonnull final Map<String, String> map) {
+    return new ArrayList<String>(map.keySet());
+  }
+}
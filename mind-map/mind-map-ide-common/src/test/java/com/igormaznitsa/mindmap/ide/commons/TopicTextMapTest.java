@@ -0,0 +1,147 @@
+/*
+ * Copyright 2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.ide.commons;
+
+import com.igormaznitsa.mindmap.model.Extra;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.Topic;
+import java.io.StringReader;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class TopicTextMapTest {
+
+  private static final String TEXT = "Mind Map generated by NB MindMap plugin\n"
+      + "> __version__=`1.1`\n"
+      + "---\n"
+      + "\n# Root\n"
+      + "\n## First\n"
+      + "> collapsed=`true`\n\n"
+      + "- NOTE\n<pre>Some note</pre>\n"
+      + "\n### Third\n"
+      + "\n## Second\n";
+
+  @Test
+  public void testBuild() {
+    final TopicTextMap map = TopicTextMap.build(TEXT);
+    assertEquals(4, map.size());
+    assertEquals(1, map.getTopicLevel(0));
+    assertEquals(2, map.getTopicLevel(1));
+    assertEquals(3, map.getTopicLevel(2));
+    assertEquals(2, map.getTopicLevel(3));
+    assertEquals(TEXT.indexOf("# Root"), map.getTopicStart(0));
+    assertEquals(TEXT.indexOf("## First"), map.getTopicStart(1));
+    assertEquals(TEXT.length(), map.getTopicEnd(3));
+    assertEquals(-1, map.findTopicIndex(10));
+    assertEquals(1, map.findTopicIndex(TEXT.indexOf("Some note")));
+  }
+
+  @Test
+  public void testTextChange() {
+    assertNull(TextChange.between("hello", "hello"));
+
+    final TextChange change = TextChange.between("hello world", "hello big world");
+    assertEquals(6, change.getStartOffset());
+    assertEquals(6, change.getOldEndOffset());
+    assertEquals("big ", change.getReplacement());
+    assertEquals("hello big world", change.apply("hello world"));
+
+    final TextChange removed = TextChange.between("aaaa", "aa");
+    assertEquals(2, removed.getOldLength());
+    assertEquals("", removed.getReplacement());
+    assertEquals("aa", removed.apply("aaaa"));
+  }
+
+  @Test
+  public void testLocalChange_ReloadOnlyChangedTopic() throws Exception {
+    final MindMap mindMap = new MindMap(null, new StringReader(TEXT));
+    final TopicTextMap map = TopicTextMap.build(TEXT);
+
+    final String newText = TEXT.replace("Some note", "Another long note").replace("collapsed=`true`", "collapsed=`false`");
+    final TextChange change = TextChange.between(TEXT, newText);
+
+    final int index = map.updateForChange(newText, change.getStartOffset(), change.getOldLength(), change.getReplacement().length());
+    assertEquals(1, index);
+    assertEquals(newText.indexOf("### Third"), map.getTopicStart(2));
+    assertEquals(newText.length(), map.getTextLength());
+
+    final Topic first = map.findTopic(mindMap, index);
+    final Topic third = first.getFirst();
+    map.reloadTopic(first, newText, index);
+
+    assertEquals("First", first.getText());
+    assertEquals("false", first.getAttribute("collapsed"));
+    assertEquals("Another long note", first.getExtras().get(Extra.ExtraType.NOTE).getValue());
+    assertSame(third, first.getFirst());
+    assertEquals(new MindMap(null, new StringReader(newText)).packToString(), mindMap.packToString());
+  }
+
+  @Test
+  public void testNonLocalChange() {
+    final TopicTextMap map = TopicTextMap.build(TEXT);
+
+    final String newTopic = TEXT.replace("Some note</pre>\n", "Some note</pre>\n\n## New\n");
+    TextChange change = TextChange.between(TEXT, newTopic);
+    assertEquals(-1, map.updateForChange(newTopic, change.getStartOffset(), change.getOldLength(), change.getReplacement().length()));
+
+    final String changedLevel = TEXT.replace("### Third", "## Third");
+    change = TextChange.between(TEXT, changedLevel);
+    assertEquals(-1, map.updateForChange(changedLevel, change.getStartOffset(), change.getOldLength(), change.getReplacement().length()));
+
+    final String changedHeader = TEXT.replace("__version__=`1.1`", "__version__=`1.2`");
+    change = TextChange.between(TEXT, changedHeader);
+    assertEquals(-1, map.updateForChange(changedHeader, change.getStartOffset(), change.getOldLength(), change.getReplacement().length()));
+
+    final String openedSnippet = TEXT.replace("\n### Third", "```java\n### Third");
+    change = TextChange.between(TEXT, openedSnippet);
+    assertEquals(-1, map.updateForChange(openedSnippet, change.getStartOffset(), change.getOldLength(), change.getReplacement().length()));
+  }
+
+  @Test
+  public void testFindTopic_OnlyPathVisited() throws Exception {
+    final String text = "Mind Map generated by NB MindMap plugin\n"
+        + "> __version__=`1.1`\n"
+        + "---\n"
+        + "\n# Root\n"
+        + "\n## A\n"
+        + "> collapsed=`true`\n\n"
+        + "\n### A1\n"
+        + "\n#### A11\n"
+        + "\n### A2\n"
+        + "\n## B\n"
+        + "\n### B1\n"
+        + "\n#### B11\n"
+        + "\n#### B12\n"
+        + "\n## C\n";
+    final TopicTextMap map = TopicTextMap.build(text);
+    final MindMap mindMap = new MindMap(null, new StringReader(text), true);
+
+    assertSame(mindMap.getRoot(), map.findTopic(mindMap, 0));
+    assertEquals("B12", map.findTopic(mindMap, 8).getText());
+    assertEquals("C", map.findTopic(mindMap, 9).getText());
+    assertTrue(mindMap.getRoot().getChildren().get(0).hasPendingChildren());
+
+    assertEquals("A2", map.findTopic(mindMap, 4).getText());
+    assertEquals("B", map.findTopic(mindMap, 5).getText());
+    assertNull(map.findTopic(mindMap, 10));
+    assertNull(map.findTopic(mindMap, -1));
+
+    int index = 0;
+    for (final Topic t : new MindMap(null, new StringReader(text))) {
+      assertEquals(t.getText(), map.findTopic(mindMap, index++).getText());
+    }
+  }
+}
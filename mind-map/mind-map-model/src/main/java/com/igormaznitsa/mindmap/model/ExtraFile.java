@@ -17,12 +17,14 @@ package com.igormaznitsa.mindmap.model;
 
 import java.io.File;
 import java.net.URISyntaxException;
-
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.regex.Pattern;
 import javax.annotation.Nonnull;
 
 import javax.annotation.Nullable;
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import org.apache.commons.io.FilenameUtils;
 
 public class ExtraFile extends Extra<MMapURI> implements ExtraLinkable {
@@ -32,6 +34,7 @@ public class ExtraFile extends Extra<MMapURI> implements ExtraLinkable {
   private final MMapURI fileUri;
 
   private volatile String cachedString;
+  private transient volatile PathKey cachedPathKey;
 
   private final boolean mmdFileFlag;
   private final String lowerCasedFileExtension;
@@ -46,9 +49,82 @@ public class ExtraFile extends Extra<MMapURI> implements ExtraLinkable {
     this(new MMapURI(text));
   }
 
+  /**
+   * Normalized absolute path of linked file calculated for some base folder.
+   * Link matching is made many times for the same base folder so that the
+   * last calculated key is cached.
+   */
+  private static final class PathKey {
+
+    private final File baseFolder;
+    private final String path;
+    private final String[] segments;
+
+    private PathKey(@Nullable final File baseFolder, @Nonnull final String path) {
+      this.baseFolder = baseFolder;
+      this.path = path;
+      this.segments = splitToSegments(path);
+    }
+
+    private boolean isFor(@Nullable final File folder) {
+      return this.baseFolder == null ? folder == null : this.baseFolder.equals(folder);
+    }
+  }
+
+  @Nonnull
+  static String normalizePath(@Nullable final File baseFolder, @Nonnull final MMapURI uri) {
+    final String absolutePath = uri.asFile(baseFolder).getAbsolutePath();
+    final String normalized = FilenameUtils.normalize(absolutePath);
+    return normalized == null ? absolutePath : normalized;
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  static String[] splitToSegments(@Nonnull final String path) {
+    final List<String> result = new ArrayList<String>();
+    int start = 0;
+    for (int i = 0; i <= path.length(); i++) {
+      if (i == path.length() || path.charAt(i) == '/' || path.charAt(i) == '\\') {
+        if (i > start) {
+          result.add(path.substring(start, i));
+        }
+        start = i + 1;
+      }
+    }
+    return result.toArray(new String[result.size()]);
+  }
+
+  @Nonnull
+  private PathKey getPathKey(@Nullable final File baseFolder) {
+    PathKey result = this.cachedPathKey;
+    if (result == null || !result.isFor(baseFolder)) {
+      result = new PathKey(baseFolder, normalizePath(baseFolder, this.fileUri));
+      this.cachedPathKey = result;
+    }
+    return result;
+  }
+
+  /**
+   * Get normalized absolute path of linked file.
+   *
+   * @param baseFolder base folder for relative links, can be null
+   * @return normalized path, must not be null
+   * @since 1.4.5
+   */
+  @Nonnull
+  public String getNormalizedPath(@Nullable final File baseFolder) {
+    return getPathKey(baseFolder).path;
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  String[] getNormalizedPathSegments(@Nullable final File baseFolder) {
+    return getPathKey(baseFolder).segments;
+  }
+
   @Override
   public boolean containsPattern(@Nullable final File baseFolder, @Nonnull final Pattern pattern) {
-    final String filePathAsText = FilenameUtils.normalize(this.fileUri.asFile(baseFolder).getAbsolutePath());
+    final String filePathAsText = getNormalizedPath(baseFolder);
     return pattern.matcher(filePathAsText).find();
   }
 
@@ -124,15 +200,11 @@ public class ExtraFile extends Extra<MMapURI> implements ExtraLinkable {
   
   @Nullable
   public ExtraFile replaceParentPath(@Nullable final File baseFolder, @Nonnull final MMapURI oldFolder, @Nonnull final MMapURI newFolder) {
-    final File theFile = this.fileUri.asFile(baseFolder);
-    final File oldFolderFile = oldFolder.asFile(baseFolder);
-    final File newFolderFile = newFolder.asFile(baseFolder);
-
-    final String theFilePath = FilenameUtils.normalize(theFile.getAbsolutePath());
-    final String oldFolderFilePath = ensureFolderPath(FilenameUtils.normalize(oldFolderFile.getAbsolutePath()));
-    final String newFolderFilePath = ensureFolderPath(FilenameUtils.normalize(newFolderFile.getAbsolutePath()));
+    final String theFilePath = getNormalizedPath(baseFolder);
+    final String oldFolderFilePath = ensureFolderPath(normalizePath(baseFolder, oldFolder));
     
     if (theFilePath.startsWith(oldFolderFilePath)){
+      final String newFolderFilePath = ensureFolderPath(normalizePath(baseFolder, newFolder));
       final String changedPath = newFolderFilePath+theFilePath.substring(oldFolderFilePath.length());
       return new ExtraFile(new MMapURI(this.isAbsolute() ? null : baseFolder, new File(changedPath),this.fileUri.getParameters()));
     } else {
@@ -140,12 +212,31 @@ public class ExtraFile extends Extra<MMapURI> implements ExtraLinkable {
     }
   }
   
-  public boolean hasParent(@Nullable final File baseFolder, @Nonnull final MMapURI folder) {
-    final File theFile = this.fileUri.asFile(baseFolder);
-    final File thatFile = folder.asFile(baseFolder);
+  /**
+   * Make link where some first segments of normalized path are replaced by new
+   * folder.
+   *
+   * @param baseFolder base folder, can be null
+   * @param segments number of first segments to be replaced
+   * @param newFolder new folder to replace segments
+   * @return new file link, must not be null
+   */
+  @Nonnull
+  ExtraFile replaceParentSegments(@Nullable final File baseFolder, final int segments, @Nonnull final MMapURI newFolder) {
+    final String[] theSegments = getNormalizedPathSegments(baseFolder);
+    final StringBuilder buffer = new StringBuilder(ensureFolderPath(normalizePath(baseFolder, newFolder)));
+    for (int i = segments; i < theSegments.length; i++) {
+      if (i > segments) {
+        buffer.append(File.separatorChar);
+      }
+      buffer.append(theSegments[i]);
+    }
+    return new ExtraFile(new MMapURI(this.isAbsolute() ? null : baseFolder, new File(buffer.toString()), this.fileUri.getParameters()));
+  }
 
-    final String theFilePath = FilenameUtils.normalize(theFile.getAbsolutePath());
-    final String thatFilePath = ensureFolderPath(FilenameUtils.normalize(thatFile.getAbsolutePath()));
+  public boolean hasParent(@Nullable final File baseFolder, @Nonnull final MMapURI folder) {
+    final String theFilePath = getNormalizedPath(baseFolder);
+    final String thatFilePath = ensureFolderPath(normalizePath(baseFolder, folder));
     
     if (!theFilePath.equals(thatFilePath) && theFilePath.startsWith(thatFilePath)) {
       final String diff = theFilePath.substring(thatFilePath.length()-1);
@@ -157,11 +248,8 @@ public class ExtraFile extends Extra<MMapURI> implements ExtraLinkable {
   }
   
   public boolean isSameOrHasParent(@Nullable final File baseFolder, @Nonnull final MMapURI file) {
-    final File theFile = this.fileUri.asFile(baseFolder);
-    final File thatFile = file.asFile(baseFolder);
-
-    final String theFilePath = FilenameUtils.normalize(theFile.getAbsolutePath());
-    final String thatFilePath = FilenameUtils.normalize(thatFile.getAbsolutePath());
+    final String theFilePath = getNormalizedPath(baseFolder);
+    final String thatFilePath = normalizePath(baseFolder, file);
 
     if (theFilePath.startsWith(thatFilePath)) {
       final String diff = theFilePath.substring(thatFilePath.length());
@@ -173,11 +261,8 @@ public class ExtraFile extends Extra<MMapURI> implements ExtraLinkable {
   }
 
   public boolean isSame(@Nullable final File baseFolder, @Nonnull final MMapURI file) {
-    final File theFile = this.fileUri.asFile(baseFolder);
-    final File thatFile = file.asFile(baseFolder);
-
-    final String theFilePath = FilenameUtils.normalize(theFile.getAbsolutePath());
-    final String thatFilePath = FilenameUtils.normalize(thatFile.getAbsolutePath());
+    final String theFilePath = getNormalizedPath(baseFolder);
+    final String thatFilePath = normalizePath(baseFolder, file);
 
     return theFilePath.equals(thatFilePath);
   }
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.model;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Prefix tree over segments of normalized file paths. It allows to check file
+ * links against a set of files and folders in one pass, instead of comparing
+ * every link with every path.
+ *
+ * @param <T> type of value associated with path
+ * @since 1.4.5
+ */
+final class FilePathTrie<T> {
+
+  private final File baseFolder;
+  private final Node<T> root = new Node<T>();
+  private boolean empty = true;
+
+  private static final class Node<T> {
+
+    private Map<String, Node<T>> children;
+    private T value;
+    private boolean terminal;
+
+    @Nullable
+    private Node<T> find(@Nonnull final String segment) {
+      return this.children == null ? null : this.children.get(segment);
+    }
+
+    @Nonnull
+    private Node<T> findOrMake(@Nonnull final String segment) {
+      if (this.children == null) {
+        this.children = new HashMap<String, Node<T>>();
+      }
+      Node<T> result = this.children.get(segment);
+      if (result == null) {
+        result = new Node<T>();
+        this.children.put(segment, result);
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Found path for file link.
+   *
+   * @param <T> type of value associated with path
+   */
+  static final class Match<T> {
+
+    private final T value;
+    private final int matchedSegments;
+    private final boolean same;
+
+    private Match(@Nullable final T value, final int matchedSegments, final boolean same) {
+      this.value = value;
+      this.matchedSegments = matchedSegments;
+      this.same = same;
+    }
+
+    @Nullable
+    T getValue() {
+      return this.value;
+    }
+
+    int getMatchedSegments() {
+      return this.matchedSegments;
+    }
+
+    boolean isSame() {
+      return this.same;
+    }
+  }
+
+  FilePathTrie(@Nullable final File baseFolder) {
+    this.baseFolder = baseFolder;
+  }
+
+  @Nullable
+  File getBaseFolder() {
+    return this.baseFolder;
+  }
+
+  boolean isEmpty() {
+    return this.empty;
+  }
+
+  void put(@Nonnull final MMapURI path, @Nullable final T value) {
+    Node<T> node = this.root;
+    for (final String s : ExtraFile.splitToSegments(ExtraFile.normalizePath(this.baseFolder, path))) {
+      node = node.findOrMake(s);
+    }
+    node.terminal = true;
+    node.value = value;
+    this.empty = false;
+  }
+
+  /**
+   * Find the longest registered path which is the same as the linked file or
+   * its parent.
+   *
+   * @param file file link to be checked
+   * @param onlySame if true then only the same path is looked for
+   * @return found match or null if there is not any one
+   */
+  @Nullable
+  Match<T> find(@Nonnull final ExtraFile file, final boolean onlySame) {
+    final String[] segments = file.getNormalizedPathSegments(this.baseFolder);
+
+    Match<T> result = null;
+    Node<T> node = this.root;
+    int index = 0;
+    while (true) {
+      if (node.terminal && (!onlySame || index == segments.length)) {
+        result = new Match<T>(node.value, index, index == segments.length);
+      }
+      if (index == segments.length) {
+        break;
+      }
+      node = node.find(segments[index++]);
+      if (node == null) {
+        break;
+      }
+    }
+    return result;
+  }
+}
@@ -25,6 +25,8 @@ import java.io.Serializable;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -85,6 +87,22 @@ public final class MindMap implements Serializable, Constants, TreeModel, Iterab
   }
 
   public MindMap(@Nullable final MindMapController nullableController, @Nonnull final Reader reader) throws IOException {
+    this(nullableController, reader, false);
+  }
+
+  /**
+   * Parse mind map from text.
+   *
+   * @param nullableController controller of the mind map, can be null
+   * @param reader reader to provide text of mind map
+   * @param lazyCollapsed if true then subtrees of collapsed topics are kept as
+   * not parsed text and they will be parsed only when requested (for instance
+   * during unfold, search or save), it decreases time to open big maps with
+   * many collapsed branches
+   * @throws IOException it will be thrown for transport errors
+   * @since 1.4.5
+   */
+  public MindMap(@Nullable final MindMapController nullableController, @Nonnull final Reader reader, final boolean lazyCollapsed) throws IOException {
     this.controller = nullableController;
     final String text = IOUtils.toString(Assertions.assertNotNull(reader));
 
@@ -113,7 +131,7 @@ public final class MindMap implements Serializable, Constants, TreeModel, Iterab
         break;
         case HEAD_DELIMITER: {
           process = false;
-          rootTopic = Topic.parse(this, lexer);
+          rootTopic = Topic.parse(this, lexer, lazyCollapsed);
         }
         break;
         default:
@@ -282,6 +300,17 @@ public final class MindMap implements Serializable, Constants, TreeModel, Iterab
     return this.attributes.get(name);
   }
 
+  @Nonnull
+  Map<String, String> copyAttributes() {
+    this.locker.lock();
+    try {
+      return new TreeMap<String, String>(this.attributes);
+    }
+    finally {
+      this.locker.unlock();
+    }
+  }
+
   public void setAttribute(@Nonnull final String name, @Nullable final String value) {
     this.locker.lock();
     try {
@@ -311,8 +340,10 @@ public final class MindMap implements Serializable, Constants, TreeModel, Iterab
   private void resetPayload(@Nullable final Topic t) {
     if (t != null) {
       t.setPayload(null);
-      for (final Topic m : t.getChildren()) {
-        resetPayload(m);
+      if (!t.hasPendingChildren()) {
+        for (final Topic m : t.getChildren()) {
+          resetPayload(m);
+        }
       }
     }
   }
@@ -587,12 +618,28 @@ public final class MindMap implements Serializable, Constants, TreeModel, Iterab
   }
 
   public boolean doesContainFileLink(@Nonnull final File baseFolder, @Nonnull final MMapURI file) {
+    return doesContainLinkToAnyFile(baseFolder, Collections.singleton(file));
+  }
+
+  /**
+   * Check that the map contains link to any file from collection.
+   *
+   * @param baseFolder base folder for relative links, can be null
+   * @param files files to be checked
+   * @return true if there is link to any file from collection
+   * @since 1.4.5
+   */
+  public boolean doesContainLinkToAnyFile(@Nullable final File baseFolder, @Nonnull @MustNotContainNull final Collection<MMapURI> files) {
     boolean result = false;
     final Topic rootTopic = this.root;
-    if (rootTopic != null) {
+    if (rootTopic != null && !files.isEmpty()) {
+      final FilePathTrie<Object> trie = new FilePathTrie<Object>(baseFolder);
+      for (final MMapURI f : files) {
+        trie.put(f, null);
+      }
       this.locker.lock();
       try {
-        return rootTopic.doesContainFileLink(baseFolder, file);
+        result = rootTopic.doesContainLinkToAnyFile(trie);
       }
       finally {
         this.locker.unlock();
@@ -602,12 +649,29 @@ public final class MindMap implements Serializable, Constants, TreeModel, Iterab
   }
 
   public boolean deleteAllLinksToFile(@Nonnull final File baseFolder, @Nonnull final MMapURI file) {
+    return deleteAllLinksToFiles(baseFolder, Collections.singleton(file));
+  }
+
+  /**
+   * Delete all links to files and folders from collection, links to files
+   * placed in the folders are deleted too. All links are checked in one pass.
+   *
+   * @param baseFolder base folder for relative links, can be null
+   * @param files deleted files and folders
+   * @return true if the map has been changed
+   * @since 1.4.5
+   */
+  public boolean deleteAllLinksToFiles(@Nullable final File baseFolder, @Nonnull @MustNotContainNull final Collection<MMapURI> files) {
     boolean changed = false;
     final Topic rootTopic = this.root;
-    if (rootTopic != null) {
+    if (rootTopic != null && !files.isEmpty()) {
+      final FilePathTrie<Object> trie = new FilePathTrie<Object>(baseFolder);
+      for (final MMapURI f : files) {
+        trie.put(f, null);
+      }
       this.locker.lock();
       try {
-        changed = rootTopic.deleteLinkToFileIfPresented(baseFolder, file);
+        changed = rootTopic.deleteLinksToFiles(trie);
       }
       finally {
         this.locker.unlock();
@@ -620,12 +684,30 @@ public final class MindMap implements Serializable, Constants, TreeModel, Iterab
   }
 
   public boolean replaceAllLinksToFile(@Nonnull final File baseFolder, @Nonnull final MMapURI oldFile, @Nonnull final MMapURI newFile) {
+    return replaceAllLinksToFiles(baseFolder, Collections.singletonMap(oldFile, newFile));
+  }
+
+  /**
+   * Replace links to renamed or moved files and folders, links to files placed
+   * in moved folders are changed too. If a link is placed in several moved
+   * folders then the deepest one is used. All links are checked in one pass.
+   *
+   * @param baseFolder base folder for relative links, can be null
+   * @param oldToNewFiles map of old paths to new paths
+   * @return true if the map has been changed
+   * @since 1.4.5
+   */
+  public boolean replaceAllLinksToFiles(@Nullable final File baseFolder, @Nonnull final Map<MMapURI, MMapURI> oldToNewFiles) {
     boolean changed = false;
     final Topic rootTopic = this.root;
-    if (rootTopic != null) {
+    if (rootTopic != null && !oldToNewFiles.isEmpty()) {
+      final FilePathTrie<MMapURI> trie = new FilePathTrie<MMapURI>(baseFolder);
+      for (final Map.Entry<MMapURI, MMapURI> e : oldToNewFiles.entrySet()) {
+        trie.put(e.getKey(), e.getValue());
+      }
       this.locker.lock();
       try {
-        changed = rootTopic.replaceLinkToFileIfPresented(baseFolder, oldFile, newFile);
+        changed = rootTopic.replaceLinksToFiles(trie);
       }
       finally {
         this.locker.unlock();
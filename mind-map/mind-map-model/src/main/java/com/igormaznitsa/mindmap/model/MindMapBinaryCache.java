@@ -0,0 +1,425 @@
+/*
+ * Copyright 2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.model;
+
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Cache of parsed mind maps in compact binary form. Snapshot of model is saved
+ * into cache folder under name made from path of the source file and it
+ * contains hash of the source text, so that snapshot is used only if the text
+ * has not been changed. Text of mind map is always the source of truth, if
+ * snapshot is not valid then the text is parsed and snapshot is rebuilt in
+ * background.
+ * <p>
+ * Format of snapshot is table of strings followed by records of topics in
+ * depth-first order, every topic refers to its parent and to strings through
+ * indexes. Snapshot is built from lazily parsed map, so that children of
+ * collapsed topics are not written as records but as range of the source text
+ * and they are parsed only on request, like in the case of text loading.
+ * Snapshot is read into heap buffer, memory mapping is not used because
+ * mapped file can't be unmapped explicitly and it would keep the file locked
+ * until garbage collection.
+ *
+ * @since 1.4.5
+ */
+public final class MindMapBinaryCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MindMapBinaryCache.class);
+
+  private static final int MAGIC = 0x4D4D4443;
+  private static final int FORMAT_VERSION = 3;
+  private static final String FILE_EXTENSION = ".mmdc"; //NOI18N
+  private static final String HASH_ALGORITHM = "SHA-1"; //NOI18N
+  private static final String CHARSET = "UTF-8"; //NOI18N
+
+  private final File cacheFolder;
+  private final ExecutorService executor;
+  private final Set<File> scheduled = new HashSet<File>();
+
+  public MindMapBinaryCache(@Nonnull final File cacheFolder) {
+    this.cacheFolder = cacheFolder;
+    this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+      @Override
+      @Nonnull
+      public Thread newThread(@Nonnull final Runnable r) {
+        final Thread result = new Thread(r, "mmd-model-cache"); //NOI18N
+        result.setDaemon(true);
+        result.setPriority(Thread.MIN_PRIORITY);
+        return result;
+      }
+    });
+  }
+
+  @Nonnull
+  public File getCacheFolder() {
+    return this.cacheFolder;
+  }
+
+  /**
+   * Load mind map from file. If there is valid snapshot for the file content
+   * then it is used, otherwise the text is parsed and snapshot is rebuilt in
+   * background.
+   *
+   * @param controller controller for mind map, can be null
+   * @param file file contains mind map text
+   * @param lazyCollapsed flag to parse collapsed subtrees lazily if the text is
+   * parsed
+   * @return loaded mind map, must not be null
+   * @throws IOException it will be thrown if the file can't be read or parsed
+   */
+  @Nonnull
+  public MindMap load(@Nullable final MindMapController controller, @Nonnull final File file, final boolean lazyCollapsed) throws IOException {
+    final byte[] content = FileUtils.readFileToByteArray(file);
+    final byte[] hash = makeHash(content);
+    final File snapshotFile = makeSnapshotFile(file);
+
+    final String text = new String(content, CHARSET);
+
+    MindMap result = null;
+    if (snapshotFile.isFile()) {
+      final long start = System.currentTimeMillis();
+      try {
+        result = readSnapshot(controller, snapshotFile, hash, text, lazyCollapsed);
+        if (result != null) {
+          LOGGER.info("Mind map " + file + " loaded from snapshot, spent " + (System.currentTimeMillis() - start) + " ms"); //NOI18N
+        }
+      } catch (Exception ex) {
+        LOGGER.warn("Can't read snapshot " + snapshotFile + " : " + ex.getMessage()); //NOI18N
+        if (!snapshotFile.delete()) {
+          LOGGER.warn("Can't delete broken snapshot " + snapshotFile); //NOI18N
+        }
+      }
+    }
+
+    if (result == null) {
+      result = new MindMap(controller, new StringReader(text), lazyCollapsed);
+      // copy of lazily parsed map shares not parsed text, so that it is cheaper than repeated parsing
+      scheduleRebuild(snapshotFile, hash, lazyCollapsed ? new MindMap(result, null) : null, text);
+    }
+    return result;
+  }
+
+  /**
+   * Rebuild snapshot for mind map text in background, for instance after save
+   * of the text.
+   *
+   * @param file file of mind map
+   * @param text current text of mind map
+   */
+  public void update(@Nonnull final File file, @Nonnull final String text) {
+    try {
+      scheduleRebuild(makeSnapshotFile(file), makeHash(text.getBytes(CHARSET)), null, text);
+    } catch (IOException ex) {
+      LOGGER.error("Can't schedule snapshot rebuild for " + file, ex); //NOI18N
+    }
+  }
+
+  /**
+   * Stop background rebuilding of snapshots.
+   */
+  public void dispose() {
+    this.executor.shutdownNow();
+  }
+
+  private void scheduleRebuild(@Nonnull final File snapshotFile, @Nonnull final byte[] hash, @Nullable final MindMap parsedMap, @Nonnull final String text) {
+    synchronized (this.scheduled) {
+      if (!this.scheduled.add(snapshotFile)) {
+        return;
+      }
+    }
+    this.executor.submit(new Runnable() {
+      @Override
+      public void run() {
+        synchronized (scheduled) {
+          scheduled.remove(snapshotFile);
+        }
+        try {
+          final MindMap map = parsedMap == null ? new MindMap(null, new StringReader(text), true) : parsedMap;
+          writeSnapshot(map, hash, snapshotFile);
+        } catch (Exception ex) {
+          LOGGER.error("Can't build snapshot " + snapshotFile, ex); //NOI18N
+        }
+      }
+    });
+  }
+
+  @Nonnull
+  private File makeSnapshotFile(@Nonnull final File file) throws IOException {
+    final byte[] pathHash = makeHash(file.getCanonicalPath().getBytes(CHARSET));
+    final StringBuilder name = new StringBuilder(pathHash.length * 2 + FILE_EXTENSION.length());
+    for (final byte b : pathHash) {
+      name.append(Character.forDigit((b >>> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return new File(this.cacheFolder, name.append(FILE_EXTENSION).toString());
+  }
+
+  @Nonnull
+  static byte[] makeHash(@Nonnull final byte[] data) {
+    try {
+      return MessageDigest.getInstance(HASH_ALGORITHM).digest(data);
+    } catch (NoSuchAlgorithmException ex) {
+      throw new Error("Unexpected error", ex); //NOI18N
+    }
+  }
+
+  private static final class StringTable {
+
+    private final Map<String, Integer> indexes = new HashMap<String, Integer>();
+    private final List<String> strings = new ArrayList<String>();
+
+    private int indexOf(@Nonnull final String str) {
+      Integer result = this.indexes.get(str);
+      if (result == null) {
+        result = this.strings.size();
+        this.strings.add(str);
+        this.indexes.put(str, result);
+      }
+      return result;
+    }
+  }
+
+  private static void collectTopics(@Nonnull final Topic topic, @Nonnull @MustNotContainNull final List<Topic> topics) {
+    topics.add(topic);
+    if (!topic.hasPendingChildren()) {
+      for (final Topic c : topic.getChildren()) {
+        collectTopics(c, topics);
+      }
+    }
+  }
+
+  private static void materializeSubtree(@Nonnull final Topic topic) {
+    for (final Topic c : topic.getChildren()) {
+      materializeSubtree(c);
+    }
+  }
+
+  private static void writeStringMap(@Nonnull final DataOutputStream out, @Nonnull final StringTable table, @Nonnull final Map<String, String> map) throws IOException {
+    out.writeInt(map.size());
+    for (final Map.Entry<String, String> e : map.entrySet()) {
+      out.writeInt(table.indexOf(e.getKey()));
+      out.writeInt(table.indexOf(e.getValue()));
+    }
+  }
+
+  /**
+   * Write snapshot of mind map. Snapshot is written into temp file which is
+   * renamed when all data has been written. Not parsed children are written as
+   * range of the source text.
+   *
+   * @param map mind map, it must be parsed from the text which hash is provided
+   * @param hash hash of source text
+   * @param snapshotFile file to save snapshot
+   * @throws IOException it will be thrown for transport errors
+   */
+  static void writeSnapshot(@Nonnull final MindMap map, @Nonnull final byte[] hash, @Nonnull final File snapshotFile) throws IOException {
+    final List<Topic> topics = new ArrayList<Topic>();
+    final Topic root = map.getRoot();
+    if (root != null) {
+      collectTopics(root, topics);
+    }
+
+    final Map<Topic, Integer> topicIndexes = new HashMap<Topic, Integer>();
+    final StringTable table = new StringTable();
+
+    final ByteArrayOutputStream body = new ByteArrayOutputStream(topics.size() * 32 + 64);
+    final DataOutputStream bodyOut = new DataOutputStream(body);
+
+    writeStringMap(bodyOut, table, map.copyAttributes());
+
+    bodyOut.writeInt(topics.size());
+    for (final Topic t : topics) {
+      topicIndexes.put(t, topicIndexes.size());
+      final Topic parent = t.getParent();
+      bodyOut.writeInt(parent == null ? -1 : topicIndexes.get(parent));
+      bodyOut.writeInt(table.indexOf(t.getText()));
+      writeStringMap(bodyOut, table, t.getAttributes());
+      final Map<Extra.ExtraType, Extra<?>> extras = t.getExtras();
+      bodyOut.writeInt(extras.size());
+      for (final Extra<?> e : extras.values()) {
+        bodyOut.writeByte(e.getType().ordinal());
+        bodyOut.writeInt(table.indexOf(e.provideAsStringForSave()));
+      }
+      writeStringMap(bodyOut, table, t.getCodeSnippets());
+      final int[] pendingRange = t.getPendingChildrenRange();
+      if (pendingRange == null) {
+        bodyOut.writeInt(-1);
+      } else {
+        bodyOut.writeInt(pendingRange[0]);
+        bodyOut.writeInt(pendingRange[1]);
+        bodyOut.writeInt(t.getPendingTopicsNumber());
+      }
+    }
+    bodyOut.flush();
+
+    final File folder = snapshotFile.getParentFile();
+    if (folder != null && !folder.isDirectory() && !folder.mkdirs()) {
+      throw new IOException("Can't create folder " + folder); //NOI18N
+    }
+
+    final File tempFile = new File(folder, snapshotFile.getName() + ".tmp"); //NOI18N
+    final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile, false), 64 * 1024));
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      out.writeInt(hash.length);
+      out.write(hash);
+      out.writeInt(table.strings.size());
+      for (final String s : table.strings) {
+        final byte[] bytes = s.getBytes(CHARSET);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+      }
+      body.writeTo(out);
+      out.flush();
+    } finally {
+      IOUtils.closeQuietly(out);
+    }
+
+    if (snapshotFile.isFile() && !snapshotFile.delete()) {
+      LOGGER.warn("Can't delete old snapshot " + snapshotFile); //NOI18N
+    }
+    if (!tempFile.renameTo(snapshotFile)) {
+      FileUtils.deleteQuietly(tempFile);
+      throw new IOException("Can't rename snapshot file " + tempFile); //NOI18N
+    }
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  private static String[] readStrings(@Nonnull final ByteBuffer buffer) throws IOException {
+    final String[] result = new String[buffer.getInt()];
+    byte[] bytes = new byte[256];
+    for (int i = 0; i < result.length; i++) {
+      final int length = buffer.getInt();
+      if (length > bytes.length) {
+        bytes = new byte[length];
+      }
+      buffer.get(bytes, 0, length);
+      result[i] = new String(bytes, 0, length, CHARSET);
+    }
+    return result;
+  }
+
+  @Nonnull
+  private static Extra<?> makeExtra(@Nonnull final Extra.ExtraType type, @Nonnull final String value) throws Exception {
+    switch (type) {
+      case FILE:
+        return new ExtraFile(value);
+      case LINK:
+        return new ExtraLink(value);
+      case NOTE:
+        return new ExtraNote(value);
+      case TOPIC:
+        return new ExtraTopic(value);
+      default:
+        throw new Error("Unexpected value [" + type.name() + ']'); //NOI18N
+    }
+  }
+
+  /**
+   * Read snapshot of mind map.
+   *
+   * @param controller controller for mind map, can be null
+   * @param snapshotFile snapshot file
+   * @param hash expected hash of source text
+   * @param text source text, not parsed children refer to it
+   * @param lazyCollapsed if false then not parsed children are parsed
+   * immediately
+   * @return read mind map or null if snapshot is made for another text
+   * @throws Exception it will be thrown if snapshot can't be read
+   */
+  @Nullable
+  static MindMap readSnapshot(@Nullable final MindMapController controller, @Nonnull final File snapshotFile, @Nonnull final byte[] hash, @Nonnull final String text, final boolean lazyCollapsed) throws Exception {
+    final ByteBuffer buffer = ByteBuffer.wrap(FileUtils.readFileToByteArray(snapshotFile));
+
+    if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+      return null;
+    }
+    final byte[] snapshotHash = new byte[buffer.getInt()];
+    buffer.get(snapshotHash);
+    if (!Arrays.equals(hash, snapshotHash)) {
+      return null;
+    }
+
+    final String[] strings = readStrings(buffer);
+    final Extra.ExtraType[] extraTypes = Extra.ExtraType.values();
+
+    final MindMap result = new MindMap(controller, false);
+    for (int i = buffer.getInt(); i > 0; i--) {
+      result.setAttribute(strings[buffer.getInt()], strings[buffer.getInt()]);
+    }
+
+    final Topic[] topics = new Topic[buffer.getInt()];
+    for (int i = 0; i < topics.length; i++) {
+      final int parentIndex = buffer.getInt();
+      final Topic topic = new Topic(result, parentIndex < 0 ? null : topics[parentIndex], strings[buffer.getInt()]);
+      for (int a = buffer.getInt(); a > 0; a--) {
+        topic.setAttribute(strings[buffer.getInt()], strings[buffer.getInt()]);
+      }
+      for (int e = buffer.getInt(); e > 0; e--) {
+        final Extra.ExtraType type = extraTypes[buffer.get()];
+        topic.setExtra(makeExtra(type, strings[buffer.getInt()]));
+      }
+      for (int c = buffer.getInt(); c > 0; c--) {
+        topic.setCodeSnippet(strings[buffer.getInt()], strings[buffer.getInt()]);
+      }
+      final int pendingStart = buffer.getInt();
+      if (pendingStart >= 0) {
+        final int pendingEnd = buffer.getInt();
+        if (pendingStart > pendingEnd || pendingEnd > text.length()) {
+          throw new IOException("Wrong range of not parsed children"); //NOI18N
+        }
+        topic.setPendingChildren(text, pendingStart, pendingEnd, buffer.getInt());
+      }
+      topics[i] = topic;
+    }
+
+    if (topics.length > 0) {
+      result.setRoot(topics[0], false);
+      if (!lazyCollapsed) {
+        materializeSubtree(topics[0]);
+      }
+    }
+    return result;
+  }
+}
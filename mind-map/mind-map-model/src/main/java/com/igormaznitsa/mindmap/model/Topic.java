@@ -53,6 +53,8 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
 
   private static final AtomicLong LOCALUID_GENERATOR = new AtomicLong();
 
+  private static final String ATTR_COLLAPSED = "collapsed"; //NOI18N
+
   @Nullable
   private Topic parent;
 
@@ -74,6 +76,9 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
   @Nonnull
   private final List<Topic> unmodifableChildren = Collections.unmodifiableList(this.children);
 
+  @Nullable
+  private volatile PendingChildren pendingChildren;
+
   @Nullable
   private transient Object payload;
 
@@ -82,6 +87,57 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
   @Nonnull
   private final MindMap map;
 
+  /**
+   * Not parsed text of children for lazily loaded collapsed topic. The text
+   * range starts with the first child and contains whole subtree, number of
+   * topics in the subtree is counted by lexer during skip of the text. Level
+   * is the level of the owner topic in the text, levels of children in the
+   * text are counted from it.
+   */
+  private static final class PendingChildren implements Serializable {
+
+    private static final long serialVersionUID = 4021987467341923541L;
+
+    private final String text;
+    private final int start;
+    private final int end;
+    private final int topics;
+    private final int level;
+
+    private PendingChildren(@Nonnull final String text, final int start, final int end, final int topics, final int level) {
+      this.text = text;
+      this.start = start;
+      this.end = end;
+      this.topics = topics;
+      this.level = level;
+    }
+
+    /**
+     * Write the text as is. If the text is ended by next topic then the last
+     * line break is not written because it is written by the next topic.
+     *
+     * @param out writer
+     * @throws IOException it will be thrown for transport error
+     */
+    private void write(@Nonnull final Writer out) throws IOException {
+      int to = this.end;
+      if (to < this.text.length()) {
+        if (to > this.start && this.text.charAt(to - 1) == '\n') {
+          to--;
+          if (to > this.start && this.text.charAt(to - 1) == '\r') {
+            to--;
+          }
+        }
+        out.append(this.text, this.start, to);
+      } else {
+        out.append(this.text, this.start, to);
+        if (to > this.start && this.text.charAt(to - 1) != '\n') {
+          out.append(NEXT_LINE);
+        }
+      }
+    }
+  }
+
   /**
    * Constructor to build topic on base of another topic for another mind map.
    *
@@ -99,10 +155,10 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
     this.codeSnippets.putAll(base.codeSnippets);
 
     if (copyChildren) {
-      for (final Topic t : base.children) {
+      for (final Topic t : base.children()) {
         final Topic clonedChildren = new Topic(mindMap, t, true);
         clonedChildren.parent = this;
-        this.children.add(clonedChildren);
+        this.children().add(clonedChildren);
       }
     }
   }
@@ -115,7 +171,7 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
       if (parent.getMap() != map) {
         throw new IllegalArgumentException("Parent must belong to the same mind map");
       }
-      parent.children.add(this);
+      parent.children().add(this);
     }
   }
 
@@ -136,7 +192,7 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
     if (this == topic) {
       result = true;
     } else {
-      for (final Topic t : this.children) {
+      for (final Topic t : this.children()) {
         if (t.containTopic(topic)) {
           result = true;
           break;
@@ -272,7 +328,7 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
     try {
       boolean noImportantContent = this.text.trim().isEmpty() && this.extras.isEmpty() && canBeDeletedSilently();
       if (noImportantContent) {
-        for (final Topic t : this.children) {
+        for (final Topic t : this.children()) {
           noImportantContent &= t.canBeLost();
           if (!noImportantContent) {
             break;
@@ -288,139 +344,275 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
 
   @Nullable
   public static Topic parse(@Nonnull final MindMap map, @Nonnull final MindMapLexer lexer) throws IOException {
+    return parse(map, lexer, false);
+  }
+
+  /**
+   * Parse topics from lexer.
+   *
+   * @param map mind map to be owner of topics
+   * @param lexer lexer positioned after header of mind map
+   * @param lazyCollapsed if true then children of collapsed topics are not
+   * parsed but kept as text and parsed only when they are requested
+   * @return root topic or null if there is not any topic
+   * @throws IOException it will be thrown for transport errors
+   * @since 1.4.5
+   */
+  @Nullable
+  public static Topic parse(@Nonnull final MindMap map, @Nonnull final MindMapLexer lexer, final boolean lazyCollapsed) throws IOException {
     map.lock();
     try {
-      Topic topic = null;
-      int depth = 0;
+      final Topic topic = parseTopics(map, lexer, null, 0, lazyCollapsed);
+      return topic == null ? null : topic.getRoot();
+    }
+    finally {
+      map.unlock();
+    }
+  }
 
-      Extra.ExtraType extraType = null;
+  @Nullable
+  private static Topic parseTopics(@Nonnull final MindMap map, @Nonnull final MindMapLexer lexer, @Nullable final Topic startTopic, final int startDepth, final boolean lazyCollapsed) {
+    Topic topic = startTopic;
+    int depth = startDepth;
 
-      String codeSnippetlanguage = null;
-      String codeSnippetBody = null;
+    Extra.ExtraType extraType = null;
 
-      int detectedLevel = -1;
-      
-      while (true) {
-        final int oldLexerPosition = lexer.getCurrentPosition().getOffset();
-        lexer.advance();
-        final boolean lexerPositionWasNotChanged = oldLexerPosition == lexer.getCurrentPosition().getOffset();
-        
-        final MindMapLexer.TokenType token = lexer.getTokenType();
-        if (token == null || lexerPositionWasNotChanged) {
-          break;
-        }
-        
-        switch (token) {
-          case TOPIC_LEVEL: {
-            final String tokenText = lexer.getTokenText();
-            detectedLevel = ModelUtils.calcCharsOnStart('#', tokenText);
-          }break;
-          case TOPIC_TITLE: {
-            final String tokenText = ModelUtils.removeISOControls(lexer.getTokenText());
-            final String newTopicText = ModelUtils.unescapeMarkdownStr(tokenText);
-
-            if (detectedLevel == depth + 1) {
-              depth = detectedLevel;
-              topic = new Topic(map, topic, newTopicText);
-            } else if (detectedLevel == depth) {
-              topic = new Topic(map, topic == null ? null : topic.getParent(), newTopicText);
-            } else if (detectedLevel < depth) {
-              if (topic != null) {
-                topic = topic.findParentForDepth(depth - detectedLevel);
-                topic = new Topic(map, topic, newTopicText);
-                depth = detectedLevel;
-              }
-            }
+    String codeSnippetlanguage = null;
+    String codeSnippetBody = null;
+
+    int detectedLevel = -1;
 
+    Topic lazyTopic = null;
+    int lazyTopicLevel = 0;
+    int lazyStart = -1;
+    int lazyTopics = 0;
+
+    while (true) {
+      final int oldLexerPosition = lexer.getCurrentPosition().getOffset();
+      lexer.advance();
+      final boolean lexerPositionWasNotChanged = oldLexerPosition == lexer.getCurrentPosition().getOffset();
+
+      final MindMapLexer.TokenType token = lexer.getTokenType();
+      if (token == null || lexerPositionWasNotChanged) {
+        break;
+      }
+
+      if (lazyStart >= 0) {
+        if (token == MindMapLexer.TokenType.TOPIC_LEVEL) {
+          final int level = ModelUtils.calcCharsOnStart('#', lexer.getTokenText());
+          if (level <= lazyTopicLevel) {
+            Assertions.assertNotNull(lazyTopic).pendingChildren = new PendingChildren(lexer.getBufferSequence().toString(), lazyStart, lexer.getTokenStartOffset(), lazyTopics, lazyTopicLevel);
+            lazyTopic = null;
+            lazyStart = -1;
+            detectedLevel = level;
+          } else {
+            lazyTopics++;
           }
-          break;
-          case EXTRA_TYPE: {
-            final String extraName = lexer.getTokenText().substring(1).trim();
-            try {
-              extraType = Extra.ExtraType.valueOf(extraName);
-            }
-            catch (IllegalArgumentException ex) {
-              extraType = null;
+        }
+        continue;
+      }
+
+      switch (token) {
+        case TOPIC_LEVEL: {
+          final String tokenText = lexer.getTokenText();
+          detectedLevel = ModelUtils.calcCharsOnStart('#', tokenText);
+          if (lazyTopic != null) {
+            if (detectedLevel > lazyTopicLevel) {
+              lazyStart = lexer.getTokenStartOffset();
+              lazyTopics = 1;
+            } else {
+              lazyTopic = null;
             }
           }
-          break;
-          case CODE_SNIPPET_START: {
+        }
+        break;
+        case TOPIC_TITLE: {
+          final String tokenText = ModelUtils.removeISOControls(lexer.getTokenText());
+          final String newTopicText = ModelUtils.unescapeMarkdownStr(tokenText);
+
+          if (detectedLevel == depth + 1) {
+            depth = detectedLevel;
+            topic = new Topic(map, topic, newTopicText);
+          } else if (detectedLevel == depth) {
+            topic = new Topic(map, topic == null ? null : topic.getParent(), newTopicText);
+          } else if (detectedLevel < depth) {
             if (topic != null) {
-              codeSnippetlanguage = lexer.getTokenText().substring(3);
-              codeSnippetBody = "";
+              topic = topic.findParentForDepth(depth - detectedLevel);
+              topic = new Topic(map, topic, newTopicText);
+              depth = detectedLevel;
             }
           }
-          break;
-          case CODE_SNIPPET_BODY: {
-            codeSnippetBody += lexer.getTokenText();
+        }
+        break;
+        case EXTRA_TYPE: {
+          final String extraName = lexer.getTokenText().substring(1).trim();
+          try {
+            extraType = Extra.ExtraType.valueOf(extraName);
           }
-          break;
-          case CODE_SNIPPET_END: {
-            if (topic != null && codeSnippetlanguage != null && codeSnippetBody != null) {
-              topic.codeSnippets.put(codeSnippetlanguage.trim(), codeSnippetBody);
-            }
-            codeSnippetlanguage = null;
-            codeSnippetBody = null;
+          catch (IllegalArgumentException ex) {
+            extraType = null;
           }
-          break;
-          case ATTRIBUTE: {
-            if (topic != null) {
-              final String text = lexer.getTokenText().trim();
-              MindMap.fillMapByAttributes(text, topic.attributes);
+        }
+        break;
+        case CODE_SNIPPET_START: {
+          if (topic != null) {
+            codeSnippetlanguage = lexer.getTokenText().substring(3);
+            codeSnippetBody = "";
+          }
+        }
+        break;
+        case CODE_SNIPPET_BODY: {
+          codeSnippetBody += lexer.getTokenText();
+        }
+        break;
+        case CODE_SNIPPET_END: {
+          if (topic != null && codeSnippetlanguage != null && codeSnippetBody != null) {
+            topic.codeSnippets.put(codeSnippetlanguage.trim(), codeSnippetBody);
+          }
+          codeSnippetlanguage = null;
+          codeSnippetBody = null;
+        }
+        break;
+        case ATTRIBUTE: {
+          if (topic != null) {
+            final String text = lexer.getTokenText().trim();
+            MindMap.fillMapByAttributes(text, topic.attributes);
+            if (lazyCollapsed && topic.parent != null && "true".equalsIgnoreCase(topic.attributes.get(ATTR_COLLAPSED))) { //NOI18N
+              lazyTopic = topic;
+              lazyTopicLevel = depth;
             }
-            extraType = null;
           }
-          break;
-          case EXTRA_TEXT: {
-            if (topic != null && extraType != null) {
-              try {
-                final String text = lexer.getTokenText();
-                final String groupPre = extraType.preprocessString(text.substring(5, text.length() - 6));
-                if (groupPre != null) {
-                  topic.setExtra(extraType.parseLoaded(groupPre));
-                } else {
-                  logger.error("Detected invalid extra data " + extraType);
-                }
-              }
-              catch (Exception ex) {
-                logger.error("Unexpected exception #23241", ex); //NOI18N
-              }
-              finally {
-                extraType = null;
+          extraType = null;
+        }
+        break;
+        case EXTRA_TEXT: {
+          if (topic != null && extraType != null) {
+            try {
+              final String text = lexer.getTokenText();
+              final String groupPre = extraType.preprocessString(text.substring(5, text.length() - 6));
+              if (groupPre != null) {
+                topic.setExtra(extraType.parseLoaded(groupPre));
+              } else {
+                logger.error("Detected invalid extra data " + extraType);
               }
             }
-          }
-          break;
-          case UNKNOWN_LINE: {
-            if (topic != null && extraType != null) {
+            catch (Exception ex) {
+              logger.error("Unexpected exception #23241", ex); //NOI18N
+            }
+            finally {
               extraType = null;
             }
           }
-          break;
-          default:
-            break;
         }
+        break;
+        case UNKNOWN_LINE: {
+          if (topic != null && extraType != null) {
+            extraType = null;
+          }
+        }
+        break;
+        default:
+          break;
       }
-      return topic == null ? null : topic.getRoot();
     }
-    finally {
-      map.unlock();
+
+    if (lazyStart >= 0) {
+      Assertions.assertNotNull(lazyTopic).pendingChildren = new PendingChildren(lexer.getBufferSequence().toString(), lazyStart, lexer.getBufferEnd(), lazyTopics, lazyTopicLevel);
     }
+
+    return topic;
+  }
+
+  /**
+   * Check that the topic has children which have not been parsed yet. Such
+   * children are parsed automatically on any request of them.
+   *
+   * @return true if there are children kept as not parsed text
+   * @since 1.4.5
+   */
+  public boolean hasPendingChildren() {
+    return this.pendingChildren != null;
+  }
+
+  /**
+   * Get number of topics in children which have not been parsed yet. The
+   * number is calculated during skip of the text, so that the call doesn't
+   * make parsing.
+   *
+   * @return number of topics in not parsed subtree, 0 if there are no pending
+   * children
+   * @since 1.4.5
+   */
+  public int getPendingTopicsNumber() {
+    final PendingChildren pending = this.pendingChildren;
+    return pending == null ? 0 : pending.topics;
+  }
+
+  /**
+   * Get range of not parsed text of children in source text of mind map.
+   *
+   * @return array contains start and end offsets or null if there are no
+   * pending children
+   */
+  @Nullable
+  int[] getPendingChildrenRange() {
+    final PendingChildren pending = this.pendingChildren;
+    return pending == null ? null : new int[]{pending.start, pending.end};
+  }
+
+  /**
+   * Set children as not parsed text, they will be parsed on first request.
+   * Levels of children in the text must be counted from the current level of
+   * the topic.
+   *
+   * @param text whole source text of mind map
+   * @param start offset of the first child in the text
+   * @param end end offset of the last child subtree in the text
+   * @param topics number of topics in the text
+   */
+  void setPendingChildren(@Nonnull final String text, final int start, final int end, final int topics) {
+    this.pendingChildren = new PendingChildren(text, start, end, topics, getTopicLevel() + 1);
+  }
+
+  private void materializeChildren() {
+    if (this.pendingChildren != null) {
+      this.map.lock();
+      try {
+        final PendingChildren pending = this.pendingChildren;
+        if (pending != null) {
+          this.pendingChildren = null;
+          final MindMapLexer lexer = new MindMapLexer();
+          lexer.start(pending.text, pending.start, pending.end, MindMapLexer.TokenType.WHITESPACE);
+          parseTopics(this.map, lexer, this, pending.level, true);
+        }
+      }
+      finally {
+        this.map.unlock();
+      }
+    }
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  private List<Topic> children() {
+    materializeChildren();
+    return this.children;
   }
 
   @Nullable
   public Topic getFirst() {
-    return this.children.isEmpty() ? null : this.children.get(0);
+    return this.children().isEmpty() ? null : this.children().get(0);
   }
 
   @Nullable
   public Topic getLast() {
-    return this.children.isEmpty() ? null : this.children.get(this.children.size() - 1);
+    return this.children().isEmpty() ? null : this.children().get(this.children().size() - 1);
   }
 
   @Nonnull
   @MustNotContainNull
   public List<Topic> getChildren() {
+    materializeChildren();
     return this.unmodifableChildren;
   }
 
@@ -493,7 +685,7 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
     try {
       final Topic theParent = this.parent;
       if (theParent != null) {
-        theParent.children.remove(this);
+        theParent.children().remove(this);
       }
     }
     finally {
@@ -512,11 +704,11 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
   }
 
   public boolean isFirstChild(@Nonnull final Topic t) {
-    return !this.children.isEmpty() && this.children.get(0) == t;
+    return !this.children().isEmpty() && this.children().get(0) == t;
   }
 
   public boolean isLastChild(@Nonnull final Topic t) {
-    return !this.children.isEmpty() && this.children.get(this.children.size() - 1) == t;
+    return !this.children().isEmpty() && this.children().get(this.children().size() - 1) == t;
   }
 
   public void setText(@Nonnull final String text) {
@@ -560,10 +752,10 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
     try {
       final Topic theParent = this.parent;
       if (theParent != null) {
-        int thatIndex = theParent.children.indexOf(this);
+        int thatIndex = theParent.children().indexOf(this);
         if (thatIndex > 0) {
-          theParent.children.remove(thatIndex);
-          theParent.children.add(0, this);
+          theParent.children().remove(thatIndex);
+          theParent.children().add(0, this);
           return true;
         }
       }
@@ -590,10 +782,10 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
     try {
       final Topic theParent = this.parent;
       if (theParent != null) {
-        int thatIndex = theParent.children.indexOf(this);
-        if (thatIndex >= 0 && thatIndex != theParent.children.size() - 1) {
-          theParent.children.remove(thatIndex);
-          theParent.children.add(this);
+        int thatIndex = theParent.children().indexOf(this);
+        if (thatIndex >= 0 && thatIndex != theParent.children().size() - 1) {
+          theParent.children().remove(thatIndex);
+          theParent.children().add(this);
           return true;
         }
       }
@@ -609,16 +801,16 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
     try {
       final Topic theParent = this.parent;
       if (theParent != null) {
-        int thatIndex = theParent.children.indexOf(topic);
-        final int thisIndex = theParent.children.indexOf(this);
+        int thatIndex = theParent.children().indexOf(topic);
+        final int thisIndex = theParent.children().indexOf(this);
 
         if (thatIndex > thisIndex) {
           thatIndex--;
         }
 
         if (thatIndex >= 0 && thisIndex >= 0) {
-          theParent.children.remove(this);
-          theParent.children.add(thatIndex, this);
+          theParent.children().remove(this);
+          theParent.children().add(thatIndex, this);
         }
       }
     }
@@ -649,16 +841,16 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
     try {
       final Topic theParent = this.parent;
       if (theParent != null) {
-        int thatIndex = theParent.children.indexOf(topic);
-        int thisIndex = theParent.children.indexOf(this);
+        int thatIndex = theParent.children().indexOf(topic);
+        int thisIndex = theParent.children().indexOf(this);
 
         if (thatIndex > thisIndex) {
           thatIndex--;
         }
 
         if (thatIndex >= 0 && thisIndex >= 0) {
-          theParent.children.remove(this);
-          theParent.children.add(thatIndex + 1, this);
+          theParent.children().remove(this);
+          theParent.children().add(thatIndex + 1, this);
         }
       }
     }
@@ -704,8 +896,15 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
       }
     }
 
-    for (final Topic t : this.children) {
-      t.write(level + 1, out);
+    final PendingChildren pending = this.pendingChildren;
+    if (pending != null && pending.level == level) {
+      // not parsed children are written without parsing if their levels are the same
+      out.append(NEXT_LINE);
+      pending.write(out);
+    } else {
+      for (final Topic t : this.children()) {
+        t.write(level + 1, out);
+      }
     }
   }
 
@@ -738,7 +937,7 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
   public boolean hasChildren() {
     this.map.lock();
     try {
-      return !this.children.isEmpty();
+      return this.pendingChildren != null || !this.children.isEmpty();
     }
     finally {
       this.map.unlock();
@@ -757,7 +956,7 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
         }
       }
 
-      for (final Topic ch : this.children) {
+      for (final Topic ch : this.children()) {
         result |= ch.removeAllLinksTo(topic);
       }
     }
@@ -769,7 +968,7 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
     if (topic == null) {
       return false;
     }
-    final Iterator<Topic> iterator = this.children.iterator();
+    final Iterator<Topic> iterator = this.children().iterator();
     while (iterator.hasNext()) {
       final Topic t = iterator.next();
       if (t == topic) {
@@ -783,21 +982,22 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
   }
 
   public void removeAllChildren() {
+    this.pendingChildren = null;
     this.children.clear();
   }
 
   public boolean moveToNewParent(@Nullable final Topic newParent) {
     this.map.lock();
     try {
-      if (newParent == null || this == newParent || this.getParent() == newParent || this.children.contains(newParent)) {
+      if (newParent == null || this == newParent || this.getParent() == newParent || this.children().contains(newParent)) {
         return false;
       }
 
       final Topic theParent = this.parent;
       if (theParent != null) {
-        theParent.children.remove(this);
+        theParent.children().remove(this);
       }
-      newParent.children.add(this);
+      newParent.children().add(this);
       this.parent = newParent;
 
       return true;
@@ -812,7 +1012,7 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
     this.map.lock();
     try {
       final Topic result = new Topic(this.map, this, GetUtils.ensureNonNull(text, "")); //NOI18N
-      if (afterTheTopic != null && this.children.indexOf(afterTheTopic) >= 0) {
+      if (afterTheTopic != null && this.children().indexOf(afterTheTopic) >= 0) {
         result.moveAfter(afterTheTopic);
       }
       return result;
@@ -829,14 +1029,14 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
       Topic result = null;
       Topic current = this.getParent();
       if (current != null) {
-        final int indexThis = current.children.indexOf(this);
+        final int indexThis = current.children().indexOf(this);
         if (indexThis >= 0) {
-          for (int i = indexThis + 1; i < current.children.size(); i++) {
+          for (int i = indexThis + 1; i < current.children().size(); i++) {
             if (checker == null) {
-              result = current.children.get(i);
+              result = current.children().get(i);
               break;
-            } else if (checker.check(current.children.get(i))) {
-              result = current.children.get(i);
+            } else if (checker.check(current.children().get(i))) {
+              result = current.children().get(i);
               break;
             }
           }
@@ -857,11 +1057,11 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
       Topic result = null;
       Topic current = this.getParent();
       if (current != null) {
-        final int indexThis = current.children.indexOf(this);
+        final int indexThis = current.children().indexOf(this);
         if (indexThis >= 0) {
           for (int i = indexThis - 1; i >= 0; i--) {
-            if (checker.check(current.children.get(i))) {
-              result = current.children.get(i);
+            if (checker.check(current.children().get(i))) {
+              result = current.children().get(i);
               break;
             }
           }
@@ -899,7 +1099,7 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
       return this;
     }
     Topic result = null;
-    for (final Topic c : this.children) {
+    for (final Topic c : this.children()) {
       result = c.findForAttribute(attrName, value);
       if (result != null) {
         break;
@@ -917,7 +1117,7 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
     int index = 1;
     while (index < path.length) {
       final Topic next = path[index];
-      final int theindex = current.children.indexOf(next);
+      final int theindex = current.children().indexOf(next);
       result[index++] = theindex;
       if (theindex < 0) {
         break;
@@ -946,8 +1146,14 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
     this.map.lock();
     try {
       final Topic result = new Topic(newMindMap, parent, this.text, this.extras.values().toArray(new Extra<?>[this.extras.values().size()]));
-      for (final Topic c : this.children) {
-        c.makeCopy(newMindMap, result);
+      final PendingChildren pending = this.pendingChildren;
+      if (pending == null) {
+        for (final Topic c : this.children()) {
+          c.makeCopy(newMindMap, result);
+        }
+      } else {
+        // not parsed text is immutable so that it can be shared by the copy
+        result.pendingChildren = pending;
       }
       result.attributes.putAll(this.attributes);
       result.codeSnippets.putAll(this.codeSnippets);
@@ -967,7 +1173,7 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
       for (final Extra.ExtraType t : type) {
         result |= this.extras.remove(t) != null;
       }
-      for (final Topic c : this.children) {
+      for (final Topic c : this.children()) {
         result |= c.removeExtraFromSubtree(type);
       }
       return result;
@@ -985,7 +1191,7 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
       for (final String t : names) {
         result |= this.attributes.remove(t) != null;
       }
-      for (final Topic c : this.children) {
+      for (final Topic c : this.children()) {
         result |= c.removeAttributeFromSubtree(names);
       }
       return result;
@@ -1003,7 +1209,7 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
         result = this.extras.remove(Extra.ExtraType.FILE) != null;
       }
     }
-    for (final Topic c : this.children) {
+    for (final Topic c : this.children()) {
       result |= c.deleteLinkToFileIfPresented(baseFolder, file);
     }
     return result;
@@ -1028,12 +1234,60 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
       }
     }
 
-    for (final Topic c : this.children) {
+    for (final Topic c : this.children()) {
       result |= c.replaceLinkToFileIfPresented(baseFolder, oldFile, newFile);
     }
     return result;
   }
 
+  boolean deleteLinksToFiles(@Nonnull final FilePathTrie<?> files) {
+    boolean result = false;
+    final ExtraFile fileLink = (ExtraFile) this.extras.get(Extra.ExtraType.FILE);
+    if (fileLink != null && files.find(fileLink, false) != null) {
+      result = this.extras.remove(Extra.ExtraType.FILE) != null;
+    }
+    for (final Topic c : this.children()) {
+      result |= c.deleteLinksToFiles(files);
+    }
+    return result;
+  }
+
+  boolean replaceLinksToFiles(@Nonnull final FilePathTrie<MMapURI> files) {
+    boolean result = false;
+    final ExtraFile fileLink = (ExtraFile) this.extras.get(Extra.ExtraType.FILE);
+    if (fileLink != null) {
+      final FilePathTrie.Match<MMapURI> found = files.find(fileLink, false);
+      if (found != null && found.getValue() != null) {
+        final ExtraFile replacement;
+        if (found.isSame()) {
+          replacement = new ExtraFile(found.getValue());
+        } else {
+          replacement = fileLink.replaceParentSegments(files.getBaseFolder(), found.getMatchedSegments(), found.getValue());
+        }
+        result = true;
+        this.extras.remove(Extra.ExtraType.FILE);
+        this.extras.put(Extra.ExtraType.FILE, replacement);
+      }
+    }
+    for (final Topic c : this.children()) {
+      result |= c.replaceLinksToFiles(files);
+    }
+    return result;
+  }
+
+  boolean doesContainLinkToAnyFile(@Nonnull final FilePathTrie<?> files) {
+    final ExtraFile fileLink = (ExtraFile) this.extras.get(Extra.ExtraType.FILE);
+    if (fileLink != null && files.find(fileLink, true) != null) {
+      return true;
+    }
+    for (final Topic c : this.children()) {
+      if (c.doesContainLinkToAnyFile(files)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   public boolean doesContainFileLink(@Nonnull final File baseFolder, @Nonnull final MMapURI file) {
     if (this.extras.containsKey(Extra.ExtraType.FILE)) {
       final ExtraFile fileLink = (ExtraFile) this.extras.get(Extra.ExtraType.FILE);
@@ -1041,7 +1295,7 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
         return true;
       }
     }
-    for (final Topic c : this.children) {
+    for (final Topic c : this.children()) {
       if (c.doesContainFileLink(baseFolder, file)) {
         return true;
       }
@@ -1052,7 +1306,7 @@ public final class Topic implements Serializable, Constants, Iterable<Topic> {
   @Override
   @Nonnull
   public Iterator<Topic> iterator() {
-    final Iterator<Topic> iter = this.children.iterator();
+    final Iterator<Topic> iter = this.children().iterator();
 
     return new Iterator<Topic>() {
       Topic childTopic;
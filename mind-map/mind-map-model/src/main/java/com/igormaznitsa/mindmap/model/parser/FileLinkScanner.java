@@ -0,0 +1,149 @@
+/*
+ * Copyright 2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.model.parser;
+
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
+import com.igormaznitsa.mindmap.model.Extra;
+import com.igormaznitsa.mindmap.model.ExtraFile;
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nonnull;
+
+/**
+ * Lightweight scanner of mind map text which extracts only file links. It
+ * works over lexer tokens and doesn't make any topic, so that it is much
+ * faster than full mind map parsing when only file links are needed.
+ *
+ * @since 1.2.5
+ */
+public final class FileLinkScanner {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FileLinkScanner.class);
+
+  /**
+   * Visitor to get found file links.
+   */
+  public interface Visitor {
+
+    /**
+     * Called for each found file link.
+     *
+     * @param link found file link, must not be null
+     * @return true if scanning should be continued, false to stop it
+     */
+    boolean onFileLink(@Nonnull ExtraFile link);
+  }
+
+  private FileLinkScanner() {
+  }
+
+  /**
+   * Find all file links in mind map text.
+   *
+   * @param text mind map text, must not be null
+   * @return list of found file links in order of their position in text
+   * @throws IllegalArgumentException if the text is not mind map
+   */
+  @Nonnull
+  @MustNotContainNull
+  public static List<ExtraFile> findFileLinks(@Nonnull final CharSequence text) {
+    final List<ExtraFile> result = new ArrayList<ExtraFile>();
+    scan(text, new Visitor() {
+      @Override
+      public boolean onFileLink(@Nonnull final ExtraFile link) {
+        result.add(link);
+        return true;
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Scan mind map text and notify visitor about each found file link.
+   *
+   * @param text mind map text, must not be null
+   * @param visitor visitor to get found links, must not be null
+   * @return true if whole text has been scanned, false if scanning has been
+   * stopped by visitor
+   * @throws IllegalArgumentException if the text is not mind map
+   */
+  public static boolean scan(@Nonnull final CharSequence text, @Nonnull final Visitor visitor) {
+    final MindMapLexer lexer = new MindMapLexer();
+    lexer.start(text, 0, text.length(), MindMapLexer.TokenType.HEAD_LINE);
+
+    boolean headerEnded = false;
+    boolean topicDetected = false;
+    boolean fileExtraExpected = false;
+
+    while (true) {
+      final int oldLexerPosition = lexer.getCurrentPosition().getOffset();
+      lexer.advance();
+      final MindMapLexer.TokenType token = lexer.getTokenType();
+      if (token == null || oldLexerPosition == lexer.getCurrentPosition().getOffset()) {
+        break;
+      }
+
+      switch (token) {
+        case HEAD_DELIMITER: {
+          headerEnded = true;
+        }
+        break;
+        case TOPIC_TITLE: {
+          topicDetected = headerEnded;
+        }
+        break;
+        case EXTRA_TYPE: {
+          fileExtraExpected = topicDetected && Extra.ExtraType.FILE.name().equals(lexer.getTokenText().substring(1).trim());
+        }
+        break;
+        case EXTRA_TEXT: {
+          if (fileExtraExpected) {
+            fileExtraExpected = false;
+            final String tokenText = lexer.getTokenText();
+            final String uri = Extra.ExtraType.FILE.preprocessString(tokenText.substring(5, tokenText.length() - 6));
+            if (uri == null) {
+              LOGGER.warn("Detected invalid file link : " + tokenText);
+            } else {
+              try {
+                if (!visitor.onFileLink((ExtraFile) Extra.ExtraType.FILE.parseLoaded(uri))) {
+                  return false;
+                }
+              } catch (Exception ex) {
+                LOGGER.warn("Can't parse file link : " + uri);
+              }
+            }
+          }
+        }
+        break;
+        case ATTRIBUTE:
+        case UNKNOWN_LINE: {
+          fileExtraExpected = false;
+        }
+        break;
+        default:
+          break;
+      }
+    }
+
+    if (!headerEnded) {
+      throw new IllegalArgumentException("Wrong format of mind map, end of header is not found");
+    }
+
+    return true;
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.model;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.StringReader;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MindMapBinaryCacheTest {
+
+  private static final String MAP_TEXT = "Mind Map generated by NB MindMap plugin   \n"
+      + "> __version__=`1.1`,someattr=`hello`\n"
+      + "---\n"
+      + "# root\n"
+      + "\n"
+      + "## child1 \\# escaped\n"
+      + "> collapsed=`true`,fillColor=`#ff0000`\n"
+      + "\n"
+      + "- NOTE\n"
+      + "<pre>some &lt;note&gt;</pre>\n"
+      + "\n"
+      + "- LINK\n"
+      + "<pre>http://www.igormaznitsa.com</pre>\n"
+      + "\n"
+      + "- FILE\n"
+      + "<pre>file:///some/file.txt?line=12</pre>\n"
+      + "\n"
+      + "```Java\n"
+      + "System.exit(0);\n"
+      + "```\n"
+      + "\n"
+      + "### child1.1\n"
+      + "\n"
+      + "## child2\n"
+      + "> topicLinkUID=`15F4A4A89F0A`\n"
+      + "\n"
+      + "- TOPIC\n"
+      + "<pre>15F4A4A89F0A</pre>\n";
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void testWriteReadSnapshot() throws Exception {
+    final MindMap map = new MindMap(null, new StringReader(MAP_TEXT));
+    final byte[] hash = MindMapBinaryCache.makeHash(MAP_TEXT.getBytes("UTF-8"));
+    final File snapshot = new File(tempFolder.getRoot(), "test.mmdc");
+
+    MindMapBinaryCache.writeSnapshot(map, hash, snapshot);
+    assertTrue(snapshot.isFile());
+
+    final MindMap restored = MindMapBinaryCache.readSnapshot(null, snapshot, hash, MAP_TEXT, false);
+    assertNotNull(restored);
+    assertEquals(map.packToString(), restored.packToString());
+    assertEquals("hello", restored.getAttribute("someattr"));
+    assertEquals("child1 # escaped", restored.getRoot().getChildren().get(0).getText());
+    assertEquals("some <note>", restored.getRoot().getChildren().get(0).getExtras().get(Extra.ExtraType.NOTE).getValue());
+
+    assertNull(MindMapBinaryCache.readSnapshot(null, snapshot, MindMapBinaryCache.makeHash(new byte[]{1, 2, 3}), MAP_TEXT, false));
+  }
+
+  @Test
+  public void testWriteReadSnapshot_CollapsedChildrenKeptNotParsed() throws Exception {
+    final MindMap map = new MindMap(null, new StringReader(MAP_TEXT), true);
+    assertTrue(map.getRoot().getChildren().get(0).hasPendingChildren());
+    final byte[] hash = MindMapBinaryCache.makeHash(MAP_TEXT.getBytes("UTF-8"));
+    final File snapshot = new File(tempFolder.getRoot(), "test.mmdc");
+
+    MindMapBinaryCache.writeSnapshot(map, hash, snapshot);
+
+    final MindMap lazy = MindMapBinaryCache.readSnapshot(null, snapshot, hash, MAP_TEXT, true);
+    assertNotNull(lazy);
+    final Topic collapsed = lazy.getRoot().getChildren().get(0);
+    assertTrue(collapsed.hasPendingChildren());
+    assertEquals(1, collapsed.getPendingTopicsNumber());
+    assertEquals("child1.1", collapsed.getChildren().get(0).getText());
+    assertFalse(collapsed.hasPendingChildren());
+
+    final MindMap full = MindMapBinaryCache.readSnapshot(null, snapshot, hash, MAP_TEXT, false);
+    assertNotNull(full);
+    assertFalse(full.getRoot().getChildren().get(0).hasPendingChildren());
+    assertEquals(new MindMap(null, new StringReader(MAP_TEXT)).packToString(), full.packToString());
+  }
+
+  @Test
+  public void testLoad_RebuildsSnapshotForChangedText() throws Exception {
+    final File cacheFolder = tempFolder.newFolder("cache");
+    final File mapFile = tempFolder.newFile("test.mmd");
+    FileUtils.writeStringToFile(mapFile, MAP_TEXT, "UTF-8");
+
+    final MindMapBinaryCache cache = new MindMapBinaryCache(cacheFolder);
+    try {
+      final MindMap parsed = cache.load(null, mapFile, false);
+      waitForSnapshots(cacheFolder, 1);
+
+      final MindMap cached = cache.load(null, mapFile, false);
+      assertEquals(parsed.packToString(), cached.packToString());
+
+      final String changedText = MAP_TEXT.replace("child2", "changed");
+      FileUtils.writeStringToFile(mapFile, changedText, "UTF-8");
+      final MindMap changed = cache.load(null, mapFile, false);
+      assertEquals("changed", changed.getRoot().getChildren().get(1).getText());
+    } finally {
+      cache.dispose();
+    }
+  }
+
+  @Test
+  public void testLoad_BrokenSnapshotIsIgnored() throws Exception {
+    final File cacheFolder = tempFolder.newFolder("cache");
+    final File mapFile = tempFolder.newFile("test.mmd");
+    FileUtils.writeStringToFile(mapFile, MAP_TEXT, "UTF-8");
+
+    final MindMapBinaryCache cache = new MindMapBinaryCache(cacheFolder);
+    try {
+      cache.load(null, mapFile, false);
+      final File snapshot = waitForSnapshots(cacheFolder, 1)[0];
+      final byte[] data = FileUtils.readFileToByteArray(snapshot);
+      final byte[] truncated = new byte[data.length / 2];
+      System.arraycopy(data, 0, truncated, 0, truncated.length);
+      FileUtils.writeByteArrayToFile(snapshot, truncated);
+
+      final MindMap loaded = cache.load(null, mapFile, false);
+      assertEquals("child2", loaded.getRoot().getChildren().get(1).getText());
+    } finally {
+      cache.dispose();
+    }
+  }
+
+  private static File[] waitForSnapshots(final File folder, final int number) throws Exception {
+    for (int i = 0; i < 500; i++) {
+      final File[] files = folder.listFiles();
+      if (files != null && files.length == number && files[0].getName().endsWith(".mmdc")) {
+        return files;
+      }
+      Thread.sleep(10L);
+    }
+    fail("Snapshot is not created");
+    return null;
+  }
+}
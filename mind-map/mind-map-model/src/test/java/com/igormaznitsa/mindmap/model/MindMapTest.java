@@ -23,9 +23,14 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.List;
 import java.util.regex.Pattern;
+import javax.annotation.Nonnull;
 
 public class MindMapTest {
   
@@ -190,4 +195,172 @@ public class MindMapTest {
     final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray()));
     assertTrue(in.readObject() instanceof MindMap);
   }
+
+  @Nonnull
+  private static MindMap makeMapWithFileLinks(@Nonnull final String... links) throws Exception {
+    final MindMap map = new MindMap(null, true);
+    for (final String l : links) {
+      new Topic(map, map.getRoot(), l, new ExtraFile(l));
+    }
+    return map;
+  }
+
+  @Nonnull
+  private static List<String> collectFileLinks(@Nonnull final MindMap map) {
+    final List<String> result = new ArrayList<String>();
+    for (final Topic t : map) {
+      final ExtraFile file = (ExtraFile) t.getExtras().get(Extra.ExtraType.FILE);
+      if (file != null) {
+        result.add(file.getNormalizedPath(null));
+      }
+    }
+    return result;
+  }
+
+  @Test
+  public void testDeleteAllLinksToFiles() throws Exception {
+    final MindMap map = makeMapWithFileLinks("file:///base/a/one.txt", "file:///base/a/b/two.txt", "file:///base/ab/three.txt", "file:///base/c.txt", "file:///other/d.txt");
+    assertTrue(map.deleteAllLinksToFiles(null, Arrays.asList(new MMapURI("file:///base/a"), new MMapURI("file:///base/c.txt"), new MMapURI("file:///base/c"))));
+    assertEquals(Arrays.asList(new File("/base/ab/three.txt").getAbsolutePath(), new File("/other/d.txt").getAbsolutePath()), collectFileLinks(map));
+    assertFalse(map.deleteAllLinksToFiles(null, Arrays.asList(new MMapURI("file:///base/a"))));
+  }
+
+  @Test
+  public void testReplaceAllLinksToFiles() throws Exception {
+    final MindMap map = makeMapWithFileLinks("file:///base/a/one.txt", "file:///base/a/b/two.txt", "file:///base/ab/three.txt", "file:///base/c.txt");
+    final Map<MMapURI, MMapURI> renamed = new HashMap<MMapURI, MMapURI>();
+    renamed.put(new MMapURI("file:///base/a"), new MMapURI("file:///moved/a"));
+    renamed.put(new MMapURI("file:///base/a/b"), new MMapURI("file:///deep/b"));
+    renamed.put(new MMapURI("file:///base/c.txt"), new MMapURI("file:///base/z.txt"));
+    assertTrue(map.replaceAllLinksToFiles(null, renamed));
+    assertEquals(Arrays.asList(
+        new File("/moved/a/one.txt").getAbsolutePath(),
+        new File("/deep/b/two.txt").getAbsolutePath(),
+        new File("/base/ab/three.txt").getAbsolutePath(),
+        new File("/base/z.txt").getAbsolutePath()), collectFileLinks(map));
+  }
+
+  @Test
+  public void testReplaceAllLinksToFile_SameAsForExtraFile() throws Exception {
+    final MindMap map = makeMapWithFileLinks("file:///base/a/one.txt", "file:///base/ab/two.txt");
+    assertTrue(map.replaceAllLinksToFile(new File("/base"), new MMapURI("file:///base/a"), new MMapURI("file:///base/x")));
+    assertEquals(Arrays.asList(new File("/base/x/one.txt").getAbsolutePath(), new File("/base/ab/two.txt").getAbsolutePath()), collectFileLinks(map));
+    assertTrue(map.doesContainFileLink(new File("/base"), new MMapURI("file:///base/x/one.txt")));
+    assertFalse(map.doesContainFileLink(new File("/base"), new MMapURI("file:///base/x")));
+  }
+
+  private static final String LAZY_MAP_TEXT = "Mind Map generated by NB MindMap plugin   \n"
+      + "> __version__=`1.1`\n"
+      + "---\n"
+      + "# root\n"
+      + "\n"
+      + "## child1\n"
+      + "> collapsed=`true`\n"
+      + "\n"
+      + "- NOTE\n"
+      + "<pre>note1</pre>\n"
+      + "\n"
+      + "### child1.1\n"
+      + "```Java\n"
+      + "# not topic\n"
+      + "```\n"
+      + "\n"
+      + "#### child1.1.1\n"
+      + "> collapsed=`true`\n"
+      + "\n"
+      + "##### child1.1.1.1\n"
+      + "\n"
+      + "### child1.2\n"
+      + "\n"
+      + "## child2\n"
+      + "> collapsed=`true`\n"
+      + "\n"
+      + "### child2.1\n";
+
+  @Test
+  public void testLazyCollapsed_ParsedOnRequest() throws Exception {
+    final MindMap map = new MindMap(null, new StringReader(LAZY_MAP_TEXT), true);
+    final Topic root = map.getRoot();
+    assertFalse(root.hasPendingChildren());
+
+    final Topic child1 = root.getChildren().get(0);
+    final Topic child2 = root.getChildren().get(1);
+    assertEquals("child1", child1.getText());
+    assertEquals("note1", child1.getExtras().get(Extra.ExtraType.NOTE).getValue());
+    assertEquals("child2", child2.getText());
+    assertTrue(child1.hasPendingChildren());
+    assertTrue(child1.hasChildren());
+    assertTrue(child2.hasPendingChildren());
+    assertEquals(4, child1.getPendingTopicsNumber());
+    assertEquals(1, child2.getPendingTopicsNumber());
+
+    assertEquals(2, child1.getChildren().size());
+    assertFalse(child1.hasPendingChildren());
+    assertEquals(0, child1.getPendingTopicsNumber());
+    assertEquals(1, child1.getChildren().get(0).getChildren().get(0).getPendingTopicsNumber());
+    final Topic child11 = child1.getChildren().get(0);
+    assertEquals("child1.1", child11.getText());
+    assertEquals("# not topic\n", child11.getCodeSnippet("Java"));
+    assertEquals("child1.2", child1.getChildren().get(1).getText());
+    assertTrue(child11.getChildren().get(0).hasPendingChildren());
+    assertEquals("child1.1.1.1", child11.getChildren().get(0).getChildren().get(0).getText());
+
+    assertTrue(child2.hasPendingChildren());
+  }
+
+  @Test
+  public void testLazyCollapsed_SameAsEagerForWriteAndSearch() throws Exception {
+    final MindMap eager = new MindMap(null, new StringReader(LAZY_MAP_TEXT));
+    final MindMap lazy = new MindMap(null, new StringReader(LAZY_MAP_TEXT), true);
+
+    final Topic found = lazy.findNext(null, null, Pattern.compile("child2\\.1"), true, null);
+    assertNotNull(found);
+    assertEquals("child2", found.getParent().getText());
+
+    final String lazyText = new MindMap(null, new StringReader(LAZY_MAP_TEXT), true).packToString();
+    assertEquals(eager.packToString(), new MindMap(null, new StringReader(lazyText)).packToString());
+  }
+
+  @Test
+  public void testLazyCollapsed_WriteDoesntParsePendingChildren() throws Exception {
+    final String text = new MindMap(null, new StringReader(LAZY_MAP_TEXT)).packToString();
+    final MindMap lazy = new MindMap(null, new StringReader(text), true);
+    final Topic child1 = lazy.getRoot().getChildren().get(0);
+
+    assertEquals(text, lazy.packToString());
+    assertTrue(child1.hasPendingChildren());
+    assertTrue(lazy.getRoot().getChildren().get(1).hasPendingChildren());
+
+    assertEquals(text, new MindMap(null, new StringReader(lazy.packToString()), true).packToString());
+  }
+
+  @Test
+  public void testLazyCollapsed_WriteMovedPendingTopic() throws Exception {
+    final MindMap eager = new MindMap(null, new StringReader(LAZY_MAP_TEXT));
+    final MindMap lazy = new MindMap(null, new StringReader(LAZY_MAP_TEXT), true);
+
+    assertTrue(eager.getRoot().getChildren().get(0).moveToNewParent(eager.getRoot().getChildren().get(1)));
+    assertTrue(lazy.getRoot().getChildren().get(0).moveToNewParent(lazy.getRoot().getChildren().get(1)));
+    final Topic pending = lazy.getRoot().getChildren().get(0).getChildren().get(1).getChildren().get(0).getChildren().get(0);
+    assertEquals("child1.1.1", pending.getText());
+    assertTrue(pending.hasPendingChildren());
+
+    assertEquals(eager.packToString(), new MindMap(null, new StringReader(lazy.packToString())).packToString());
+    assertEquals("child1.1.1.1", pending.getChildren().get(0).getText());
+    assertEquals(5, pending.getChildren().get(0).getTopicLevel());
+  }
+
+  @Test
+  public void testLazyCollapsed_CopyKeepsPendingChildren() throws Exception {
+    final MindMap eager = new MindMap(null, new StringReader(LAZY_MAP_TEXT));
+    final MindMap lazy = new MindMap(null, new StringReader(LAZY_MAP_TEXT), true);
+
+    final MindMap copy = new MindMap(lazy, null);
+    assertTrue(lazy.getRoot().getChildren().get(0).hasPendingChildren());
+    assertTrue(copy.getRoot().getChildren().get(0).hasPendingChildren());
+
+    assertEquals(eager.packToString(), new MindMap(null, new StringReader(copy.packToString())).packToString());
+    assertTrue(lazy.getRoot().getChildren().get(0).hasPendingChildren());
+    assertSame(copy, copy.getRoot().getChildren().get(0).getChildren().get(0).getMap());
+  }
 }
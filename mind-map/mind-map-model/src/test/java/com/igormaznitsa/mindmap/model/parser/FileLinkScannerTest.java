@@ -0,0 +1,64 @@
+/*
+ * Copyright 2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.model.parser;
+
+import com.igormaznitsa.mindmap.model.ExtraFile;
+import java.util.List;
+import javax.annotation.Nonnull;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class FileLinkScannerTest {
+
+  private static final String TEXT = "Mind Map generated by NB MindMap plugin\n"
+      + "> __version__=`1.1`\n"
+      + "---\n"
+      + "\n# Root\n"
+      + "- FILE\n<pre>/some/file.txt</pre>\n"
+      + "\n## First\n"
+      + "- NOTE\n<pre>- FILE</pre>\n"
+      + "- LINK\n<pre>http://www.google.com</pre>\n"
+      + "\n## Second\n"
+      + "- FILE\n<pre>doc/another.mmd</pre>\n";
+
+  @Test
+  public void testFindFileLinks() {
+    final List<ExtraFile> links = FileLinkScanner.findFileLinks(TEXT);
+    assertEquals(2, links.size());
+    assertEquals("/some/file.txt", links.get(0).getValue().asString(false, false));
+    assertFalse(links.get(0).isMMDFile());
+    assertEquals("doc/another.mmd", links.get(1).getValue().asString(false, false));
+    assertTrue(links.get(1).isMMDFile());
+  }
+
+  @Test
+  public void testScan_Stop() {
+    final int[] counter = new int[1];
+    assertFalse(FileLinkScanner.scan(TEXT, new FileLinkScanner.Visitor() {
+      @Override
+      public boolean onFileLink(@Nonnull final ExtraFile link) {
+        counter[0]++;
+        return false;
+      }
+    }));
+    assertEquals(1, counter[0]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNotMindMap() {
+    FileLinkScanner.findFileLinks("Just a text\n- FILE\n<pre>/some/file.txt</pre>\n");
+  }
+}
@@ -25,6 +25,7 @@ import com.igormaznitsa.mindmap.plugins.api.MindMapPlugin;
 import com.igormaznitsa.mindmap.plugins.attributes.emoticon.EmoticonPopUpMenuPlugin;
 import com.igormaznitsa.mindmap.plugins.attributes.emoticon.EmoticonVisualAttributePlugin;
 import com.igormaznitsa.mindmap.plugins.attributes.images.ImagePopUpMenuPlugin;
+import com.igormaznitsa.mindmap.plugins.attributes.images.ImageStorageModePlugin;
 import com.igormaznitsa.mindmap.plugins.attributes.images.ImageVisualAttributePlugin;
 import com.igormaznitsa.mindmap.plugins.exporters.*;
 import com.igormaznitsa.mindmap.plugins.importers.*;
@@ -49,7 +50,140 @@ public final class MindMapPluginRegistry implements Iterable<MindMapPlugin> {
   private static final Logger LOGGER = LoggerFactory.getLogger(MindMapPluginRegistry.class);
   private static final MindMapPluginRegistry INSTANCE = new MindMapPluginRegistry();
   private final List<MindMapPlugin> pluginList = new ArrayList<MindMapPlugin>();
-  private final Map<Class<? extends MindMapPlugin>, List<? extends MindMapPlugin>> FIND_CACHE = new HashMap<Class<? extends MindMapPlugin>, List<? extends MindMapPlugin>>();
+  private final List<DeferredPlugin> deferredList = new ArrayList<DeferredPlugin>();
+  private final Object lock = new Object();
+  private volatile Snapshot snapshot = new Snapshot(Collections.<MindMapPlugin>emptyList(), Collections.<DeferredPlugin>emptyList());
+
+  /**
+   * Plugin which is registered without loading, it is loaded on first request
+   * to any of its extension points.
+   *
+   * @since 1.4.5
+   */
+  public interface DeferredPlugin {
+
+    /**
+     * Get names of all classes and interfaces implemented by the plugin.
+     *
+     * @return set of class names or null if they are unknown, in the case the
+     * plugin will be loaded for request to any extension point
+     */
+    @Nullable
+    @MustNotContainNull
+    Set<String> getExtensionPoints();
+
+    /**
+     * Load the plugin. The method can be called from different threads and
+     * must return the same instance for all calls.
+     *
+     * @return loaded plugin or null if it is impossible to load it
+     * @throws Exception if there is any error during loading
+     */
+    @Nullable
+    MindMapPlugin load() throws Exception;
+  }
+
+  /**
+   * Immutable state of registry, pre-indexed by all types of plugins and by
+   * mnemonics of exporters and importers. New snapshot is made for every
+   * change of plugin list so that readers don't need any synchronization.
+   */
+  private static final class Snapshot {
+
+    private final List<MindMapPlugin> plugins;
+    private final Map<Class<?>, List<? extends MindMapPlugin>> byClass;
+    private final Map<String, AbstractExporter> exporters;
+    private final Map<String, AbstractImporter> importers;
+    private final Map<String, List<DeferredPlugin>> deferredByClassName;
+    private final List<DeferredPlugin> deferredForAny;
+
+    private Snapshot(@Nonnull @MustNotContainNull final List<MindMapPlugin> sortedPlugins, @Nonnull @MustNotContainNull final List<DeferredPlugin> deferred) {
+      this.plugins = Collections.unmodifiableList(new ArrayList<MindMapPlugin>(sortedPlugins));
+
+      final Map<Class<?>, List<MindMapPlugin>> index = new HashMap<Class<?>, List<MindMapPlugin>>();
+      final Map<String, AbstractExporter> exporterMap = new HashMap<String, AbstractExporter>();
+      final Map<String, AbstractImporter> importerMap = new HashMap<String, AbstractImporter>();
+
+      for (final MindMapPlugin p : this.plugins) {
+        for (final Class<?> type : collectTypes(p.getClass(), new LinkedHashSet<Class<?>>())) {
+          List<MindMapPlugin> list = index.get(type);
+          if (list == null) {
+            list = new ArrayList<MindMapPlugin>();
+            index.put(type, list);
+          }
+          list.add(p);
+        }
+
+        if (p instanceof AbstractExporter) {
+          final String mnemonic = ((AbstractExporter) p).getMnemonic();
+          if (mnemonic != null && !exporterMap.containsKey(mnemonic)) {
+            exporterMap.put(mnemonic, (AbstractExporter) p);
+          }
+        }
+        if (p instanceof AbstractImporter) {
+          final String mnemonic = ((AbstractImporter) p).getMnemonic();
+          if (mnemonic != null && !importerMap.containsKey(mnemonic)) {
+            importerMap.put(mnemonic, (AbstractImporter) p);
+          }
+        }
+      }
+
+      final Map<Class<?>, List<? extends MindMapPlugin>> immutableIndex = new HashMap<Class<?>, List<? extends MindMapPlugin>>();
+      for (final Map.Entry<Class<?>, List<MindMapPlugin>> e : index.entrySet()) {
+        immutableIndex.put(e.getKey(), Collections.unmodifiableList(e.getValue()));
+      }
+
+      this.byClass = immutableIndex;
+      this.exporters = exporterMap;
+      this.importers = importerMap;
+
+      final Map<String, List<DeferredPlugin>> deferredIndex = new HashMap<String, List<DeferredPlugin>>();
+      final List<DeferredPlugin> deferredUnknown = new ArrayList<DeferredPlugin>();
+      for (final DeferredPlugin d : deferred) {
+        final Set<String> extensionPoints = d.getExtensionPoints();
+        if (extensionPoints == null) {
+          deferredUnknown.add(d);
+        } else {
+          for (final String className : extensionPoints) {
+            List<DeferredPlugin> list = deferredIndex.get(className);
+            if (list == null) {
+              list = new ArrayList<DeferredPlugin>();
+              deferredIndex.put(className, list);
+            }
+            list.add(d);
+          }
+        }
+      }
+      this.deferredByClassName = deferredIndex;
+      this.deferredForAny = deferredUnknown;
+    }
+
+    @Nonnull
+    @MustNotContainNull
+    private List<DeferredPlugin> findDeferred(@Nonnull final Class<?> type) {
+      if (this.deferredByClassName.isEmpty() && this.deferredForAny.isEmpty()) {
+        return Collections.emptyList();
+      }
+      final List<DeferredPlugin> result = new ArrayList<DeferredPlugin>(this.deferredForAny);
+      final List<DeferredPlugin> forType = this.deferredByClassName.get(type.getName());
+      if (forType != null) {
+        result.addAll(forType);
+      }
+      return result;
+    }
+
+    @Nonnull
+    @MustNotContainNull
+    private static Set<Class<?>> collectTypes(@Nullable final Class<?> type, @Nonnull @MustNotContainNull final Set<Class<?>> result) {
+      if (type != null && type != Object.class && result.add(type)) {
+        collectTypes(type.getSuperclass(), result);
+        for (final Class<?> i : type.getInterfaces()) {
+          collectTypes(i, result);
+        }
+      }
+      return result;
+    }
+  }
 
   private MindMapPluginRegistry() {
     registerPlugin(new FreeMindExporter());
@@ -91,6 +225,7 @@ public final class MindMapPluginRegistry implements Iterable<MindMapPlugin> {
 
     registerPlugin(new ImagePopUpMenuPlugin());
     registerPlugin(new ImageVisualAttributePlugin());
+    registerPlugin(new ImageStorageModePlugin());
   }
 
   @Nonnull
@@ -99,16 +234,16 @@ public final class MindMapPluginRegistry implements Iterable<MindMapPlugin> {
   }
 
   public void registerPlugin(@Nonnull final MindMapPlugin plugin) {
-    synchronized (FIND_CACHE) {
+    synchronized (this.lock) {
       this.pluginList.add(assertNotNull(plugin));
       LOGGER.info("Registered plugin " + plugin.getClass().getName());
       Collections.sort(this.pluginList);
-      FIND_CACHE.clear();
+      updateSnapshot();
     }
   }
 
   public void unregisterPluginForClass(@Nonnull final Class<? extends MindMapPlugin> pluginClass) {
-    synchronized (FIND_CACHE) {
+    synchronized (this.lock) {
       final Iterator<MindMapPlugin> iterator = this.pluginList.iterator();
       while (iterator.hasNext()) {
         final MindMapPlugin plugin = iterator.next();
@@ -117,91 +252,123 @@ public final class MindMapPluginRegistry implements Iterable<MindMapPlugin> {
           iterator.remove();
         }
       }
+      updateSnapshot();
     }
   }
 
   public void unregisterPlugin(@Nonnull final MindMapPlugin plugin) {
-    synchronized (FIND_CACHE) {
+    synchronized (this.lock) {
       if (this.pluginList.remove(assertNotNull(plugin))) {
         LOGGER.info("Unregistered plugin " + plugin.getClass().getName());
         Collections.sort(this.pluginList);
       }
-      FIND_CACHE.clear();
+      updateSnapshot();
     }
   }
 
-  public int size() {
-    synchronized (FIND_CACHE) {
-      return this.pluginList.size();
+  /**
+   * Register plugin which will be loaded on first request to any of its
+   * extension points.
+   *
+   * @param plugin deferred plugin, must not be null
+   * @since 1.4.5
+   */
+  public void registerDeferredPlugin(@Nonnull final DeferredPlugin plugin) {
+    synchronized (this.lock) {
+      this.deferredList.add(assertNotNull(plugin));
+      updateSnapshot();
     }
   }
 
+  /**
+   * Load deferred plugin and register it, do nothing if the plugin has been
+   * already loaded.
+   *
+   * @param plugin deferred plugin, must not be null
+   * @since 1.4.5
+   */
+  public void loadDeferredPlugin(@Nonnull final DeferredPlugin plugin) {
+    synchronized (this.lock) {
+      if (!this.deferredList.contains(plugin)) {
+        return;
+      }
+    }
+
+    MindMapPlugin loaded = null;
+    try {
+      loaded = plugin.load();
+    } catch (Exception ex) {
+      LOGGER.error("Can't load deferred plugin " + plugin, ex);
+    }
+
+    synchronized (this.lock) {
+      if (this.deferredList.remove(plugin)) {
+        if (loaded != null) {
+          this.pluginList.add(loaded);
+          LOGGER.info("Registered plugin " + loaded.getClass().getName());
+          Collections.sort(this.pluginList);
+        }
+        updateSnapshot();
+      }
+    }
+  }
+
+  private void updateSnapshot() {
+    this.snapshot = new Snapshot(this.pluginList, this.deferredList);
+  }
+
+  @Nonnull
+  private Snapshot snapshotFor(@Nonnull final Class<?> type) {
+    Snapshot result = this.snapshot;
+    final List<DeferredPlugin> deferred = result.findDeferred(type);
+    if (!deferred.isEmpty()) {
+      for (final DeferredPlugin d : deferred) {
+        loadDeferredPlugin(d);
+      }
+      result = this.snapshot;
+    }
+    return result;
+  }
+
+  public int size() {
+    return snapshotFor(MindMapPlugin.class).plugins.size();
+  }
+
   public void clear() {
-    synchronized (FIND_CACHE) {
+    synchronized (this.lock) {
       this.pluginList.clear();
-      FIND_CACHE.clear();
+      this.deferredList.clear();
+      updateSnapshot();
     }
   }
 
   @Nullable
   public AbstractExporter findExporterForMnemonic(@Nonnull final String mnemonic) {
-    AbstractExporter result = null;
-    synchronized (FIND_CACHE) {
-      for (final MindMapPlugin p : this.pluginList) {
-        if (p instanceof AbstractExporter) {
-          final AbstractExporter exporter = (AbstractExporter) p;
-          if (mnemonic.equals(exporter.getMnemonic())) {
-            result = exporter;
-            break;
-          }
-        }
-      }
-    }
-    return result;
+    return snapshotFor(AbstractExporter.class).exporters.get(mnemonic);
   }
 
   @Nullable
   public AbstractImporter findImporterForMnemonic(@Nonnull final String mnemonic) {
-    AbstractImporter result = null;
-    synchronized (FIND_CACHE) {
-      for (final MindMapPlugin p : this.pluginList) {
-        if (p instanceof AbstractImporter) {
-          final AbstractImporter importer = (AbstractImporter) p;
-          if (mnemonic.equals(importer.getMnemonic())) {
-            result = importer;
-            break;
-          }
-        }
-      }
-    }
-    return result;
+    return snapshotFor(AbstractImporter.class).importers.get(mnemonic);
   }
 
   @Nonnull
   @MustNotContainNull
+  @SuppressWarnings("unchecked")
   public <T extends MindMapPlugin> List<T> findFor(@Nullable final Class<T> klazz) {
-    synchronized (FIND_CACHE) {
-      List<T> result = (List<T>) FIND_CACHE.get(klazz);
-
-      if (result == null) {
-        result = new ArrayList<T>();
-        if (klazz != null) {
-          for (final MindMapPlugin p : this.pluginList) {
-            if (klazz.isInstance(p)) {
-              result.add(klazz.cast(p));
-            }
-          }
-        }
-        result = Collections.unmodifiableList(result);
-        FIND_CACHE.put(klazz, result);
-      }
-      return result;
-    }
+    final List<T> result = klazz == null ? null : (List<T>) snapshotFor(klazz).byClass.get(klazz);
+    return result == null ? Collections.<T>emptyList() : result;
   }
 
+  /**
+   * Get iterator over registered plugins. The iterator works over snapshot of
+   * the plugin list and doesn't allow removing.
+   *
+   * @return iterator over registered plugins
+   */
   @Override
   @Nonnull
   public Iterator<MindMapPlugin> iterator() {
-    return this.pluginList.iterator();
+    return snapshotFor(MindMapPlugin.class).plugins.iterator();
   }
 }
@@ -24,6 +24,7 @@ import com.igormaznitsa.mindmap.plugins.PopUpSection;
 import com.igormaznitsa.mindmap.swing.panel.DialogProvider;
 import com.igormaznitsa.mindmap.swing.panel.MindMapPanel;
 import com.igormaznitsa.mindmap.swing.panel.Texts;
+import com.igormaznitsa.mindmap.swing.panel.utils.PerformanceMetrics;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -68,6 +69,7 @@ public abstract class AbstractExporter extends AbstractPopupMenuItem implements
             if (options != null && !dialogProvider.msgOkCancel(null, getName(panel, actionTopic, selectedTopics), options)) {
               return;
             }
+            final long start = PerformanceMetrics.start();
             if ((e.getModifiers() & ActionEvent.CTRL_MASK) == 0) {
               LOGGER.info("Export map into file: " + AbstractExporter.this);
               doExport(panel, options, null);
@@ -75,10 +77,12 @@ public abstract class AbstractExporter extends AbstractPopupMenuItem implements
               LOGGER.info("Export map into clipboard:" + AbstractExporter.this);
               doExportToClipboard(panel, options);
             }
+            PerformanceMetrics.stop(PerformanceMetrics.EXPORT_PREFIX + AbstractExporter.this.getClass().getSimpleName(), start);
           } else {
             processor.doJob(theInstance, panel, dialogProvider, actionTopic, selectedTopics);
           }
         } catch (Exception ex) {
+          PerformanceMetrics.increment(PerformanceMetrics.COUNTER_EXPORT_ERRORS);
           LOGGER.error("Error during map export", ex); //NOI18N
           dialogProvider.msgError(null, Texts.getString("MMDGraphEditor.makePopUp.errMsgCantExport"));
         }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.plugins.api;
+
+import com.igormaznitsa.mindmap.swing.panel.MindMapPanel;
+import java.awt.Toolkit;
+import java.awt.datatransfer.Clipboard;
+import java.awt.datatransfer.StringSelection;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Auxiliary class for exporters which generate text. An exporter writes its
+ * content directly into a writer, so that a big map is streamed into output
+ * without making its full text representation in memory. Export into stream,
+ * file and clipboard is implemented over the writer based method.
+ *
+ * @since 1.4.5
+ */
+public abstract class AbstractTextExporter extends AbstractExporter {
+
+  private static final int WRITER_BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * Write text representation of mind map into writer. The writer must not be
+   * closed by the method.
+   *
+   * @param panel mind map panel, must not be null
+   * @param options options component, can be null
+   * @param out writer to get text, must not be null
+   * @throws IOException it will be thrown for transport errors
+   */
+  public abstract void doExport(@Nonnull final MindMapPanel panel, @Nullable final JComponent options, @Nonnull final Writer out) throws IOException;
+
+  /**
+   * Ask user for file to save exported text.
+   *
+   * @param panel mind map panel, must not be null
+   * @return selected file or null if canceled
+   */
+  @Nullable
+  protected abstract File selectFileForExport(@Nonnull final MindMapPanel panel);
+
+  /**
+   * Get charset to encode exported text into bytes.
+   *
+   * @return name of charset, must not be null
+   */
+  @Nonnull
+  protected String getCharset() {
+    return "UTF-8"; //NOI18N
+  }
+
+  @Override
+  public void doExport(@Nonnull final MindMapPanel panel, @Nullable final JComponent options, @Nullable final OutputStream out) throws IOException {
+    File fileToSaveMap = null;
+    OutputStream theOut = out;
+    if (theOut == null) {
+      fileToSaveMap = selectFileForExport(panel);
+      theOut = fileToSaveMap == null ? null : new FileOutputStream(fileToSaveMap, false);
+    }
+    if (theOut != null) {
+      final Writer writer = new BufferedWriter(new OutputStreamWriter(theOut, getCharset()), WRITER_BUFFER_SIZE);
+      try {
+        doExport(panel, options, writer);
+        writer.flush();
+      } finally {
+        if (fileToSaveMap != null) {
+          IOUtils.closeQuietly(writer);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void doExportToClipboard(@Nonnull final MindMapPanel panel, @Nullable final JComponent options) throws IOException {
+    final StringWriter buffer = new StringWriter(16384);
+    doExport(panel, options, buffer);
+    final String text = buffer.toString();
+
+    SwingUtilities.invokeLater(new Runnable() {
+      @Override
+      public void run() {
+        final Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
+        if (clipboard != null) {
+          clipboard.setContents(new StringSelection(text), null);
+        }
+      }
+    });
+  }
+}
@@ -30,7 +30,11 @@ import javax.annotation.Nullable;
  */
 public interface VisualAttributePlugin extends AttributePlugin {
   /**
-   * Get renderable object represents the attribute.
+   * Get renderable object represents the attribute. The method can be called
+   * not only from the Swing thread but also from layout threads during
+   * parallel calculation of element sizes, calls are made sequentially so
+   * that implementation doesn't need own synchronization but it must not
+   * expect any specific thread.
    *
    * @param config the configuration of context were it will be rendered
    * @param topic  the topic
@@ -40,7 +40,7 @@ public class EmoticonVisualAttributePlugin implements VisualAttributePlugin {
 
   @Override
   @Nullable
-  public Renderable getScaledImage(@Nonnull final MindMapPanelConfig config, @Nonnull final Topic topic) {
+  public synchronized Renderable getScaledImage(@Nonnull final MindMapPanelConfig config, @Nonnull final Topic topic) {
     final String name = topic.getAttribute(ATTR_KEY);
     if (name == null) {
       return null;
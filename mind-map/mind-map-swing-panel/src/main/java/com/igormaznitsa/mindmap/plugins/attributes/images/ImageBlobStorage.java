@@ -0,0 +1,347 @@
+/*
+ * Copyright 2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.plugins.attributes.images;
+
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.MindMapController;
+import com.igormaznitsa.mindmap.model.Topic;
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
+import java.io.File;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Content addressed storage of topic images. Every image is saved once into
+ * storage folder under name made from hash of its content and the topic image
+ * attribute contains only reference to the image (like 'blob:HASH'), so that
+ * big images don't inflate text of mind map. Image is read from storage only
+ * when it is painted first time.
+ * <p>
+ * Storage is available for a mind map if its controller implements
+ * {@link Provider} and provides storage for the map. New images are saved
+ * into storage only if the map is switched into external mode, it is made by
+ * the bulk migration of images and kept as attribute of the map.
+ *
+ * @since 1.4.5
+ */
+public final class ImageBlobStorage {
+
+  /**
+   * Prefix of image reference in topic attribute. Base64 alphabet doesn't
+   * contain colon so that reference can't be mixed with embedded image.
+   */
+  public static final String REF_PREFIX = "blob:"; //NOI18N
+
+  /**
+   * Attribute of mind map which shows that images of the map are kept in
+   * external storage.
+   */
+  public static final String MAP_ATTR_EXTERNAL_IMAGES = "externalImages"; //NOI18N
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ImageBlobStorage.class);
+
+  private static final String HASH_ALGORITHM = "SHA-1"; //NOI18N
+  private static final String FILE_EXTENSION = ".img"; //NOI18N
+
+  private final File folder;
+
+  /**
+   * Provider of image storage, it should be implemented by mind map controller
+   * which supports external storage of images.
+   */
+  public interface Provider {
+
+    /**
+     * Get storage for images of mind map.
+     *
+     * @param map mind map
+     * @return storage or null if images must be embedded into the map
+     */
+    @Nullable
+    ImageBlobStorage getImageBlobStorage(@Nonnull MindMap map);
+  }
+
+  public ImageBlobStorage(@Nonnull final File folder) {
+    this.folder = folder;
+  }
+
+  @Nonnull
+  public File getFolder() {
+    return this.folder;
+  }
+
+  /**
+   * Find storage for mind map.
+   *
+   * @param map mind map, can be null
+   * @return storage provided by controller of the map or null if images must
+   * be embedded
+   */
+  @Nullable
+  public static ImageBlobStorage findFor(@Nullable final MindMap map) {
+    ImageBlobStorage result = null;
+    if (map != null) {
+      final MindMapController controller = map.getController();
+      if (controller instanceof Provider) {
+        result = ((Provider) controller).getImageBlobStorage(map);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Find storage for new images of mind map.
+   *
+   * @param map mind map, can be null
+   * @return storage if the map is in external mode and storage is available,
+   * null if images must be embedded
+   */
+  @Nullable
+  public static ImageBlobStorage findForNewImages(@Nullable final MindMap map) {
+    return map != null && Boolean.parseBoolean(map.getAttribute(MAP_ATTR_EXTERNAL_IMAGES)) ? findFor(map) : null;
+  }
+
+  public static boolean isReference(@Nullable final String attributeValue) {
+    return attributeValue != null && attributeValue.startsWith(REF_PREFIX);
+  }
+
+  @Nonnull
+  private File makeFile(@Nonnull final String hash) {
+    return new File(this.folder, hash + FILE_EXTENSION);
+  }
+
+  @Nonnull
+  private static String makeHash(@Nonnull final byte[] data) {
+    try {
+      final byte[] hash = MessageDigest.getInstance(HASH_ALGORITHM).digest(data);
+      final StringBuilder result = new StringBuilder(hash.length * 2);
+      for (final byte b : hash) {
+        result.append(Character.forDigit((b >>> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return result.toString();
+    } catch (NoSuchAlgorithmException ex) {
+      throw new Error("Unexpected error", ex); //NOI18N
+    }
+  }
+
+  /**
+   * Save image into storage. If the same image is already saved then it is not
+   * written again.
+   *
+   * @param imageData image data
+   * @return reference to be saved into topic attribute
+   * @throws IOException it will be thrown if image can't be saved
+   */
+  @Nonnull
+  public String store(@Nonnull final byte[] imageData) throws IOException {
+    final String hash = makeHash(imageData);
+    final File file = makeFile(hash);
+    if (!file.isFile() || file.length() != imageData.length) {
+      final File tempFile = new File(this.folder, hash + ".tmp"); //NOI18N
+      FileUtils.writeByteArrayToFile(tempFile, imageData);
+      if (file.isFile() && !file.delete()) {
+        FileUtils.deleteQuietly(tempFile);
+        throw new IOException("Can't replace image file " + file); //NOI18N
+      }
+      if (!tempFile.renameTo(file)) {
+        FileUtils.deleteQuietly(tempFile);
+        throw new IOException("Can't save image file " + file); //NOI18N
+      }
+    }
+    return REF_PREFIX + hash;
+  }
+
+  /**
+   * Save image encoded in Base64 into storage.
+   *
+   * @param base64 image encoded in Base64
+   * @return reference to be saved into topic attribute
+   * @throws IOException it will be thrown if image can't be decoded or saved
+   */
+  @Nonnull
+  public String storeBase64(@Nonnull final String base64) throws IOException {
+    return store(Utils.base64decode(base64));
+  }
+
+  /**
+   * Load image for reference.
+   *
+   * @param reference reference from topic attribute
+   * @return image data or null if reference is wrong or image not found
+   */
+  @Nullable
+  public byte[] load(@Nonnull final String reference) {
+    byte[] result = null;
+    if (isReference(reference)) {
+      final String hash = reference.substring(REF_PREFIX.length()).trim();
+      if (!hash.isEmpty() && hash.indexOf('/') < 0 && hash.indexOf('\\') < 0 && hash.indexOf('.') < 0) {
+        final File file = makeFile(hash);
+        if (file.isFile()) {
+          try {
+            result = FileUtils.readFileToByteArray(file);
+          } catch (IOException ex) {
+            LOGGER.error("Can't read image file " + file, ex); //NOI18N
+          }
+        } else {
+          LOGGER.warn("Can't find image file " + file); //NOI18N
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Get image data of topic in both embedded and external modes.
+   *
+   * @param topic topic
+   * @return image data or null if topic doesn't have image or it can't be
+   * loaded
+   */
+  @Nullable
+  public static byte[] loadImageData(@Nonnull final Topic topic) {
+    final String value = topic.getAttribute(ImageVisualAttributePlugin.ATTR_KEY);
+    byte[] result = null;
+    if (value != null) {
+      if (isReference(value)) {
+        final ImageBlobStorage storage = findFor(topic.getMap());
+        if (storage == null) {
+          LOGGER.warn("Detected image reference but there is no image storage : " + value); //NOI18N
+        } else {
+          result = storage.load(value);
+        }
+      } else {
+        try {
+          result = Utils.base64decode(value);
+        } catch (IOException ex) {
+          LOGGER.error("Can't decode image", ex); //NOI18N
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Get image of topic encoded in Base64 in both embedded and external modes.
+   *
+   * @param topic topic
+   * @return image encoded in Base64 or null if not found
+   */
+  @Nullable
+  public static String loadImageAsBase64(@Nonnull final Topic topic) {
+    final String value = topic.getAttribute(ImageVisualAttributePlugin.ATTR_KEY);
+    if (value == null || !isReference(value)) {
+      return value;
+    }
+    final byte[] data = loadImageData(topic);
+    return data == null ? null : Utils.base64encode(data);
+  }
+
+  /**
+   * Move all embedded images of mind map into storage and switch the map into
+   * external mode.
+   *
+   * @param map mind map
+   * @return number of changed topics
+   * @throws IOException it will be thrown if any image can't be saved
+   */
+  public int externalize(@Nonnull final MindMap map) throws IOException {
+    int result = 0;
+    for (final Topic t : map) {
+      result += externalizeTopic(t);
+    }
+    map.setAttribute(MAP_ATTR_EXTERNAL_IMAGES, "true"); //NOI18N
+    return result;
+  }
+
+  /**
+   * Move embedded images of topic and its subtree into storage.
+   *
+   * @param topic root of subtree
+   * @return number of changed topics
+   * @throws IOException it will be thrown if any image can't be saved
+   */
+  public int externalizeSubtree(@Nonnull final Topic topic) throws IOException {
+    int result = externalizeTopic(topic);
+    for (final Topic c : topic.getChildren()) {
+      result += externalizeSubtree(c);
+    }
+    return result;
+  }
+
+  private int externalizeTopic(@Nonnull final Topic topic) throws IOException {
+    final String value = topic.getAttribute(ImageVisualAttributePlugin.ATTR_KEY);
+    if (value != null && !isReference(value)) {
+      topic.setAttribute(ImageVisualAttributePlugin.ATTR_KEY, storeBase64(value));
+      return 1;
+    }
+    return 0;
+  }
+
+  /**
+   * Embed images referenced by copy of topic subtree. Images are loaded from
+   * storage of the source topic map, so that the copy can be moved into any
+   * map. Reference is kept if image can't be loaded.
+   *
+   * @param source source topic
+   * @param copy copy of the source topic, it must have the same subtree
+   */
+  public static void embedReferences(@Nonnull final Topic source, @Nonnull final Topic copy) {
+    final String value = copy.getAttribute(ImageVisualAttributePlugin.ATTR_KEY);
+    if (isReference(value)) {
+      final byte[] data = loadImageData(source);
+      if (data != null) {
+        copy.setAttribute(ImageVisualAttributePlugin.ATTR_KEY, Utils.base64encode(data));
+      }
+    }
+    final List<Topic> sourceChildren = source.getChildren();
+    final List<Topic> copyChildren = copy.getChildren();
+    for (int i = 0; i < Math.min(sourceChildren.size(), copyChildren.size()); i++) {
+      embedReferences(sourceChildren.get(i), copyChildren.get(i));
+    }
+  }
+
+  /**
+   * Embed all images of mind map which are saved in storage and switch the
+   * map into embedded mode.
+   *
+   * @param map mind map
+   * @return number of changed topics
+   * @throws IOException it will be thrown if any image is not found in storage
+   */
+  public int internalize(@Nonnull final MindMap map) throws IOException {
+    int result = 0;
+    for (final Topic t : map) {
+      final String value = t.getAttribute(ImageVisualAttributePlugin.ATTR_KEY);
+      if (isReference(value)) {
+        final byte[] data = load(value);
+        if (data == null) {
+          throw new IOException("Can't find image " + value); //NOI18N
+        }
+        t.setAttribute(ImageVisualAttributePlugin.ATTR_KEY, Utils.base64encode(data));
+        result++;
+      }
+    }
+    map.setAttribute(MAP_ATTR_EXTERNAL_IMAGES, null);
+    return result;
+  }
+}
@@ -39,6 +39,7 @@ import java.awt.datatransfer.Transferable;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
+import java.io.IOException;
 import java.util.Locale;
 import java.util.ResourceBundle;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -105,7 +106,7 @@ public class ImagePopUpMenuPlugin extends AbstractPopupMenuItem {
 
               if (selectedItem.get() == 0) {
                 try {
-                  setAttribute(Utils.rescaleImageAndEncodeAsBase64((Image) transferable.getTransferData(DataFlavor.imageFlavor), Utils.getMaxImageSize()), topic, selectedTopics);
+                  setAttribute(makeAttributeValue(panel, Utils.rescaleImageAndEncodeAsBase64((Image) transferable.getTransferData(DataFlavor.imageFlavor), Utils.getMaxImageSize())), topic, selectedTopics);
                   panel.notifyModelChanged();
                 } catch (final IllegalArgumentException ex) {
                   dialogProvider.msgError(null, BUNDLE.getString("Images.Plugin.Error"));
@@ -126,7 +127,7 @@ public class ImagePopUpMenuPlugin extends AbstractPopupMenuItem {
             if (selected != null) {
               lastSelectedFile = selected;
               try {
-                setAttribute(Utils.rescaleImageAndEncodeAsBase64(selected, Utils.getMaxImageSize()), topic, selectedTopics);
+                setAttribute(makeAttributeValue(panel, Utils.rescaleImageAndEncodeAsBase64(selected, Utils.getMaxImageSize())), topic, selectedTopics);
                 panel.notifyModelChanged();
               } catch (final IllegalArgumentException ex) {
                 dialogProvider.msgError(null, BUNDLE.getString("Images.Plugin.Error"));
@@ -182,6 +183,12 @@ public class ImagePopUpMenuPlugin extends AbstractPopupMenuItem {
     return panel;
   }
 
+  @Nonnull
+  private static String makeAttributeValue(@Nonnull final MindMapPanel panel, @Nonnull final String base64) throws IOException {
+    final ImageBlobStorage storage = ImageBlobStorage.findForNewImages(panel.getModel());
+    return storage == null ? base64 : storage.storeBase64(base64);
+  }
+
   private boolean containAttribute(@Nullable final Topic topic, @Nonnull @MustNotContainNull final Topic[] topics) {
     boolean result = false;
     if (topic != null) {
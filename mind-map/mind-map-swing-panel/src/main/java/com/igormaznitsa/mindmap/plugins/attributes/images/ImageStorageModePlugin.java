@@ -0,0 +1,118 @@
+/*
+ * Copyright 2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.plugins.attributes.images;
+
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
+import com.igormaznitsa.mindmap.model.Topic;
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import com.igormaznitsa.mindmap.plugins.PopUpSection;
+import com.igormaznitsa.mindmap.plugins.api.AbstractPopupMenuItem;
+import com.igormaznitsa.mindmap.plugins.api.CustomJob;
+import com.igormaznitsa.mindmap.swing.panel.DialogProvider;
+import com.igormaznitsa.mindmap.swing.panel.MindMapPanel;
+import com.igormaznitsa.mindmap.swing.services.IconID;
+import com.igormaznitsa.mindmap.swing.services.ImageIconServiceProvider;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ResourceBundle;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.swing.Icon;
+import javax.swing.JMenu;
+import javax.swing.JMenuItem;
+
+/**
+ * Tool to move all topic images of mind map between embedded mode and
+ * external storage. It is shown only if the map has image storage.
+ *
+ * @since 1.4.5
+ */
+public class ImageStorageModePlugin extends AbstractPopupMenuItem {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ImageStorageModePlugin.class);
+  private static final ResourceBundle BUNDLE = java.util.ResourceBundle.getBundle("com/igormaznitsa/mindmap/swing/panel/Bundle");//NOI18N
+  private static final Icon ICON = ImageIconServiceProvider.findInstance().getIconForId(IconID.ICON_IMAGES);
+
+  @Override
+  @Nullable
+  public JMenuItem makeMenuItem(@Nonnull final MindMapPanel panel, @Nonnull final DialogProvider dialogProvider, @Nullable final Topic topic, @Nonnull @MustNotContainNull final Topic[] selectedTopics, @Nullable final CustomJob customProcessor) {
+    final ImageBlobStorage storage = ImageBlobStorage.findFor(panel.getModel());
+    if (storage == null) {
+      return null;
+    }
+
+    final JMenu result = UI_COMPO_FACTORY.makeMenu(BUNDLE.getString("Images.Plugin.Storage.MenuTitle"));//NOI18N
+    result.setIcon(ICON);
+
+    final JMenuItem externalize = UI_COMPO_FACTORY.makeMenuItem(BUNDLE.getString("Images.Plugin.Storage.Externalize"), null);//NOI18N
+    externalize.addActionListener(new ActionListener() {
+      @Override
+      public void actionPerformed(@Nonnull final ActionEvent e) {
+        try {
+          processResult(panel, dialogProvider, storage.externalize(panel.getModel()));
+        } catch (Exception ex) {
+          LOGGER.error("Can't move images into storage " + storage.getFolder(), ex); //NOI18N
+          dialogProvider.msgError(null, BUNDLE.getString("Images.Plugin.Storage.Error"));
+        }
+      }
+    });
+
+    final JMenuItem internalize = UI_COMPO_FACTORY.makeMenuItem(BUNDLE.getString("Images.Plugin.Storage.Internalize"), null);//NOI18N
+    internalize.addActionListener(new ActionListener() {
+      @Override
+      public void actionPerformed(@Nonnull final ActionEvent e) {
+        try {
+          processResult(panel, dialogProvider, storage.internalize(panel.getModel()));
+        } catch (Exception ex) {
+          LOGGER.error("Can't embed images from storage " + storage.getFolder(), ex); //NOI18N
+          dialogProvider.msgError(null, BUNDLE.getString("Images.Plugin.Storage.Error"));
+        }
+      }
+    });
+
+    result.add(externalize);
+    result.add(internalize);
+    return result;
+  }
+
+  private static void processResult(@Nonnull final MindMapPanel panel, @Nonnull final DialogProvider dialogProvider, final int changedTopics) {
+    ImageVisualAttributePlugin.clearCachedImages();
+    panel.notifyModelChanged();
+    dialogProvider.msgInfo(null, String.format(BUNDLE.getString("Images.Plugin.Storage.Done"), changedTopics));
+  }
+
+  @Override
+  @Nonnull
+  public PopUpSection getSection() {
+    return PopUpSection.TOOLS;
+  }
+
+  @Override
+  public boolean needsTopicUnderMouse() {
+    return false;
+  }
+
+  @Override
+  public boolean needsSelectedTopics() {
+    return false;
+  }
+
+  @Override
+  public int getOrder() {
+    return CUSTOM_PLUGIN_START - 1;
+  }
+}
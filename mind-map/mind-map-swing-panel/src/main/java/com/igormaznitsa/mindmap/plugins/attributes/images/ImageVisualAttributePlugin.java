@@ -24,7 +24,6 @@ import com.igormaznitsa.mindmap.plugins.api.Renderable;
 import com.igormaznitsa.mindmap.plugins.api.VisualAttributePlugin;
 import com.igormaznitsa.mindmap.swing.panel.MindMapPanel;
 import com.igormaznitsa.mindmap.swing.panel.MindMapPanelConfig;
-import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -42,16 +41,28 @@ public class ImageVisualAttributePlugin implements VisualAttributePlugin {
   private static final Map<Topic, Renderable> CACHED_IMAGES = new WeakHashMap<Topic, Renderable>();
 
   public static void clearCachedImages() {
-    CACHED_IMAGES.clear();
+    synchronized (CACHED_IMAGES) {
+      CACHED_IMAGES.clear();
+    }
   }
 
   @Override
   @Nullable
   public Renderable getScaledImage(@Nonnull final MindMapPanelConfig config, @Nonnull final Topic topic) {
-    Renderable result = CACHED_IMAGES.get(topic);
+    Renderable result;
+    synchronized (CACHED_IMAGES) {
+      result = CACHED_IMAGES.get(topic);
+    }
     if (result == null) {
       result = new ScalableRenderableImage(extractImage(topic));
-      CACHED_IMAGES.put(topic, result);
+      synchronized (CACHED_IMAGES) {
+        final Renderable cached = CACHED_IMAGES.get(topic);
+        if (cached == null) {
+          CACHED_IMAGES.put(topic, result);
+        } else {
+          result = cached;
+        }
+      }
     }
     return result;
   }
@@ -59,10 +70,10 @@ public class ImageVisualAttributePlugin implements VisualAttributePlugin {
   @Nullable
   private Image extractImage(@Nonnull final Topic topic) {
     Image result = null;
-    final String encoded = topic.getAttribute(ATTR_KEY);
-    if (encoded != null) {
+    final byte[] data = ImageBlobStorage.loadImageData(topic);
+    if (data != null) {
       try {
-        result = ImageIO.read(new ByteArrayInputStream(Utils.base64decode(encoded)));
+        result = ImageIO.read(new ByteArrayInputStream(data));
       } catch (Exception ex) {
         LOGGER.error("Can't extract image", ex);
       }
@@ -18,16 +18,12 @@ package com.igormaznitsa.mindmap.plugins.exporters;
 import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.meta.common.utils.Assertions;
 import com.igormaznitsa.mindmap.model.*;
-import com.igormaznitsa.mindmap.plugins.api.AbstractExporter;
+import com.igormaznitsa.mindmap.plugins.api.AbstractTextExporter;
 import com.igormaznitsa.mindmap.swing.panel.MindMapPanel;
 import com.igormaznitsa.mindmap.swing.panel.Texts;
 import com.igormaznitsa.mindmap.swing.panel.utils.MindMapUtils;
 import com.igormaznitsa.mindmap.swing.services.IconID;
 import com.igormaznitsa.mindmap.swing.services.ImageIconServiceProvider;
-import java.awt.Toolkit;
-import java.awt.datatransfer.Clipboard;
-import java.awt.datatransfer.StringSelection;
-import org.apache.commons.io.IOUtils;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -36,7 +32,7 @@ import java.io.*;
 import java.util.Date;
 import java.util.Map;
 
-public class ASCIIDocExporter extends AbstractExporter {
+public class ASCIIDocExporter extends AbstractTextExporter {
 
   private static final Icon ICO = ImageIconServiceProvider.findInstance().getIconForId(IconID.POPUP_EXPORT_ASCIIDOC);
 
@@ -121,51 +117,21 @@ public class ASCIIDocExporter extends AbstractExporter {
     }
   }
 
-  @Nonnull
-  private String makeContent(@Nonnull final MindMapPanel panel) throws IOException {
-    final State state = new State();
+  @Override
+  public void doExport(@Nonnull final MindMapPanel panel, @Nullable final JComponent options, @Nonnull final Writer out) throws IOException {
+    final State state = new State(out);
     state.append("// Generated by NB-MindMap AsciiDoc exporter https://github.com/raydac/netbeans-mmd-plugin").appendNextLine();
     final Topic root = panel.getModel().getRoot();
     if (root != null) {
       writeTopic(root, state);//NOI18N
     }
-    return state.toString();
   }
 
   @Override
-  public void doExportToClipboard(@Nonnull final MindMapPanel panel, @Nonnull final JComponent options) throws IOException {
-    final String text = makeContent(panel);
-    SwingUtilities.invokeLater(new Runnable() {
-      @Override
-      public void run() {
-        final Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
-        if (clipboard != null) {
-          clipboard.setContents(new StringSelection(text), null);
-        }
-      }
-    });
-  }
-
-  @Override
-  public void doExport(@Nonnull final MindMapPanel panel, @Nonnull final JComponent options, @Nullable final OutputStream out) throws IOException {
-    final String text = makeContent(panel);
-
-    File fileToSaveMap = null;
-    OutputStream theOut = out;
-    if (theOut == null) {
-      fileToSaveMap = MindMapUtils.selectFileToSaveForFileFilter(panel, Texts.getString("ASCIIDOCExporter.saveDialogTitle"), ".asciidoc", Texts.getString("ASCIIDOCExporter.filterDescription"), Texts.getString("ASCIIDOCExporter.approveButtonText"));
-      fileToSaveMap = MindMapUtils.checkFileAndExtension(panel, fileToSaveMap, ".asciidoc");//NOI18N
-      theOut = fileToSaveMap == null ? null : new BufferedOutputStream(new FileOutputStream(fileToSaveMap, false));
-    }
-    if (theOut != null) {
-      try {
-        IOUtils.write(text, theOut, "UTF-8");
-      } finally {
-        if (fileToSaveMap != null) {
-          IOUtils.closeQuietly(theOut);
-        }
-      }
-    }
+  @Nullable
+  protected File selectFileForExport(@Nonnull final MindMapPanel panel) {
+    final File fileToSaveMap = MindMapUtils.selectFileToSaveForFileFilter(panel, Texts.getString("ASCIIDOCExporter.saveDialogTitle"), ".asciidoc", Texts.getString("ASCIIDOCExporter.filterDescription"), Texts.getString("ASCIIDOCExporter.approveButtonText"));
+    return MindMapUtils.checkFileAndExtension(panel, fileToSaveMap, ".asciidoc");//NOI18N
   }
 
   @Override
@@ -200,61 +166,69 @@ public class ASCIIDocExporter extends AbstractExporter {
   private static class State {
 
     private static final String NEXT_LINE = System.getProperty("line.separator", "\n");//NOI18N
-    private final StringBuilder buffer = new StringBuilder(16384);
+    private final Writer out;
+    private char lastChar;
+
+    private State(@Nonnull final Writer out) {
+      this.out = out;
+    }
+
+    private void write(@Nonnull final String str) throws IOException {
+      if (!str.isEmpty()) {
+        this.out.write(str);
+        this.lastChar = str.charAt(str.length() - 1);
+      }
+    }
 
     @Nonnull
-    public State append(final char ch) {
-      this.buffer.append(ch);
+    public State append(final char ch) throws IOException {
+      this.out.write(ch);
+      this.lastChar = ch;
       return this;
     }
 
     @Nonnull
-    public State nextStringMarker() {
-      this.buffer.append("  ");//NOI18N
+    public State nextStringMarker() throws IOException {
+      write("  ");//NOI18N
       return this;
     }
 
     @Nonnull
-    public State appendHead(@Nonnull final String str) {
-      this.buffer.append(escapeAsciiDoc(str, true));
+    public State appendHead(@Nonnull final String str) throws IOException {
+      write(escapeAsciiDoc(str, true));
       return this;
     }
 
     @Nonnull
-    public State appendParagraphText(@Nonnull final String str) {
+    public State appendParagraphText(@Nonnull final String str) throws IOException {
       for (final String s : ModelUtils.breakToLines(str)) {
-        this.buffer.append(escapeAsciiDoc(s, false)).append(" +");
+        write(escapeAsciiDoc(s, false));
+        write(" +");
         appendNextLine();
       }
       return this;
     }
 
     @Nonnull
-    public State append(@Nonnull final String str) {
-      this.buffer.append(str);
+    public State append(@Nonnull final String str) throws IOException {
+      write(str);
       return this;
     }
 
     @Nonnull
-    public State appendNextLine() {
-      this.buffer.append(NEXT_LINE);
+    public State appendNextLine() throws IOException {
+      write(NEXT_LINE);
       return this;
     }
 
     @Nonnull
-    public State appendConditionalNextLine() {
-      if (this.buffer.charAt(this.buffer.length() - 1) != '\n') {
-        this.buffer.append(NEXT_LINE);
+    public State appendConditionalNextLine() throws IOException {
+      if (this.lastChar != '\n') {
+        write(NEXT_LINE);
       }
       return this;
     }
 
-    @Override
-    @Nonnull
-    public String toString() {
-      return this.buffer.toString();
-    }
-
   }
 
 }
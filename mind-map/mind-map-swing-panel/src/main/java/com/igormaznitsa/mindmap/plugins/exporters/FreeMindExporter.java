@@ -19,7 +19,7 @@ package com.igormaznitsa.mindmap.plugins.exporters;
 
 import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.mindmap.model.*;
-import com.igormaznitsa.mindmap.plugins.api.AbstractExporter;
+import com.igormaznitsa.mindmap.plugins.api.AbstractTextExporter;
 import com.igormaznitsa.mindmap.swing.panel.MindMapPanel;
 import com.igormaznitsa.mindmap.swing.panel.MindMapPanelConfig;
 import com.igormaznitsa.mindmap.swing.panel.Texts;
@@ -28,8 +28,6 @@ import com.igormaznitsa.mindmap.swing.panel.utils.MindMapUtils;
 import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
 import com.igormaznitsa.mindmap.swing.services.IconID;
 import com.igormaznitsa.mindmap.swing.services.ImageIconServiceProvider;
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringEscapeUtils;
 
 import javax.annotation.Nonnull;
@@ -41,11 +39,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static com.igormaznitsa.meta.common.utils.Assertions.assertNotNull;
-import java.awt.Toolkit;
-import java.awt.datatransfer.Clipboard;
-import java.awt.datatransfer.StringSelection;
 
-public class FreeMindExporter extends AbstractExporter {
+public class FreeMindExporter extends AbstractTextExporter {
 
   private static final Icon ICO = ImageIconServiceProvider.findInstance().getIconForId(IconID.POPUP_EXPORT_FREEMIND);
 
@@ -68,7 +63,7 @@ public class FreeMindExporter extends AbstractExporter {
     return buffer.toString();
   }
 
-  private static void writeTopicRecursively(@Nonnull final Topic topic, @Nonnull final MindMapPanelConfig cfg, int shift, @Nonnull final State state) {
+  private static void writeTopicRecursively(@Nonnull final Topic topic, @Nonnull final MindMapPanelConfig cfg, int shift, @Nonnull final State state) throws IOException {
     final String mainShiftStr = generateString(' ', shift);
 
 //    final Color edge = cfg.getConnectorColor();
@@ -168,9 +163,9 @@ public class FreeMindExporter extends AbstractExporter {
     return StringEscapeUtils.escapeXml(text).replace("\n", "&#10;"); //NOI18N
   }
 
-  @Nonnull
-  private String makeContent(@Nonnull final MindMapPanel panel) throws IOException {
-    final State state = new State();
+  @Override
+  public void doExport(@Nonnull final MindMapPanel panel, @Nullable final JComponent options, @Nonnull final Writer out) throws IOException {
+    final State state = new State(out);
     state.append("<map version=\"1.0.1\">").nextLine();//NOI18N
 
     state.append("<!--").nextLine().append("Generated by NB Mind Map Plugin (https://github.com/raydac/netbeans-mmd-plugin)").nextLine();//NOI18N
@@ -183,46 +178,13 @@ public class FreeMindExporter extends AbstractExporter {
 
     state.append("</map>");//NOI18N
 
-    return state.toString();
   }
   
   @Override
-  public void doExportToClipboard(@Nonnull final MindMapPanel panel, @Nonnull final JComponent options) throws IOException {
-    final String text = makeContent(panel);
-    
-    SwingUtilities.invokeLater(new Runnable() {
-      @Override
-      public void run() {
-        final Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
-        if (clipboard!=null) clipboard.setContents(new StringSelection(text), null);
-      }
-    });
-  }
-
-  @Override
-  public void doExport(@Nonnull final MindMapPanel panel, @Nullable final JComponent options, @Nullable final OutputStream out) throws IOException {
-    final String text = makeContent(panel);
-
-    File fileToSaveMap = null;
-    OutputStream theOut = out;
-    if (theOut == null) {
-      fileToSaveMap = MindMapUtils.selectFileToSaveForFileFilter(panel, Texts.getString("FreeMindExporter.saveDialogTitle"), ".mm", Texts.getString("FreeMindExporter.filterDescription"), Texts.getString("FreeMindExporter.approveButtonText"));
-      fileToSaveMap = MindMapUtils.checkFileAndExtension(panel, fileToSaveMap, ".mm");//NOI18N
-      theOut = fileToSaveMap == null ? null : new BufferedOutputStream(new FileOutputStream(fileToSaveMap, false));
-    }
-    if (theOut != null) {
-      try {
-        IOUtils.write(text, theOut, "UTF-8");
-      } finally {
-        if (fileToSaveMap != null) {
-          IOUtils.closeQuietly(theOut);
-        }
-      }
-    }
-
-    if (fileToSaveMap != null) {
-      FileUtils.writeStringToFile(fileToSaveMap, text, "UTF-8");//NOI18N
-    }
+  @Nullable
+  protected File selectFileForExport(@Nonnull final MindMapPanel panel) {
+    final File fileToSaveMap = MindMapUtils.selectFileToSaveForFileFilter(panel, Texts.getString("FreeMindExporter.saveDialogTitle"), ".mm", Texts.getString("FreeMindExporter.filterDescription"), Texts.getString("FreeMindExporter.approveButtonText"));
+    return MindMapUtils.checkFileAndExtension(panel, fileToSaveMap, ".mm");//NOI18N
   }
 
   @Override
@@ -257,36 +219,34 @@ public class FreeMindExporter extends AbstractExporter {
   private static class State {
 
     private static final String NEXT_LINE = "\r\n";//NOI18N
-    private final StringBuilder buffer = new StringBuilder(16384);
+    private final Writer out;
 
-    @Nonnull
-    public State append(final char ch) {
-      this.buffer.append(ch);
-      return this;
+    private State(@Nonnull final Writer out) {
+      this.out = out;
     }
 
     @Nonnull
-    public State append(final long val) {
-      this.buffer.append(val);
+    public State append(final char ch) throws IOException {
+      this.out.append(ch);
       return this;
     }
 
     @Nonnull
-    public State append(final @Nonnull String str) {
-      this.buffer.append(str);
+    public State append(final long val) throws IOException {
+      this.out.append(Long.toString(val));
       return this;
     }
 
     @Nonnull
-    public State nextLine() {
-      this.buffer.append(NEXT_LINE);
+    public State append(final @Nonnull String str) throws IOException {
+      this.out.append(str);
       return this;
     }
 
-    @Override
     @Nonnull
-    public String toString() {
-      return this.buffer.toString();
+    public State nextLine() throws IOException {
+      this.out.append(NEXT_LINE);
+      return this;
     }
 
   }
@@ -17,14 +17,13 @@ package com.igormaznitsa.mindmap.plugins.exporters;
 
 import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.mindmap.model.*;
-import com.igormaznitsa.mindmap.plugins.api.AbstractExporter;
+import com.igormaznitsa.mindmap.plugins.api.AbstractTextExporter;
 import com.igormaznitsa.mindmap.swing.panel.MindMapPanel;
 import com.igormaznitsa.mindmap.swing.panel.Texts;
 import com.igormaznitsa.mindmap.swing.panel.utils.MindMapUtils;
 import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
 import com.igormaznitsa.mindmap.swing.services.IconID;
 import com.igormaznitsa.mindmap.swing.services.ImageIconServiceProvider;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringEscapeUtils;
 import org.apache.commons.lang.StringUtils;
 
@@ -35,11 +34,8 @@ import java.io.*;
 import java.util.Map;
 
 import static com.igormaznitsa.meta.common.utils.Assertions.assertNotNull;
-import java.awt.Toolkit;
-import java.awt.datatransfer.Clipboard;
-import java.awt.datatransfer.StringSelection;
 
-public class MDExporter extends AbstractExporter {
+public class MDExporter extends AbstractTextExporter {
 
   private static final int STARTING_INDEX_FOR_NUMERATION = 5;
   private static final Icon ICO = ImageIconServiceProvider.findInstance().getIconForId(IconID.POPUP_EXPORT_MARKDOWN);
@@ -168,7 +164,7 @@ public class MDExporter extends AbstractExporter {
     }
   }
 
-  private void writeInterTopicLine(@Nonnull final State state) {
+  private void writeInterTopicLine(@Nonnull final State state) throws IOException {
     state.nextLine();
   }
 
@@ -187,9 +183,9 @@ public class MDExporter extends AbstractExporter {
     }
   }
 
-  @Nonnull
-  private String makeContent(@Nonnull final MindMapPanel panel) throws IOException {
-    final State state = new State();
+  @Override
+  public void doExport(@Nonnull final MindMapPanel panel, @Nullable final JComponent options, @Nonnull final Writer out) throws IOException {
+    final State state = new State(out);
 
     state.append("<!--")//NOI18N
             .nextLine()//NOI18N
@@ -212,43 +208,13 @@ public class MDExporter extends AbstractExporter {
       }
     }
 
-    return state.toString();
-  }
-
-  @Override
-  public void doExportToClipboard(@Nonnull final MindMapPanel panel, @Nonnull final JComponent options) throws IOException {
-    final String text = makeContent(panel);
-    SwingUtilities.invokeLater(new Runnable() {
-      @Override
-      public void run() {
-        final Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
-        if (clipboard != null) {
-          clipboard.setContents(new StringSelection(text), null);
-        }
-      }
-    });
   }
 
   @Override
-  public void doExport(@Nonnull final MindMapPanel panel, @Nonnull final JComponent options, @Nullable final OutputStream out) throws IOException {
-    final String text = makeContent(panel);
-
-    File fileToSaveMap = null;
-    OutputStream theOut = out;
-    if (theOut == null) {
-      fileToSaveMap = MindMapUtils.selectFileToSaveForFileFilter(panel, Texts.getString("MDExporter.saveDialogTitle"), ".MD", Texts.getString("MDExporter.filterDescription"), Texts.getString("MDExporter.approveButtonText"));
-      fileToSaveMap = MindMapUtils.checkFileAndExtension(panel, fileToSaveMap, ".MD");//NOI18N
-      theOut = fileToSaveMap == null ? null : new BufferedOutputStream(new FileOutputStream(fileToSaveMap, false));
-    }
-    if (theOut != null) {
-      try {
-        IOUtils.write(text, theOut, "UTF-8");
-      } finally {
-        if (fileToSaveMap != null) {
-          IOUtils.closeQuietly(theOut);
-        }
-      }
-    }
+  @Nullable
+  protected File selectFileForExport(@Nonnull final MindMapPanel panel) {
+    final File fileToSaveMap = MindMapUtils.selectFileToSaveForFileFilter(panel, Texts.getString("MDExporter.saveDialogTitle"), ".MD", Texts.getString("MDExporter.filterDescription"), Texts.getString("MDExporter.approveButtonText"));
+    return MindMapUtils.checkFileAndExtension(panel, fileToSaveMap, ".MD");//NOI18N
   }
 
   @Override
@@ -283,36 +249,34 @@ public class MDExporter extends AbstractExporter {
   private static class State {
 
     private static final String NEXT_LINE = System.getProperty("line.separator", "\n");//NOI18N
-    private final StringBuilder buffer = new StringBuilder(16384);
+    private final Writer out;
 
-    @Nonnull
-    public State append(final char ch) {
-      this.buffer.append(ch);
-      return this;
+    private State(@Nonnull final Writer out) {
+      this.out = out;
     }
 
     @Nonnull
-    public State nextStringMarker() {
-      this.buffer.append("  ");//NOI18N
+    public State append(final char ch) throws IOException {
+      this.out.append(ch);
       return this;
     }
 
     @Nonnull
-    public State append(@Nonnull final String str) {
-      this.buffer.append(str);
+    public State nextStringMarker() throws IOException {
+      this.out.append("  ");//NOI18N
       return this;
     }
 
     @Nonnull
-    public State nextLine() {
-      this.buffer.append(NEXT_LINE);
+    public State append(@Nonnull final String str) throws IOException {
+      this.out.append(str);
       return this;
     }
 
-    @Override
     @Nonnull
-    public String toString() {
-      return this.buffer.toString();
+    public State nextLine() throws IOException {
+      this.out.append(NEXT_LINE);
+      return this;
     }
 
   }
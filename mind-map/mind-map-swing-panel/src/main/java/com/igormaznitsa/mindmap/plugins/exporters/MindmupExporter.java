@@ -25,8 +25,8 @@ import com.igormaznitsa.mindmap.model.ExtraTopic;
 import com.igormaznitsa.mindmap.model.Topic;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
-import com.igormaznitsa.mindmap.plugins.api.AbstractExporter;
-import static com.igormaznitsa.mindmap.plugins.attributes.images.ImageVisualAttributePlugin.ATTR_KEY;
+import com.igormaznitsa.mindmap.plugins.attributes.images.ImageBlobStorage;
+import com.igormaznitsa.mindmap.plugins.api.AbstractTextExporter;
 import com.igormaznitsa.mindmap.swing.panel.MindMapPanel;
 import com.igormaznitsa.mindmap.swing.panel.MindMapPanelConfig;
 import com.igormaznitsa.mindmap.swing.panel.Texts;
@@ -35,16 +35,11 @@ import com.igormaznitsa.mindmap.swing.panel.utils.MindMapUtils;
 import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
 import com.igormaznitsa.mindmap.swing.services.IconID;
 import com.igormaznitsa.mindmap.swing.services.ImageIconServiceProvider;
-import java.awt.Toolkit;
-import java.awt.datatransfer.Clipboard;
-import java.awt.datatransfer.StringSelection;
 import java.awt.image.BufferedImage;
-import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.Writer;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -53,11 +48,10 @@ import javax.annotation.Nullable;
 import javax.imageio.ImageIO;
 import javax.swing.Icon;
 import javax.swing.JComponent;
-import javax.swing.SwingUtilities;
-import org.apache.commons.io.IOUtils;
-import org.json.JSONStringer;
+import org.json.JSONException;
+import org.json.JSONWriter;
 
-public class MindmupExporter extends AbstractExporter {
+public class MindmupExporter extends AbstractTextExporter {
 
   private static final Icon ICO = ImageIconServiceProvider.findInstance().getIconForId(IconID.POPUP_EXPORT_MINDMUP);
   private static final Logger LOGGER = LoggerFactory.getLogger(MindmupExporter.class);
@@ -97,7 +91,7 @@ public class MindmupExporter extends AbstractExporter {
   }
 
   private void writeTopic(
-          @Nonnull final JSONStringer stringer,
+          @Nonnull final JSONWriter stringer,
           @Nonnull final MindMapPanelConfig cfg,
           @Nonnull final AtomicInteger idCounter,
           @Nullable final Topic topic,
@@ -116,7 +110,7 @@ public class MindmupExporter extends AbstractExporter {
     final ExtraLink link = (ExtraLink) topic.getExtras().get(Extra.ExtraType.LINK);
     final ExtraFile file = (ExtraFile) topic.getExtras().get(Extra.ExtraType.FILE);
 
-    final String encodedImage = topic.getAttribute(ATTR_KEY);
+    final String encodedImage = ImageBlobStorage.loadImageAsBase64(topic);
 
     if (jump != null) {
       linkMap.put(uuid, jump.getValue());
@@ -177,7 +171,7 @@ public class MindmupExporter extends AbstractExporter {
     stringer.endObject();
   }
 
-  private void writeRoot(@Nonnull final JSONStringer stringer, @Nonnull final MindMapPanelConfig cfg, @Nullable final Topic root) {
+  private void writeRoot(@Nonnull final JSONWriter stringer, @Nonnull final MindMapPanelConfig cfg, @Nullable final Topic root) {
     stringer.object();
 
     stringer.key("formatVersion").value(3L);
@@ -231,47 +225,24 @@ public class MindmupExporter extends AbstractExporter {
     stringer.endObject();
   }
 
-  @Nonnull
-  private String makeContent(@Nonnull final MindMapPanel panel) {
-    final JSONStringer stringer = new JSONStringer();
-    writeRoot(stringer, panel.getConfiguration(), panel.getModel().getRoot());
-    return stringer.toString();
-  }
-
   @Override
-  public void doExportToClipboard(@Nonnull final MindMapPanel panel, @Nonnull final JComponent options) throws IOException {
-    final String text = makeContent(panel);
-    SwingUtilities.invokeLater(new Runnable() {
-      @Override
-      public void run() {
-        final Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
-        if (clipboard != null) {
-          clipboard.setContents(new StringSelection(text), null);
-        }
+  public void doExport(@Nonnull final MindMapPanel panel, @Nullable final JComponent options, @Nonnull final Writer out) throws IOException {
+    final JSONWriter writer = new JSONWriter(out);
+    try {
+      writeRoot(writer, panel.getConfiguration(), panel.getModel().getRoot());
+    } catch (JSONException ex) {
+      if (ex.getCause() instanceof IOException) {
+        throw (IOException) ex.getCause();
       }
-    });
+      throw ex;
+    }
   }
 
   @Override
-  public void doExport(@Nonnull final MindMapPanel panel, @Nullable final JComponent options, @Nullable final OutputStream out) throws IOException {
-    final String text = makeContent(panel);
-
-    File fileToSaveMap = null;
-    OutputStream theOut = out;
-    if (theOut == null) {
-      fileToSaveMap = MindMapUtils.selectFileToSaveForFileFilter(panel, Texts.getString("MindmupExporter.saveDialogTitle"), ".mup", Texts.getString("MindmupExporter.filterDescription"), Texts.getString("MindmupExporter.approveButtonText"));
-      fileToSaveMap = MindMapUtils.checkFileAndExtension(panel, fileToSaveMap, ".mup");//NOI18N
-      theOut = fileToSaveMap == null ? null : new BufferedOutputStream(new FileOutputStream(fileToSaveMap, false));
-    }
-    if (theOut != null) {
-      try {
-        IOUtils.write(text, theOut, "UTF-8");
-      } finally {
-        if (fileToSaveMap != null) {
-          IOUtils.closeQuietly(theOut);
-        }
-      }
-    }
+  @Nullable
+  protected File selectFileForExport(@Nonnull final MindMapPanel panel) {
+    final File fileToSaveMap = MindMapUtils.selectFileToSaveForFileFilter(panel, Texts.getString("MindmupExporter.saveDialogTitle"), ".mup", Texts.getString("MindmupExporter.filterDescription"), Texts.getString("MindmupExporter.approveButtonText"));
+    return MindMapUtils.checkFileAndExtension(panel, fileToSaveMap, ".mup");//NOI18N
   }
 
   @Override
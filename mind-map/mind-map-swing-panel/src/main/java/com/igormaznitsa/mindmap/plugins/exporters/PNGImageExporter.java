@@ -25,6 +25,9 @@ import com.igormaznitsa.mindmap.plugins.api.HasOptions;
 import com.igormaznitsa.mindmap.swing.panel.MindMapPanel;
 import com.igormaznitsa.mindmap.swing.panel.MindMapPanelConfig;
 import com.igormaznitsa.mindmap.swing.panel.Texts;
+import com.igormaznitsa.mindmap.swing.panel.ui.gfx.DisplayList;
+import com.igormaznitsa.mindmap.swing.panel.ui.gfx.MMGraphics;
+import com.igormaznitsa.mindmap.swing.panel.ui.gfx.MMGraphics2DWrapper;
 import com.igormaznitsa.mindmap.swing.panel.utils.MindMapUtils;
 import com.igormaznitsa.mindmap.swing.panel.utils.RenderQuality;
 import com.igormaznitsa.mindmap.swing.services.IconID;
@@ -44,6 +47,7 @@ import java.awt.datatransfer.Transferable;
 import java.awt.datatransfer.UnsupportedFlavorException;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.RenderedImage;
 import java.io.*;
@@ -154,7 +158,43 @@ public final class PNGImageExporter extends AbstractExporter {
     newConfig.setDrawBackground(this.flagDrawBackground);
     newConfig.setScale(1.0f);
 
-    return MindMapPanel.renderMindMapAsImage(panel.getModel(), newConfig, flagExpandAllNodes, RenderQuality.QUALITY);
+    BufferedImage result = null;
+    if (!this.flagExpandAllNodes) {
+      result = renderRecordedDiagram(panel, newConfig, RenderQuality.QUALITY);
+    }
+    return result == null ? MindMapPanel.renderMindMapAsImage(panel.getModel(), newConfig, flagExpandAllNodes, RenderQuality.QUALITY) : result;
+  }
+
+  /**
+   * Render image from display list recorded by panel, it allows to avoid new
+   * calculation of elements if the panel shows the same state.
+   *
+   * @param panel source panel
+   * @param cfg configuration for background
+   * @param quality render quality
+   * @return rendered image or null if the panel doesn't have list recorded
+   * with the same text metrics as the quality gives
+   */
+  @Nullable
+  private static BufferedImage renderRecordedDiagram(@Nonnull final MindMapPanel panel, @Nonnull final MindMapPanelConfig cfg, @Nonnull final RenderQuality quality) {
+    final DisplayList recorded = panel.findRecordedTopics(quality);
+    final Rectangle2D area = recorded == null ? null : panel.findDiagramArea();
+    if (area == null || area.isEmpty()) {
+      return null;
+    }
+
+    final BufferedImage img = new BufferedImage((int) area.getWidth(), (int) area.getHeight(), BufferedImage.TYPE_INT_ARGB);
+    final Graphics2D g = img.createGraphics();
+    final MMGraphics gfx = new MMGraphics2DWrapper(g).setBatching(true);
+    try {
+      quality.prepare(g);
+      gfx.setClip(0, 0, img.getWidth(), img.getHeight());
+      gfx.translate(-area.getX(), -area.getY());
+      MindMapPanel.drawOnGraphicsForConfiguration(gfx, cfg, recorded, area);
+    } finally {
+      gfx.dispose();
+    }
+    return img;
   }
 
   @Override
@@ -26,6 +26,7 @@ import com.igormaznitsa.mindmap.plugins.api.HasOptions;
 import com.igormaznitsa.mindmap.swing.panel.MindMapPanel;
 import com.igormaznitsa.mindmap.swing.panel.MindMapPanelConfig;
 import com.igormaznitsa.mindmap.swing.panel.Texts;
+import com.igormaznitsa.mindmap.swing.panel.ui.gfx.DisplayList;
 import com.igormaznitsa.mindmap.swing.panel.ui.gfx.MMGraphics;
 import com.igormaznitsa.mindmap.swing.panel.ui.gfx.StrokeType;
 import com.igormaznitsa.mindmap.swing.panel.utils.MindMapUtils;
@@ -208,13 +209,6 @@ public class SVGImageExporter extends AbstractExporter {
       }
     }
 
-    final MindMap workMap = new MindMap(panel.getModel(), null);
-    workMap.resetPayload();
-
-    if (this.flagExpandAllNodes) {
-      MindMapUtils.removeCollapseAttr(workMap);
-    }
-
     final MindMapPanelConfig newConfig = new MindMapPanelConfig(panel.getConfiguration(), false);
     final String[] mappedFont = LOCAL_FONT_MAP.get(newConfig.getFont().getFamily().toLowerCase(Locale.ENGLISH));
     if (mappedFont != null) {
@@ -225,6 +219,21 @@ public class SVGImageExporter extends AbstractExporter {
     newConfig.setDrawBackground(this.flagDrawBackground);
     newConfig.setScale(1.0f);
 
+    if (!this.flagExpandAllNodes && mappedFont == null) {
+      final DisplayList recorded = panel.findRecordedTopics(RenderQuality.DEFAULT);
+      final Rectangle2D area = recorded == null ? null : panel.findDiagramArea();
+      if (area != null && !area.isEmpty()) {
+        return makeContentFromRecorded(newConfig, area, recorded);
+      }
+    }
+
+    final MindMap workMap = new MindMap(panel.getModel(), panel.getModel().getController());
+    workMap.resetPayload();
+
+    if (this.flagExpandAllNodes) {
+      MindMapUtils.removeCollapseAttr(workMap);
+    }
+
     final Dimension2D blockSize = calculateSizeOfMapInPixels(workMap, null, newConfig, flagExpandAllNodes, RenderQuality.DEFAULT);
     if (blockSize == null) {
       return SVG_HEADER + "</svg>";
@@ -250,6 +259,37 @@ public class SVGImageExporter extends AbstractExporter {
     return buffer.toString();
   }
 
+  /**
+   * Make SVG from display list recorded by panel, it allows to avoid new
+   * calculation of elements if the panel shows the same state.
+   *
+   * @param cfg configuration for background and style
+   * @param area area of diagram in coordinates of recorded list
+   * @param recorded recorded topics
+   * @return SVG text
+   */
+  @Nonnull
+  private String makeContentFromRecorded(@Nonnull final MindMapPanelConfig cfg, @Nonnull final Rectangle2D area, @Nonnull final DisplayList recorded) {
+    final StringBuilder buffer = new StringBuilder(16384);
+    buffer.append(String.format(SVG_HEADER, 100, 100, dbl2str(area.getWidth()), dbl2str(area.getHeight()))).append(NEXT_LINE);
+    buffer.append(prepareStylePart(buffer, cfg)).append(NEXT_LINE);
+
+    final BufferedImage image = new BufferedImage(32, 32, BufferedImage.TYPE_INT_RGB);
+    final Graphics2D g = image.createGraphics();
+    final MMGraphics gfx = new SVGMMGraphics(buffer, g);
+
+    gfx.setClip(0, 0, (int) Math.round(area.getWidth()), (int) Math.round(area.getHeight()));
+    try {
+      gfx.translate(-area.getX(), -area.getY());
+      drawOnGraphicsForConfiguration(gfx, cfg, recorded, area);
+    } finally {
+      gfx.dispose();
+    }
+    buffer.append("</svg>");
+
+    return buffer.toString();
+  }
+
   @Override
   public void doExportToClipboard(@Nonnull final MindMapPanel panel, @Nonnull final JComponent options) throws IOException {
     final String text = makeContent(panel, options);
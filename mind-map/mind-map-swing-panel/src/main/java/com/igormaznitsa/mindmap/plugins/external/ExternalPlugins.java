@@ -17,71 +17,117 @@ package com.igormaznitsa.mindmap.plugins.external;
 
 import com.igormaznitsa.commons.version.Version;
 import com.igormaznitsa.commons.version.VersionValidator;
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.meta.common.utils.GetUtils;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
 import com.igormaznitsa.mindmap.plugins.MindMapPluginRegistry;
 import com.igormaznitsa.mindmap.plugins.api.MindMapPlugin;
+import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 
 import javax.annotation.Nonnull;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nullable;
 
+/**
+ * Loader of external plugins. Metadata of plugins is cached in a file in the
+ * user data folder (keyed by plugin path, size and modification time) so that
+ * plugin files are not opened during start if they have not been changed.
+ * Plugins are registered as deferred ones and loaded either on first request
+ * to their extension points or in background by thread pool.
+ */
 public class ExternalPlugins {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ExternalPlugins.class);
   private static final String PLUGIN_EXTENSION = "mmdp";
+
+  private static final String CACHE_FOLDER = "mind-map"; //NOI18N
+  private static final String CACHE_FORMAT = "1";
+  private static final String KEY_FORMAT = "format";
+  private static final String KEY_COUNT = "plugins";
+
   private final File pluginsFolder;
+  private final File cacheFile;
   private final VersionValidator pluginApiValidator;
 
   public ExternalPlugins(@Nonnull final File pluginsFolder) {
+    this(pluginsFolder, new File(Utils.findUserDataFolder(CACHE_FOLDER), "plugins-" + Utils.makeDigestName(pluginsFolder.getAbsolutePath()) + ".cache")); //NOI18N
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param pluginsFolder folder containing plugins
+   * @param cacheFile file to keep metadata of plugins, can be null if cache
+   * must not be used
+   * @since 1.4.5
+   */
+  public ExternalPlugins(@Nonnull final File pluginsFolder, @Nullable final File cacheFile) {
     this.pluginApiValidator = new VersionValidator(">=" + MindMapPlugin.API.toString());
     this.pluginsFolder = pluginsFolder;
+    this.cacheFile = cacheFile;
     LOGGER.info("External plugins folder is " + pluginsFolder);
   }
 
   public void init() {
+    final long start = System.currentTimeMillis();
+
     final Collection<File> plugins = FileUtils.listFiles(this.pluginsFolder, new String[]{PLUGIN_EXTENSION, PLUGIN_EXTENSION.toUpperCase(Locale.ENGLISH)}, false);
     LOGGER.info("Detected " + plugins.size() + " plugin(s)");
+
+    final Map<String, PluginMetadata> cache = loadCache();
+    final AtomicBoolean cacheChanged = new AtomicBoolean(cache.size() != plugins.size());
+
+    final List<PluginMetadata> actualMetadata = new ArrayList<PluginMetadata>();
+    final List<PluginClass> deferredPlugins = new ArrayList<PluginClass>();
+
     for (final File plugin : plugins) {
       try {
-        final PluginClassLoader loader = AccessController.doPrivileged(new PrivilegedAction<PluginClassLoader>() {
-          @Override
-          @Nullable
-          public PluginClassLoader run() {
-            PluginClassLoader result;
-            try {
-              result = new PluginClassLoader(plugin);
-            } catch (IOException ex) {
-              LOGGER.error("Can't create plugin class loader", ex);
-              result = null;
-            }
-            return result;
-          }
-        });
+        PluginMetadata metadata = cache.get(plugin.getAbsolutePath());
+        PluginClassLoader loader = null;
 
-        if (loader == null) {
-          throw new IOException("Can't create plugin class loader, see log for stacktrace");
+        if (metadata == null || !metadata.isActualFor(plugin)) {
+          loader = makeClassLoader(plugin);
+          metadata = new PluginMetadata(plugin, loader);
+          cacheChanged.set(true);
         }
+        actualMetadata.add(metadata);
 
-        final String pluginTitle = GetUtils.ensureNonNull(loader.getAttributes(Attribute.TITLE), "<unknown>");
-        final Version pluginVersion = new Version(loader.getAttributes(Attribute.VERSION));
+        final String pluginTitle = GetUtils.ensureNonNull(metadata.title, "<unknown>");
+        final Version pluginVersion = new Version(metadata.version);
 
         LOGGER.info(String.format("Detected plugin %s [%s]", pluginTitle, pluginVersion.toString()));
-        final Version pluginApiVersion = loader.getApiVersion();
+        final Version pluginApiVersion = new Version(metadata.api);
         if (this.pluginApiValidator.isValid(pluginApiVersion)) {
           LOGGER.info(String.format("Plugin %s [%s] is valid for API", pluginTitle, pluginVersion.toString()));
-          final String[] classes = loader.extractPluginClassNames();
-          for (final String klazzName : classes) {
-            LOGGER.info(String.format("Loading plugin class %s from %s", klazzName, pluginTitle));
-            final MindMapPlugin pluginInstance = (MindMapPlugin) loader.loadClass(klazzName).newInstance();
-            MindMapPluginRegistry.getInstance().registerPlugin(pluginInstance);
+          final PluginJar jar = new PluginJar(plugin, metadata, loader);
+          for (final String klazzName : metadata.classNames) {
+            deferredPlugins.add(new PluginClass(jar, klazzName, cacheChanged));
           }
         } else {
           LOGGER.warn(String.format("Plugin %s [%s] is not valid for API : %s", pluginTitle, pluginVersion.toString(), pluginApiVersion.toString()));
@@ -90,5 +136,346 @@ public class ExternalPlugins {
         LOGGER.error("Can't load plugin from : " + plugin.getAbsolutePath(), ex);
       }
     }
+
+    for (final PluginClass p : deferredPlugins) {
+      MindMapPluginRegistry.getInstance().registerDeferredPlugin(p);
+    }
+
+    LOGGER.info(String.format("Registered %d deferred plugin class(es) in %d ms", deferredPlugins.size(), System.currentTimeMillis() - start));
+
+    if (deferredPlugins.isEmpty()) {
+      if (cacheChanged.get()) {
+        saveCache(actualMetadata);
+      }
+    } else {
+      loadInBackground(deferredPlugins, actualMetadata, cacheChanged);
+    }
+  }
+
+  private void loadInBackground(@Nonnull @MustNotContainNull final List<PluginClass> deferredPlugins, @Nonnull @MustNotContainNull final List<PluginMetadata> actualMetadata, @Nonnull final AtomicBoolean cacheChanged) {
+    final int threads = Math.max(1, Math.min(deferredPlugins.size(), Runtime.getRuntime().availableProcessors()));
+    final ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+      private final AtomicInteger counter = new AtomicInteger();
+
+      @Override
+      @Nonnull
+      public Thread newThread(@Nonnull final Runnable r) {
+        final Thread result = new Thread(r, "mmd-plugin-loader-" + this.counter.incrementAndGet()); //NOI18N
+        result.setDaemon(true);
+        return result;
+      }
+    });
+
+    final long start = System.currentTimeMillis();
+    final AtomicInteger remaining = new AtomicInteger(deferredPlugins.size());
+
+    for (final PluginClass p : deferredPlugins) {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            MindMapPluginRegistry.getInstance().loadDeferredPlugin(p);
+          } finally {
+            if (remaining.decrementAndGet() == 0) {
+              LOGGER.info(String.format("All external plugins have been loaded in %d ms", System.currentTimeMillis() - start));
+              if (cacheChanged.get()) {
+                saveCache(actualMetadata);
+              }
+              executor.shutdown();
+            }
+          }
+        }
+      });
+    }
+  }
+
+  @Nonnull
+  private static PluginClassLoader makeClassLoader(@Nonnull final File plugin) throws IOException {
+    final PluginClassLoader loader = AccessController.doPrivileged(new PrivilegedAction<PluginClassLoader>() {
+      @Override
+      @Nullable
+      public PluginClassLoader run() {
+        PluginClassLoader result;
+        try {
+          result = new PluginClassLoader(plugin);
+        } catch (IOException ex) {
+          LOGGER.error("Can't create plugin class loader", ex);
+          result = null;
+        }
+        return result;
+      }
+    });
+
+    if (loader == null) {
+      throw new IOException("Can't create plugin class loader, see log for stacktrace");
+    }
+
+    return loader;
+  }
+
+  @Nonnull
+  private Map<String, PluginMetadata> loadCache() {
+    final Map<String, PluginMetadata> result = new HashMap<String, PluginMetadata>();
+    if (this.cacheFile != null && this.cacheFile.isFile()) {
+      final Properties properties = new Properties();
+      InputStream in = null;
+      try {
+        in = new FileInputStream(this.cacheFile);
+        properties.load(in);
+        if (CACHE_FORMAT.equals(properties.getProperty(KEY_FORMAT))) {
+          final int count = Integer.parseInt(properties.getProperty(KEY_COUNT, "0"));
+          for (int i = 0; i < count; i++) {
+            final PluginMetadata metadata = PluginMetadata.read(properties, "plugin." + i + '.');
+            if (metadata != null) {
+              result.put(metadata.path, metadata);
+            }
+          }
+        }
+      } catch (Exception ex) {
+        LOGGER.warn("Can't read plugin cache " + this.cacheFile + " : " + ex.getMessage());
+        result.clear();
+      } finally {
+        IOUtils.closeQuietly(in);
+      }
+    }
+    return result;
+  }
+
+  private void saveCache(@Nonnull @MustNotContainNull final List<PluginMetadata> metadata) {
+    if (this.cacheFile != null) {
+      final Properties properties = new Properties();
+      properties.setProperty(KEY_FORMAT, CACHE_FORMAT);
+      properties.setProperty(KEY_COUNT, Integer.toString(metadata.size()));
+      for (int i = 0; i < metadata.size(); i++) {
+        metadata.get(i).write(properties, "plugin." + i + '.');
+      }
+
+      OutputStream out = null;
+      try {
+        FileUtils.forceMkdir(this.cacheFile.getParentFile());
+        out = new FileOutputStream(this.cacheFile, false);
+        properties.store(out, "Cache of mind map plugin metadata");
+        LOGGER.info("Plugin cache has been saved : " + this.cacheFile);
+      } catch (IOException ex) {
+        LOGGER.warn("Can't save plugin cache " + this.cacheFile + " : " + ex.getMessage());
+      } finally {
+        IOUtils.closeQuietly(out);
+      }
+    }
+  }
+
+  @Nonnull
+  private static String join(@Nonnull @MustNotContainNull final Collection<String> values) {
+    final StringBuilder result = new StringBuilder();
+    for (final String s : values) {
+      if (result.length() > 0) {
+        result.append(',');
+      }
+      result.append(s);
+    }
+    return result.toString();
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  private static List<String> split(@Nullable final String text) {
+    final List<String> result = new ArrayList<String>();
+    if (text != null) {
+      for (final String s : text.split("\\,")) {
+        final String trimmed = s.trim();
+        if (!trimmed.isEmpty()) {
+          result.add(trimmed);
+        }
+      }
+    }
+    return result;
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  private static Set<String> collectTypeNames(@Nullable final Class<?> type, @Nonnull @MustNotContainNull final Set<String> result) {
+    if (type != null && type != Object.class && result.add(type.getName())) {
+      collectTypeNames(type.getSuperclass(), result);
+      for (final Class<?> i : type.getInterfaces()) {
+        collectTypeNames(i, result);
+      }
+    }
+    return result;
+  }
+
+  private static final class PluginMetadata {
+
+    private final String path;
+    private final long size;
+    private final long lastModified;
+    private final String title;
+    private final String version;
+    private final String api;
+    private final List<String> classNames;
+    private final Map<String, Set<String>> extensionPoints = new ConcurrentHashMap<String, Set<String>>();
+
+    private PluginMetadata(@Nonnull final String path, final long size, final long lastModified, @Nullable final String title, @Nullable final String version, @Nullable final String api, @Nonnull @MustNotContainNull final List<String> classNames) {
+      this.path = path;
+      this.size = size;
+      this.lastModified = lastModified;
+      this.title = title;
+      this.version = version;
+      this.api = api;
+      this.classNames = classNames;
+    }
+
+    private PluginMetadata(@Nonnull final File file, @Nonnull final PluginClassLoader loader) {
+      this(file.getAbsolutePath(), file.length(), file.lastModified(), loader.getAttributes(Attribute.TITLE), loader.getAttributes(Attribute.VERSION), loader.getAttributes(Attribute.API), extractClassNames(loader));
+    }
+
+    @Nonnull
+    @MustNotContainNull
+    private static List<String> extractClassNames(@Nonnull final PluginClassLoader loader) {
+      final List<String> result = new ArrayList<String>();
+      for (final String name : loader.extractPluginClassNames()) {
+        if (name != null) {
+          result.add(name);
+        }
+      }
+      return result;
+    }
+
+    @Nullable
+    private static PluginMetadata read(@Nonnull final Properties properties, @Nonnull final String prefix) {
+      final String path = properties.getProperty(prefix + "file");
+      if (path == null) {
+        return null;
+      }
+      final List<String> classNames = split(properties.getProperty(prefix + "classes"));
+      final PluginMetadata result = new PluginMetadata(
+          path,
+          Long.parseLong(properties.getProperty(prefix + "size", "-1")),
+          Long.parseLong(properties.getProperty(prefix + "modified", "-1")),
+          properties.getProperty(prefix + "title"),
+          properties.getProperty(prefix + "version"),
+          properties.getProperty(prefix + "api"),
+          classNames);
+
+      for (final String className : classNames) {
+        final String types = properties.getProperty(prefix + "types." + className);
+        if (types != null) {
+          result.extensionPoints.put(className, Collections.unmodifiableSet(new LinkedHashSet<String>(split(types))));
+        }
+      }
+      return result;
+    }
+
+    private void write(@Nonnull final Properties properties, @Nonnull final String prefix) {
+      properties.setProperty(prefix + "file", this.path);
+      properties.setProperty(prefix + "size", Long.toString(this.size));
+      properties.setProperty(prefix + "modified", Long.toString(this.lastModified));
+      if (this.title != null) {
+        properties.setProperty(prefix + "title", this.title);
+      }
+      if (this.version != null) {
+        properties.setProperty(prefix + "version", this.version);
+      }
+      if (this.api != null) {
+        properties.setProperty(prefix + "api", this.api);
+      }
+      properties.setProperty(prefix + "classes", join(this.classNames));
+      for (final Map.Entry<String, Set<String>> e : this.extensionPoints.entrySet()) {
+        properties.setProperty(prefix + "types." + e.getKey(), join(e.getValue()));
+      }
+    }
+
+    private boolean isActualFor(@Nonnull final File file) {
+      return this.size == file.length() && this.lastModified == file.lastModified();
+    }
+  }
+
+  private static final class PluginJar {
+
+    private final File file;
+    private final PluginMetadata metadata;
+    private final Object loaderLock = new Object();
+    private PluginClassLoader loader;
+
+    private PluginJar(@Nonnull final File file, @Nonnull final PluginMetadata metadata, @Nullable final PluginClassLoader loader) {
+      this.file = file;
+      this.metadata = metadata;
+      this.loader = loader;
+    }
+
+    @Nonnull
+    private PluginClassLoader getLoader() throws IOException {
+      synchronized (this.loaderLock) {
+        if (this.loader == null) {
+          final long start = System.currentTimeMillis();
+          this.loader = makeClassLoader(this.file);
+          LOGGER.info(String.format("Opened plugin %s in %d ms", this.file.getName(), System.currentTimeMillis() - start));
+        }
+        return this.loader;
+      }
+    }
+
+    @Nullable
+    @MustNotContainNull
+    private synchronized Set<String> getExtensionPoints(@Nonnull final String className) {
+      return this.metadata.extensionPoints.get(className);
+    }
+
+    /**
+     * Set extension points of plugin class.
+     *
+     * @param className name of plugin class
+     * @param types names of all types implemented by the class
+     * @return true if the types differ from cached ones
+     */
+    private synchronized boolean setExtensionPoints(@Nonnull final String className, @Nonnull @MustNotContainNull final Set<String> types) {
+      return !types.equals(this.metadata.extensionPoints.put(className, types));
+    }
+  }
+
+  private static final class PluginClass implements MindMapPluginRegistry.DeferredPlugin {
+
+    private final PluginJar jar;
+    private final String className;
+    private final AtomicBoolean cacheChanged;
+    private MindMapPlugin instance;
+    private boolean loaded;
+
+    private PluginClass(@Nonnull final PluginJar jar, @Nonnull final String className, @Nonnull final AtomicBoolean cacheChanged) {
+      this.jar = jar;
+      this.className = className;
+      this.cacheChanged = cacheChanged;
+    }
+
+    @Override
+    @Nullable
+    @MustNotContainNull
+    public Set<String> getExtensionPoints() {
+      return this.jar.getExtensionPoints(this.className);
+    }
+
+    @Override
+    @Nullable
+    public synchronized MindMapPlugin load() throws Exception {
+      if (!this.loaded) {
+        final long start = System.currentTimeMillis();
+        final Class<?> klazz = this.jar.getLoader().loadClass(this.className);
+        this.instance = (MindMapPlugin) klazz.newInstance();
+        this.loaded = true;
+
+        final Set<String> types = Collections.unmodifiableSet(collectTypeNames(klazz, new LinkedHashSet<String>()));
+        if (this.jar.setExtensionPoints(this.className, types)) {
+          this.cacheChanged.set(true);
+        }
+
+        LOGGER.info(String.format("Loaded plugin class %s from %s in %d ms", this.className, GetUtils.ensureNonNull(this.jar.metadata.title, "<unknown>"), System.currentTimeMillis() - start));
+      }
+      return this.instance;
+    }
+
+    @Override
+    @Nonnull
+    public String toString() {
+      return this.className + " (" + this.jar.file.getName() + ')';
+    }
   }
 }
@@ -16,7 +16,6 @@
 package com.igormaznitsa.mindmap.plugins.importers;
 
 import com.igormaznitsa.meta.annotation.MustNotContainNull;
-import com.igormaznitsa.meta.annotation.ReturnsOriginal;
 import com.igormaznitsa.meta.common.utils.Assertions;
 import com.igormaznitsa.mindmap.model.ExtraLink;
 import com.igormaznitsa.mindmap.model.ExtraNote;
@@ -26,7 +25,6 @@ import com.igormaznitsa.mindmap.model.Topic;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
 import com.igormaznitsa.mindmap.plugins.api.AbstractImporter;
-import com.igormaznitsa.mindmap.plugins.attributes.images.ImageVisualAttributePlugin;
 import com.igormaznitsa.mindmap.swing.panel.DialogProvider;
 import com.igormaznitsa.mindmap.swing.panel.MindMapPanel;
 import com.igormaznitsa.mindmap.swing.panel.Texts;
@@ -34,29 +32,32 @@ import com.igormaznitsa.mindmap.swing.panel.ui.AbstractCollapsableElement;
 import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
 import com.igormaznitsa.mindmap.swing.services.IconID;
 import com.igormaznitsa.mindmap.swing.services.ImageIconServiceProvider;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Entities;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.swing.*;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.awt.*;
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.StringReader;
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import static com.igormaznitsa.mindmap.swing.panel.StandardTopicAttribute.ATTR_FILL_COLOR;
 import static com.igormaznitsa.mindmap.swing.panel.StandardTopicAttribute.ATTR_TEXT_COLOR;
-import java.net.URISyntaxException;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathFactory;
-import org.w3c.dom.Attr;
-import org.w3c.dom.NamedNodeMap;
 
 public class Freemind2MindMapImporter extends AbstractImporter {
 
@@ -66,13 +67,8 @@ public class Freemind2MindMapImporter extends AbstractImporter {
 
   private static final Set<String> TOKEN_NEEDS_NEXT_LINE = new HashSet<String>(Arrays.asList("br", "div", "p", "li"));
 
-  @Nonnull
-  private static String findArrowlinkDestination(@Nonnull final Element element) {
-    final List<Element> arrows = Utils.findDirectChildrenForName(element, "arrowlink");
-    return arrows.isEmpty() ? "" : findAttribute(arrows.get(0), "destination");
-  }
-
-  private static void processImageLinkForTopic(@Nonnull final File rootFolder, @Nonnull final Topic topic, @Nonnull @MustNotContainNull final String[] imageUrls) {
+  @Nullable
+  private static String loadFirstImage(@Nonnull final File rootFolder, @Nonnull @MustNotContainNull final String[] imageUrls) {
     for (final String s : imageUrls) {
       try {
         URI imageUri = URI.create(s);
@@ -85,38 +81,61 @@ public class Freemind2MindMapImporter extends AbstractImporter {
         }
 
         if (file.isFile()) {
-          topic.setAttribute(ImageVisualAttributePlugin.ATTR_KEY, Utils.rescaleImageAndEncodeAsBase64(file, -1));
-          break;
+          return Utils.rescaleImageAndEncodeAsBase64(file, -1);
         }
       } catch (Exception ex) {
         LOGGER.warn("Can't decode or load image for URI : " + s);
       }
     }
+    return null;
   }
 
-  @Nonnull
-  @ReturnsOriginal
-  private static StringBuilder processHtmlElement(@Nonnull final NodeList list, @Nonnull final StringBuilder builder, @Nonnull @MustNotContainNull final List<String> imageURLs) {
-    for (int i = 0; i < list.getLength(); i++) {
-      final Node n = list.item(i);
-      switch (n.getNodeType()) {
-        case Node.TEXT_NODE: {
-          builder.append(n.getTextContent());
+  private static void decodeImagesForTopic(@Nonnull final ParallelImageDecoder decoder, @Nonnull final File rootFolder, @Nonnull final TopicFrame frame) {
+    final List<String[]> imageUrls = frame.imageUrls;
+    decoder.submit(frame.topic, new Callable<String>() {
+      @Override
+      @Nullable
+      public String call() throws Exception {
+        // image from the last rich content overrides images of previous ones
+        for (int i = imageUrls.size() - 1; i >= 0; i--) {
+          final String result = loadFirstImage(rootFolder, imageUrls.get(i));
+          if (result != null) {
+            return result;
+          }
         }
-        break;
-        case Node.ELEMENT_NODE: {
-          final String tag = n.getNodeName();
+        return null;
+      }
+    });
+  }
+
+  @Nonnull
+  private static String readRichContent(@Nonnull final XMLStreamReader reader, @Nonnull @MustNotContainNull final List<String> imageURLs) throws XMLStreamException {
+    final StringBuilder builder = new StringBuilder();
+    int depth = 1;
+    while (depth > 0 && reader.hasNext()) {
+      switch (reader.next()) {
+        case XMLStreamConstants.START_ELEMENT: {
+          depth++;
+          final String tag = StaxUtils.getName(reader).toLowerCase(Locale.ENGLISH);
           if ("img".equals(tag)) {
-            final String source = findAttribute((Element) n, "src");
+            final String source = StaxUtils.getAttribute(reader, "src", true);
             if (!source.isEmpty()) {
               imageURLs.add(source);
             }
           }
-
           if (TOKEN_NEEDS_NEXT_LINE.contains(tag)) {
             builder.append('\n');
           }
-          processHtmlElement(n.getChildNodes(), builder, imageURLs);
+        }
+        break;
+        case XMLStreamConstants.END_ELEMENT: {
+          depth--;
+        }
+        break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE: {
+          builder.append(reader.getText());
         }
         break;
         default: {
@@ -125,38 +144,7 @@ public class Freemind2MindMapImporter extends AbstractImporter {
         break;
       }
     }
-    return builder;
-  }
-
-  @Nonnull
-  @ReturnsOriginal
-  private static StringBuilder extractTextFromHtmlElement(@Nonnull final Element element, @Nonnull final StringBuilder buffer, @Nonnull @MustNotContainNull final List<String> imageURLs) {
-    processHtmlElement(element.getChildNodes(), buffer, imageURLs);
-    return buffer;
-  }
-
-  @Nonnull
-  @MustNotContainNull
-  private static List<RichContent> extractRichContent(@Nonnull final Element richContentElement) {
-    final List<Element> richContents = Utils.findDirectChildrenForName(richContentElement, "richcontent");
-
-    final List<RichContent> result = new ArrayList<>();
-
-    final List<String> foundImageUrls = new ArrayList<>();
-
-    for (final Element e : richContents) {
-      final String textType = findAttribute(e, "type");
-      try {
-        foundImageUrls.clear();
-        final RichContentType type = RichContentType.valueOf(textType);
-        final String text = extractTextFromHtmlElement(e, new StringBuilder(), foundImageUrls).toString().replace("\r", "");
-        result.add(new RichContent(type, text, foundImageUrls));
-      } catch (IllegalArgumentException ex) {
-        LOGGER.warn("Unknown node type : " + textType);
-      }
-    }
-
-    return result;
+    return builder.toString().replace("\r", "");
   }
 
   @Override
@@ -168,60 +156,127 @@ public class Freemind2MindMapImporter extends AbstractImporter {
       return null;
     }
 
-    final Document document = Utils.loadHtmlDocument(new FileInputStream(file), "UTF-8", true);
-    final XPath xpath = XPathFactory.newInstance().newXPath();
-    final Element rootElement = (Element) xpath.evaluate("/html/body/map", document, XPathConstants.NODE);
+    return importFromFile(file);
+  }
 
-    if (rootElement == null) {
-      throw new IllegalArgumentException("Can't parse freemind file as xhtml");
+  /**
+   * Import Freemind file. The file is read by pull parser and topics are made
+   * during reading, if the file is not well-formed XML then it is normalized
+   * through HTML parser and read again.
+   *
+   * @param file Freemind file
+   * @return imported mind map
+   * @throws Exception if there is any error during import
+   */
+  @Nonnull
+  MindMap importFromFile(@Nonnull final File file) throws Exception {
+    final File rootFolder = file.getAbsoluteFile().getParentFile();
+
+    final InputStream in = new BufferedInputStream(new FileInputStream(file));
+    try {
+      return parse(rootFolder, StaxUtils.makeReader(in));
+    } catch (XMLStreamException ex) {
+      LOGGER.warn("Freemind file is not well-formed XML, it will be processed as HTML : " + ex.getMessage());
+    } finally {
+      IOUtils.closeQuietly(in);
     }
 
+    final Document document = Jsoup.parse(FileUtils.readFileToString(file, "UTF-8"));
+    document.outputSettings().syntax(Document.OutputSettings.Syntax.xml).escapeMode(Entities.EscapeMode.xhtml).prettyPrint(false);
+    return parse(rootFolder, StaxUtils.makeReader(new StringReader(document.outerHtml())));
+  }
+
+  @Nonnull
+  private MindMap parse(@Nonnull final File rootFolder, @Nonnull final XMLStreamReader reader) throws Exception {
     final Map<String, Topic> idTopicMap = new HashMap<>();
     final Map<String, String> linksMap = new HashMap<>();
     final MindMap resultedMap = new MindMap(null, true);
     resultedMap.setAttribute(MindMapPanel.ATTR_SHOW_JUMPS, "true");
 
-    final List<Element> list = Utils.findDirectChildrenForName(rootElement, "node");
-    if (list.isEmpty()) {
-      Assertions.assertNotNull(resultedMap.getRoot()).setText("Empty");
-    } else {
-      parseTopic(file.getParentFile(), resultedMap, null, resultedMap.getRoot(), list.get(0), idTopicMap, linksMap);
-    }
+    final ParallelImageDecoder imageDecoder = new ParallelImageDecoder();
+    try {
+      final List<TopicFrame> stack = new ArrayList<>();
+      int mapDepth = -1;
+      boolean rootFound = false;
+      int depth = 0;
+
+      while (reader.hasNext()) {
+        final int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          depth++;
+          final String name = StaxUtils.getName(reader);
+          final TopicFrame current = stack.isEmpty() ? null : stack.get(stack.size() - 1);
+          final boolean directChildOfTopic = current != null && depth == current.depth + 1;
+
+          if ("map".equalsIgnoreCase(name) && mapDepth < 0) {
+            mapDepth = depth;
+          } else if ("node".equalsIgnoreCase(name)) {
+            if (directChildOfTopic) {
+              stack.add(startTopic(reader, current.topic, null, depth));
+            } else if (current == null && !rootFound && mapDepth >= 0 && depth == mapDepth + 1) {
+              rootFound = true;
+              stack.add(startTopic(reader, null, resultedMap.getRoot(), depth));
+            } else {
+              StaxUtils.skipElement(reader);
+              depth--;
+            }
+          } else if ("arrowlink".equalsIgnoreCase(name) && directChildOfTopic) {
+            if (!current.arrowlinkProcessed) {
+              current.arrowlinkProcessed = true;
+              current.arrowDestination = StaxUtils.getAttribute(reader, "destination", true);
+            }
+          } else if ("richcontent".equalsIgnoreCase(name) && directChildOfTopic) {
+            final String textType = StaxUtils.getAttribute(reader, "type", true);
+            final List<String> foundImageUrls = new ArrayList<>();
+            final String text = readRichContent(reader, foundImageUrls);
+            depth--;
+            try {
+              processRichContent(current, RichContentType.valueOf(textType), text, foundImageUrls);
+            } catch (IllegalArgumentException ex) {
+              LOGGER.warn("Unknown node type : " + textType);
+            }
+          }
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          if (!stack.isEmpty() && stack.get(stack.size() - 1).depth == depth) {
+            endTopic(stack.remove(stack.size() - 1), rootFolder, imageDecoder, idTopicMap, linksMap);
+          }
+          depth--;
+        }
+      }
 
-    for (final Map.Entry<String, String> l : linksMap.entrySet()) {
-      final Topic start = idTopicMap.get(l.getKey());
-      final Topic end = idTopicMap.get(l.getValue());
-      if (start != null && end != null) {
-        start.setExtra(ExtraTopic.makeLinkTo(resultedMap, end));
+      if (mapDepth < 0) {
+        throw new IllegalArgumentException("Can't parse freemind file as xhtml");
       }
-    }
 
-    return resultedMap;
-  }
+      if (!rootFound) {
+        Assertions.assertNotNull(resultedMap.getRoot()).setText("Empty");
+      }
 
-  @Nonnull
-  private static String findAttribute(@Nonnull final Element element, @Nonnull final String attribute) {
-    final NamedNodeMap map = element.getAttributes();
-    for (int i = 0; i < map.getLength(); i++) {
-      final Attr attr = (Attr) map.item(i);
-      if (attribute.equalsIgnoreCase(attr.getName())) {
-        return attr.getValue();
+      for (final Map.Entry<String, String> l : linksMap.entrySet()) {
+        final Topic start = idTopicMap.get(l.getKey());
+        final Topic end = idTopicMap.get(l.getValue());
+        if (start != null && end != null) {
+          start.setExtra(ExtraTopic.makeLinkTo(resultedMap, end));
+        }
       }
-    }
-    return "";
-  }
 
-  private void parseTopic(@Nonnull final File rootFolder, @Nonnull final MindMap map, @Nullable Topic parent, @Nullable Topic preGeneratedTopic, @Nonnull Element element, @Nonnull final Map<String, Topic> idTopicMap, @Nonnull final Map<String, String> linksMap) {
+      imageDecoder.waitAndApply();
+    } finally {
+      imageDecoder.dispose();
+      reader.close();
+    }
 
-    final String text = findAttribute(element, "text");
-    final String id = findAttribute(element, "id");
-    final String position = findAttribute(element, "position");
-    final String arrowDestination = findArrowlinkDestination(element);
-    final String backgroundСolor = findAttribute(element, "background_color");
-    final String color = findAttribute(element, "color");
-    final String link = findAttribute(element, "link");
+    return resultedMap;
+  }
 
-    final List<RichContent> foundRichContent = extractRichContent(element);
+  @Nonnull
+  private static TopicFrame startTopic(@Nonnull final XMLStreamReader reader, @Nullable final Topic parent, @Nullable final Topic preGeneratedTopic, final int depth) {
+    final String text = StaxUtils.getAttribute(reader, "text", true);
+    final String id = StaxUtils.getAttribute(reader, "id", true);
+    final String position = StaxUtils.getAttribute(reader, "position", true);
+    final String backgroundСolor = StaxUtils.getAttribute(reader, "background_color", true);
+    final String color = StaxUtils.getAttribute(reader, "color", true);
+    final String link = StaxUtils.getAttribute(reader, "link", true);
 
     final Topic topicToProcess;
     if (preGeneratedTopic == null) {
@@ -254,23 +309,32 @@ public class Freemind2MindMapImporter extends AbstractImporter {
 
     topicToProcess.setText(text);
 
-    for (final RichContent r : foundRichContent) {
-      switch (r.getType()) {
-        case NODE: {
-          if (!r.getText().isEmpty()) {
-            topicToProcess.setText(r.getText().trim());
-          }
+    return new TopicFrame(topicToProcess, depth, id, link);
+  }
+
+  private static void processRichContent(@Nonnull final TopicFrame frame, @Nonnull final RichContentType type, @Nonnull final String text, @Nonnull @MustNotContainNull final List<String> imageUrls) {
+    switch (type) {
+      case NODE: {
+        if (!text.isEmpty()) {
+          frame.topic.setText(text.trim());
         }
-        break;
-        case NOTE: {
-          if (!r.getText().isEmpty()) {
-            topicToProcess.setExtra(new ExtraNote(r.getText().trim()));
-          }
+      }
+      break;
+      case NOTE: {
+        if (!text.isEmpty()) {
+          frame.topic.setExtra(new ExtraNote(text.trim()));
         }
-        break;
       }
-      processImageLinkForTopic(rootFolder, topicToProcess, r.getFoundImageURLs());
+      break;
     }
+    if (!imageUrls.isEmpty()) {
+      frame.imageUrls.add(imageUrls.toArray(new String[imageUrls.size()]));
+    }
+  }
+
+  private static void endTopic(@Nonnull final TopicFrame frame, @Nonnull final File rootFolder, @Nonnull final ParallelImageDecoder imageDecoder, @Nonnull final Map<String, Topic> idTopicMap, @Nonnull final Map<String, String> linksMap) {
+    final String link = frame.link;
+    final String id = frame.id;
 
     if (!link.isEmpty()) {
       if (link.startsWith("#")) {
@@ -279,7 +343,7 @@ public class Freemind2MindMapImporter extends AbstractImporter {
         }
       } else {
         try {
-          topicToProcess.setExtra(new ExtraLink(link));
+          frame.topic.setExtra(new ExtraLink(link));
         } catch (URISyntaxException ex) {
           LOGGER.warn("Can't convert link: " + link);
         }
@@ -287,14 +351,14 @@ public class Freemind2MindMapImporter extends AbstractImporter {
     }
 
     if (!id.isEmpty()) {
-      idTopicMap.put(id, topicToProcess);
-      if (!arrowDestination.isEmpty()) {
-        linksMap.put(id, arrowDestination);
+      idTopicMap.put(id, frame.topic);
+      if (!frame.arrowDestination.isEmpty()) {
+        linksMap.put(id, frame.arrowDestination);
       }
     }
 
-    for (final Element e : Utils.findDirectChildrenForName(element, "node")) {
-      parseTopic(rootFolder, map, topicToProcess, null, e, idTopicMap, linksMap);
+    if (!frame.imageUrls.isEmpty()) {
+      decodeImagesForTopic(imageDecoder, rootFolder, frame);
     }
   }
 
@@ -336,32 +400,21 @@ public class Freemind2MindMapImporter extends AbstractImporter {
     NODE, NOTE
   }
 
-  private static final class RichContent {
-
-    private final RichContentType type;
-    private final String text;
-    private final String[] imageUrls;
-
-    private RichContent(@Nonnull final RichContentType type, @Nonnull final String text, @Nonnull @MustNotContainNull final List<String> foundImageUrls) {
-      this.type = type;
-      this.text = text;
-      this.imageUrls = foundImageUrls.toArray(new String[foundImageUrls.size()]);
-    }
-
-    @Nonnull
-    @MustNotContainNull
-    private String[] getFoundImageURLs() {
-      return this.imageUrls;
-    }
-
-    @Nonnull
-    private RichContentType getType() {
-      return this.type;
-    }
-
-    @Nonnull
-    private String getText() {
-      return this.text;
+  private static final class TopicFrame {
+
+    private final Topic topic;
+    private final int depth;
+    private final String id;
+    private final String link;
+    private final List<String[]> imageUrls = new ArrayList<String[]>();
+    private boolean arrowlinkProcessed;
+    private String arrowDestination = "";
+
+    private TopicFrame(@Nonnull final Topic topic, final int depth, @Nonnull final String id, @Nonnull final String link) {
+      this.topic = topic;
+      this.depth = depth;
+      this.id = id;
+      this.link = link;
     }
   }
 }
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.plugins.importers;
+
+import com.igormaznitsa.mindmap.model.Topic;
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import com.igormaznitsa.mindmap.plugins.attributes.images.ImageVisualAttributePlugin;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+
+/**
+ * Decoder of topic images on thread pool. Importers submit image loading
+ * tasks during parsing and the decoded images are set to topics by the
+ * importing thread when parsing is completed, so that topics are never touched
+ * by pool threads.
+ *
+ * @since 1.4.5
+ */
+final class ParallelImageDecoder {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ParallelImageDecoder.class);
+
+  private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+  private final ExecutorService executor;
+  private final List<Task> tasks = new ArrayList<Task>();
+
+  private static final class Task {
+
+    private final Topic topic;
+    private final Future<String> future;
+
+    private Task(@Nonnull final Topic topic, @Nonnull final Future<String> future) {
+      this.topic = topic;
+      this.future = future;
+    }
+  }
+
+  ParallelImageDecoder() {
+    this.executor = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors()), new ThreadFactory() {
+      @Override
+      @Nonnull
+      public Thread newThread(@Nonnull final Runnable r) {
+        final Thread result = new Thread(r, "mmd-image-decoder-" + THREAD_COUNTER.incrementAndGet()); //NOI18N
+        result.setDaemon(true);
+        return result;
+      }
+    });
+  }
+
+  /**
+   * Submit task to decode image for topic.
+   *
+   * @param topic topic to get image
+   * @param decoder task which returns image encoded as Base64 or null if
+   * there is not any image
+   */
+  void submit(@Nonnull final Topic topic, @Nonnull final Callable<String> decoder) {
+    this.tasks.add(new Task(topic, this.executor.submit(decoder)));
+  }
+
+  /**
+   * Wait for all submitted tasks and set decoded images to their topics. The
+   * decoder can't be used after the call.
+   *
+   * @throws InterruptedException if the thread has been interrupted
+   */
+  void waitAndApply() throws InterruptedException {
+    try {
+      for (final Task t : this.tasks) {
+        try {
+          final String image = t.future.get();
+          if (image != null && !image.isEmpty()) {
+            t.topic.setAttribute(ImageVisualAttributePlugin.ATTR_KEY, image);
+          }
+        } catch (ExecutionException ex) {
+          LOGGER.error("Can't decode image for topic : " + t.topic.getText(), ex.getCause());
+        }
+      }
+    } finally {
+      dispose();
+    }
+  }
+
+  /**
+   * Cancel all not completed tasks and stop the pool.
+   */
+  void dispose() {
+    this.tasks.clear();
+    this.executor.shutdownNow();
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.plugins.importers;
+
+import java.io.InputStream;
+import java.io.Reader;
+import javax.annotation.Nonnull;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Auxiliary methods to read XML through StAX pull parser. The parser is not
+ * namespace aware so that names of elements and attributes are processed
+ * together with their prefixes (like 'xhtml:img').
+ *
+ * @since 1.4.5
+ */
+final class StaxUtils {
+
+  private static final XMLInputFactory FACTORY;
+
+  static {
+    FACTORY = XMLInputFactory.newInstance();
+    FACTORY.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.FALSE);
+    FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+  }
+
+  private StaxUtils() {
+  }
+
+  @Nonnull
+  static XMLStreamReader makeReader(@Nonnull final InputStream in) throws XMLStreamException {
+    synchronized (FACTORY) {
+      return FACTORY.createXMLStreamReader(in);
+    }
+  }
+
+  @Nonnull
+  static XMLStreamReader makeReader(@Nonnull final Reader in) throws XMLStreamException {
+    synchronized (FACTORY) {
+      return FACTORY.createXMLStreamReader(in);
+    }
+  }
+
+  /**
+   * Get name of current element together with its prefix.
+   *
+   * @param reader reader positioned on start or end of element
+   * @return name of element, must not be null
+   */
+  @Nonnull
+  static String getName(@Nonnull final XMLStreamReader reader) {
+    final String prefix = reader.getPrefix();
+    final String local = reader.getLocalName();
+    return prefix == null || prefix.isEmpty() ? local : prefix + ':' + local;
+  }
+
+  /**
+   * Find attribute of current element.
+   *
+   * @param reader reader positioned on start of element
+   * @param name attribute name together with its prefix
+   * @param ignoreCase true if name case must be ignored
+   * @return value of attribute or empty string if not found
+   */
+  @Nonnull
+  static String getAttribute(@Nonnull final XMLStreamReader reader, @Nonnull final String name, final boolean ignoreCase) {
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      final String prefix = reader.getAttributePrefix(i);
+      final String local = reader.getAttributeLocalName(i);
+      final String attrName = prefix == null || prefix.isEmpty() ? local : prefix + ':' + local;
+      if (ignoreCase ? name.equalsIgnoreCase(attrName) : name.equals(attrName)) {
+        final String value = reader.getAttributeValue(i);
+        return value == null ? "" : value;
+      }
+    }
+    return "";
+  }
+
+  /**
+   * Read whole text content of current element including text of its nested
+   * elements, the reader will be positioned on end of the element.
+   *
+   * @param reader reader positioned on start of element
+   * @return text content of the element, must not be null
+   * @throws XMLStreamException if there is any error during parsing
+   */
+  @Nonnull
+  static String readTextContent(@Nonnull final XMLStreamReader reader) throws XMLStreamException {
+    final StringBuilder buffer = new StringBuilder();
+    int depth = 1;
+    while (depth > 0 && reader.hasNext()) {
+      switch (reader.next()) {
+        case XMLStreamConstants.START_ELEMENT:
+          depth++;
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          depth--;
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE:
+          buffer.append(reader.getText());
+          break;
+        default:
+          break;
+      }
+    }
+    return buffer.toString();
+  }
+
+  /**
+   * Skip current element together with all its content, the reader will be
+   * positioned on end of the element.
+   *
+   * @param reader reader positioned on start of element
+   * @throws XMLStreamException if there is any error during parsing
+   */
+  static void skipElement(@Nonnull final XMLStreamReader reader) throws XMLStreamException {
+    int depth = 1;
+    while (depth > 0 && reader.hasNext()) {
+      final int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        depth--;
+      }
+    }
+  }
+}
@@ -22,7 +22,6 @@ import com.igormaznitsa.mindmap.model.*;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
 import com.igormaznitsa.mindmap.plugins.api.AbstractImporter;
-import com.igormaznitsa.mindmap.plugins.attributes.images.ImageVisualAttributePlugin;
 import com.igormaznitsa.mindmap.swing.panel.DialogProvider;
 import com.igormaznitsa.mindmap.swing.panel.MindMapPanel;
 import com.igormaznitsa.mindmap.swing.panel.StandardTopicAttribute;
@@ -31,13 +30,15 @@ import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
 import com.igormaznitsa.mindmap.swing.services.IconID;
 import com.igormaznitsa.mindmap.swing.services.ImageIconServiceProvider;
 import org.apache.commons.io.IOUtils;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.swing.*;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.awt.*;
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.InputStream;
 import java.net.URI;
@@ -45,6 +46,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.zip.ZipFile;
 
 public class XMind2MindMapImporter extends AbstractImporter {
@@ -57,103 +59,25 @@ public class XMind2MindMapImporter extends AbstractImporter {
     throw new IllegalArgumentException("Wrong or unsupported XMind file format");
   }
 
-  @Nonnull
-  private static String extractTopicTitle(@Nonnull final Element topic) {
-    final List<Element> title = Utils.findDirectChildrenForName(topic, "title");
-    return title.isEmpty() ? "" : title.get(0).getTextContent();
-  }
-
-  @Nonnull
-  @MustNotContainNull
-  private static List<Element> getChildTopics(@Nonnull final Element topic) {
-    List<Element> result = new ArrayList<Element>();
-
-    for (final Element c : Utils.findDirectChildrenForName(topic, "children")) {
-      for (Element t : Utils.findDirectChildrenForName(c, "topics")) {
-        result.addAll(Utils.findDirectChildrenForName(t, "topic"));
-      }
-    }
-
-    return result;
-  }
-
-  private static void convertTopic(@Nonnull ZipFile zipFile, @Nonnull final XMindStyles styles, @Nonnull final MindMap map, @Nullable final Topic parent, @Nullable Topic pregeneratedOne, @Nonnull final Element topicElement, @Nonnull Map<String, Topic> idTopicMap, @Nonnull final Map<String, String> linksBetweenTopics) throws Exception {
-    final Topic topicToProcess;
-
-    if (pregeneratedOne == null) {
-      topicToProcess = Assertions.assertNotNull(parent).makeChild("", null);
-    } else {
-      topicToProcess = pregeneratedOne;
-    }
-
-    topicToProcess.setText(extractTopicTitle(topicElement));
-
-    final String theTopicId = topicElement.getAttribute("id");
-
-    idTopicMap.put(theTopicId, topicToProcess);
-
-    final String styleId = topicElement.getAttribute("style-id");
-    if (!styleId.isEmpty()) {
-      styles.setStyle(styleId, topicToProcess);
-    }
-
-    final String attachedImage = extractFirstAttachedImageAsBase64(zipFile, topicElement);
-    if (attachedImage != null && !attachedImage.isEmpty()) {
-      topicToProcess.setAttribute(ImageVisualAttributePlugin.ATTR_KEY, attachedImage);
-    }
-
-    final String xlink = topicElement.getAttribute("xlink:href");
-    if (!xlink.isEmpty()) {
-      if (xlink.startsWith("file:")) {
-        try {
-          topicToProcess.setExtra(new ExtraFile(new MMapURI(new File(xlink.substring(5)).toURI())));
-        } catch (Exception ex) {
-          LOGGER.error("Can't convert file link : " + xlink, ex);
-        }
-      } else if (xlink.startsWith("xmind:#")) {
-        linksBetweenTopics.put(theTopicId, xlink.substring(7));
-      } else {
-        try {
-          topicToProcess.setExtra(new ExtraLink(new MMapURI(URI.create(xlink))));
-        } catch (Exception ex) {
-          LOGGER.error("Can't convert link : " + xlink, ex);
-        }
-      }
-    }
-
-    final String extractedNote = extractNote(topicElement);
-
-    if (!extractedNote.isEmpty()) {
-      topicToProcess.setExtra(new ExtraNote(extractedNote));
-    }
-
-    for (final Element c : getChildTopics(topicElement)) {
-      convertTopic(zipFile, styles, map, topicToProcess, null, c, idTopicMap, linksBetweenTopics);
-    }
-  }
-
   @Nullable
-  private static String extractFirstAttachedImageAsBase64(@Nonnull final ZipFile file, @Nonnull final Element topic) {
+  private static String extractFirstAttachedImageAsBase64(@Nonnull final ZipFile file, @Nonnull @MustNotContainNull final List<String> links) {
     String result = null;
 
-    for (final Element e : Utils.findDirectChildrenForName(topic, "xhtml:img")) {
-      final String link = e.getAttribute("xhtml:src");
-      if (!link.isEmpty()) {
-        if (link.startsWith("xap:")) {
-          InputStream inStream = null;
-          try {
-            inStream = Utils.findInputStreamForResource(file, link.substring(4));
-            if (inStream != null) {
-              result = Utils.rescaleImageAndEncodeAsBase64(inStream, -1);
-              if (result != null) {
-                break;
-              }
+    for (final String link : links) {
+      if (link.startsWith("xap:")) {
+        InputStream inStream = null;
+        try {
+          inStream = Utils.findInputStreamForResource(file, link.substring(4));
+          if (inStream != null) {
+            result = Utils.rescaleImageAndEncodeAsBase64(new BufferedInputStream(inStream), -1);
+            if (result != null) {
+              break;
             }
-          } catch (final Exception ex) {
-            LOGGER.error("Can't decode attached image : " + link, ex);
-          } finally {
-            IOUtils.closeQuietly(inStream);
           }
+        } catch (final Exception ex) {
+          LOGGER.error("Can't decode attached image : " + link, ex);
+        } finally {
+          IOUtils.closeQuietly(inStream);
         }
       }
     }
@@ -161,39 +85,27 @@ public class XMind2MindMapImporter extends AbstractImporter {
   }
 
   @Nonnull
-  private static String extractNote(@Nonnull final Element topic) {
-    final StringBuilder result = new StringBuilder();
-
-    for (final Element note : Utils.findDirectChildrenForName(topic, "notes")) {
-      final String plain = extractTextContentFrom(note, "plain");
-      final String html = extractTextContentFrom(note, "html");
-
-      if (result.length() > 0) {
-        result.append('\n');
-      }
-
-      if (!plain.isEmpty()) {
-        result.append(plain);
-      } else if (!html.isEmpty()) {
-        result.append(html);
-      }
-    }
-
-    return result.toString();
-  }
-
-  @Nonnull
-  private static String extractTextContentFrom(@Nonnull final Element element, @Nonnull final String tag) {
-    final StringBuilder result = new StringBuilder();
-
-    for (final Element c : Utils.findDirectChildrenForName(element, tag)) {
-      final String found = c.getTextContent();
-      if (found != null && !found.isEmpty()) {
-        result.append(found.replace("\r", ""));
+  private static String readNote(@Nonnull final XMLStreamReader reader) throws XMLStreamException {
+    final StringBuilder plain = new StringBuilder();
+    final StringBuilder html = new StringBuilder();
+
+    while (reader.hasNext()) {
+      final int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        final String name = StaxUtils.getName(reader);
+        if ("plain".equals(name)) {
+          plain.append(StaxUtils.readTextContent(reader).replace("\r", ""));
+        } else if ("html".equals(name)) {
+          html.append(StaxUtils.readTextContent(reader).replace("\r", ""));
+        } else {
+          StaxUtils.skipElement(reader);
+        }
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        break;
       }
     }
 
-    return result.toString();
+    return plain.length() > 0 ? plain.toString() : html.toString();
   }
 
   @Override
@@ -205,73 +117,212 @@ public class XMind2MindMapImporter extends AbstractImporter {
       return null;
     }
 
+    return importFromFile(file);
+  }
+
+  /**
+   * Import XMind file. Content of the file is read by pull parser and topics
+   * are made during reading, attached images are decoded in parallel.
+   *
+   * @param file XMind file
+   * @return imported mind map
+   * @throws Exception if there is any error during import
+   */
+  @Nonnull
+  MindMap importFromFile(@Nonnull final File file) throws Exception {
     final ZipFile zipFile = new ZipFile(file);
-    final XMindStyles styles = new XMindStyles(zipFile);
+    try {
+      final XMindStyles styles = new XMindStyles(zipFile);
 
-    final InputStream contentStream = Utils.findInputStreamForResource(zipFile, "content.xml");
-    if (contentStream == null) {
-      throwWrongFormat();
-    }
-    final Document document = Utils.loadXmlDocument(Assertions.assertNotNull(contentStream), null, true);
+      final InputStream contentStream = Utils.findInputStreamForResource(zipFile, "content.xml");
+      if (contentStream == null) {
+        throwWrongFormat();
+      }
 
-    final Element rootElement = document.getDocumentElement();
-    if (!rootElement.getTagName().equals("xmap-content")) {
-      throwWrongFormat();
+      final XMLStreamReader reader = StaxUtils.makeReader(new BufferedInputStream(Assertions.assertNotNull(contentStream)));
+      try {
+        return convertContent(styles, zipFile, reader);
+      } finally {
+        reader.close();
+        IOUtils.closeQuietly(contentStream);
+      }
+    } finally {
+      zipFile.close();
     }
+  }
 
-    final List<Element> sheets = Utils.findDirectChildrenForName(document.getDocumentElement(), "sheet");
+  @Nonnull
+  private MindMap convertContent(@Nonnull final XMindStyles styles, @Nonnull final ZipFile file, @Nonnull final XMLStreamReader reader) throws Exception {
+    MindMap resultedMap = null;
 
-    final MindMap result;
+    final Map<String, Topic> topicIdMap = new HashMap<String, Topic>();
+    final Map<String, String> linksBetweenTopics = new HashMap<String, String>();
+    final List<String[]> relationships = new ArrayList<String[]>();
+
+    final List<String> elementNames = new ArrayList<String>();
+    final List<TopicFrame> stack = new ArrayList<TopicFrame>();
+    boolean rootTopicProcessed = false;
+
+    final ParallelImageDecoder imageDecoder = new ParallelImageDecoder();
+    try {
+      while (reader.hasNext()) {
+        final int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          final String name = StaxUtils.getName(reader);
+          final int depth = elementNames.size() + 1;
+          final TopicFrame current = stack.isEmpty() ? null : stack.get(stack.size() - 1);
+
+          boolean skip = false;
+
+          if (depth == 1) {
+            if (!"xmap-content".equals(name)) {
+              throwWrongFormat();
+            }
+          } else if (depth == 2) {
+            if ("sheet".equals(name) && resultedMap == null) {
+              resultedMap = new MindMap(null, true);
+              resultedMap.setAttribute(MindMapPanel.ATTR_SHOW_JUMPS, "true");
+              Assertions.assertNotNull(resultedMap.getRoot()).setText("Empty sheet");
+            } else {
+              skip = true;
+            }
+          } else if ("topic".equals(name)) {
+            if (depth == 3 && !rootTopicProcessed) {
+              rootTopicProcessed = true;
+              stack.add(startTopic(reader, styles, null, Assertions.assertNotNull(resultedMap).getRoot(), depth, topicIdMap, linksBetweenTopics));
+            } else if (current != null && depth == current.depth + 3 && "children".equals(elementNames.get(depth - 3)) && "topics".equals(elementNames.get(depth - 2))) {
+              stack.add(startTopic(reader, styles, current.topic, null, depth, topicIdMap, linksBetweenTopics));
+            } else {
+              skip = true;
+            }
+          } else if (current != null && depth == current.depth + 1) {
+            if ("title".equals(name)) {
+              if (!current.titleProcessed) {
+                current.titleProcessed = true;
+                current.topic.setText(StaxUtils.readTextContent(reader));
+                continue;
+              }
+              skip = true;
+            } else if ("notes".equals(name)) {
+              final String note = readNote(reader);
+              if (current.note.length() > 0) {
+                current.note.append('\n');
+              }
+              current.note.append(note);
+              continue;
+            } else if ("xhtml:img".equals(name)) {
+              final String link = StaxUtils.getAttribute(reader, "xhtml:src", false);
+              if (!link.isEmpty()) {
+                current.imageLinks.add(link);
+              }
+            } else if (!"children".equals(name)) {
+              skip = true;
+            }
+          } else if (depth == 4 && "relationship".equals(name) && "relationships".equals(elementNames.get(2))) {
+            relationships.add(new String[]{StaxUtils.getAttribute(reader, "end1", false), StaxUtils.getAttribute(reader, "end2", false)});
+          }
 
-    if (sheets.isEmpty()) {
-      result = new MindMap(null, true);
-      Assertions.assertNotNull(result.getRoot()).setText("Empty");
-    } else {
-      result = convertSheet(styles, zipFile, sheets.get(0));
+          if (skip) {
+            StaxUtils.skipElement(reader);
+          } else {
+            elementNames.add(name);
+          }
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          if (!stack.isEmpty() && stack.get(stack.size() - 1).depth == elementNames.size()) {
+            endTopic(stack.remove(stack.size() - 1), file, imageDecoder);
+          }
+          elementNames.remove(elementNames.size() - 1);
+        }
+      }
+
+      if (resultedMap == null) {
+        resultedMap = new MindMap(null, true);
+        Assertions.assertNotNull(resultedMap.getRoot()).setText("Empty");
+      } else {
+        for (final String[] r : relationships) {
+          if (!linksBetweenTopics.containsKey(r[0])) {
+            final Topic startTopic = topicIdMap.get(r[0]);
+            final Topic endTopic = topicIdMap.get(r[1]);
+            if (startTopic != null && endTopic != null) {
+              startTopic.setExtra(ExtraTopic.makeLinkTo(resultedMap, endTopic));
+            }
+          }
+        }
+
+        for (final Map.Entry<String, String> e : linksBetweenTopics.entrySet()) {
+          final Topic startTopic = topicIdMap.get(e.getKey());
+          final Topic endTopic = topicIdMap.get(e.getValue());
+          if (startTopic != null && endTopic != null) {
+            startTopic.setExtra(ExtraTopic.makeLinkTo(resultedMap, endTopic));
+          }
+        }
+      }
+
+      imageDecoder.waitAndApply();
+    } finally {
+      imageDecoder.dispose();
     }
 
-    return result;
+    return resultedMap;
   }
 
   @Nonnull
-  private MindMap convertSheet(@Nonnull final XMindStyles styles, @Nonnull final ZipFile file, @Nonnull final Element sheet) throws Exception {
-    final MindMap resultedMap = new MindMap(null, true);
-    resultedMap.setAttribute(MindMapPanel.ATTR_SHOW_JUMPS, "true");
+  private static TopicFrame startTopic(@Nonnull final XMLStreamReader reader, @Nonnull final XMindStyles styles, @Nullable final Topic parent, @Nullable final Topic pregeneratedOne, final int depth, @Nonnull final Map<String, Topic> idTopicMap, @Nonnull final Map<String, String> linksBetweenTopics) {
+    final Topic topicToProcess;
+
+    if (pregeneratedOne == null) {
+      topicToProcess = Assertions.assertNotNull(parent).makeChild("", null);
+    } else {
+      topicToProcess = pregeneratedOne;
+      topicToProcess.setText("");
+    }
 
-    final Topic rootTopic = Assertions.assertNotNull(resultedMap.getRoot());
-    rootTopic.setText("Empty sheet");
+    final String theTopicId = StaxUtils.getAttribute(reader, "id", false);
 
-    final Map<String, Topic> topicIdMap = new HashMap<String, Topic>();
-    final Map<String, String> linksBetweenTopics = new HashMap<String, String>();
+    idTopicMap.put(theTopicId, topicToProcess);
 
-    final List<Element> rootTopics = Utils.findDirectChildrenForName(sheet, "topic");
-    if (!rootTopics.isEmpty()) {
-      convertTopic(file, styles, resultedMap, null, rootTopic, rootTopics.get(0), topicIdMap, linksBetweenTopics);
+    final String styleId = StaxUtils.getAttribute(reader, "style-id", false);
+    if (!styleId.isEmpty()) {
+      styles.setStyle(styleId, topicToProcess);
     }
 
-    for (final Element l : Utils.findDirectChildrenForName(sheet, "relationships")) {
-      for (final Element r : Utils.findDirectChildrenForName(l, "relationship")) {
-        final String end1 = r.getAttribute("end1");
-        final String end2 = r.getAttribute("end2");
-        if (!linksBetweenTopics.containsKey(end1)) {
-          final Topic startTopic = topicIdMap.get(end1);
-          final Topic endTopic = topicIdMap.get(end2);
-          if (startTopic != null && endTopic != null) {
-            startTopic.setExtra(ExtraTopic.makeLinkTo(resultedMap, endTopic));
-          }
+    final String xlink = StaxUtils.getAttribute(reader, "xlink:href", false);
+    if (!xlink.isEmpty()) {
+      if (xlink.startsWith("file:")) {
+        try {
+          topicToProcess.setExtra(new ExtraFile(new MMapURI(new File(xlink.substring(5)).toURI())));
+        } catch (Exception ex) {
+          LOGGER.error("Can't convert file link : " + xlink, ex);
+        }
+      } else if (xlink.startsWith("xmind:#")) {
+        linksBetweenTopics.put(theTopicId, xlink.substring(7));
+      } else {
+        try {
+          topicToProcess.setExtra(new ExtraLink(new MMapURI(URI.create(xlink))));
+        } catch (Exception ex) {
+          LOGGER.error("Can't convert link : " + xlink, ex);
         }
       }
     }
 
-    for (final Map.Entry<String, String> e : linksBetweenTopics.entrySet()) {
-      final Topic startTopic = topicIdMap.get(e.getKey());
-      final Topic endTopic = topicIdMap.get(e.getValue());
-      if (startTopic != null && endTopic != null) {
-        startTopic.setExtra(ExtraTopic.makeLinkTo(resultedMap, endTopic));
-      }
+    return new TopicFrame(topicToProcess, depth);
+  }
+
+  private static void endTopic(@Nonnull final TopicFrame frame, @Nonnull final ZipFile file, @Nonnull final ParallelImageDecoder imageDecoder) {
+    if (frame.note.length() > 0) {
+      frame.topic.setExtra(new ExtraNote(frame.note.toString()));
     }
 
-    return resultedMap;
+    if (!frame.imageLinks.isEmpty()) {
+      final List<String> links = frame.imageLinks;
+      imageDecoder.submit(frame.topic, new Callable<String>() {
+        @Override
+        @Nullable
+        public String call() throws Exception {
+          return extractFirstAttachedImageAsBase64(file, links);
+        }
+      });
+    }
   }
 
   @Override
@@ -303,29 +354,30 @@ public class XMind2MindMapImporter extends AbstractImporter {
     return 4;
   }
 
+  private static final class TopicFrame {
+
+    private final Topic topic;
+    private final int depth;
+    private final StringBuilder note = new StringBuilder();
+    private final List<String> imageLinks = new ArrayList<String>();
+    private boolean titleProcessed;
+
+    private TopicFrame(@Nonnull final Topic topic, final int depth) {
+      this.topic = topic;
+      this.depth = depth;
+    }
+  }
+
   private static final class XMindStyle {
 
-    private final Color foreground;
-    private final Color background;
-    private final Color border;
-
-    private XMindStyle(@Nonnull final Element style) {
-      Color back = null;
-      Color front = null;
-      Color bord = null;
-
-      for (final Element t : Utils.findDirectChildrenForName(style, "topic-properties")) {
-        final String colorFill = t.getAttribute("svg:fill");
-        final String colorText = t.getAttribute("fo:color");
-        final String colorBorder = t.getAttribute("border-line-color");
-        back = Utils.html2color(colorFill, false);
-        front = Utils.html2color(colorText, false);
-        bord = Utils.html2color(colorBorder, false);
-      }
+    private Color foreground;
+    private Color background;
+    private Color border;
 
-      this.foreground = front;
-      this.background = back;
-      this.border = bord;
+    private void readTopicProperties(@Nonnull final XMLStreamReader reader) {
+      this.background = Utils.html2color(StaxUtils.getAttribute(reader, "svg:fill", false), false);
+      this.foreground = Utils.html2color(StaxUtils.getAttribute(reader, "fo:color", false), false);
+      this.border = Utils.html2color(StaxUtils.getAttribute(reader, "border-line-color", false), false);
     }
 
     private void attachTo(@Nonnull final Topic topic) {
@@ -350,23 +402,56 @@ public class XMind2MindMapImporter extends AbstractImporter {
       try {
         final InputStream stylesXml = Utils.findInputStreamForResource(zipFile, "styles.xml");
         if (stylesXml != null) {
-          final Document parsedStyles = Utils.loadXmlDocument(stylesXml, null, true);
-
-          final Element root = parsedStyles.getDocumentElement();
+          final XMLStreamReader reader = StaxUtils.makeReader(new BufferedInputStream(stylesXml));
+          try {
+            readStyles(reader);
+          } finally {
+            reader.close();
+            IOUtils.closeQuietly(stylesXml);
+          }
+        }
+      } catch (Exception ex) {
+        LOGGER.error("Can't extract XMIND styles", ex);
+      }
+    }
 
-          if ("xmap-styles".equals(root.getTagName())) {
-            for (final Element styles : Utils.findDirectChildrenForName(root, "styles")) {
-              for (final Element style : Utils.findDirectChildrenForName(styles, "style")) {
-                final String id = style.getAttribute("id");
-                if (!id.isEmpty() && "topic".equals(style.getAttribute("type"))) {
-                  this.stylesMap.put(id, new XMindStyle(style));
-                }
+    private void readStyles(@Nonnull final XMLStreamReader reader) throws XMLStreamException {
+      int depth = 0;
+      XMindStyle style = null;
+
+      while (reader.hasNext()) {
+        final int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          depth++;
+          final String name = StaxUtils.getName(reader);
+          if (depth == 1) {
+            if (!"xmap-styles".equals(name)) {
+              break;
+            }
+          } else if (depth == 2 || depth == 3) {
+            final boolean expected = depth == 2 ? "styles".equals(name) : "style".equals(name);
+            if (!expected) {
+              StaxUtils.skipElement(reader);
+              depth--;
+            } else if (depth == 3) {
+              final String id = StaxUtils.getAttribute(reader, "id", false);
+              if (!id.isEmpty() && "topic".equals(StaxUtils.getAttribute(reader, "type", false))) {
+                style = new XMindStyle();
+                this.stylesMap.put(id, style);
+              } else {
+                StaxUtils.skipElement(reader);
+                depth--;
               }
             }
+          } else if (depth == 4 && style != null && "topic-properties".equals(name)) {
+            style.readTopicProperties(reader);
+          }
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          if (depth == 3) {
+            style = null;
           }
+          depth--;
         }
-      } catch (Exception ex) {
-        LOGGER.error("Can't extract XMIND styles", ex);
       }
     }
 
@@ -39,11 +39,13 @@ import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.meta.common.utils.Assertions;
 import static com.igormaznitsa.meta.common.utils.Assertions.assertNotNull;
 import com.igormaznitsa.mindmap.model.Topic;
+import com.igormaznitsa.mindmap.swing.panel.ui.gfx.DisplayList;
 import com.igormaznitsa.mindmap.swing.panel.ui.gfx.MMGraphics2DWrapper;
 import java.awt.RenderingHints;
 import java.awt.geom.AffineTransform;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class MMDPrint {
 
@@ -104,7 +106,7 @@ public class MMDPrint {
 
         cfg.setPaperMargins(2);
 
-        theModel = new MindMap(printableObject.getPanel().getModel(), null);
+        theModel = new MindMap(printableObject.getPanel().getModel(), printableObject.getPanel().getModel().getController());
 
         cfg.setScale(scale);
       } else {
@@ -312,6 +314,7 @@ public class MMDPrint {
           int pagesVert = 1 + modelHeight / (paperHeightInPixels + 1);
 
           pgs = new PrintPage[pagesVert][pagesHorz];
+          final AtomicReference<DisplayList> recordedTopics = new AtomicReference<DisplayList>();
           for (int y = 0; y < pagesVert; y++) {
             for (int x = 0; x < pagesHorz; x++) {
               final int pageX = x;
@@ -328,11 +331,17 @@ public class MMDPrint {
                   final Graphics2D gfx = (Graphics2D) g.create();
                   RenderQuality.QUALITY.prepare(gfx);
 
-                  MindMapPanel.layoutFullDiagramWithCenteringToPaper(new MMGraphics2DWrapper(gfx), theModel, cfg, modelImageSize);
+                  DisplayList recorded = recordedTopics.get();
+                  if (recorded == null) {
+                    final MMGraphics2DWrapper measurer = new MMGraphics2DWrapper(gfx);
+                    MindMapPanel.layoutFullDiagramWithCenteringToPaper(measurer, theModel, cfg, modelImageSize);
+                    recorded = MindMapPanel.recordTopics(measurer, cfg, theModel);
+                    recordedTopics.set(recorded);
+                  }
 
                   gfx.translate(offsetOfImage.x - pageX * paperWidthInPixels, offsetOfImage.y - pageY * paperHeightInPixels);
                   try {
-                    drawOnGraphicsForConfiguration(new MMGraphics2DWrapper(gfx), cfg, theModel, false, null);
+                    drawOnGraphicsForConfiguration(new MMGraphics2DWrapper(gfx), cfg, recorded, gfx.getClipBounds());
                   } finally {
                     gfx.dispose();
                   }
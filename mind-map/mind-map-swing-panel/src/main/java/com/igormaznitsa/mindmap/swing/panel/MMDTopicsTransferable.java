@@ -25,6 +25,7 @@ import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.mindmap.model.Extra;
 import com.igormaznitsa.mindmap.model.MindMap;
 import com.igormaznitsa.mindmap.model.Topic;
+import com.igormaznitsa.mindmap.plugins.attributes.images.ImageBlobStorage;
 
 /**
  * Transferable object to represent topic list in clipboard.
@@ -55,6 +56,7 @@ public class MMDTopicsTransferable implements Transferable {
     
     for(int i=0;i<topics.length;i++){
       this.topics[i] = new Topic(fakeMap,topics[i],true);
+      ImageBlobStorage.embedReferences(topics[i], this.topics[i]);
     }
   }
   
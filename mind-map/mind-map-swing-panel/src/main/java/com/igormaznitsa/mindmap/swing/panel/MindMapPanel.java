@@ -24,12 +24,17 @@ import com.igormaznitsa.mindmap.plugins.MindMapPluginRegistry;
 import com.igormaznitsa.mindmap.plugins.api.ModelAwarePlugin;
 import com.igormaznitsa.mindmap.plugins.api.PanelAwarePlugin;
 import com.igormaznitsa.mindmap.plugins.api.VisualAttributePlugin;
+import com.igormaznitsa.mindmap.plugins.attributes.images.ImageBlobStorage;
 import com.igormaznitsa.mindmap.swing.panel.ui.*;
+import com.igormaznitsa.mindmap.swing.panel.ui.gfx.DisplayList;
 import com.igormaznitsa.mindmap.swing.panel.ui.gfx.MMGraphics;
 import com.igormaznitsa.mindmap.swing.panel.ui.gfx.MMGraphics2DWrapper;
+import com.igormaznitsa.mindmap.swing.panel.ui.gfx.MMGraphicsRecorder;
 import com.igormaznitsa.mindmap.swing.panel.ui.gfx.StrokeType;
 import com.igormaznitsa.mindmap.swing.panel.utils.KeyEventType;
+import com.igormaznitsa.mindmap.swing.panel.utils.LayoutExecutor;
 import com.igormaznitsa.mindmap.swing.panel.utils.MindMapUtils;
+import com.igormaznitsa.mindmap.swing.panel.utils.PerformanceMetrics;
 import com.igormaznitsa.mindmap.swing.panel.utils.RenderQuality;
 import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
 import com.igormaznitsa.mindmap.swing.services.UIComponentFactory;
@@ -48,11 +53,13 @@ import java.awt.datatransfer.Clipboard;
 import java.awt.datatransfer.ClipboardOwner;
 import java.awt.datatransfer.Transferable;
 import java.awt.event.*;
+import java.awt.font.FontRenderContext;
 import java.awt.geom.Dimension2D;
 import java.awt.geom.GeneralPath;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.util.*;
 import java.util.List;
@@ -76,6 +83,8 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
   private static final double SCALE_MINIMUM = 0.3d;
   private static final double SCALE_MAXIMUM = 10.0d;
   private static final Color COLOR_MOUSE_DRAG_SELECTION = new Color(0x80000000, true);
+  private static final int DIRTY_AREA_MARGIN = 2;
+  private static final Color COLOR_METRICS_OVERLAY = new Color(0xB0000000, true);
   private static final int DRAG_POSITION_UNKNOWN = -1;
   private static final int DRAG_POSITION_LEFT = 1;
   private static final int DRAG_POSITION_TOP = 2;
@@ -91,6 +100,13 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
   private final JPanel textEditorPanel = UI_COMPO_FACTORY.makePanel();
   private final List<Topic> selectedTopics = new ArrayList<Topic>();
   private final MindMapPanelConfig config;
+  private final MindMapPanelConfig layoutConfig;
+  private final MindMapConfigListener layoutConfigSynchronizer = new MindMapConfigListener() {
+    @Override
+    public void onConfigurationPropertyChanged(@Nonnull final MindMapPanelConfig changedConfig) {
+      syncLayoutConfig();
+    }
+  };
   private volatile MindMap model;
   private volatile String errorText;
   private transient AbstractElement elementUnderEdit = null;
@@ -99,6 +115,10 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
   private transient DraggedElement draggedElement = null;
   private transient AbstractElement destinationElement = null;
   private volatile boolean popupMenuActive = false;
+  private transient DisplayList recordedTopics = null;
+  private transient Object recordedTopicsRoot = null;
+  private transient FontRenderContext recordedTopicsContext = null;
+  private transient FontRenderContext layoutContext = null;
 
   public MindMapPanel(@Nonnull final MindMapPanelController controller) {
     super();
@@ -109,6 +129,9 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
     this.controller = controller;
 
     this.config = new MindMapPanelConfig(panelConfig, false);
+    this.layoutConfig = new MindMapPanelConfig(panelConfig, false);
+    syncLayoutConfig();
+    this.config.addConfigurationListener(this.layoutConfigSynchronizer);
 
     this.textEditor.setMargin(new Insets(5, 5, 5, 5));
     this.textEditor.setBorder(BorderFactory.createEtchedBorder());
@@ -305,15 +328,12 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
             } else if (config.isKeyEvent(MindMapPanelConfig.KEY_ZOOM_IN, e)) {
               e.consume();
               setScale(Math.max(SCALE_MINIMUM, Math.min(getScale() + SCALE_STEP, SCALE_MAXIMUM)));
-              updateView(false);
             } else if (config.isKeyEvent(MindMapPanelConfig.KEY_ZOOM_OUT, e)) {
               e.consume();
               setScale(Math.max(SCALE_MINIMUM, Math.min(getScale() - SCALE_STEP, SCALE_MAXIMUM)));
-              updateView(false);
             } else if (config.isKeyEvent(MindMapPanelConfig.KEY_ZOOM_RESET, e)) {
               e.consume();
               setScale(1.0);
-              updateView(false);
             } else if (config.isKeyEvent(MindMapPanelConfig.KEY_TOPIC_FOLD, e)
                     || config.isKeyEvent(MindMapPanelConfig.KEY_TOPIC_UNFOLD, e)
                     || config.isKeyEvent(MindMapPanelConfig.KEY_TOPIC_FOLD_ALL, e)
@@ -368,10 +388,11 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
               setCursor(Cursor.getDefaultCursor());
               setToolTipText(null);
             } else {
-              final ElementPart part = element.findPartForPoint(e.getPoint());
+              final Point point = toModelPoint(e.getPoint());
+              final ElementPart part = element.findPartForPoint(point);
               switch (part) {
                 case ICONS: {
-                  final Extra<?> extra = element.getIconBlock().findExtraForPoint(e.getPoint().getX() - element.getBounds().getX(), e.getPoint().getY() - element.getBounds().getY());
+                  final Extra<?> extra = element.getIconBlock().findExtraForPoint(point.getX() - element.getBounds().getX(), point.getY() - element.getBounds().getY());
                   if (extra != null) {
                     setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
                     setToolTipText(makeHtmlTooltipForExtra(extra));
@@ -382,7 +403,7 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
                 }
                 break;
                 case VISUAL_ATTRIBUTES: {
-                  final VisualAttributePlugin plugin = element.getVisualAttributeImageBlock().findPluginForPoint(e.getPoint().getX() - element.getBounds().getX(), e.getPoint().getY() - element.getBounds().getY());
+                  final VisualAttributePlugin plugin = element.getVisualAttributeImageBlock().findPluginForPoint(point.getX() - element.getBounds().getX(), point.getY() - element.getBounds().getY());
                   if (plugin != null) {
                     final Topic theTopic = element.getModel();
                     if (plugin.isClickable(theInstance, theTopic)) {
@@ -452,9 +473,10 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
             if (!controller.isMouseClickProcessingAllowed(theInstance)) {
               return;
             }
+            final Rectangle paintedFeedback = calcInteractionFeedbackBounds();
             try {
               if (draggedElement != null) {
-                draggedElement.updatePosition(e.getPoint());
+                draggedElement.updatePosition(toModelPoint(e.getPoint()));
                 if (endDragOfElement(draggedElement, destinationElement)) {
                   updateView(true);
                 }
@@ -490,7 +512,7 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
               mouseDragSelection = null;
               draggedElement = null;
               destinationElement = null;
-              repaint();
+              repaintArea(paintedFeedback);
             }
           } finally {
             unlock();
@@ -499,7 +521,7 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
       }
 
       private boolean isNonOverCollapsator(@Nonnull final MouseEvent e, @Nonnull final AbstractElement element) {
-        final ElementPart part = element.findPartForPoint(e.getPoint());
+        final ElementPart part = element.findPartForPoint(toModelPoint(e.getPoint()));
         return part != ElementPart.COLLAPSATOR;
       }
 
@@ -520,16 +542,17 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
                   if (theMap != null) {
                     final AbstractElement element = findTopicUnderPoint(e.getPoint());
                     if (controller.isSelectionAllowed(theInstance) && element == null) {
-                      mouseDragSelection = new MouseSelectedArea(e.getPoint());
+                      mouseDragSelection = new MouseSelectedArea(toModelPoint(e.getPoint()));
                     }
                   }
                 } else if (controller.isElementDragAllowed(theInstance)) {
                   if (elementUnderMouse.isMoveable() && isNonOverCollapsator(e, elementUnderMouse)) {
                     selectedTopics.clear();
 
-                    final Point mouseOffset = new Point((int) Math.round(e.getPoint().getX() - elementUnderMouse.getBounds().getX()), (int) Math.round(e.getPoint().getY() - elementUnderMouse.getBounds().getY()));
-                    draggedElement = new DraggedElement(elementUnderMouse, config, mouseOffset, e.isControlDown() || e.isMetaDown() ? DraggedElement.Modifier.MAKE_JUMP : DraggedElement.Modifier.NONE, getConfiguration().getRenderQuality());
-                    draggedElement.updatePosition(e.getPoint());
+                    final Point point = toModelPoint(e.getPoint());
+                    final Point mouseOffset = new Point((int) Math.round(point.getX() - elementUnderMouse.getBounds().getX()), (int) Math.round(point.getY() - elementUnderMouse.getBounds().getY()));
+                    draggedElement = new DraggedElement(elementUnderMouse, layoutConfig, mouseOffset, e.isControlDown() || e.isMetaDown() ? DraggedElement.Modifier.MAKE_JUMP : DraggedElement.Modifier.NONE, getConfiguration().getRenderQuality());
+                    draggedElement.updatePosition(point);
                     findDestinationElementForDragged();
                   } else {
                     draggedElement = null;
@@ -537,20 +560,23 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
                   repaint();
                 }
               } else if (mouseDragSelection != null) {
+                final Rectangle paintedFeedback = calcInteractionFeedbackBounds();
                 if (controller.isSelectionAllowed(theInstance)) {
-                  mouseDragSelection.update(e);
+                  mouseDragSelection.update(toModelPoint(e.getPoint()));
                 } else {
                   mouseDragSelection = null;
                 }
-                repaint();
+                repaintArea(union(paintedFeedback, calcInteractionFeedbackBounds()));
               } else if (draggedElement != null) {
+                final Rectangle paintedFeedback = calcInteractionFeedbackBounds();
                 if (controller.isElementDragAllowed(theInstance)) {
-                  draggedElement.updatePosition(e.getPoint());
+                  draggedElement.updatePosition(toModelPoint(e.getPoint()));
                   findDestinationElementForDragged();
                 } else {
                   draggedElement = null;
+                  destinationElement = null;
                 }
-                repaint();
+                repaintArea(union(paintedFeedback, calcInteractionFeedbackBounds()));
               }
             } else {
               mouseDragSelection = null;
@@ -579,7 +605,6 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
 
                 fireNotificationScaledByMouse(e.getPoint(), oldScale, newScale, true);
                 setScale(newScale);
-                invalidate();
                 fireNotificationScaledByMouse(e.getPoint(), oldScale, newScale, false);
 
                 e.consume();
@@ -613,7 +638,8 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
             final boolean isShiftDown = e.isShiftDown();
 
             if (element != null) {
-              final ElementPart part = element.findPartForPoint(e.getPoint());
+              final Point point = toModelPoint(e.getPoint());
+              final ElementPart part = element.findPartForPoint(point);
               if (part == ElementPart.COLLAPSATOR) {
                 fireNotificationTopicCollapsatorClick(element.getModel(), true);
                 doFoldOrUnfoldTopic(Collections.singletonList(element), !element.isCollapsed(), isCtrlDown);
@@ -625,7 +651,7 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
               } else if (!isCtrlDown) {
                 switch (part) {
                   case VISUAL_ATTRIBUTES:
-                    final VisualAttributePlugin plugin = element.getVisualAttributeImageBlock().findPluginForPoint(e.getPoint().getX() - element.getBounds().getX(), e.getPoint().getY() - element.getBounds().getY());
+                    final VisualAttributePlugin plugin = element.getVisualAttributeImageBlock().findPluginForPoint(point.getX() - element.getBounds().getX(), point.getY() - element.getBounds().getY());
                     boolean processedByPlugin = false;
                     if (plugin != null) {
                       if (plugin.isClickable(theInstance, element.getModel())) {
@@ -647,7 +673,7 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
                     }
                     break;
                   case ICONS:
-                    final Extra<?> extra = element.getIconBlock().findExtraForPoint(e.getPoint().getX() - element.getBounds().getX(), e.getPoint().getY() - element.getBounds().getY());
+                    final Extra<?> extra = element.getIconBlock().findExtraForPoint(point.getX() - element.getBounds().getX(), point.getY() - element.getBounds().getY());
                     if (extra != null) {
                       fireNotificationClickOnExtra(element.getModel(), e.getModifiers(), e.getClickCount(), extra);
                     }
@@ -777,6 +803,39 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
     }
   }
 
+  /**
+   * Record draw operations of topics and jumps of laid out mind map.
+   *
+   * @param measurer graphics to measure texts, it should have the same
+   * transformation as graphics which will be used for replay
+   * @param config configuration used for layout of elements
+   * @param map mind map with calculated elements
+   * @return recorded display list
+   * @since 1.4.5
+   */
+  @Nonnull
+  public static DisplayList recordTopics(@Nonnull final MMGraphics measurer, @Nonnull final MindMapPanelConfig config, @Nullable final MindMap map) {
+    final MMGraphicsRecorder recorder = new MMGraphicsRecorder(measurer);
+    drawTopics(recorder, config, map);
+    return recorder.finish();
+  }
+
+  /**
+   * Draw background and replay recorded topics.
+   *
+   * @param g graphics to draw
+   * @param config configuration used for recording
+   * @param recordedTopics recorded topics
+   * @param clip area to be drawn, operations out of the area are skipped, null
+   * if all must be drawn
+   * @see #recordTopics(MMGraphics, MindMapPanelConfig, MindMap)
+   * @since 1.4.5
+   */
+  public static void drawOnGraphicsForConfiguration(@Nonnull final MMGraphics g, @Nonnull final MindMapPanelConfig config, @Nonnull final DisplayList recordedTopics, @Nullable final Rectangle2D clip) {
+    drawBackground(g, config);
+    recordedTopics.replay(g, clip);
+  }
+
   private static void drawSelection(@Nonnull final MMGraphics g, @Nonnull final MindMapPanelConfig cfg, @Nullable @MustNotContainNull final List<Topic> selectedTopics) {
     if (selectedTopics != null && !selectedTopics.isEmpty()) {
       final Color selectLineColor = cfg.getSelectLineColor();
@@ -939,7 +998,8 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
     }
   }
 
-  private static void setElementSizesForElementAndChildren(@Nonnull final MMGraphics gfx, @Nonnull final MindMapPanelConfig cfg, @Nonnull final Topic topic, final int level) {
+  @Nonnull
+  private static AbstractElement findOrMakeElement(@Nonnull final Topic topic, final int level) {
     AbstractElement widget = (AbstractElement) topic.getPayload();
     if (widget == null) {
       switch (level) {
@@ -955,21 +1015,80 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
       }
       topic.setPayload(widget);
     }
+    return widget;
+  }
 
-    widget.updateElementBounds(gfx, cfg);
+  private static boolean isChildrenLayoutNeeded(@Nonnull final Topic topic, @Nonnull final AbstractElement widget) {
+    return !(topic.hasPendingChildren() && widget.isCollapsed());
+  }
+
+  private static int countTopics(@Nonnull final Topic topic, final int limit) {
+    int result = 1;
+    if (topic.hasPendingChildren() && MindMapUtils.isCollapsed(topic)) {
+      return result;
+    }
     for (final Topic t : topic.getChildren()) {
-      setElementSizesForElementAndChildren(gfx, cfg, t, level + 1);
+      if (result >= limit) {
+        break;
+      }
+      result += countTopics(t, limit - result);
+    }
+    return result;
+  }
+
+  private static void setElementSizesForElementAndChildren(@Nonnull final MMGraphics gfx, @Nonnull final MindMapPanelConfig cfg, @Nonnull final Topic topic, final int level) {
+    final AbstractElement widget = findOrMakeElement(topic, level);
+
+    widget.updateElementBounds(gfx, cfg);
+    if (isChildrenLayoutNeeded(topic, widget)) {
+      for (final Topic t : topic.getChildren()) {
+        setElementSizesForElementAndChildren(gfx, cfg, t, level + 1);
+      }
     }
     widget.updateBlockSize(cfg);
   }
 
+  private static boolean setElementSizesInParallel(@Nonnull final MMGraphics gfx, @Nonnull final MindMapPanelConfig cfg, @Nonnull final Topic root) {
+    final LayoutExecutor.MeasurerFactory measurers = LayoutExecutor.findMeasurerFactory(gfx);
+    final List<Topic> branches = root.getChildren();
+    if (measurers == null || !LayoutExecutor.isParallelAllowed(branches.size(), countTopics(root, LayoutExecutor.MIN_TOPICS_FOR_PARALLEL))) {
+      return false;
+    }
+
+    final AbstractElement widget = findOrMakeElement(root, 0);
+    widget.updateElementBounds(gfx, cfg);
+    if (isChildrenLayoutNeeded(root, widget)) {
+      final List<Runnable> jobs = new ArrayList<Runnable>(branches.size());
+      for (final Topic t : branches) {
+        jobs.add(new Runnable() {
+          @Override
+          public void run() {
+            final MMGraphics measurer = measurers.make();
+            try {
+              setElementSizesForElementAndChildren(measurer, cfg, t, 1);
+            } finally {
+              measurer.dispose();
+            }
+          }
+        });
+      }
+      LayoutExecutor.execute(jobs, LayoutExecutor.MIN_TOPICS_FOR_PARALLEL);
+    }
+    widget.updateBlockSize(cfg);
+    return true;
+  }
+
   public static boolean calculateElementSizes(@Nonnull final MMGraphics gfx, @Nullable final MindMap model, @Nonnull final MindMapPanelConfig cfg) {
     boolean result = false;
 
     final Topic root = model == null ? null : model.getRoot();
     if (root != null && model != null) {
+      final long start = PerformanceMetrics.start();
       model.resetPayload();
-      setElementSizesForElementAndChildren(gfx, cfg, root, 0);
+      if (!setElementSizesInParallel(gfx, cfg, root)) {
+        setElementSizesForElementAndChildren(gfx, cfg, root, 0);
+      }
+      PerformanceMetrics.stop(PerformanceMetrics.CALCULATE_ELEMENT_SIZES, start);
       result = true;
     }
     return result;
@@ -983,7 +1102,13 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
       if (rootTopic != null) {
         final AbstractElement root = (AbstractElement) rootTopic.getPayload();
         if (root != null) {
-          root.alignElementAndChildren(cfg, true, 0, 0);
+          final long start = PerformanceMetrics.start();
+          if (root instanceof ElementRoot) {
+            LayoutExecutor.execute(((ElementRoot) root).alignRootAndPrepareBranches(cfg, 0, 0), countTopics(rootTopic, LayoutExecutor.MIN_TOPICS_FOR_PARALLEL));
+          } else {
+            root.alignElementAndChildren(cfg, true, 0, 0);
+          }
+          PerformanceMetrics.stop(PerformanceMetrics.LAYOUT_MODEL_ELEMENTS, start);
           result = root.getBlockSize();
         }
       }
@@ -1007,21 +1132,38 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
   public static Dimension layoutFullDiagramWithCenteringToPaper(@Nonnull final MMGraphics gfx, @Nonnull final MindMap map, @Nonnull final MindMapPanelConfig cfg, @Nonnull final Dimension2D paperSize) {
     Dimension resultSize = null;
     if (calculateElementSizes(gfx, map, cfg)) {
-      Dimension2D rootBlockSize = layoutModelElements(map, cfg);
-      final double paperMargin = cfg.getPaperMargins() * cfg.getScale();
+      resultSize = alignDiagramWithCenteringToPaper(map, cfg, paperSize);
+    }
+    return resultSize;
+  }
+
+  /**
+   * Layout already measured elements of mind map and center diagram on paper.
+   * Sizes of elements are not recalculated.
+   *
+   * @param map mind map which elements have been calculated
+   * @param cfg configuration used for calculation of elements
+   * @param paperSize size of paper
+   * @return size of diagram with paper margins or null if there is no layout
+   * @since 1.4.5
+   */
+  @Nullable
+  public static Dimension alignDiagramWithCenteringToPaper(@Nonnull final MindMap map, @Nonnull final MindMapPanelConfig cfg, @Nonnull final Dimension2D paperSize) {
+    Dimension resultSize = null;
+    final Dimension2D rootBlockSize = layoutModelElements(map, cfg);
+    final double paperMargin = cfg.getPaperMargins() * cfg.getScale();
 
-      if (rootBlockSize != null) {
-        final ElementRoot rootElement = assertNotNull((ElementRoot) assertNotNull(map.getRoot()).getPayload());
+    if (rootBlockSize != null) {
+      final ElementRoot rootElement = assertNotNull((ElementRoot) assertNotNull(map.getRoot()).getPayload());
 
-        double rootOffsetXInBlock = rootElement.getLeftBlockSize().getWidth();
-        double rootOffsetYInBlock = (rootBlockSize.getHeight() - rootElement.getBounds().getHeight()) / 2;
+      double rootOffsetXInBlock = rootElement.getLeftBlockSize().getWidth();
+      double rootOffsetYInBlock = (rootBlockSize.getHeight() - rootElement.getBounds().getHeight()) / 2;
 
-        rootOffsetXInBlock += (paperSize.getWidth() - rootBlockSize.getWidth()) <= paperMargin ? paperMargin : (paperSize.getWidth() - rootBlockSize.getWidth()) / 2;
-        rootOffsetYInBlock += (paperSize.getHeight() - rootBlockSize.getHeight()) <= paperMargin ? paperMargin : (paperSize.getHeight() - rootBlockSize.getHeight()) / 2;
+      rootOffsetXInBlock += (paperSize.getWidth() - rootBlockSize.getWidth()) <= paperMargin ? paperMargin : (paperSize.getWidth() - rootBlockSize.getWidth()) / 2;
+      rootOffsetYInBlock += (paperSize.getHeight() - rootBlockSize.getHeight()) <= paperMargin ? paperMargin : (paperSize.getHeight() - rootBlockSize.getHeight()) / 2;
 
-        moveDiagram(map, rootOffsetXInBlock, rootOffsetYInBlock);
-        resultSize = new Dimension((int) Math.round(rootBlockSize.getWidth() + paperMargin * 2), (int) Math.round(rootBlockSize.getHeight() + paperMargin * 2));
-      }
+      moveDiagram(map, rootOffsetXInBlock, rootOffsetYInBlock);
+      resultSize = new Dimension((int) Math.round(rootBlockSize.getWidth() + paperMargin * 2), (int) Math.round(rootBlockSize.getHeight() + paperMargin * 2));
     }
 
     return resultSize;
@@ -1042,9 +1184,43 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
     gfx.drawString(error, x, y);
   }
 
+  private static void drawMetricsOverlay(@Nonnull final Graphics2D gfx, @Nonnull final Rectangle visibleRect) {
+    final List<String> lines = PerformanceMetrics.makeOverlayLines();
+    if (!lines.isEmpty()) {
+      final Font font = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+      final FontMetrics metrics = gfx.getFontMetrics(font);
+      int width = 0;
+      for (final String s : lines) {
+        width = Math.max(width, metrics.stringWidth(s));
+      }
+      final int lineHeight = metrics.getHeight();
+      gfx.setFont(font);
+      gfx.setColor(COLOR_METRICS_OVERLAY);
+      gfx.fillRect(visibleRect.x, visibleRect.y, width + 8, lineHeight * lines.size() + 8);
+      gfx.setColor(Color.WHITE);
+      int y = visibleRect.y + 4 + metrics.getAscent();
+      for (final String s : lines) {
+        gfx.drawString(s, visibleRect.x + 4, y);
+        y += lineHeight;
+      }
+    }
+  }
+
+  private static int countAllTopics(@Nonnull final Topic topic) {
+    int result = 1;
+    if (topic.hasPendingChildren()) {
+      result += topic.getPendingTopicsNumber();
+    } else {
+      for (final Topic t : topic.getChildren()) {
+        result += countAllTopics(t);
+      }
+    }
+    return result;
+  }
+
   @Nullable
   public static Dimension2D calculateSizeOfMapInPixels(@Nonnull final MindMap model, @Nullable final Graphics2D graphicsContext, @Nonnull final MindMapPanelConfig cfg, final boolean expandAll, @Nonnull final RenderQuality quality) {
-    final MindMap workMap = new MindMap(model, null);
+    final MindMap workMap = new MindMap(model, model.getController());
     workMap.resetPayload();
 
     Graphics2D g = graphicsContext;
@@ -1078,7 +1254,7 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
 
   @Nullable
   public static BufferedImage renderMindMapAsImage(@Nonnull final MindMap model, @Nonnull final MindMapPanelConfig cfg, final boolean expandAll, @Nonnull final RenderQuality quality) {
-    final MindMap workMap = new MindMap(model, null);
+    final MindMap workMap = new MindMap(model, model.getController());
     workMap.resetPayload();
 
     if (expandAll) {
@@ -1092,7 +1268,7 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
 
     final BufferedImage img = new BufferedImage((int) blockSize.getWidth(), (int) blockSize.getHeight(), BufferedImage.TYPE_INT_ARGB);
     final Graphics2D g = img.createGraphics();
-    final MMGraphics gfx = new MMGraphics2DWrapper(g);
+    final MMGraphics gfx = new MMGraphics2DWrapper(g).setBatching(true);
     try {
       quality.prepare(g);
       gfx.setClip(0, 0, img.getWidth(), img.getHeight());
@@ -1556,6 +1732,7 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
     if (lockIfNotDisposed()) {
       try {
         this.model.setAttribute(ATTR_SHOW_JUMPS, flag ? "true" : null);
+        this.recordedTopics = null;
         repaint();
         fireNotificationMindMapChanged();
       } finally {
@@ -1770,7 +1947,7 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
           if (this.selectedTopics.remove(t)) {
             fireNotificationSelectionChanged();
           }
-          repaint();
+          repaintArea(calcSelectionFrameBounds(Collections.singletonList(t)));
         }
       } finally {
         this.unlock();
@@ -1787,7 +1964,7 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
               fireNotificationSelectionChanged();
             }
             fireNotificationEnsureTopicVisibility(t);
-            repaint();
+            repaintArea(calcSelectionFrameBounds(Collections.singletonList(t)));
           } else if (removeIfPresented) {
             removeFromSelection(t);
           }
@@ -1814,8 +1991,9 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
       try {
         if (this.elementUnderEdit != null) {
           final AbstractElement element = this.elementUnderEdit;
-          final Dimension textBlockSize = new Dimension((int) element.getBounds().getWidth(), (int) element.getBounds().getHeight());
-          this.textEditorPanel.setBounds((int) element.getBounds().getX(), (int) element.getBounds().getY(), textBlockSize.width, textBlockSize.height);
+          final Rectangle editorBounds = toViewRectangle(element.getBounds());
+          final Dimension textBlockSize = editorBounds.getSize();
+          this.textEditorPanel.setBounds(editorBounds);
           this.textEditor.setMinimumSize(textBlockSize);
           this.textEditorPanel.setVisible(true);
           this.textEditor.requestFocus();
@@ -1885,8 +2063,10 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
         } else {
           this.elementUnderEdit = element;
           element.fillByTextAndFont(this.textEditor);
-          final Dimension textBlockSize = new Dimension((int) element.getBounds().getWidth(), (int) element.getBounds().getHeight());
-          this.textEditorPanel.setBounds((int) element.getBounds().getX(), (int) element.getBounds().getY(), textBlockSize.width, textBlockSize.height);
+          this.textEditor.setFont(this.textEditor.getFont().deriveFont((float) (this.textEditor.getFont().getSize2D() * this.config.getScale())));
+          final Rectangle editorBounds = toViewRectangle(element.getBounds());
+          final Dimension textBlockSize = editorBounds.getSize();
+          this.textEditorPanel.setBounds(editorBounds);
           this.textEditor.setMinimumSize(textBlockSize);
 
           ensureVisibility(this.elementUnderEdit);
@@ -1900,6 +2080,243 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
     }
   }
 
+  @Nullable
+  private static Rectangle union(@Nullable final Rectangle a, @Nullable final Rectangle b) {
+    if (a == null) {
+      return b;
+    }
+    return b == null ? a : a.union(b);
+  }
+
+  /**
+   * Repaint only the area of panel. If the area is unknown then the whole
+   * panel is repainted.
+   *
+   * @param area area to be repainted in model coordinates, null means the
+   * whole panel
+   */
+  private void repaintArea(@Nullable final Rectangle area) {
+    if (area == null) {
+      repaint();
+    } else if (!area.isEmpty()) {
+      final Rectangle viewArea = toViewRectangle(area);
+      repaint(viewArea.x - DIRTY_AREA_MARGIN, viewArea.y - DIRTY_AREA_MARGIN, viewArea.width + DIRTY_AREA_MARGIN * 2, viewArea.height + DIRTY_AREA_MARGIN * 2);
+    }
+  }
+
+  /**
+   * Calculate area covered by selection frames of topics.
+   *
+   * @param topics topics
+   * @return area covered by frames, empty if there is nothing to paint, null if
+   * some topic is not laid out yet
+   */
+  @Nullable
+  private Rectangle calcSelectionFrameBounds(@Nonnull @MustNotContainNull final Collection<Topic> topics) {
+    final double frameGap = this.layoutConfig.safeScaleFloatValue(this.layoutConfig.getSelectLineGap(), 0.05f) + this.layoutConfig.safeScaleFloatValue(this.layoutConfig.getSelectLineWidth(), 0.1f);
+    final Rectangle result = new Rectangle();
+    for (final Topic t : topics) {
+      final AbstractElement element = (AbstractElement) t.getPayload();
+      if (element == null) {
+        return null;
+      }
+      addToArea(result, element.getBounds(), frameGap);
+    }
+    return result;
+  }
+
+  /**
+   * Calculate area covered by feedback of current mouse interaction, it
+   * includes ghost of dragged element, highlight of destination element and
+   * mouse selection rectangle.
+   *
+   * @return area covered by feedback, empty if there is no any feedback
+   */
+  @Nonnull
+  private Rectangle calcInteractionFeedbackBounds() {
+    final Rectangle result = new Rectangle();
+    if (this.draggedElement != null) {
+      addToArea(result, this.draggedElement.getDrawBounds(), 0.0d);
+      if (this.destinationElement != null) {
+        final double highlightGap = this.layoutConfig.getSelectLineGap() * 3.0d * this.layoutConfig.getScale() + this.layoutConfig.safeScaleFloatValue(3.0f, 0.1f);
+        addToArea(result, this.destinationElement.getBounds(), highlightGap);
+      }
+    }
+    if (this.mouseDragSelection != null) {
+      addToArea(result, this.mouseDragSelection.asRectangle(), 0.0d);
+    }
+    return result;
+  }
+
+  private static void addToArea(@Nonnull final Rectangle area, @Nonnull final Rectangle2D bounds, final double gap) {
+    final int x = (int) Math.floor(bounds.getX() - gap);
+    final int y = (int) Math.floor(bounds.getY() - gap);
+    final Rectangle rect = new Rectangle(x, y, (int) Math.ceil(bounds.getMaxX() + gap) - x, (int) Math.ceil(bounds.getMaxY() + gap) - y);
+    if (area.isEmpty()) {
+      area.setBounds(rect);
+    } else {
+      area.add(rect);
+    }
+  }
+
+  private void syncLayoutConfig() {
+    this.layoutConfig.makeFullCopyOf(this.config, false, false);
+    this.layoutConfig.setScale(1.0d);
+    this.recordedTopics = null;
+  }
+
+  /**
+   * Find recorded display list of topics and record it if there is no valid
+   * one. The list is valid until elements are recalculated or moved.
+   *
+   * @param measurer graphics to measure texts during recording
+   * @return display list of topics in unscaled coordinates
+   */
+  @Nonnull
+  private DisplayList findOrRecordTopics(@Nonnull final MMGraphics measurer) {
+    final Object root = this.model.getRoot() == null ? null : this.model.getRoot().getPayload();
+    DisplayList result = this.recordedTopics;
+    if (result == null || root != this.recordedTopicsRoot) {
+      result = recordTopics(measurer, this.layoutConfig, this.model);
+      this.recordedTopics = result;
+      this.recordedTopicsRoot = root;
+      this.recordedTopicsContext = measurer instanceof MMGraphics2DWrapper ? ((MMGraphics2DWrapper) measurer).getWrappedGraphics().getFontRenderContext() : null;
+    }
+    return result;
+  }
+
+  @Nonnull
+  private static FontRenderContext makeFontRenderContext(@Nonnull final RenderQuality quality) {
+    final Graphics2D g = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+    try {
+      quality.prepare(g);
+      return g.getFontRenderContext();
+    } finally {
+      g.dispose();
+    }
+  }
+
+  @Nonnull
+  private Graphics2D makeModelGraphics(@Nonnull final Graphics2D gfx) {
+    final Graphics2D result = (Graphics2D) gfx.create();
+    final double zoom = this.config.getScale();
+    result.scale(zoom, zoom);
+    return result;
+  }
+
+  @Nonnull
+  private Dimension makePaperSizeForLayout() {
+    Dimension pageSize = getSize();
+    final Container parent = this.getParent();
+    if (parent instanceof JViewport) {
+      pageSize = ((JViewport) parent).getExtentSize();
+    }
+    final double zoom = this.config.getScale();
+    return new Dimension((int) Math.round(pageSize.width / zoom), (int) Math.round(pageSize.height / zoom));
+  }
+
+  @Nullable
+  private Dimension toViewDimension(@Nullable final Dimension modelSize) {
+    if (modelSize == null) {
+      return null;
+    }
+    final double zoom = this.config.getScale();
+    return new Dimension((int) Math.round(modelSize.width * zoom), (int) Math.round(modelSize.height * zoom));
+  }
+
+  @Nonnull
+  private Rectangle toViewRectangle(@Nonnull final Rectangle2D modelRect) {
+    final double zoom = this.config.getScale();
+    final int x = (int) Math.floor(modelRect.getX() * zoom);
+    final int y = (int) Math.floor(modelRect.getY() * zoom);
+    return new Rectangle(x, y, (int) Math.ceil(modelRect.getMaxX() * zoom) - x, (int) Math.ceil(modelRect.getMaxY() * zoom) - y);
+  }
+
+  @Nonnull
+  private Point toModelPoint(@Nonnull final Point viewPoint) {
+    final double zoom = this.config.getScale();
+    return new Point((int) Math.round(viewPoint.x / zoom), (int) Math.round(viewPoint.y / zoom));
+  }
+
+  /**
+   * Get bounds of topic on the panel. Elements are laid out in unscaled model
+   * coordinates and the panel zoom is applied during painting, so that bounds
+   * of topic element must be converted before use in panel coordinates.
+   *
+   * @param topic topic, can be null
+   * @return bounds of the topic in panel coordinates, null if topic doesn't
+   * have element
+   * @since 1.4.5
+   */
+  @Nullable
+  public Rectangle getBoundsOnPanel(@Nullable final Topic topic) {
+    final AbstractElement element = topic == null ? null : (AbstractElement) topic.getPayload();
+    return element == null ? null : toViewRectangle(element.getBounds());
+  }
+
+  /**
+   * Get display list of topics recorded during the last painting of the panel.
+   * Coordinates of the list are in unscaled model units. Texts are measured
+   * by the panel with its own render quality and zoom, so that the list is
+   * provided only if elements have been calculated and recorded with the same
+   * font render context as unscaled graphics prepared for the quality,
+   * otherwise the diagram must be laid out again.
+   *
+   * @param quality render quality which would be used to lay out the diagram
+   * @return recorded display list or null if the panel has not been painted
+   * since the last change or texts have been measured in another way
+   * @since 1.4.5
+   */
+  @Nullable
+  public DisplayList findRecordedTopics(@Nonnull final RenderQuality quality) {
+    DisplayList result = null;
+    if (this.lockIfNotDisposed()) {
+      try {
+        final Topic root = this.model == null ? null : this.model.getRoot();
+        if (root != null && root.getPayload() != null && root.getPayload() == this.recordedTopicsRoot) {
+          final FontRenderContext context = makeFontRenderContext(quality);
+          if (context.equals(this.layoutContext) && context.equals(this.recordedTopicsContext)) {
+            result = this.recordedTopics;
+          }
+        }
+      } finally {
+        this.unlock();
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Get area occupied by laid out diagram together with paper margins, in
+   * unscaled model units.
+   *
+   * @return area of diagram or null if elements are not laid out
+   * @since 1.4.5
+   */
+  @Nullable
+  public Rectangle2D findDiagramArea() {
+    Rectangle2D result = null;
+    if (this.lockIfNotDisposed()) {
+      try {
+        final Topic root = this.model == null ? null : this.model.getRoot();
+        final ElementRoot rootElement = root == null ? null : (ElementRoot) root.getPayload();
+        if (rootElement != null) {
+          final Dimension2D blockSize = rootElement.getBlockSize();
+          final Rectangle2D rootBounds = rootElement.getBounds();
+          final double paperMargin = this.layoutConfig.getPaperMargins();
+          result = new Rectangle2D.Double(
+                  Math.floor(rootBounds.getX() - rootElement.getLeftBlockSize().getWidth() - paperMargin),
+                  Math.floor(rootBounds.getY() - (blockSize.getHeight() - rootBounds.getHeight()) / 2 - paperMargin),
+                  Math.round(blockSize.getWidth() + paperMargin * 2),
+                  Math.round(blockSize.getHeight() + paperMargin * 2));
+        }
+      } finally {
+        this.unlock();
+      }
+    }
+    return result;
+  }
+
   private void findDestinationElementForDragged() {
     final Topic theroot = this.model.getRoot();
     if (this.draggedElement != null && theroot != null) {
@@ -1927,7 +2344,7 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
             } else {
               final AbstractElement element = (AbstractElement) topic.getPayload();
               if (element != null) {
-                final Rectangle2D bounds = element.getBounds();
+                final Rectangle bounds = toViewRectangle(element.getBounds());
                 processPopUp(new Point((int) Math.round(bounds.getCenterX()), (int) Math.round(bounds.getCenterY())), element);
               }
             }
@@ -1943,7 +2360,7 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
     if (this.lockIfNotDisposed()) {
       try {
         if (this.controller != null) {
-          final ElementPart partUnderMouse = elementUnderMouse == null ? null : elementUnderMouse.findPartForPoint(point);
+          final ElementPart partUnderMouse = elementUnderMouse == null ? null : elementUnderMouse.findPartForPoint(toModelPoint(point));
 
           if (elementUnderMouse != null && !this.selectedTopics.contains(elementUnderMouse.getModel())) {
             this.selectedTopics.clear();
@@ -2034,6 +2451,10 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
       final MindMap oldModel = this.model;
       this.model = assertNotNull("Model must not be null", model);
 
+      if (PerformanceMetrics.isEnabled() && this.model.getRoot() != null) {
+        PerformanceMetrics.record(PerformanceMetrics.MAP_SIZE, countAllTopics(this.model.getRoot()));
+      }
+
       for (final PanelAwarePlugin p : MindMapPluginRegistry.getInstance().findFor(PanelAwarePlugin.class)) {
         p.onPanelModelChange(this, oldModel, this.model);
       }
@@ -2089,10 +2510,28 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
     }
   }
 
+  /**
+   * Set zoom of the panel. Zoom is applied as transformation during painting,
+   * so that elements are not recalculated and only repaint is needed.
+   *
+   * @param zoom new zoom
+   */
   public void setScale(final double zoom) {
     if (this.lockIfNotDisposed()) {
       try {
-        this.config.setScale(zoom);
+        if (Double.compare(this.config.getScale(), zoom) != 0) {
+          this.config.setScale(zoom);
+          if (this.model != null && isModelValid(this.model) && this.model.getRoot() != null) {
+            this.recordedTopics = null;
+            changeSizeOfComponent(toViewDimension(alignDiagramWithCenteringToPaper(this.model, this.layoutConfig, makePaperSizeForLayout())), true);
+            final Container parent = this.getParent();
+            if (parent instanceof JComponent) {
+              ((JComponent) parent).revalidate();
+            }
+            updateEditorAfterResizing();
+          }
+          repaint();
+        }
       } finally {
         this.unlock();
       }
@@ -2102,7 +2541,7 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
   private void drawDestinationElement(@Nonnull final Graphics2D g, @Nonnull final MindMapPanelConfig cfg) {
     if (this.destinationElement != null && this.draggedElement != null) {
       g.setColor(new Color((cfg.getSelectLineColor().getRGB() & 0xFFFFFF) | 0x80000000, true));
-      g.setStroke(new BasicStroke(this.config.safeScaleFloatValue(3.0f, 0.1f)));
+      g.setStroke(new BasicStroke(cfg.safeScaleFloatValue(3.0f, 0.1f)));
 
       final Rectangle2D rectToDraw = new Rectangle2D.Double();
       rectToDraw.setRect(this.destinationElement.getBounds());
@@ -2187,18 +2626,10 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
         try {
           if (graph != null) {
             final MMGraphics gfx = new MMGraphics2DWrapper(graph);
-            if (calculateElementSizes(gfx, this.model, this.config)) {
-
-              Dimension pageSize = getSize();
-
-              final Container parent = this.getParent();
-              if (parent != null) {
-                if (parent instanceof JViewport) {
-                  pageSize = ((JViewport) parent).getExtentSize();
-                }
-              }
-
-              changeSizeOfComponent(layoutFullDiagramWithCenteringToPaper(gfx, this.model, this.config, pageSize), doListenerNotification);
+            if (calculateElementSizes(gfx, this.model, this.layoutConfig)) {
+              this.recordedTopics = null;
+              this.layoutContext = graph.getFontRenderContext();
+              changeSizeOfComponent(toViewDimension(layoutFullDiagramWithCenteringToPaper(gfx, this.model, this.layoutConfig, makePaperSizeForLayout())), doListenerNotification);
               result = true;
               fireNotificationComponentElementsLayouted(graph);
             }
@@ -2269,6 +2700,7 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
     if (lockIfNotDisposed()) {
       try {
         super.invalidate();
+        this.recordedTopics = null;
         if (this.model != null && this.model.getRoot() != null) {
           this.model.resetPayload();
         }
@@ -2283,6 +2715,7 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
   public void paintComponent(@Nonnull final Graphics g) {
     if (this.lockIfNotDisposed()) {
       try {
+        final long start = PerformanceMetrics.start();
         final Graphics2D gfx = (Graphics2D) g.create();
         try {
           final String error = this.errorText;
@@ -2295,17 +2728,37 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
             if (this.model.getRoot().getPayload() == null) {
               updateElementsAndSizeForGraphics(gfx, true, true);
             }
-            drawOnGraphicsForConfiguration(new MMGraphics2DWrapper(gfx), this.config, this.model, true, this.selectedTopics);
-            drawDestinationElement(gfx, this.config);
+            final Graphics2D modelGfx = makeModelGraphics(gfx);
+            try {
+              final MMGraphics2DWrapper modelWrapper = new MMGraphics2DWrapper(modelGfx).setBatching(true);
+              drawOnGraphicsForConfiguration(modelWrapper, this.layoutConfig, findOrRecordTopics(modelWrapper), modelGfx.getClipBounds());
+              drawSelection(modelWrapper, this.layoutConfig, this.selectedTopics);
+              modelWrapper.flush();
+              drawDestinationElement(modelGfx, this.layoutConfig);
+            } finally {
+              modelGfx.dispose();
+            }
           }
 
           paintChildren(g);
 
-          if (this.draggedElement != null) {
-            this.draggedElement.draw(gfx);
-          } else if (this.mouseDragSelection != null) {
-            gfx.setColor(COLOR_MOUSE_DRAG_SELECTION);
-            gfx.fill(this.mouseDragSelection.asRectangle());
+          if (this.draggedElement != null || this.mouseDragSelection != null) {
+            final Graphics2D modelGfx = makeModelGraphics(gfx);
+            try {
+              if (this.draggedElement != null) {
+                this.draggedElement.draw(modelGfx);
+              } else {
+                modelGfx.setColor(COLOR_MOUSE_DRAG_SELECTION);
+                modelGfx.fill(this.mouseDragSelection.asRectangle());
+              }
+            } finally {
+              modelGfx.dispose();
+            }
+          }
+
+          PerformanceMetrics.stop(PerformanceMetrics.PAINT, start);
+          if (PerformanceMetrics.isOverlay()) {
+            drawMetricsOverlay(gfx, this.getVisibleRect());
           }
         } finally {
           gfx.dispose();
@@ -2316,6 +2769,12 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
     }
   }
 
+  /**
+   * Find element under point.
+   *
+   * @param point point in panel coordinates
+   * @return found element or null
+   */
   @Nullable
   public AbstractElement findTopicUnderPoint(@Nonnull final Point point) {
     if (this.lockIfNotDisposed()) {
@@ -2326,7 +2785,7 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
           if (root != null) {
             final AbstractElement rootWidget = (AbstractElement) root.getPayload();
             if (rootWidget != null) {
-              result = rootWidget.findForPoint(point);
+              result = rootWidget.findForPoint(toModelPoint(point));
             }
           }
         }
@@ -2343,11 +2802,12 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
     if (this.lockIfNotDisposed()) {
       try {
         if (!this.selectedTopics.isEmpty()) {
+          final Rectangle selectionFrames = calcSelectionFrameBounds(this.selectedTopics);
           try {
             this.selectedTopics.clear();
             fireNotificationSelectionChanged();
           } finally {
-            repaint();
+            repaintArea(selectionFrames);
           }
         }
       } finally {
@@ -2548,10 +3008,18 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
               final Topic[] selected = this.getSelectedTopics();
 
               if (selected.length > 0) {
+                final ImageBlobStorage imageStorage = ImageBlobStorage.findForNewImages(this.model);
                 for (final Topic s : selected) {
                   for (final Topic t : container.getTopics()) {
                     final Topic newTopic = new Topic(this.model, t, true);
                     newTopic.removeExtra(Extra.ExtraType.TOPIC);
+                    if (imageStorage != null) {
+                      try {
+                        imageStorage.externalizeSubtree(newTopic);
+                      } catch (IOException ex) {
+                        LOGGER.error("Can't move pasted images into storage, they are kept embedded", ex);
+                      }
+                    }
                     newTopic.moveToNewParent(s);
                     MindMapUtils.ensureVisibility(newTopic);
                   }
@@ -2718,6 +3186,17 @@ public class MindMapPanel extends JComponent implements ClipboardOwner {
       return this.prerenderedImage;
     }
 
+    /**
+     * Get area where the element is drawn.
+     *
+     * @return area in panel coordinates
+     * @since 1.4.5
+     */
+    @Nonnull
+    public Rectangle getDrawBounds() {
+      return new Rectangle(getDrawPositionX(), getDrawPositionY(), this.prerenderedImage.getWidth(null), this.prerenderedImage.getHeight(null));
+    }
+
     public void draw(@Nonnull final Graphics2D gfx) {
       final int x = getDrawPositionX();
       final int y = getDrawPositionY();
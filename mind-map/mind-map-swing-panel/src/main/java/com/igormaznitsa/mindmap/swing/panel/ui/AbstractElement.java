@@ -147,10 +147,12 @@ public abstract class AbstractElement {
 
   public void moveWholeTreeBranchCoordinates(final double deltaX, final double deltaY) {
     moveTo(this.bounds.getX() + deltaX, this.bounds.getY() + deltaY);
-    for (final Topic t : this.model.getChildren()) {
-      final AbstractElement el = (AbstractElement) t.getPayload();
-      if (el != null) {
-        el.moveWholeTreeBranchCoordinates(deltaX, deltaY);
+    if (!this.model.hasPendingChildren()) {
+      for (final Topic t : this.model.getChildren()) {
+        final AbstractElement el = (AbstractElement) t.getPayload();
+        if (el != null) {
+          el.moveWholeTreeBranchCoordinates(deltaX, deltaY);
+        }
       }
     }
   }
@@ -31,6 +31,7 @@ import java.util.List;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.mindmap.swing.panel.ui.gfx.StrokeType;
 import com.igormaznitsa.mindmap.swing.panel.ui.gfx.MMGraphics;
 import static com.igormaznitsa.meta.common.utils.Assertions.assertNotNull;
@@ -135,8 +136,30 @@ public final class ElementRoot extends AbstractElement {
 
   @Override
   public void alignElementAndChildren(@Nonnull final MindMapPanelConfig cfg, final boolean leftSide, final double cx, final double cy) {
-    super.alignElementAndChildren(cfg, leftSide, cx, cy);
-    
+    for (final Runnable branch : alignRootAndPrepareBranches(cfg, cx, cy)) {
+      branch.run();
+    }
+  }
+
+  /**
+   * Align root element and prepare alignment of first level branches. Position
+   * of every branch is already calculated so that branches don't depend on
+   * each other and can be aligned in parallel.
+   *
+   * @param cfg configuration
+   * @param cx x coordinate of the root
+   * @param cy y coordinate of the root
+   * @return jobs to align first level branches, must be executed before
+   * elements are used
+   * @since 1.4.5
+   */
+  @Nonnull
+  @MustNotContainNull
+  public List<Runnable> alignRootAndPrepareBranches(@Nonnull final MindMapPanelConfig cfg, final double cx, final double cy) {
+    super.alignElementAndChildren(cfg, true, cx, cy);
+
+    final List<Runnable> result = new ArrayList<Runnable>();
+
     final double dx = cx;
     final double dy = cy;
     this.moveTo(dx, dy);
@@ -153,7 +176,7 @@ public final class ElementRoot extends AbstractElement {
       for (final Topic t : this.model.getChildren()) {
         final AbstractCollapsableElement c = assertNotNull((AbstractCollapsableElement) t.getPayload());
         if (c.isLeftDirection()) {
-          c.alignElementAndChildren(cfg, true, ddx - c.getBlockSize().getWidth(), ddy);
+          result.add(makeBranchAlignment(c, cfg, true, ddx - c.getBlockSize().getWidth(), ddy));
           ddy += c.getBlockSize().getHeight() + insetVert;
         }
       }
@@ -165,11 +188,22 @@ public final class ElementRoot extends AbstractElement {
       for (final Topic t : this.model.getChildren()) {
         final AbstractCollapsableElement c = assertNotNull((AbstractCollapsableElement) t.getPayload());
         if (!c.isLeftDirection()) {
-          c.alignElementAndChildren(cfg, false, ddx, ddy);
+          result.add(makeBranchAlignment(c, cfg, false, ddx, ddy));
           ddy += c.getBlockSize().getHeight() + insetVert;
         }
       }
     }
+    return result;
+  }
+
+  @Nonnull
+  private static Runnable makeBranchAlignment(@Nonnull final AbstractCollapsableElement element, @Nonnull final MindMapPanelConfig cfg, final boolean leftSide, final double x, final double y) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        element.alignElementAndChildren(cfg, leftSide, x, y);
+      }
+    };
   }
 
   @Override
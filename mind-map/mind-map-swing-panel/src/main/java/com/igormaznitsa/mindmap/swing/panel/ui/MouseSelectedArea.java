@@ -41,7 +41,11 @@ public class MouseSelectedArea {
   }
 
   public void update(@Nonnull final MouseEvent e) {
-    this.currentPoint.setLocation(e.getPoint());
+    update(e.getPoint());
+  }
+
+  public void update(@Nonnull final Point point) {
+    this.currentPoint.setLocation(point);
   }
 
   @Nonnull
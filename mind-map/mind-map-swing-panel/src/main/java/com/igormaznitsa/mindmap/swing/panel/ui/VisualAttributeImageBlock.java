@@ -32,6 +32,12 @@ import com.igormaznitsa.mindmap.plugins.api.CodeSnippetProcessor;
 
 public class VisualAttributeImageBlock {
 
+  /**
+   * Lock to call plug-ins sequentially, element sizes can be calculated by
+   * several layout threads.
+   */
+  private static final Object PLUGIN_LOCK = new Object();
+
   private final Rectangle2D bounds = new Rectangle2D.Double();
   private final Topic model;
   private boolean contentPresented;
@@ -91,7 +97,9 @@ public class VisualAttributeImageBlock {
       final double scale = config.getScale();
       
       if (this.image == null || Double.compare(this.lastScale, scale) != 0) {
-        this.image = this.plugin.getScaledImage(config, this.parent.model);
+        synchronized (PLUGIN_LOCK) {
+          this.image = this.plugin.getScaledImage(config, this.parent.model);
+        }
         this.lastScale = scale;
         if (this.image == null) {
           this.width = 0;
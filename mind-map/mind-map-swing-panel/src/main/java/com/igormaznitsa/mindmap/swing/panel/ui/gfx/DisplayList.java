@@ -0,0 +1,283 @@
+/*
+ * Copyright 2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.swing.panel.ui.gfx;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Image;
+import java.awt.Shape;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Compact list of draw operations recorded by {@link MMGraphicsRecorder}. The
+ * list is immutable and can be replayed many times onto any {@link MMGraphics}
+ * target, operations which are out of the clip area are skipped.
+ *
+ * @since 1.4.5
+ */
+public final class DisplayList {
+
+  static final byte OP_PUSH = 0;
+  static final byte OP_POP = 1;
+  static final byte OP_TRANSLATE = 2;
+  static final byte OP_STROKE = 3;
+  static final byte OP_FONT = 4;
+  static final byte OP_CLIP = 5;
+  static final byte OP_LINE = 6;
+  static final byte OP_RECT = 7;
+  static final byte OP_SHAPE = 8;
+  static final byte OP_CURVE = 9;
+  static final byte OP_OVAL = 10;
+  static final byte OP_IMAGE = 11;
+  static final byte OP_STRING = 12;
+
+  private byte[] ops;
+  private int[] argStart;
+  private int[] refStart;
+  private int[] groupEnd;
+  private float[] bounds;
+  private double[] args;
+  private Object[] refs;
+
+  private int size;
+  private int argsSize;
+  private int refsSize;
+
+  private double minX = Double.POSITIVE_INFINITY;
+  private double minY = Double.POSITIVE_INFINITY;
+  private double maxX = Double.NEGATIVE_INFINITY;
+  private double maxY = Double.NEGATIVE_INFINITY;
+
+  DisplayList() {
+    this.ops = new byte[256];
+    this.argStart = new int[256];
+    this.refStart = new int[256];
+    this.groupEnd = new int[256];
+    this.bounds = new float[256 * 4];
+    this.args = new double[1024];
+    this.refs = new Object[512];
+  }
+
+  int add(final byte op) {
+    if (this.size == this.ops.length) {
+      final int newLength = this.size * 2;
+      this.ops = Arrays.copyOf(this.ops, newLength);
+      this.argStart = Arrays.copyOf(this.argStart, newLength);
+      this.refStart = Arrays.copyOf(this.refStart, newLength);
+      this.groupEnd = Arrays.copyOf(this.groupEnd, newLength);
+      this.bounds = Arrays.copyOf(this.bounds, newLength * 4);
+    }
+    final int index = this.size++;
+    this.ops[index] = op;
+    this.argStart[index] = this.argsSize;
+    this.refStart[index] = this.refsSize;
+    this.groupEnd[index] = index;
+    setBounds(index, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
+    return index;
+  }
+
+  void arg(final double value) {
+    if (this.argsSize == this.args.length) {
+      this.args = Arrays.copyOf(this.args, this.argsSize * 2);
+    }
+    this.args[this.argsSize++] = value;
+  }
+
+  void ref(@Nullable final Object value) {
+    if (this.refsSize == this.refs.length) {
+      this.refs = Arrays.copyOf(this.refs, this.refsSize * 2);
+    }
+    this.refs[this.refsSize++] = value;
+  }
+
+  void setBounds(final int index, final double x1, final double y1, final double x2, final double y2) {
+    final int offset = index * 4;
+    this.bounds[offset] = (float) x1;
+    this.bounds[offset + 1] = (float) y1;
+    this.bounds[offset + 2] = (float) x2;
+    this.bounds[offset + 3] = (float) y2;
+  }
+
+  void closeGroup(final int pushIndex, final int popIndex) {
+    this.groupEnd[pushIndex] = popIndex;
+  }
+
+  void includeIntoBounds(final double x1, final double y1, final double x2, final double y2) {
+    this.minX = Math.min(this.minX, x1);
+    this.minY = Math.min(this.minY, y1);
+    this.maxX = Math.max(this.maxX, x2);
+    this.maxY = Math.max(this.maxY, y2);
+  }
+
+  void trim() {
+    this.ops = Arrays.copyOf(this.ops, this.size);
+    this.argStart = Arrays.copyOf(this.argStart, this.size);
+    this.refStart = Arrays.copyOf(this.refStart, this.size);
+    this.groupEnd = Arrays.copyOf(this.groupEnd, this.size);
+    this.bounds = Arrays.copyOf(this.bounds, this.size * 4);
+    this.args = Arrays.copyOf(this.args, this.argsSize);
+    this.refs = Arrays.copyOf(this.refs, this.refsSize);
+  }
+
+  /**
+   * Get number of recorded operations.
+   *
+   * @return number of operations
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Get area covered by recorded draw operations, it doesn't include images
+   * with unknown size.
+   *
+   * @return bounds of recorded operations, empty rectangle if nothing drawn
+   */
+  @Nonnull
+  public Rectangle2D getBounds() {
+    if (this.minX > this.maxX || this.minY > this.maxY) {
+      return new Rectangle2D.Double();
+    }
+    return new Rectangle2D.Double(this.minX, this.minY, this.maxX - this.minX, this.maxY - this.minY);
+  }
+
+  private boolean isVisible(final int index, @Nonnull final Rectangle2D clip) {
+    final int offset = index * 4;
+    return this.bounds[offset + 2] >= clip.getMinX() && this.bounds[offset] <= clip.getMaxX()
+            && this.bounds[offset + 3] >= clip.getMinY() && this.bounds[offset + 1] <= clip.getMaxY();
+  }
+
+  /**
+   * Replay all recorded operations.
+   *
+   * @param target target graphics
+   */
+  public void replay(@Nonnull final MMGraphics target) {
+    replay(target, null);
+  }
+
+  /**
+   * Replay recorded operations, operations and groups of operations which don't
+   * intersect the clip area are skipped.
+   *
+   * @param target target graphics
+   * @param clip clip area in coordinates of the target, null if all operations
+   * must be replayed
+   * @return number of replayed draw operations
+   */
+  public int replay(@Nonnull final MMGraphics target, @Nullable final Rectangle2D clip) {
+    MMGraphics[] stack = new MMGraphics[16];
+    int stackSize = 0;
+    MMGraphics gfx = target;
+    int drawn = 0;
+
+    for (int i = 0; i < this.size; i++) {
+      final byte op = this.ops[i];
+      if (clip != null && (op == OP_PUSH || op >= OP_LINE) && !isVisible(i, clip)) {
+        if (op == OP_PUSH) {
+          i = this.groupEnd[i];
+        }
+        continue;
+      }
+
+      final int a = this.argStart[i];
+      final int r = this.refStart[i];
+
+      switch (op) {
+        case OP_PUSH: {
+          if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, stackSize * 2);
+          }
+          stack[stackSize++] = gfx;
+          gfx = gfx.copy();
+        }
+        break;
+        case OP_POP: {
+          if (stackSize > 0) {
+            gfx.dispose();
+            gfx = stack[--stackSize];
+            stack[stackSize] = null;
+          }
+        }
+        break;
+        case OP_TRANSLATE: {
+          gfx.translate(this.args[a], this.args[a + 1]);
+        }
+        break;
+        case OP_STROKE: {
+          gfx.setStroke((float) this.args[a], (StrokeType) this.refs[r]);
+        }
+        break;
+        case OP_FONT: {
+          gfx.setFont((Font) this.refs[r]);
+        }
+        break;
+        case OP_CLIP: {
+          gfx.setClip((int) this.args[a], (int) this.args[a + 1], (int) this.args[a + 2], (int) this.args[a + 3]);
+        }
+        break;
+        case OP_LINE: {
+          gfx.drawLine((int) this.args[a], (int) this.args[a + 1], (int) this.args[a + 2], (int) this.args[a + 3], (Color) this.refs[r]);
+          drawn++;
+        }
+        break;
+        case OP_RECT: {
+          gfx.drawRect((int) this.args[a], (int) this.args[a + 1], (int) this.args[a + 2], (int) this.args[a + 3], (Color) this.refs[r], (Color) this.refs[r + 1]);
+          drawn++;
+        }
+        break;
+        case OP_SHAPE: {
+          gfx.draw((Shape) this.refs[r], (Color) this.refs[r + 1], (Color) this.refs[r + 2]);
+          drawn++;
+        }
+        break;
+        case OP_CURVE: {
+          gfx.drawCurve(this.args[a], this.args[a + 1], this.args[a + 2], this.args[a + 3], (Color) this.refs[r]);
+          drawn++;
+        }
+        break;
+        case OP_OVAL: {
+          gfx.drawOval((int) this.args[a], (int) this.args[a + 1], (int) this.args[a + 2], (int) this.args[a + 3], (Color) this.refs[r], (Color) this.refs[r + 1]);
+          drawn++;
+        }
+        break;
+        case OP_IMAGE: {
+          gfx.drawImage((Image) this.refs[r], (int) this.args[a], (int) this.args[a + 1]);
+          drawn++;
+        }
+        break;
+        case OP_STRING: {
+          gfx.drawString((String) this.refs[r], (int) this.args[a], (int) this.args[a + 1], (Color) this.refs[r + 1]);
+          drawn++;
+        }
+        break;
+        default:
+          throw new Error("Unexpected operation : " + op); //NOI18N
+      }
+    }
+
+    while (stackSize > 0) {
+      gfx.dispose();
+      gfx = stack[--stackSize];
+    }
+
+    return drawn;
+  }
+}
@@ -21,22 +21,126 @@ import java.awt.Font;
 import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.awt.Shape;
 import java.awt.Stroke;
+import java.awt.geom.Line2D;
 import java.awt.geom.Path2D;
 import java.awt.geom.Rectangle2D;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+/**
+ * Wrapper of Graphics2D. Strokes are cached per type and width, paths for
+ * curves are reused and color and stroke of wrapped graphics are changed only
+ * if they are really changed, so that the draw path doesn't make allocations.
+ * <p>
+ * In batching mode outlines (lines, curves and not filled shapes) which are
+ * drawn one after another with the same color and stroke are accumulated into
+ * one path and drawn by single call. Only opaque outlines drawn without
+ * antialiasing are batched, because overlapped parts of translucent or
+ * antialiased outlines look different if they are drawn as one path. The batch
+ * is drawn before any other operation so that order of drawing is not changed,
+ * call {@link #flush()} before direct use of wrapped graphics.
+ */
 public class MMGraphics2DWrapper implements MMGraphics {
 
+  private static final int MAX_CACHED_STROKES_PER_TYPE = 64;
+  private static final Stroke DEFAULT_STROKE = new BasicStroke(1.0f);
+  private static final StrokeCache[] STROKE_CACHE = new StrokeCache[StrokeType.values().length];
+
+  static {
+    for (int i = 0; i < STROKE_CACHE.length; i++) {
+      STROKE_CACHE[i] = new StrokeCache();
+    }
+  }
+
   private final Graphics2D wrapped;
+  private final Path2D.Double curvePath = new Path2D.Double();
+  private final Line2D.Double line = new Line2D.Double();
   private StrokeType strokeType = StrokeType.SOLID;
   private float strokeWidth = 1.0f;
 
+  private boolean batching;
+  private Path2D.Double batchPath;
+  private Color batchColor;
+  private int batchSize;
+
+  private static final class StrokeCache {
+
+    private volatile CachedStroke[] strokes = new CachedStroke[0];
+
+    @Nonnull
+    Stroke find(final float width, @Nonnull final StrokeType type) {
+      final CachedStroke[] current = this.strokes;
+      for (final CachedStroke s : current) {
+        if (Float.compare(s.width, width) == 0) {
+          return s.stroke;
+        }
+      }
+
+      final Stroke result = makeStroke(width, type);
+      synchronized (this) {
+        final CachedStroke[] actual = this.strokes;
+        if (actual.length < MAX_CACHED_STROKES_PER_TYPE) {
+          final CachedStroke[] newArray = new CachedStroke[actual.length + 1];
+          System.arraycopy(actual, 0, newArray, 0, actual.length);
+          newArray[actual.length] = new CachedStroke(width, result);
+          this.strokes = newArray;
+        }
+      }
+      return result;
+    }
+  }
+
+  private static final class CachedStroke {
+
+    private final float width;
+    private final Stroke stroke;
+
+    private CachedStroke(final float width, @Nonnull final Stroke stroke) {
+      this.width = width;
+      this.stroke = stroke;
+    }
+  }
+
   public MMGraphics2DWrapper(@Nonnull final Graphics2D wrapped) {
     this.wrapped = wrapped;
-    this.wrapped.setStroke(new BasicStroke(this.strokeWidth));
+    this.wrapped.setStroke(DEFAULT_STROKE);
+  }
+
+  private MMGraphics2DWrapper(@Nonnull final MMGraphics2DWrapper parent) {
+    this.wrapped = (Graphics2D) parent.wrapped.create();
+    this.strokeType = parent.strokeType;
+    this.strokeWidth = parent.strokeWidth;
+    this.batching = parent.batching;
+  }
+
+  @Nonnull
+  private static Stroke makeStroke(final float width, @Nonnull final StrokeType type) {
+    switch (type) {
+      case SOLID:
+        return new BasicStroke(width, BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER);
+      case DASHES:
+        return new BasicStroke(width, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f, new float[]{width * 3.0f, width}, 0.0f);
+      case DOTS:
+        return new BasicStroke(width, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f, new float[]{width, width * 2.0f}, 0.0f);
+      default:
+        throw new Error("Unexpected stroke type : " + type);
+    }
+  }
+
+  /**
+   * Find cached stroke for type and width.
+   *
+   * @param width width of stroke
+   * @param type type of stroke
+   * @return stroke, the same instance is returned for the same arguments
+   * @since 1.4.5
+   */
+  @Nonnull
+  public static Stroke findStroke(final float width, @Nonnull final StrokeType type) {
+    return STROKE_CACHE[type.ordinal()].find(width, type);
   }
 
   @Nonnull
@@ -44,20 +148,89 @@ public class MMGraphics2DWrapper implements MMGraphics {
     return this.wrapped;
   }
 
+  /**
+   * Turn on or turn off batching of outlines. Turning off flushes the current
+   * batch.
+   *
+   * @param flag true to turn on batching
+   * @return this instance
+   * @since 1.4.5
+   */
+  @Nonnull
+  public MMGraphics2DWrapper setBatching(final boolean flag) {
+    if (!flag) {
+      flush();
+    }
+    this.batching = flag;
+    return this;
+  }
+
+  public boolean isBatching() {
+    return this.batching;
+  }
+
+  /**
+   * Draw accumulated batch of outlines.
+   *
+   * @since 1.4.5
+   */
+  public void flush() {
+    if (this.batchSize > 0) {
+      applyColor(this.batchColor);
+      this.wrapped.draw(this.batchPath);
+      this.batchPath.reset();
+      this.batchColor = null;
+      this.batchSize = 0;
+    }
+  }
+
+  private void applyColor(@Nonnull final Color color) {
+    final Object current = this.wrapped.getPaint();
+    if (current != color && !color.equals(current)) {
+      this.wrapped.setColor(color);
+    }
+  }
+
+  private boolean isBatchable(@Nonnull final Color color) {
+    return this.batching
+        && color.getAlpha() == 0xFF
+        && !RenderingHints.VALUE_ANTIALIAS_ON.equals(this.wrapped.getRenderingHint(RenderingHints.KEY_ANTIALIASING));
+  }
+
+  private void drawOutline(@Nonnull final Shape shape, @Nonnull final Color color) {
+    if (isBatchable(color)) {
+      if (this.batchSize > 0 && this.batchColor != color && !this.batchColor.equals(color)) {
+        flush();
+      }
+      if (this.batchPath == null) {
+        this.batchPath = new Path2D.Double();
+      }
+      this.batchPath.append(shape, false);
+      this.batchColor = color;
+      this.batchSize++;
+    } else {
+      flush();
+      applyColor(color);
+      this.wrapped.draw(shape);
+    }
+  }
+
   @Override
   public void setClip(final int x, final int y, final int w, final int h) {
+    flush();
     this.wrapped.setClip(x, y, w, h);
   }
 
   @Override
   public void drawRect(final int x, final int y, final int width, final int height, @Nullable final Color border, @Nullable final Color fill) {
+    flush();
     if (fill != null) {
-      this.wrapped.setColor(fill);
+      applyColor(fill);
       this.wrapped.fillRect(x, y, width, height);
     }
 
     if (border != null) {
-      this.wrapped.setColor(border);
+      applyColor(border);
       this.wrapped.drawRect(x, y, width, height);
     }
   }
@@ -65,19 +238,19 @@ public class MMGraphics2DWrapper implements MMGraphics {
   @Override
   @Nonnull
   public MMGraphics copy() {
-    final MMGraphics2DWrapper result = new MMGraphics2DWrapper((Graphics2D) wrapped.create());
-    result.strokeType = this.strokeType;
-    result.strokeWidth = this.strokeWidth;
-    return result;
+    flush();
+    return new MMGraphics2DWrapper(this);
   }
 
   @Override
   public void dispose() {
+    flush();
     this.wrapped.dispose();
   }
 
   @Override
   public void translate(final double x, final double y) {
+    flush();
     this.wrapped.translate(x, y);
   }
 
@@ -88,71 +261,66 @@ public class MMGraphics2DWrapper implements MMGraphics {
   }
 
   @Override
-  public void setStroke(@Nonnull final float width, @Nonnull final StrokeType type) {
+  public void setStroke(final float width, @Nonnull final StrokeType type) {
     if (type != this.strokeType || Float.compare(this.strokeWidth, width) != 0) {
+      flush();
       this.strokeType = type;
       this.strokeWidth = width;
-
-      final Stroke stroke;
-
-      switch (type) {
-        case SOLID:
-          stroke = new BasicStroke(width, BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER);
-          break;
-        case DASHES:
-          stroke = new BasicStroke(width, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f, new float[]{width * 3.0f, width}, 0.0f);
-          break;
-        case DOTS:
-          stroke = new BasicStroke(width, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f, new float[]{width, width * 2.0f}, 0.0f);
-          break;
-        default:
-          throw new Error("Unexpected stroke type : " + type);
-      }
-      this.wrapped.setStroke(stroke);
+      this.wrapped.setStroke(findStroke(width, type));
     }
   }
 
   @Override
   public void drawLine(final int startX, final int startY, final int endX, final int endY, @Nullable final Color color) {
     if (color != null) {
-      this.wrapped.setColor(color);
-      this.wrapped.drawLine(startX, startY, endX, endY);
+      if (isBatchable(color)) {
+        this.line.setLine(startX, startY, endX, endY);
+        drawOutline(this.line, color);
+      } else {
+        flush();
+        applyColor(color);
+        this.wrapped.drawLine(startX, startY, endX, endY);
+      }
     }
   }
 
   @Override
   public void draw(@Nonnull final Shape shape, @Nullable final Color border, @Nullable final Color fill) {
     if (fill != null) {
-      this.wrapped.setColor(fill);
+      flush();
+      applyColor(fill);
       this.wrapped.fill(shape);
     }
 
     if (border != null) {
-      this.wrapped.setColor(border);
-      this.wrapped.draw(shape);
+      drawOutline(shape, border);
     }
   }
 
   @Override
   public void drawCurve(final double startX, final double startY, final double endX, final double endY, @Nullable final Color color) {
-    final Path2D path = new Path2D.Double();
+    final Path2D.Double path = this.curvePath;
+    path.reset();
     path.moveTo(startX, startY);
     path.curveTo(startX, endY, startX, endY, endX, endY);
-    if (color != null) {
-      this.wrapped.setColor(color);
+    if (color == null) {
+      flush();
+      this.wrapped.draw(path);
+    } else {
+      drawOutline(path, color);
     }
-    this.wrapped.draw(path);
   }
 
   @Override
   public void drawOval(final int x, final int y, final int w, final int h, @Nullable final Color border, @Nullable final Color fill) {
+    flush();
     if (fill != null) {
-      this.wrapped.setColor(fill);
+      applyColor(fill);
       this.wrapped.fillOval(x, y, w, h);
     }
 
     if (border != null) {
-      this.wrapped.setColor(border);
+      applyColor(border);
       this.wrapped.drawOval(x, y, w, h);
     }
   }
@@ -160,6 +328,7 @@ public class MMGraphics2DWrapper implements MMGraphics {
   @Override
   public void drawImage(@Nullable final Image image, final int x, final int y) {
     if (image != null) {
+      flush();
       this.wrapped.drawImage(image, x, y, null);
     }
   }
@@ -177,13 +346,16 @@ public class MMGraphics2DWrapper implements MMGraphics {
 
   @Override
   public void setFont(@Nonnull final Font font) {
-    this.wrapped.setFont(font);
+    if (this.wrapped.getFont() != font) {
+      this.wrapped.setFont(font);
+    }
   }
 
   @Override
   public void drawString(@Nonnull final String text, final int x, final int y, @Nullable Color color) {
     if (color != null && this.wrapped.getFont().getSize2D() > 1.0f) {
-      this.wrapped.setColor(color);
+      flush();
+      applyColor(color);
       this.wrapped.drawString(text, x, y);
     }
   }
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.swing.panel.ui.gfx;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.Rectangle2D;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Graphics which doesn't draw anything but records draw operations into
+ * {@link DisplayList}. Text measuring is delegated to the measuring graphics
+ * provided in constructor. Shapes, images and fonts are kept by reference so
+ * that they must not be changed after drawing.
+ * <p>
+ * Copies made by {@link #copy()} must be disposed in reverse order of their
+ * creation, like it is made by elements during painting. Clip of the recorder
+ * is not defined so that painting code draws everything.
+ *
+ * @since 1.4.5
+ */
+public final class MMGraphicsRecorder implements MMGraphics {
+
+  private static final double BOUNDS_GAP = 1.0d;
+
+  private final DisplayList list;
+  private final MMGraphics measurer;
+  private final MMGraphicsRecorder parent;
+  private final int pushIndex;
+
+  private double translateX;
+  private double translateY;
+  private float strokeWidth = 1.0f;
+  private Font font;
+  private boolean disposed;
+  private boolean unbounded;
+
+  private double minX = Double.POSITIVE_INFINITY;
+  private double minY = Double.POSITIVE_INFINITY;
+  private double maxX = Double.NEGATIVE_INFINITY;
+  private double maxY = Double.NEGATIVE_INFINITY;
+
+  /**
+   * Create recorder.
+   *
+   * @param measurer graphics to be used for text measuring, it should have the
+   * same transformation and rendering hints as target graphics
+   */
+  public MMGraphicsRecorder(@Nonnull final MMGraphics measurer) {
+    this.list = new DisplayList();
+    this.measurer = measurer;
+    this.parent = null;
+    this.pushIndex = -1;
+  }
+
+  private MMGraphicsRecorder(@Nonnull final MMGraphicsRecorder parent, final int pushIndex) {
+    this.list = parent.list;
+    this.measurer = parent.measurer;
+    this.parent = parent;
+    this.pushIndex = pushIndex;
+    this.translateX = parent.translateX;
+    this.translateY = parent.translateY;
+    this.strokeWidth = parent.strokeWidth;
+    this.font = parent.font;
+  }
+
+  /**
+   * Finish recording. The recorder must not be used after the call.
+   *
+   * @return recorded display list
+   * @throws IllegalStateException if called for copy of recorder
+   */
+  @Nonnull
+  public DisplayList finish() {
+    if (this.parent != null) {
+      throw new IllegalStateException("Only root recorder can be finished"); //NOI18N
+    }
+    this.disposed = true;
+    this.list.includeIntoBounds(this.minX, this.minY, this.maxX, this.maxY);
+    this.list.trim();
+    return this.list;
+  }
+
+  private void include(final double x1, final double y1, final double x2, final double y2) {
+    this.minX = Math.min(this.minX, x1);
+    this.minY = Math.min(this.minY, y1);
+    this.maxX = Math.max(this.maxX, x2);
+    this.maxY = Math.max(this.maxY, y2);
+  }
+
+  private void addDrawOp(final byte op, final double x, final double y, final double w, final double h, final boolean stroked) {
+    final int index = this.list.add(op);
+    final double gap = BOUNDS_GAP + (stroked ? this.strokeWidth / 2.0d : 0.0d);
+    final double x1 = this.translateX + Math.min(x, x + w) - gap;
+    final double y1 = this.translateY + Math.min(y, y + h) - gap;
+    final double x2 = this.translateX + Math.max(x, x + w) + gap;
+    final double y2 = this.translateY + Math.max(y, y + h) + gap;
+    this.list.setBounds(index, x1, y1, x2, y2);
+    include(x1, y1, x2, y2);
+  }
+
+  @Override
+  @Nonnull
+  public MMGraphics copy() {
+    return new MMGraphicsRecorder(this, this.list.add(DisplayList.OP_PUSH));
+  }
+
+  @Override
+  public void dispose() {
+    if (!this.disposed) {
+      this.disposed = true;
+      if (this.parent != null) {
+        this.list.closeGroup(this.pushIndex, this.list.add(DisplayList.OP_POP));
+        if (this.unbounded) {
+          this.parent.unbounded = true;
+        } else if (this.minX <= this.maxX) {
+          this.list.setBounds(this.pushIndex, this.minX, this.minY, this.maxX, this.maxY);
+        } else {
+          this.list.setBounds(this.pushIndex, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+        }
+        if (this.minX <= this.maxX) {
+          this.parent.include(this.minX, this.minY, this.maxX, this.maxY);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void translate(final double x, final double y) {
+    this.list.add(DisplayList.OP_TRANSLATE);
+    this.list.arg(x);
+    this.list.arg(y);
+    this.translateX += x;
+    this.translateY += y;
+  }
+
+  @Override
+  @Nullable
+  public Rectangle getClipBounds() {
+    return null;
+  }
+
+  @Override
+  public void setStroke(final float width, @Nonnull final StrokeType type) {
+    this.list.add(DisplayList.OP_STROKE);
+    this.list.arg(width);
+    this.list.ref(type);
+    this.strokeWidth = width;
+  }
+
+  @Override
+  public void drawLine(final int startX, final int startY, final int endX, final int endY, @Nullable final Color color) {
+    addDrawOp(DisplayList.OP_LINE, startX, startY, endX - startX, endY - startY, true);
+    this.list.arg(startX);
+    this.list.arg(startY);
+    this.list.arg(endX);
+    this.list.arg(endY);
+    this.list.ref(color);
+  }
+
+  @Override
+  public void drawRect(final int x, final int y, final int width, final int height, @Nullable final Color border, @Nullable final Color fill) {
+    addDrawOp(DisplayList.OP_RECT, x, y, width, height, true);
+    this.list.arg(x);
+    this.list.arg(y);
+    this.list.arg(width);
+    this.list.arg(height);
+    this.list.ref(border);
+    this.list.ref(fill);
+  }
+
+  @Override
+  public void draw(@Nonnull final Shape shape, @Nullable final Color border, @Nullable final Color fill) {
+    final Rectangle2D shapeBounds = shape.getBounds2D();
+    addDrawOp(DisplayList.OP_SHAPE, shapeBounds.getX(), shapeBounds.getY(), shapeBounds.getWidth(), shapeBounds.getHeight(), true);
+    this.list.ref(shape);
+    this.list.ref(border);
+    this.list.ref(fill);
+  }
+
+  @Override
+  public void drawCurve(final double startX, final double startY, final double endX, final double endY, @Nullable final Color color) {
+    addDrawOp(DisplayList.OP_CURVE, startX, startY, endX - startX, endY - startY, true);
+    this.list.arg(startX);
+    this.list.arg(startY);
+    this.list.arg(endX);
+    this.list.arg(endY);
+    this.list.ref(color);
+  }
+
+  @Override
+  public void drawOval(final int x, final int y, final int w, final int h, @Nullable final Color border, @Nullable final Color fill) {
+    addDrawOp(DisplayList.OP_OVAL, x, y, w, h, true);
+    this.list.arg(x);
+    this.list.arg(y);
+    this.list.arg(w);
+    this.list.arg(h);
+    this.list.ref(border);
+    this.list.ref(fill);
+  }
+
+  @Override
+  public void drawImage(@Nullable final Image image, final int x, final int y) {
+    if (image != null) {
+      final int width = image.getWidth(null);
+      final int height = image.getHeight(null);
+      if (width < 0 || height < 0) {
+        this.list.add(DisplayList.OP_IMAGE);
+        this.unbounded = true;
+      } else {
+        addDrawOp(DisplayList.OP_IMAGE, x, y, width, height, false);
+      }
+      this.list.arg(x);
+      this.list.arg(y);
+      this.list.ref(image);
+    }
+  }
+
+  @Override
+  public void setFont(@Nonnull final Font font) {
+    this.list.add(DisplayList.OP_FONT);
+    this.list.ref(font);
+    this.font = font;
+  }
+
+  @Override
+  public float getFontMaxAscent() {
+    if (this.font != null) {
+      this.measurer.setFont(this.font);
+    }
+    return this.measurer.getFontMaxAscent();
+  }
+
+  @Override
+  public void setClip(final int x, final int y, final int w, final int h) {
+    this.list.add(DisplayList.OP_CLIP);
+    this.list.arg(x);
+    this.list.arg(y);
+    this.list.arg(w);
+    this.list.arg(h);
+  }
+
+  @Override
+  @Nonnull
+  public Rectangle2D getStringBounds(@Nonnull final String s) {
+    if (this.font != null) {
+      this.measurer.setFont(this.font);
+    }
+    return this.measurer.getStringBounds(s);
+  }
+
+  @Override
+  public void drawString(@Nonnull final String text, final int x, final int y, @Nullable final Color fill) {
+    final Rectangle2D textBounds = getStringBounds(text);
+    addDrawOp(DisplayList.OP_STRING, x + textBounds.getX(), y + textBounds.getY(), textBounds.getWidth(), textBounds.getHeight(), false);
+    this.list.arg(x);
+    this.list.arg(y);
+    this.list.ref(text);
+    this.list.ref(fill);
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.swing.panel.utils;
+
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
+import com.igormaznitsa.mindmap.swing.panel.ui.gfx.MMGraphics;
+import com.igormaznitsa.mindmap.swing.panel.ui.gfx.MMGraphics2DWrapper;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Executor of layout jobs for first level branches of mind map. Branches don't
+ * depend on each other until the root combines them, so that on wide maps they
+ * are sized and aligned by a shared pool of daemon threads, the calling thread
+ * executes one of jobs itself and waits for the rest. Small maps are processed
+ * in the calling thread.
+ * <p>
+ * Text can be measured in parallel only through graphics which rendering
+ * parameters can be copied, every job gets own measuring graphics with the
+ * same transformation and rendering hints, so that it has the same font
+ * render context and gives the same metrics as the source graphics.
+ *
+ * @since 1.4.5
+ */
+public final class LayoutExecutor {
+
+  /**
+   * System property to turn off parallel layout on start.
+   */
+  public static final String PROPERTY_PARALLEL = "mindmap.layout.parallel"; //NOI18N
+
+  /**
+   * Minimal number of topics in map to use parallel layout.
+   */
+  public static final int MIN_TOPICS_FOR_PARALLEL = 128;
+
+  private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+  private static volatile boolean parallel = Boolean.parseBoolean(System.getProperty(PROPERTY_PARALLEL, "true")); //NOI18N
+  private static volatile ExecutorService executor;
+
+  private LayoutExecutor() {
+  }
+
+  /**
+   * Factory of measuring graphics for layout jobs.
+   */
+  public static final class MeasurerFactory {
+
+    private final AffineTransform transform;
+    private final RenderingHints hints;
+
+    private MeasurerFactory(@Nonnull final Graphics2D pattern) {
+      this.transform = pattern.getTransform();
+      this.hints = (RenderingHints) pattern.getRenderingHints().clone();
+    }
+
+    /**
+     * Make new measuring graphics, it must be disposed after use.
+     *
+     * @return measuring graphics which can be used only by one thread
+     */
+    @Nonnull
+    public MMGraphics make() {
+      final Graphics2D gfx = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+      gfx.setRenderingHints(this.hints);
+      gfx.setTransform(this.transform);
+      return new MMGraphics2DWrapper(gfx);
+    }
+  }
+
+  public static boolean isParallel() {
+    return parallel;
+  }
+
+  public static void setParallel(final boolean flag) {
+    parallel = flag;
+  }
+
+  /**
+   * Check that parallel layout should be used.
+   *
+   * @param jobs number of independent jobs
+   * @param topics number of topics in the map
+   * @return true if jobs should be executed in parallel
+   */
+  public static boolean isParallelAllowed(final int jobs, final int topics) {
+    return parallel && THREADS > 1 && jobs > 1 && topics >= MIN_TOPICS_FOR_PARALLEL;
+  }
+
+  /**
+   * Find factory of measuring graphics for graphics.
+   *
+   * @param gfx source graphics
+   * @return factory or null if measuring graphics can't be made for the
+   * graphics and text must be measured sequentially
+   */
+  @Nullable
+  public static MeasurerFactory findMeasurerFactory(@Nonnull final MMGraphics gfx) {
+    return gfx instanceof MMGraphics2DWrapper ? new MeasurerFactory(((MMGraphics2DWrapper) gfx).getWrappedGraphics()) : null;
+  }
+
+  @Nonnull
+  private static ExecutorService getExecutor() {
+    ExecutorService result = executor;
+    if (result == null) {
+      synchronized (LayoutExecutor.class) {
+        result = executor;
+        if (result == null) {
+          final AtomicInteger counter = new AtomicInteger();
+          result = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+            @Override
+            @Nonnull
+            public Thread newThread(@Nonnull final Runnable r) {
+              final Thread thread = new Thread(r, "MMD-LAYOUT-" + counter.incrementAndGet()); //NOI18N
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+          executor = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Execute jobs and wait for their completion. Jobs are executed in parallel
+   * if it is allowed for the number of topics.
+   *
+   * @param jobs independent jobs
+   * @param topics number of topics in the map
+   * @throws RuntimeException if any job has thrown exception or the thread has
+   * been interrupted
+   */
+  public static void execute(@Nonnull @MustNotContainNull final List<Runnable> jobs, final int topics) {
+    if (!isParallelAllowed(jobs.size(), topics)) {
+      PerformanceMetrics.increment(PerformanceMetrics.COUNTER_LAYOUT_SEQUENTIAL);
+      for (final Runnable r : jobs) {
+        r.run();
+      }
+      return;
+    }
+
+    PerformanceMetrics.increment(PerformanceMetrics.COUNTER_LAYOUT_PARALLEL);
+
+    final ExecutorService service = getExecutor();
+    final List<Future<?>> futures = new ArrayList<Future<?>>(jobs.size() - 1);
+    boolean completed = false;
+    try {
+      for (int i = 1; i < jobs.size(); i++) {
+        futures.add(service.submit(jobs.get(i)));
+      }
+      jobs.get(0).run();
+      for (final Future<?> f : futures) {
+        f.get();
+      }
+      completed = true;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Layout has been interrupted", ex); //NOI18N
+    } catch (ExecutionException ex) {
+      final Throwable cause = ex.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new RuntimeException("Error during layout", cause); //NOI18N
+    } finally {
+      if (!completed) {
+        for (final Future<?> f : futures) {
+          f.cancel(true);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,427 @@
+/*
+ * Copyright 2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.swing.panel.utils;
+
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.management.ObjectName;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Registry of performance counters and histograms of the editor stack. It is
+ * disabled by default and all methods do nothing but check of a volatile flag
+ * in the mode. Collected values are kept only in memory, they can be read
+ * through JMX, shown as overlay on the mind map panel or saved into a local
+ * file for bug reports.
+ * <p>
+ * Time measurement pattern:
+ * <pre>
+ * final long start = PerformanceMetrics.start();
+ * ... work ...
+ * PerformanceMetrics.stop(PerformanceMetrics.PAINT, start);
+ * </pre>
+ *
+ * @since 1.4.5
+ */
+public final class PerformanceMetrics {
+
+  /**
+   * System property to enable metrics on start.
+   */
+  public static final String PROPERTY_ENABLED = "mindmap.metrics"; //NOI18N
+  /**
+   * System property to enable overlay with metrics on mind map panels.
+   */
+  public static final String PROPERTY_OVERLAY = "mindmap.metrics.overlay"; //NOI18N
+
+  public static final String JMX_NAME = "com.igormaznitsa.mindmap:type=PerformanceMetrics"; //NOI18N
+
+  public static final String PARSE = "map.parse"; //NOI18N
+  public static final String SAVE = "map.save"; //NOI18N
+  /**
+   * Number of topics in map set to panel, not parsed children of collapsed
+   * topics are counted too.
+   */
+  public static final String MAP_SIZE = "map.topics"; //NOI18N
+  public static final String CALCULATE_ELEMENT_SIZES = "panel.calculateElementSizes"; //NOI18N
+  public static final String LAYOUT_MODEL_ELEMENTS = "panel.layoutModelElements"; //NOI18N
+  public static final String PAINT = "panel.paintComponent"; //NOI18N
+  public static final String EXPORT_PREFIX = "export."; //NOI18N
+
+  public static final String COUNTER_EXPORT_ERRORS = "export.errors"; //NOI18N
+  public static final String COUNTER_LAYOUT_PARALLEL = "layout.parallel"; //NOI18N
+  public static final String COUNTER_LAYOUT_SEQUENTIAL = "layout.sequential"; //NOI18N
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PerformanceMetrics.class);
+
+  private static final ConcurrentMap<String, AtomicLong> COUNTERS = new ConcurrentHashMap<String, AtomicLong>();
+  private static final ConcurrentMap<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<String, Histogram>();
+
+  private static volatile boolean enabled;
+  private static volatile boolean overlay;
+  private static boolean jmxRegistered;
+
+  static {
+    overlay = Boolean.getBoolean(PROPERTY_OVERLAY);
+    setEnabled(Boolean.getBoolean(PROPERTY_ENABLED) || overlay);
+  }
+
+  /**
+   * Histogram of long values, time values are kept in nanoseconds. Percentiles
+   * are approximated by power of two buckets.
+   */
+  public static final class Histogram {
+
+    private final String name;
+    private final long[] buckets = new long[64];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+    private long last;
+
+    private Histogram(@Nonnull final String name) {
+      this.name = name;
+    }
+
+    @Nonnull
+    public String getName() {
+      return this.name;
+    }
+
+    private synchronized void record(final long value) {
+      final long normalized = Math.max(0L, value);
+      this.count++;
+      this.sum += normalized;
+      this.min = Math.min(this.min, normalized);
+      this.max = Math.max(this.max, normalized);
+      this.last = normalized;
+      this.buckets[63 - Long.numberOfLeadingZeros(normalized | 1L)]++;
+    }
+
+    public synchronized long getCount() {
+      return this.count;
+    }
+
+    public synchronized long getLast() {
+      return this.last;
+    }
+
+    public synchronized long getMin() {
+      return this.count == 0L ? 0L : this.min;
+    }
+
+    public synchronized long getMax() {
+      return this.count == 0L ? 0L : this.max;
+    }
+
+    public synchronized long getMean() {
+      return this.count == 0L ? 0L : this.sum / this.count;
+    }
+
+    /**
+     * Get approximated percentile.
+     *
+     * @param percent percent in 0..100
+     * @return upper bound of bucket which contains the percentile, but not
+     * more than max value
+     */
+    public synchronized long getPercentile(final double percent) {
+      long result = 0L;
+      if (this.count > 0L) {
+        final long threshold = Math.max(1L, (long) Math.ceil(this.count * Math.min(100.0d, Math.max(0.0d, percent)) / 100.0d));
+        long accumulated = 0L;
+        for (int i = 0; i < this.buckets.length; i++) {
+          accumulated += this.buckets[i];
+          if (accumulated >= threshold) {
+            result = i >= 62 ? Long.MAX_VALUE : (1L << (i + 1)) - 1L;
+            break;
+          }
+        }
+        result = Math.min(result, this.max);
+      }
+      return result;
+    }
+  }
+
+  /**
+   * JMX interface of metrics.
+   */
+  public interface PerformanceMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean flag);
+
+    boolean isOverlay();
+
+    void setOverlay(boolean flag);
+
+    @Nonnull
+    String getReport();
+
+    void reset();
+  }
+
+  private static final class JmxBean implements PerformanceMetricsMXBean {
+
+    @Override
+    public boolean isEnabled() {
+      return PerformanceMetrics.isEnabled();
+    }
+
+    @Override
+    public void setEnabled(final boolean flag) {
+      PerformanceMetrics.setEnabled(flag);
+    }
+
+    @Override
+    public boolean isOverlay() {
+      return PerformanceMetrics.isOverlay();
+    }
+
+    @Override
+    public void setOverlay(final boolean flag) {
+      PerformanceMetrics.setOverlay(flag);
+    }
+
+    @Override
+    @Nonnull
+    public String getReport() {
+      return PerformanceMetrics.makeReport();
+    }
+
+    @Override
+    public void reset() {
+      PerformanceMetrics.reset();
+    }
+  }
+
+  private PerformanceMetrics() {
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Enable or disable collection of metrics. Metrics bean is registered in
+   * platform JMX server when metrics are enabled first time.
+   *
+   * @param flag true to enable collection
+   */
+  public static void setEnabled(final boolean flag) {
+    enabled = flag;
+    if (flag) {
+      registerJmx();
+    }
+  }
+
+  public static boolean isOverlay() {
+    return overlay && enabled;
+  }
+
+  public static void setOverlay(final boolean flag) {
+    overlay = flag;
+  }
+
+  private static synchronized void registerJmx() {
+    if (!jmxRegistered) {
+      jmxRegistered = true;
+      try {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new JmxBean(), new ObjectName(JMX_NAME));
+      } catch (Exception ex) {
+        LOGGER.warn("Can't register metrics in JMX : " + ex.getMessage()); //NOI18N
+      }
+    }
+  }
+
+  /**
+   * Get start time of measurement.
+   *
+   * @return current nano time if metrics enabled, 0 otherwise
+   */
+  public static long start() {
+    return enabled ? System.nanoTime() : 0L;
+  }
+
+  /**
+   * Record time spent since start of measurement.
+   *
+   * @param histogram name of histogram
+   * @param startTime value returned by {@link #start()}, if 0 then nothing
+   * recorded
+   */
+  public static void stop(@Nonnull final String histogram, final long startTime) {
+    if (startTime != 0L) {
+      findOrMakeHistogram(histogram).record(System.nanoTime() - startTime);
+    }
+  }
+
+  /**
+   * Record value into histogram.
+   *
+   * @param histogram name of histogram
+   * @param value value to be recorded
+   */
+  public static void record(@Nonnull final String histogram, final long value) {
+    if (enabled) {
+      findOrMakeHistogram(histogram).record(value);
+    }
+  }
+
+  public static void increment(@Nonnull final String counter) {
+    if (enabled) {
+      AtomicLong value = COUNTERS.get(counter);
+      if (value == null) {
+        final AtomicLong newValue = new AtomicLong();
+        value = COUNTERS.putIfAbsent(counter, newValue);
+        if (value == null) {
+          value = newValue;
+        }
+      }
+      value.incrementAndGet();
+    }
+  }
+
+  public static long getCounter(@Nonnull final String counter) {
+    final AtomicLong value = COUNTERS.get(counter);
+    return value == null ? 0L : value.get();
+  }
+
+  @Nullable
+  public static Histogram findHistogram(@Nonnull final String name) {
+    return HISTOGRAMS.get(name);
+  }
+
+  @Nonnull
+  private static Histogram findOrMakeHistogram(@Nonnull final String name) {
+    Histogram result = HISTOGRAMS.get(name);
+    if (result == null) {
+      final Histogram newHistogram = new Histogram(name);
+      result = HISTOGRAMS.putIfAbsent(name, newHistogram);
+      if (result == null) {
+        result = newHistogram;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Remove all collected values.
+   */
+  public static void reset() {
+    COUNTERS.clear();
+    HISTOGRAMS.clear();
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  private static List<String> sortedKeys(@Nonnull final Map<String, ?> map) {
+    final List<String> result = new ArrayList<String>(map.keySet());
+    Collections.sort(result);
+    return result;
+  }
+
+  private static boolean isTimeHistogram(@Nonnull final String name) {
+    return !MAP_SIZE.equals(name);
+  }
+
+  @Nonnull
+  private static String formatValue(@Nonnull final String histogram, final long value) {
+    return isTimeHistogram(histogram) ? String.format(Locale.US, "%.3fms", value / 1000000.0d) : Long.toString(value); //NOI18N
+  }
+
+  /**
+   * Make short text for overlay, one line per histogram.
+   *
+   * @return list of lines
+   */
+  @Nonnull
+  @MustNotContainNull
+  public static List<String> makeOverlayLines() {
+    final List<String> result = new ArrayList<String>();
+    for (final String name : sortedKeys(HISTOGRAMS)) {
+      final Histogram h = HISTOGRAMS.get(name);
+      if (h != null) {
+        result.add(name + " last=" + formatValue(name, h.getLast()) + " p95=" + formatValue(name, h.getPercentile(95.0d)) + " n=" + h.getCount()); //NOI18N
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Make text report of all collected values.
+   *
+   * @return report text
+   */
+  @Nonnull
+  public static String makeReport() {
+    final StringBuilder result = new StringBuilder();
+    final String nextLine = System.getProperty("line.separator", "\n"); //NOI18N
+
+    result.append("Mind map performance metrics, ").append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss Z").format(new Date())).append(nextLine); //NOI18N
+    result.append("java.version=").append(System.getProperty("java.version")).append(", os.name=").append(System.getProperty("os.name")).append(nextLine).append(nextLine); //NOI18N
+
+    result.append("[counters]").append(nextLine); //NOI18N
+    for (final String name : sortedKeys(COUNTERS)) {
+      result.append(name).append(" = ").append(getCounter(name)).append(nextLine); //NOI18N
+    }
+
+    result.append(nextLine).append("[histograms]").append(nextLine); //NOI18N
+    for (final String name : sortedKeys(HISTOGRAMS)) {
+      final Histogram h = HISTOGRAMS.get(name);
+      if (h != null) {
+        result.append(name)
+                .append(" : count=").append(h.getCount()) //NOI18N
+                .append(", min=").append(formatValue(name, h.getMin())) //NOI18N
+                .append(", mean=").append(formatValue(name, h.getMean())) //NOI18N
+                .append(", p50=").append(formatValue(name, h.getPercentile(50.0d))) //NOI18N
+                .append(", p95=").append(formatValue(name, h.getPercentile(95.0d))) //NOI18N
+                .append(", p99=").append(formatValue(name, h.getPercentile(99.0d))) //NOI18N
+                .append(", max=").append(formatValue(name, h.getMax())) //NOI18N
+                .append(nextLine);
+      }
+    }
+    return result.toString();
+  }
+
+  /**
+   * Save report into local file. Nothing is sent outside.
+   *
+   * @param file target file
+   * @throws IOException it will be thrown if report can't be written
+   */
+  public static void writeReport(@Nonnull final File file) throws IOException {
+    FileUtils.writeStringToFile(file, makeReport(), "UTF-8"); //NOI18N
+  }
+}
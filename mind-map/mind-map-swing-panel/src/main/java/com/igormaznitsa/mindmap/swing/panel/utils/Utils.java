@@ -60,6 +60,8 @@ import java.awt.image.BufferedImage;
 import java.awt.image.RenderedImage;
 import java.io.*;
 import java.lang.reflect.InvocationTargetException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.List;
 import java.util.regex.Pattern;
@@ -321,6 +323,55 @@ public final class Utils {
     return result;
   }
   
+  /**
+   * Find folder to keep data of application for the current user. Unlike the
+   * system temp folder, it is not shared with other users, so that its content
+   * can't be replaced by them.
+   *
+   * @param appName name of application sub-folder, must not be null
+   * @return the folder, it may be not created yet
+   * @since 1.4.5
+   */
+  @Nonnull
+  public static File findUserDataFolder(@Nonnull final String appName) {
+    final File home = new File(System.getProperty("user.home")); //NOI18N
+    final File base;
+    if (SystemUtils.IS_OS_WINDOWS) {
+      final String localAppData = System.getenv("LOCALAPPDATA"); //NOI18N
+      base = localAppData == null || localAppData.isEmpty() ? new File(home, "AppData" + File.separatorChar + "Local") : new File(localAppData); //NOI18N
+    } else if (SystemUtils.IS_OS_MAC) {
+      base = new File(home, "Library" + File.separatorChar + "Application Support"); //NOI18N
+    } else {
+      final String dataHome = System.getenv("XDG_DATA_HOME"); //NOI18N
+      base = dataHome == null || dataHome.isEmpty() ? new File(home, ".local" + File.separatorChar + "share") : new File(dataHome); //NOI18N
+    }
+    return new File(base, appName);
+  }
+
+  /**
+   * Make name for text which can be used as file name. It is hex form of
+   * SHA-1 digest of the text, so that different texts get different names.
+   *
+   * @param text text to make name for, must not be null
+   * @return name for the text, must not be null
+   * @since 1.4.5
+   */
+  @Nonnull
+  public static String makeDigestName(@Nonnull final String text) {
+    try {
+      final byte[] digest = MessageDigest.getInstance("SHA-1").digest(text.getBytes("UTF-8")); //NOI18N
+      final StringBuilder result = new StringBuilder(digest.length * 2);
+      for (final byte b : digest) {
+        result.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return result.toString();
+    } catch (NoSuchAlgorithmException ex) {
+      throw new Error("SHA-1 is not supported", ex); //NOI18N
+    } catch (UnsupportedEncodingException ex) {
+      throw new Error("UTF-8 is not supported", ex); //NOI18N
+    }
+  }
+
   /**
    * Rescale image and encode into Base64.
    *
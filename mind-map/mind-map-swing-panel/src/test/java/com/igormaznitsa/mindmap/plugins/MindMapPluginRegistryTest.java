@@ -19,6 +19,17 @@ import org.junit.Test;
 import static org.junit.Assert.*;
 import java.util.List;
 import com.igormaznitsa.mindmap.plugins.api.AbstractExporter;
+import com.igormaznitsa.mindmap.plugins.api.AbstractImporter;
+import com.igormaznitsa.mindmap.plugins.api.VisualAttributePlugin;
+import com.igormaznitsa.mindmap.plugins.attributes.images.ImageVisualAttributePlugin;
+import com.igormaznitsa.mindmap.plugins.exporters.MDExporter;
+import com.igormaznitsa.mindmap.plugins.api.MindMapPlugin;
+import com.igormaznitsa.mindmap.plugins.importers.XMind2MindMapImporter;
+import com.igormaznitsa.mindmap.plugins.misc.AboutPlugin;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class MindMapPluginRegistryTest {
   
@@ -37,5 +48,65 @@ public class MindMapPluginRegistryTest {
       // ignore
     }
   }
-  
+
+  @Test
+  public void testFindForMnemonic() {
+    final MindMapPluginRegistry registry = MindMapPluginRegistry.getInstance();
+    assertTrue(registry.findExporterForMnemonic("markdown") instanceof MDExporter);
+    assertTrue(registry.findImporterForMnemonic("xmind") instanceof XMind2MindMapImporter);
+    assertNull(registry.findExporterForMnemonic("xmind"));
+    assertNull(registry.findImporterForMnemonic("unknown"));
+  }
+
+  @Test
+  public void testSnapshotUpdatedForUnregister() {
+    final MindMapPluginRegistry registry = MindMapPluginRegistry.getInstance();
+    final List<VisualAttributePlugin> before = registry.findFor(VisualAttributePlugin.class);
+    final ImageVisualAttributePlugin imagePlugin = registry.findFor(ImageVisualAttributePlugin.class).get(0);
+    final int size = registry.size();
+
+    registry.unregisterPlugin(imagePlugin);
+    try {
+      assertEquals(size - 1, registry.size());
+      assertTrue(registry.findFor(ImageVisualAttributePlugin.class).isEmpty());
+      assertEquals(before.size() - 1, registry.findFor(VisualAttributePlugin.class).size());
+      assertTrue(before.contains(imagePlugin));
+    } finally {
+      registry.registerPlugin(imagePlugin);
+    }
+    assertEquals(size, registry.size());
+    assertEquals(before, registry.findFor(VisualAttributePlugin.class));
+    assertTrue(registry.findFor(AbstractImporter.class).size() > 0);
+  }
+
+  @Test
+  public void testDeferredPlugin() {
+    final MindMapPluginRegistry registry = MindMapPluginRegistry.getInstance();
+    final AtomicInteger loadCounter = new AtomicInteger();
+    final AboutPlugin deferredInstance = new AboutPlugin();
+
+    registry.registerDeferredPlugin(new MindMapPluginRegistry.DeferredPlugin() {
+      @Override
+      public Set<String> getExtensionPoints() {
+        return new HashSet<String>(Arrays.asList(AboutPlugin.class.getName(), MindMapPlugin.class.getName()));
+      }
+
+      @Override
+      public MindMapPlugin load() throws Exception {
+        loadCounter.incrementAndGet();
+        return deferredInstance;
+      }
+    });
+
+    try {
+      assertNull(registry.findExporterForMnemonic("unknown"));
+      assertEquals(0, loadCounter.get());
+      assertTrue(registry.findFor(AboutPlugin.class).contains(deferredInstance));
+      assertEquals(1, loadCounter.get());
+      assertTrue(registry.findFor(AboutPlugin.class).contains(deferredInstance));
+      assertEquals(1, loadCounter.get());
+    } finally {
+      registry.unregisterPlugin(deferredInstance);
+    }
+  }
 }
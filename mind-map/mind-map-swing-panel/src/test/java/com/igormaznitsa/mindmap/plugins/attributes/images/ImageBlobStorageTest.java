@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.plugins.attributes.images;
+
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.MindMapController;
+import com.igormaznitsa.mindmap.model.Topic;
+import com.igormaznitsa.mindmap.swing.panel.MMDTopicsTransferable;
+import com.igormaznitsa.mindmap.swing.panel.NBMindMapTopicsContainer;
+import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
+import java.io.File;
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class ImageBlobStorageTest {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private static final class StorageController implements MindMapController, ImageBlobStorage.Provider {
+
+    private final ImageBlobStorage storage;
+
+    private StorageController(final ImageBlobStorage storage) {
+      this.storage = storage;
+    }
+
+    @Override
+    public boolean canBeDeletedSilently(@Nonnull final MindMap map, @Nonnull final Topic topic) {
+      return true;
+    }
+
+    @Override
+    public ImageBlobStorage getImageBlobStorage(@Nonnull final MindMap map) {
+      return this.storage;
+    }
+  }
+
+  @Test
+  public void testStoreAndLoad() throws Exception {
+    final ImageBlobStorage storage = new ImageBlobStorage(tempFolder.newFolder("images"));
+    final byte[] data = new byte[]{1, 2, 3, 4, 5};
+
+    final String ref = storage.store(data);
+    assertTrue(ImageBlobStorage.isReference(ref));
+    assertEquals(ref, storage.store(data.clone()));
+    assertEquals(1, storage.getFolder().listFiles().length);
+    assertTrue(Arrays.equals(data, storage.load(ref)));
+
+    assertNull(storage.load(ImageBlobStorage.REF_PREFIX + "../some"));
+    assertNull(storage.load(ImageBlobStorage.REF_PREFIX + "0000"));
+    assertNull(storage.load("AQIDBAU="));
+  }
+
+  @Test
+  public void testExternalizeInternalize() throws Exception {
+    final File folder = tempFolder.newFolder("images");
+    final ImageBlobStorage storage = new ImageBlobStorage(folder);
+    final MindMap map = new MindMap(new StorageController(storage), true);
+    final String image = Utils.base64encode(new byte[]{10, 20, 30});
+    map.getRoot().setAttribute(ImageVisualAttributePlugin.ATTR_KEY, image);
+    final Topic child = new Topic(map, map.getRoot(), "child");
+    child.setAttribute(ImageVisualAttributePlugin.ATTR_KEY, image);
+
+    assertNull(ImageBlobStorage.findForNewImages(map));
+    assertEquals(2, storage.externalize(map));
+    assertSame(storage, ImageBlobStorage.findForNewImages(map));
+    assertEquals(1, folder.listFiles().length);
+    assertTrue(ImageBlobStorage.isReference(child.getAttribute(ImageVisualAttributePlugin.ATTR_KEY)));
+    assertEquals(image, ImageBlobStorage.loadImageAsBase64(child));
+    assertEquals(0, storage.externalize(map));
+
+    assertEquals(2, storage.internalize(map));
+    assertNull(ImageBlobStorage.findForNewImages(map));
+    assertEquals(image, child.getAttribute(ImageVisualAttributePlugin.ATTR_KEY));
+    assertEquals(image, map.getRoot().getAttribute(ImageVisualAttributePlugin.ATTR_KEY));
+  }
+
+  @Test
+  public void testCopiedTopicsEmbedReferencedImages() throws Exception {
+    final ImageBlobStorage storage = new ImageBlobStorage(tempFolder.newFolder("images"));
+    final MindMap map = new MindMap(new StorageController(storage), true);
+    final String image = Utils.base64encode(new byte[]{10, 20, 30});
+    final Topic child = new Topic(map, map.getRoot(), "child");
+    new Topic(map, child, "grandchild").setAttribute(ImageVisualAttributePlugin.ATTR_KEY, image);
+    storage.externalize(map);
+    assertTrue(ImageBlobStorage.isReference(child.getChildren().get(0).getAttribute(ImageVisualAttributePlugin.ATTR_KEY)));
+
+    final NBMindMapTopicsContainer container = (NBMindMapTopicsContainer) new MMDTopicsTransferable(child).getTransferData(MMDTopicsTransferable.MMD_DATA_FLAVOR);
+    final Topic copy = container.getTopics()[0];
+    assertEquals(image, copy.getChildren().get(0).getAttribute(ImageVisualAttributePlugin.ATTR_KEY));
+    assertTrue(ImageBlobStorage.isReference(child.getChildren().get(0).getAttribute(ImageVisualAttributePlugin.ATTR_KEY)));
+
+    final Topic pasted = new Topic(map, copy, true);
+    assertEquals(1, storage.externalizeSubtree(pasted));
+    assertEquals(child.getChildren().get(0).getAttribute(ImageVisualAttributePlugin.ATTR_KEY), pasted.getChildren().get(0).getAttribute(ImageVisualAttributePlugin.ATTR_KEY));
+  }
+}
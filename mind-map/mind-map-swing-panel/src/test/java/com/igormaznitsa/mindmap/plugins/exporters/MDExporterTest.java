@@ -0,0 +1,51 @@
+/*
+ * Copyright 2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.plugins.exporters;
+
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.swing.panel.MindMapPanel;
+import com.igormaznitsa.mindmap.swing.panel.MindMapPanelConfig;
+import java.io.StringReader;
+import java.io.StringWriter;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class MDExporterTest extends AbstractStandardExporterTest<MDExporter> {
+
+  @Test
+  public void testExportIntoWriter_SameAsIntoStream() throws Exception {
+    final MindMap map = new MindMap(null, new StringReader("Mind Map generated by NB MindMap plugin\n---\n# Root\n## Child\n- NOTE\n<pre>Some note</pre>\n### Третий\n"));
+
+    final MindMapPanel panel = mock(MindMapPanel.class);
+    when(panel.getModel()).thenReturn(map);
+    when(panel.getConfiguration()).thenReturn(new MindMapPanelConfig());
+
+    final StringWriter writer = new StringWriter();
+    generateExporterInstance().doExport(panel, null, writer);
+
+    final String text = writer.toString();
+    assertTrue(text.contains("# Root"));
+    assertTrue(text.contains("Some note"));
+    assertTrue(text.contains("Третий"));
+    assertEquals(text, new String(export(map, null), "UTF-8"));
+  }
+
+  @Override
+  public MDExporter generateExporterInstance() {
+    return new MDExporter();
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.plugins.external;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class ExternalPluginsTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static Properties load(final File file) throws Exception {
+    final Properties result = new Properties();
+    final InputStream in = new FileInputStream(file);
+    try {
+      result.load(in);
+    } finally {
+      IOUtils.closeQuietly(in);
+    }
+    return result;
+  }
+
+  @Test
+  public void testMetadataCache() throws Exception {
+    final File pluginFolder = folder.newFolder("plugins");
+    final File plugin = new File(pluginFolder, "test.mmdp");
+    FileUtils.copyFile(new File("src/test/resources/com/igormaznitsa/mindmap/plugins/external/TestPlugin.jar"), plugin);
+    final File cache = new File(folder.getRoot(), "plugins.cache");
+
+    new ExternalPlugins(pluginFolder, cache).init();
+
+    final Properties saved = load(cache);
+    assertEquals("1", saved.getProperty("plugins"));
+    assertEquals(plugin.getAbsolutePath(), saved.getProperty("plugin.0.file"));
+    assertEquals("Some Test Plugin", saved.getProperty("plugin.0.title"));
+    assertEquals("1.2.0", saved.getProperty("plugin.0.api"));
+    assertEquals("com.igormaznitsa.testmmdplugin.TestPlugin", saved.getProperty("plugin.0.classes"));
+
+    // actual cache record must be used without reading of plugin file
+    saved.setProperty("plugin.0.title", "Cached title");
+    final OutputStream out = new FileOutputStream(cache);
+    try {
+      saved.store(out, null);
+    } finally {
+      IOUtils.closeQuietly(out);
+    }
+
+    new ExternalPlugins(pluginFolder, cache).init();
+    assertEquals("Cached title", load(cache).getProperty("plugin.0.title"));
+
+    // changed plugin file must be read again
+    assertTrue(plugin.setLastModified(plugin.lastModified() - 10000L));
+    new ExternalPlugins(pluginFolder, cache).init();
+    assertEquals("Some Test Plugin", load(cache).getProperty("plugin.0.title"));
+  }
+}
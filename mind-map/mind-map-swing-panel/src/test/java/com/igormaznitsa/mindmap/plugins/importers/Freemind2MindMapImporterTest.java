@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.plugins.importers;
+
+import com.igormaznitsa.mindmap.model.Extra;
+import com.igormaznitsa.mindmap.model.ExtraTopic;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.Topic;
+import com.igormaznitsa.mindmap.plugins.attributes.images.ImageVisualAttributePlugin;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import javax.imageio.ImageIO;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class Freemind2MindMapImporterTest {
+
+  private static final Freemind2MindMapImporter INSTANCE = new Freemind2MindMapImporter();
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testImport() throws Exception {
+    ImageIO.write(new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB), "png", new File(folder.getRoot(), "image.png"));
+
+    final File file = folder.newFile("test.mm");
+    FileUtils.writeStringToFile(file, "<map version=\"1.0.1\">\n"
+        + "<node ID=\"ID_1\" TEXT=\"Root\">\n"
+        + "<node ID=\"ID_2\" POSITION=\"left\" TEXT=\"First\">\n"
+        + "<arrowlink DESTINATION=\"ID_3\"/>\n"
+        + "<richcontent TYPE=\"NOTE\"><html><head></head><body><p>Some note</p><img src=\"image.png\"/></body></html></richcontent>\n"
+        + "</node>\n"
+        + "<node ID=\"ID_3\" TEXT=\"Second\">\n"
+        + "<node TEXT=\"Third\"/>\n"
+        + "</node>\n"
+        + "</node>\n"
+        + "</map>", "UTF-8");
+
+    final MindMap map = INSTANCE.importFromFile(file);
+    final Topic root = map.getRoot();
+    assertEquals("Root", root.getText());
+    assertEquals(2, root.getChildren().size());
+
+    final Topic first = root.getChildren().get(0);
+    final Topic second = root.getChildren().get(1);
+    assertEquals("First", first.getText());
+    assertEquals("Some note", first.getExtras().get(Extra.ExtraType.NOTE).getAsString());
+    assertNotNull(first.getAttribute(ImageVisualAttributePlugin.ATTR_KEY));
+    assertSame(second, map.findTopicForLink((ExtraTopic) first.getExtras().get(Extra.ExtraType.TOPIC)));
+    assertEquals("Third", second.getChildren().get(0).getText());
+  }
+
+  @Test
+  public void testImport_NotWellFormed() throws Exception {
+    final File file = folder.newFile("test.mm");
+    FileUtils.writeStringToFile(file, "<map version=\"1.0.1\">\n"
+        + "<node TEXT=\"Root\">\n"
+        + "<richcontent TYPE=\"NODE\"><html><body><p>Hello&nbsp;world<br></p></body></html></richcontent>\n"
+        + "<node TEXT=\"Child\"/>\n"
+        + "</node>\n"
+        + "</map>", "UTF-8");
+
+    final MindMap map = INSTANCE.importFromFile(file);
+    assertEquals("Hello world", map.getRoot().getText());
+    assertEquals(1, map.getRoot().getChildren().size());
+    assertEquals("Child", map.getRoot().getChildren().get(0).getText());
+  }
+}
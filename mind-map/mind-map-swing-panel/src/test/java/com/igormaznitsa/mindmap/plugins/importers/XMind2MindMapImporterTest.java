@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.plugins.importers;
+
+import com.igormaznitsa.mindmap.model.Extra;
+import com.igormaznitsa.mindmap.model.ExtraTopic;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.Topic;
+import com.igormaznitsa.mindmap.plugins.attributes.images.ImageVisualAttributePlugin;
+import com.igormaznitsa.mindmap.swing.panel.StandardTopicAttribute;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import javax.imageio.ImageIO;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class XMind2MindMapImporterTest {
+
+  private static final XMind2MindMapImporter INSTANCE = new XMind2MindMapImporter();
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testImport() throws Exception {
+    final File file = folder.newFile("test.xmind");
+    final ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(file));
+    try {
+      zip.putNextEntry(new ZipEntry("content.xml"));
+      zip.write(("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+          + "<xmap-content xmlns=\"urn:xmind:xmap:xmlns:content:2.0\" xmlns:xhtml=\"http://www.w3.org/1999/xhtml\" xmlns:xlink=\"http://www.w3.org/1999/xlink\">"
+          + "<sheet id=\"s1\"><topic id=\"t1\" style-id=\"st1\"><title>Root</title>"
+          + "<children><topics type=\"attached\">"
+          + "<topic id=\"t2\" xlink:href=\"xmind:#t3\"><title>First</title><notes><plain>Some note</plain><html><xhtml:p>Html note</xhtml:p></html></notes>"
+          + "<xhtml:img xhtml:src=\"xap:attachments/image.png\"/></topic>"
+          + "<topic id=\"t3\"><title>Second</title><children><topics type=\"attached\"><topic id=\"t4\"><title>Third</title></topic></topics></children></topic>"
+          + "</topics></children></topic><title>Sheet</title></sheet>"
+          + "<sheet id=\"s2\"><topic id=\"t5\"><title>Another</title></topic></sheet>"
+          + "</xmap-content>").getBytes("UTF-8"));
+      zip.closeEntry();
+
+      zip.putNextEntry(new ZipEntry("styles.xml"));
+      zip.write(("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+          + "<xmap-styles xmlns:fo=\"http://www.w3.org/1999/XSL/Format\" xmlns:svg=\"http://www.w3.org/2000/svg\"><styles>"
+          + "<style id=\"st1\" type=\"topic\"><topic-properties svg:fill=\"#FF0000\" fo:color=\"#00FF00\"/></style>"
+          + "</styles></xmap-styles>").getBytes("UTF-8"));
+      zip.closeEntry();
+
+      zip.putNextEntry(new ZipEntry("attachments/image.png"));
+      ImageIO.write(new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB), "png", zip);
+      zip.closeEntry();
+    } finally {
+      zip.close();
+    }
+
+    final MindMap map = INSTANCE.importFromFile(file);
+    final Topic root = map.getRoot();
+    assertEquals("Root", root.getText());
+    assertEquals("#FF0000", root.getAttribute(StandardTopicAttribute.ATTR_FILL_COLOR.getText()));
+    assertEquals("#00FF00", root.getAttribute(StandardTopicAttribute.ATTR_TEXT_COLOR.getText()));
+    assertEquals(2, root.getChildren().size());
+
+    final Topic first = root.getChildren().get(0);
+    final Topic second = root.getChildren().get(1);
+    assertEquals("First", first.getText());
+    assertEquals("Some note", first.getExtras().get(Extra.ExtraType.NOTE).getAsString());
+    assertNotNull(first.getAttribute(ImageVisualAttributePlugin.ATTR_KEY));
+    assertSame(second, map.findTopicForLink((ExtraTopic) first.getExtras().get(Extra.ExtraType.TOPIC)));
+    assertEquals(1, second.getChildren().size());
+    assertEquals("Third", second.getChildren().get(0).getText());
+  }
+}
@@ -15,6 +15,13 @@
  */
 package com.igormaznitsa.mindmap.swing.panel;
 
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.swing.panel.utils.RenderQuality;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.StringReader;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.swing.SwingUtilities;
 import static org.junit.Assert.*;
 import org.junit.Test;
 import static org.mockito.Mockito.*;
@@ -32,5 +39,46 @@ public class MindMapPanelTest {
     
     assertNotSame(config,panel.getConfiguration());
   }
-  
+
+  @Test
+  public void testRecordedTopicsProvidedOnlyForSameQuality() throws Exception {
+    final MindMapPanelConfig config = new MindMapPanelConfig();
+    config.setRenderQuality(RenderQuality.QUALITY);
+
+    final MindMapPanelController controller = mock(MindMapPanelController.class);
+    when(controller.provideConfigForMindMapPanel(any(MindMapPanel.class))).thenReturn(config);
+
+    final MindMap map = new MindMap(null, new StringReader("Mind Map generated by NB MindMap plugin\n> __version__=`1.1`\n---\n# Root\n## Child 1\n## Child 2\n"));
+    final AtomicReference<Throwable> error = new AtomicReference<>();
+
+    // panel revalidation is queued in Swing thread, so that the check is made there to not be interrupted by it
+    SwingUtilities.invokeAndWait(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          final MindMapPanel panel = new MindMapPanel(controller);
+          panel.setModel(map);
+          panel.setSize(400, 300);
+          assertNull(panel.findRecordedTopics(RenderQuality.QUALITY));
+
+          final Graphics2D g = new BufferedImage(400, 300, BufferedImage.TYPE_INT_ARGB).createGraphics();
+          try {
+            g.setClip(0, 0, 400, 300);
+            panel.paintComponent(g);
+          } finally {
+            g.dispose();
+          }
+
+          assertNotNull(panel.findRecordedTopics(RenderQuality.QUALITY));
+          assertNull(panel.findRecordedTopics(RenderQuality.SPEED));
+        } catch (Throwable ex) {
+          error.set(ex);
+        }
+      }
+    });
+
+    if (error.get() != null) {
+      throw new AssertionError(error.get());
+    }
+  }
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.swing.panel.ui.gfx;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class MMGraphics2DWrapperTest {
+
+  /**
+   * Draw the same sequence as a parent topic with children and selection:
+   * connectors to all children, then children boxes and selection frames.
+   */
+  private static void drawConnectorsAndBoxes(final MMGraphics gfx, final int number, final Color connectorColor) {
+    gfx.setStroke(2.0f, StrokeType.SOLID);
+    for (int i = 0; i < number; i++) {
+      final int y = 10 + i * 12;
+      gfx.drawCurve(20, 150, 120, y, connectorColor);
+      gfx.drawLine(120, y, 160, y, connectorColor);
+    }
+    for (int i = 0; i < number; i++) {
+      final int y = 10 + i * 12;
+      gfx.setStroke(1.0f, StrokeType.SOLID);
+      gfx.draw(new Rectangle2D.Double(160, y - 4, 20, 8), Color.BLUE, null);
+      gfx.drawRect(185, y - 4, 20, 8, null, Color.RED);
+      gfx.setStroke(1.0f, StrokeType.DASHES);
+      gfx.drawRect(184, y - 5, 22, 10, Color.GREEN, null);
+    }
+  }
+
+  @Test
+  public void testFindStroke_Cached() {
+    assertSame(MMGraphics2DWrapper.findStroke(2.5f, StrokeType.SOLID), MMGraphics2DWrapper.findStroke(2.5f, StrokeType.SOLID));
+    assertNotSame(MMGraphics2DWrapper.findStroke(2.5f, StrokeType.SOLID), MMGraphics2DWrapper.findStroke(2.5f, StrokeType.DOTS));
+    assertNotSame(MMGraphics2DWrapper.findStroke(2.5f, StrokeType.SOLID), MMGraphics2DWrapper.findStroke(3.5f, StrokeType.SOLID));
+  }
+
+  @Test
+  public void testSetStroke_UsesCachedStroke() {
+    final BufferedImage image = new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB);
+    final Graphics2D g = image.createGraphics();
+    try {
+      final MMGraphics2DWrapper gfx = new MMGraphics2DWrapper(g);
+      gfx.setStroke(4.0f, StrokeType.DASHES);
+      assertSame(MMGraphics2DWrapper.findStroke(4.0f, StrokeType.DASHES), g.getStroke());
+      final MMGraphics2DWrapper copy = (MMGraphics2DWrapper) gfx.copy();
+      try {
+        assertSame(g.getStroke(), copy.getWrappedGraphics().getStroke());
+      } finally {
+        copy.dispose();
+      }
+    } finally {
+      g.dispose();
+    }
+  }
+
+  private static void assertSamePixels(final boolean antialiasing, final Color connectorColor) {
+    final BufferedImage direct = new BufferedImage(220, 320, BufferedImage.TYPE_INT_ARGB);
+    final BufferedImage batched = new BufferedImage(220, 320, BufferedImage.TYPE_INT_ARGB);
+    final Object aaHint = antialiasing ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF;
+
+    final Graphics2D directG = direct.createGraphics();
+    directG.setRenderingHint(RenderingHints.KEY_ANTIALIASING, aaHint);
+    final MMGraphics2DWrapper directGfx = new MMGraphics2DWrapper(directG);
+    try {
+      drawConnectorsAndBoxes(directGfx, 24, connectorColor);
+    } finally {
+      directGfx.dispose();
+    }
+
+    final Graphics2D batchedG = batched.createGraphics();
+    batchedG.setRenderingHint(RenderingHints.KEY_ANTIALIASING, aaHint);
+    final MMGraphics2DWrapper batchedGfx = new MMGraphics2DWrapper(batchedG).setBatching(true);
+    try {
+      drawConnectorsAndBoxes(batchedGfx, 24, connectorColor);
+    } finally {
+      batchedGfx.dispose();
+    }
+
+    for (int y = 0; y < direct.getHeight(); y++) {
+      for (int x = 0; x < direct.getWidth(); x++) {
+        assertEquals("Pixel " + x + ',' + y, direct.getRGB(x, y), batched.getRGB(x, y));
+      }
+    }
+  }
+
+  @Test
+  public void testBatching_SamePixels() {
+    assertSamePixels(false, Color.BLACK);
+  }
+
+  @Test
+  public void testBatching_SamePixelsForTranslucentAntialiasedOutlines() {
+    assertSamePixels(true, new Color(0, 0, 0, 0x80));
+    assertSamePixels(false, new Color(0, 0, 0, 0x80));
+    assertSamePixels(true, Color.BLACK);
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.swing.panel.ui.gfx;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class MMGraphicsRecorderTest {
+
+  private static DisplayList recordTwoRects(final MMGraphics measurer) {
+    final MMGraphicsRecorder recorder = new MMGraphicsRecorder(measurer);
+    recorder.setStroke(1.0f, StrokeType.SOLID);
+    recorder.drawRect(10, 10, 20, 20, Color.BLACK, Color.RED);
+    final MMGraphics copy = recorder.copy();
+    try {
+      copy.translate(100, 100);
+      copy.drawRect(0, 0, 20, 20, null, Color.BLUE);
+    } finally {
+      copy.dispose();
+    }
+    return recorder.finish();
+  }
+
+  @Test
+  public void testBounds() {
+    final BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+    final Graphics2D g = image.createGraphics();
+    try {
+      final Rectangle2D bounds = recordTwoRects(new MMGraphics2DWrapper(g)).getBounds();
+      assertTrue(bounds.getMinX() < 10.0d && bounds.getMinX() > 5.0d);
+      assertTrue(bounds.getMaxX() > 120.0d && bounds.getMaxX() < 125.0d);
+      assertTrue(bounds.getMaxY() > 120.0d && bounds.getMaxY() < 125.0d);
+    } finally {
+      g.dispose();
+    }
+  }
+
+  @Test
+  public void testReplay_ClipCulling() {
+    final BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+    final Graphics2D g = image.createGraphics();
+    try {
+      final DisplayList list = recordTwoRects(new MMGraphics2DWrapper(g));
+      final MMGraphicsRecorder target = new MMGraphicsRecorder(new MMGraphics2DWrapper(g));
+
+      assertEquals(2, list.replay(target, null));
+      assertEquals(0, list.replay(target, new Rectangle2D.Double(300, 300, 50, 50)));
+      assertEquals(1, list.replay(target, new Rectangle2D.Double(0, 0, 50, 50)));
+      assertEquals(1, list.replay(target, new Rectangle2D.Double(105, 105, 5, 5)));
+
+      final Rectangle2D replayedBounds = target.finish().getBounds();
+      assertEquals(list.getBounds(), replayedBounds);
+    } finally {
+      g.dispose();
+    }
+  }
+
+  @Test
+  public void testReplay_SamePixelsAsDirectDrawing() {
+    final BufferedImage direct = new BufferedImage(130, 130, BufferedImage.TYPE_INT_ARGB);
+    final BufferedImage replayed = new BufferedImage(130, 130, BufferedImage.TYPE_INT_ARGB);
+
+    final Graphics2D g1 = direct.createGraphics();
+    final Graphics2D g2 = replayed.createGraphics();
+    try {
+      final MMGraphics directGfx = new MMGraphics2DWrapper(g1);
+      directGfx.setStroke(1.0f, StrokeType.SOLID);
+      directGfx.drawRect(10, 10, 20, 20, Color.BLACK, Color.RED);
+      directGfx.translate(100, 100);
+      directGfx.drawRect(0, 0, 20, 20, null, Color.BLUE);
+
+      recordTwoRects(new MMGraphics2DWrapper(g2)).replay(new MMGraphics2DWrapper(g2));
+    } finally {
+      g1.dispose();
+      g2.dispose();
+    }
+
+    for (int y = 0; y < direct.getHeight(); y++) {
+      for (int x = 0; x < direct.getWidth(); x++) {
+        assertEquals(direct.getRGB(x, y), replayed.getRGB(x, y));
+      }
+    }
+  }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.swing.panel.utils;
+
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.Topic;
+import com.igormaznitsa.mindmap.plugins.MindMapPluginRegistry;
+import com.igormaznitsa.mindmap.plugins.api.MindMapPlugin;
+import com.igormaznitsa.mindmap.plugins.api.Renderable;
+import com.igormaznitsa.mindmap.plugins.api.VisualAttributePlugin;
+import com.igormaznitsa.mindmap.swing.panel.MindMapPanel;
+import com.igormaznitsa.mindmap.swing.panel.MindMapPanelConfig;
+import com.igormaznitsa.mindmap.swing.panel.ui.AbstractElement;
+import com.igormaznitsa.mindmap.swing.panel.ui.gfx.MMGraphics2DWrapper;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LayoutExecutorTest {
+
+  @After
+  public void after() {
+    LayoutExecutor.setParallel(true);
+    PerformanceMetrics.setEnabled(false);
+    PerformanceMetrics.reset();
+  }
+
+  private static final String TEST_ATTRIBUTE = "layoutTestAttr";
+
+  private static final class ConcurrencyCheckingPlugin implements VisualAttributePlugin {
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger calls = new AtomicInteger();
+    private volatile boolean concurrentCall;
+
+    @Override
+    public Renderable getScaledImage(final MindMapPanelConfig config, final Topic topic) {
+      if (this.active.incrementAndGet() > 1) {
+        this.concurrentCall = true;
+      }
+      try {
+        this.calls.incrementAndGet();
+        Thread.yield();
+        return null;
+      } finally {
+        this.active.decrementAndGet();
+      }
+    }
+
+    @Override
+    public boolean onClick(final MindMapPanel panel, final Topic topic, final int clickCount) {
+      return false;
+    }
+
+    @Override
+    public String getToolTip(final MindMapPanel panel, final Topic topic) {
+      return null;
+    }
+
+    @Override
+    public boolean isClickable(final MindMapPanel panel, final Topic topic) {
+      return false;
+    }
+
+    @Override
+    public String getAttributeKey() {
+      return TEST_ATTRIBUTE;
+    }
+
+    @Override
+    public int getOrder() {
+      return CUSTOM_PLUGIN_START;
+    }
+
+    @Override
+    public int compareTo(final MindMapPlugin that) {
+      return Integer.compare(this.getOrder(), that.getOrder());
+    }
+  }
+
+  private static MindMap makeWideMap(final String branchAttributes, final String topicAttributes, final boolean lazyCollapsed) throws Exception {
+    final StringBuilder buffer = new StringBuilder("Mind Map generated by NB MindMap plugin\n> __version__=`1.1`\n---\n# Root\n");
+    for (int i = 0; i < 8; i++) {
+      buffer.append("## Branch ").append(i).append('\n').append(branchAttributes);
+      for (int j = 0; j < 30; j++) {
+        buffer.append("### Topic ").append(i).append('_').append(j).append('\n').append(topicAttributes);
+      }
+    }
+    return new MindMap(null, new StringReader(buffer.toString()), lazyCollapsed);
+  }
+
+  private static MindMap makeWideMap() throws Exception {
+    return makeWideMap("", "", false);
+  }
+
+  private static List<Rectangle2D> layout(final MindMap map, final boolean parallel) {
+    LayoutExecutor.setParallel(parallel);
+    final MindMapPanelConfig cfg = new MindMapPanelConfig();
+    final BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+    final Graphics2D g = image.createGraphics();
+    try {
+      g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+      assertTrue(MindMapPanel.calculateElementSizes(new MMGraphics2DWrapper(g), map, cfg));
+      assertNotNull(MindMapPanel.layoutModelElements(map, cfg));
+    } finally {
+      g.dispose();
+    }
+    final List<Rectangle2D> result = new ArrayList<Rectangle2D>();
+    final Iterator<Topic> iterator = map.iterator();
+    while (iterator.hasNext()) {
+      result.add(((AbstractElement) iterator.next().getPayload()).getBounds().getBounds2D());
+    }
+    return result;
+  }
+
+  @Test
+  public void testLayout_ParallelSameAsSequential() throws Exception {
+    final MindMap map = makeWideMap();
+    final List<Rectangle2D> sequential = layout(map, false);
+    final List<Rectangle2D> parallel = layout(map, true);
+    assertEquals(8 * 31 + 1, sequential.size());
+    assertEquals(sequential, parallel);
+  }
+
+  @Test
+  public void testLayout_PluginImagesSizedSequentially() throws Exception {
+    final ConcurrencyCheckingPlugin plugin = new ConcurrencyCheckingPlugin();
+    MindMapPluginRegistry.getInstance().registerPlugin(plugin);
+    try {
+      layout(makeWideMap("", "> " + TEST_ATTRIBUTE + "=`true`\n", false), true);
+    } finally {
+      MindMapPluginRegistry.getInstance().unregisterPlugin(plugin);
+    }
+    assertTrue(plugin.calls.get() >= 8 * 30);
+    assertFalse(plugin.concurrentCall);
+  }
+
+  @Test
+  public void testLayout_PendingCollapsedTopicsNotCounted() throws Exception {
+    PerformanceMetrics.setEnabled(true);
+    final MindMap map = makeWideMap("> collapsed=`true`\n", "", true);
+    final MindMapPanelConfig cfg = new MindMapPanelConfig();
+    final Graphics2D g = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB).createGraphics();
+    try {
+      assertTrue(MindMapPanel.calculateElementSizes(new MMGraphics2DWrapper(g), map, cfg));
+      assertNotNull(MindMapPanel.layoutModelElements(map, cfg));
+    } finally {
+      g.dispose();
+    }
+    for (final Topic t : map.getRoot().getChildren()) {
+      assertTrue(t.hasPendingChildren());
+    }
+    assertEquals(0L, PerformanceMetrics.getCounter(PerformanceMetrics.COUNTER_LAYOUT_PARALLEL));
+  }
+
+  @Test
+  public void testExecute_AllJobsCompleted() {
+    final AtomicInteger counter = new AtomicInteger();
+    final List<Runnable> jobs = new ArrayList<Runnable>();
+    for (int i = 0; i < 16; i++) {
+      jobs.add(new Runnable() {
+        @Override
+        public void run() {
+          counter.incrementAndGet();
+        }
+      });
+    }
+    LayoutExecutor.execute(jobs, LayoutExecutor.MIN_TOPICS_FOR_PARALLEL);
+    assertEquals(16, counter.get());
+  }
+
+  @Test
+  public void testExecute_CountedInMetrics() {
+    PerformanceMetrics.setEnabled(true);
+    final List<Runnable> jobs = new ArrayList<Runnable>();
+    for (int i = 0; i < 4; i++) {
+      jobs.add(new Runnable() {
+        @Override
+        public void run() {
+        }
+      });
+    }
+    LayoutExecutor.execute(jobs, 1);
+    assertEquals(1L, PerformanceMetrics.getCounter(PerformanceMetrics.COUNTER_LAYOUT_SEQUENTIAL));
+    LayoutExecutor.setParallel(false);
+    LayoutExecutor.execute(jobs, LayoutExecutor.MIN_TOPICS_FOR_PARALLEL);
+    assertEquals(2L, PerformanceMetrics.getCounter(PerformanceMetrics.COUNTER_LAYOUT_SEQUENTIAL));
+    assertEquals(0L, PerformanceMetrics.getCounter(PerformanceMetrics.COUNTER_LAYOUT_PARALLEL));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testExecute_ExceptionRethrown() {
+    final List<Runnable> jobs = new ArrayList<Runnable>();
+    for (int i = 0; i < 4; i++) {
+      final int index = i;
+      jobs.add(new Runnable() {
+        @Override
+        public void run() {
+          if (index == 3) {
+            throw new IllegalStateException();
+          }
+        }
+      });
+    }
+    LayoutExecutor.execute(jobs, LayoutExecutor.MIN_TOPICS_FOR_PARALLEL);
+  }
+}
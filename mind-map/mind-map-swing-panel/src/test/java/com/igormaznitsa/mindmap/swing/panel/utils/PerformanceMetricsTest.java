@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.mindmap.swing.panel.utils;
+
+import java.lang.management.ManagementFactory;
+import javax.management.ObjectName;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class PerformanceMetricsTest {
+
+  @After
+  public void after() {
+    PerformanceMetrics.setEnabled(false);
+    PerformanceMetrics.reset();
+  }
+
+  @Test
+  public void testDisabled_NothingRecorded() {
+    PerformanceMetrics.setEnabled(false);
+    final long start = PerformanceMetrics.start();
+    assertEquals(0L, start);
+    PerformanceMetrics.stop(PerformanceMetrics.PAINT, start);
+    PerformanceMetrics.record(PerformanceMetrics.MAP_SIZE, 10L);
+    PerformanceMetrics.increment("some.counter");
+    assertNull(PerformanceMetrics.findHistogram(PerformanceMetrics.PAINT));
+    assertNull(PerformanceMetrics.findHistogram(PerformanceMetrics.MAP_SIZE));
+    assertEquals(0L, PerformanceMetrics.getCounter("some.counter"));
+  }
+
+  @Test
+  public void testEnabled_ValuesRecorded() throws Exception {
+    PerformanceMetrics.setEnabled(true);
+    for (int i = 1; i <= 100; i++) {
+      PerformanceMetrics.record(PerformanceMetrics.MAP_SIZE, i);
+    }
+    PerformanceMetrics.increment("some.counter");
+    PerformanceMetrics.increment("some.counter");
+    PerformanceMetrics.stop(PerformanceMetrics.PAINT, PerformanceMetrics.start());
+
+    final PerformanceMetrics.Histogram histogram = PerformanceMetrics.findHistogram(PerformanceMetrics.MAP_SIZE);
+    assertEquals(100L, histogram.getCount());
+    assertEquals(1L, histogram.getMin());
+    assertEquals(100L, histogram.getMax());
+    assertEquals(50L, histogram.getMean());
+    assertEquals(100L, histogram.getLast());
+    assertEquals(63L, histogram.getPercentile(50.0d));
+    assertEquals(100L, histogram.getPercentile(99.0d));
+    assertEquals(2L, PerformanceMetrics.getCounter("some.counter"));
+    assertEquals(1L, PerformanceMetrics.findHistogram(PerformanceMetrics.PAINT).getCount());
+
+    final String report = PerformanceMetrics.makeReport();
+    assertTrue(report.contains("some.counter = 2"));
+    assertTrue(report.contains(PerformanceMetrics.MAP_SIZE + " : count=100"));
+
+    assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName(PerformanceMetrics.JMX_NAME)));
+  }
+}
@@ -27,6 +27,7 @@ import java.util.List;
 import javax.annotation.Nullable;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
+import javax.swing.text.BadLocationException;
 import javax.swing.text.StyledDocument;
 import org.netbeans.api.project.FileOwnerQuery;
 import org.netbeans.api.project.Project;
@@ -83,7 +84,24 @@ public class MMDEditorSupport extends DataEditorSupport implements OpenCookie, E
     if (this.getDataObject().isValid()) {
       try {
         final StyledDocument doc = this.openDocument();
-        return doc.getText(0, doc.getLength());
+        final String[] result = new String[1];
+        final BadLocationException[] error = new BadLocationException[1];
+        // read under document lock, the method can be called outside of Swing thread
+        doc.render(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              result[0] = doc.getText(0, doc.getLength());
+            }
+            catch (BadLocationException ex) {
+              error[0] = ex;
+            }
+          }
+        });
+        if (error[0] != null) {
+          throw error[0];
+        }
+        return result[0];
       }
       catch (Exception ex) {
         LOGGER.error("Can't get document text", ex); //NOI18N
@@ -490,7 +490,7 @@ public final class MMDGraphEditor extends CloneableEditor implements AdjustmentL
             LOGGER.warn("Detected empty text document as mind map, the default mind map will be created");
             this.mindMapPanel.setModel(new MindMap(this, true), false);
           } else {
-            this.mindMapPanel.setModel(new MindMap(this, new StringReader(text)), false);
+            this.mindMapPanel.setModel(new MindMap(this, new StringReader(text), true), false);
           }
         } catch (IllegalArgumentException ex) {
           LOGGER.warn("Can't detect mind map"); //NOI18N
@@ -574,7 +574,7 @@ public final class MMDGraphEditor extends CloneableEditor implements AdjustmentL
         }
 
         if (element != null) {
-          final Rectangle2D bounds = element.getBounds();
+          final Rectangle2D bounds = this.mindMapPanel.getBoundsOnPanel(element.getModel());
           final Dimension viewPortSize = mainScrollPane.getViewport().getExtentSize();
 
           final int x = Math.max(0, (int) Math.round(bounds.getX() - (viewPortSize.getWidth() - bounds.getWidth()) / 2));
@@ -630,7 +630,7 @@ public final class MMDGraphEditor extends CloneableEditor implements AdjustmentL
           return;
         }
 
-        final Rectangle2D orig = element.getBounds();
+        final Rectangle2D orig = mindMapPanel.getBoundsOnPanel(element.getModel());
         final int GAP = 30;
 
         final Rectangle bounds = orig.getBounds();
@@ -28,13 +28,21 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.IOException;
 import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.swing.JComponent;
 import javax.swing.JScrollPane;
 import javax.swing.JTree;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.Document;
 import javax.swing.tree.TreePath;
 
 import org.netbeans.spi.navigator.NavigatorPanel;
@@ -45,23 +53,32 @@ import org.openide.filesystems.FileRenameEvent;
 import org.openide.util.Lookup;
 import org.openide.util.LookupEvent;
 import org.openide.util.LookupListener;
+import org.openide.util.RequestProcessor;
 import org.openide.windows.TopComponent;
 
-import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
-
 @NavigatorPanel.Registration(displayName = "Mind map", mimeType = MMDDataObject.MIME)
-public final class MMDNavigator extends JScrollPane implements NavigatorPanel, LookupListener, FileChangeListener, Comparator<Object> {
+public final class MMDNavigator extends JScrollPane implements NavigatorPanel, LookupListener, FileChangeListener, DocumentListener, Comparator<Object> {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(MMDNavigator.class);
   
   private static final Lookup.Template<MMDEditorSupport> MY_DATA = new Lookup.Template<MMDEditorSupport>(MMDEditorSupport.class);
   private static final long serialVersionUID = -4344090966601180253L;
 
+  private static final int UPDATE_DELAY_MS = 500;
+  private static final RequestProcessor PARSER = new RequestProcessor("MMDNavigatorParser", 1, true); //NOI18N
+
   private final JTree mindMapTree;
   private SortedTreeModelWrapper treeModel;
-  
+  private transient MindMap shownMap;
+  private transient MMDEditorSupport shownSupport;
+  private transient String shownText;
+
   private transient Lookup.Result<? extends MMDEditorSupport> context;
   private transient MMDEditorSupport currentSupport;
+  private transient Document listenedDocument;
+
+  private final Timer updateTimer;
+  private final AtomicInteger updateGeneration = new AtomicInteger();
 
   public MMDNavigator() {
     super();
@@ -82,6 +99,14 @@ public final class MMDNavigator extends JScrollPane implements NavigatorPanel, L
       }
     }).getTree();
     this.setViewportView(this.mindMapTree);
+
+    this.updateTimer = new Timer(UPDATE_DELAY_MS, new ActionListener() {
+      @Override
+      public void actionPerformed(final ActionEvent e) {
+        updateContent();
+      }
+    });
+    this.updateTimer.setRepeats(false);
   }
 
   @Override
@@ -133,38 +158,138 @@ public final class MMDNavigator extends JScrollPane implements NavigatorPanel, L
         }
       }
     }
+    listenDocument(this.currentSupport == null ? null : this.currentSupport.getDocument());
     updateContent();
   }
 
-  private String getDocumentText() {
-    String result = null;
-    if (this.currentSupport != null) {
-      final MMDEditorSupport editor = this.currentSupport;
-      result = editor.getDocumentText();
+  private void listenDocument(final Document document) {
+    if (this.listenedDocument != document) {
+      if (this.listenedDocument != null) {
+        this.listenedDocument.removeDocumentListener(this);
+      }
+      this.listenedDocument = document;
+      if (document != null) {
+        document.addDocumentListener(this);
+      }
     }
-    return result;
   }
 
+  private void requestUpdate() {
+    SwingUtilities.invokeLater(new Runnable() {
+
+      @Override
+      public void run() {
+        updateTimer.restart();
+      }
+    });
+  }
+
+  /**
+   * Read and parse text of the current document in background, the result is
+   * applied in Swing thread.
+   */
   private void updateContent() {
-    if (this.treeModel!=null){
+    this.updateTimer.stop();
+    final int generation = this.updateGeneration.incrementAndGet();
+    final MMDEditorSupport support = this.currentSupport;
+
+    if (support == null) {
+      clearContent();
+      return;
+    }
+
+    final String previousText = support == this.shownSupport ? this.shownText : null;
+
+    PARSER.post(new Runnable() {
+      @Override
+      public void run() {
+        if (generation != updateGeneration.get()) {
+          return;
+        }
+        final String text = support.getDocumentText();
+        if (text == null || text.equals(previousText)) {
+          // document can't be read now, the shown tree is kept
+          return;
+        }
+        MindMap parsed = null;
+        try {
+          parsed = new MindMap(null, new StringReader(text));
+        }
+        catch (IOException ex) {
+          LOGGER.error("Can't parse mind map text", ex); //NOI18N
+        }
+        final MindMap result = parsed;
+        SwingUtilities.invokeLater(new Runnable() {
+          @Override
+          public void run() {
+            if (generation == updateGeneration.get() && support == currentSupport) {
+              applyContent(support, text, result);
+            }
+          }
+        });
+      }
+    });
+  }
+
+  private void clearContent() {
+    if (this.treeModel != null) {
       this.treeModel.dispose();
+      this.treeModel = null;
+    }
+    this.shownMap = null;
+    this.shownSupport = null;
+    this.shownText = null;
+    this.mindMapTree.setModel(null);
+  }
+
+  private void applyContent(final MMDEditorSupport support, final String text, final MindMap parsed) {
+    if (parsed == null || parsed.getRoot() == null) {
+      clearContent();
+      return;
     }
-    
-    final String text = getDocumentText();
-    if (text != null) {
-      try {
-        this.treeModel = new SortedTreeModelWrapper(new MindMap(null,new StringReader(text)), this);
-        this.mindMapTree.setModel(this.treeModel);
-        Utils.foldUnfoldTree(this.mindMapTree, true);
+
+    if (this.shownMap == null || this.shownSupport != support) {
+      clearContent();
+      this.shownMap = parsed;
+      this.treeModel = new SortedTreeModelWrapper(parsed, this);
+      this.mindMapTree.setModel(this.treeModel);
+      MindMapTreePanel.expandTree(this.mindMapTree, parsed);
+    }
+    else {
+      final TreePath rootPath = new TreePath(this.shownMap.getRoot());
+      final List<TreePath> expanded = new ArrayList<TreePath>();
+      final Enumeration<TreePath> expandedPaths = this.mindMapTree.getExpandedDescendants(rootPath);
+      if (expandedPaths != null) {
+        while (expandedPaths.hasMoreElements()) {
+          expanded.add(expandedPaths.nextElement());
+        }
       }
-      catch (IOException ex) {
-        LOGGER.error("Can't parse mind map text", ex); //NOI18N
-        this.mindMapTree.setModel(null);
+      final TreePath selected = this.mindMapTree.getSelectionPath();
+
+      if (new NavigatorModelMerger(this.shownMap, this.treeModel).merge(parsed)) {
+        for (final TreePath p : expanded) {
+          if (isInMap((Topic) p.getLastPathComponent())) {
+            this.mindMapTree.expandPath(p);
+          }
+        }
+        if (selected != null && isInMap((Topic) selected.getLastPathComponent())) {
+          this.mindMapTree.setSelectionPath(selected);
+        }
       }
     }
-    else {
-      this.mindMapTree.setModel(null);
+    this.shownSupport = support;
+    this.shownText = text;
+  }
+
+  private boolean isInMap(final Topic topic) {
+    Topic current = topic;
+    while (current.getParent() != null) {
+      if (!current.getParent().getChildren().contains(current)) {
+        return false;
+      }
+      current = current.getParent();
     }
+    return current == this.shownMap.getRoot();
   }
 
   @Override
@@ -176,11 +301,11 @@ public final class MMDNavigator extends JScrollPane implements NavigatorPanel, L
     if (this.currentSupport != null) {
       this.currentSupport.getDataObject().getPrimaryFile().removeFileChangeListener(this);
     }
-    
-    if(this.treeModel!=null){
-      this.treeModel.dispose();
-    }
-    this.mindMapTree.setModel(null);
+    listenDocument(null);
+
+    this.updateTimer.stop();
+    this.updateGeneration.incrementAndGet();
+    clearContent();
     this.currentSupport = null;
     this.context = null;
   }
@@ -205,13 +330,21 @@ public final class MMDNavigator extends JScrollPane implements NavigatorPanel, L
 
   @Override
   public void fileChanged(FileEvent fe) {
-    SwingUtilities.invokeLater(new Runnable() {
+    requestUpdate();
+  }
 
-      @Override
-      public void run() {
-        updateContent();
-      }
-    });
+  @Override
+  public void insertUpdate(final DocumentEvent e) {
+    requestUpdate();
+  }
+
+  @Override
+  public void removeUpdate(final DocumentEvent e) {
+    requestUpdate();
+  }
+
+  @Override
+  public void changedUpdate(final DocumentEvent e) {
   }
 
   @Override
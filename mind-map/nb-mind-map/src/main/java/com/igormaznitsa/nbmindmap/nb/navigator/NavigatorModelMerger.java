@@ -0,0 +1,234 @@
+/*
+ * Copyright 2015-2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.nbmindmap.nb.navigator;
+
+import com.igormaznitsa.mindmap.model.Extra;
+import com.igormaznitsa.mindmap.model.ExtraTopic;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.Topic;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+
+/**
+ * Applies new parsed state of mind map to the mind map shown by navigator.
+ * Children of every topic are matched by identity: topics with UID attribute
+ * are matched by UID, other ones by text in order of their appearance, and
+ * the rest (for instance renamed topics) by order if their numbers are the
+ * same. So that insertion, removal or move of a topic doesn't change its
+ * siblings, only changed topics are updated and only changed branches are
+ * reported to the tree model, the tree keeps its state for other branches.
+ */
+final class NavigatorModelMerger {
+
+  private final MindMap target;
+  private final TreeModelListener listener;
+  private boolean changed;
+
+  NavigatorModelMerger(final MindMap target, final TreeModelListener listener) {
+    this.target = target;
+    this.listener = listener;
+  }
+
+  /**
+   * Merge new state into target mind map.
+   *
+   * @param source new state of mind map
+   * @return true if the target has been changed
+   */
+  boolean merge(final MindMap source) {
+    this.changed = false;
+    final Topic targetRoot = this.target.getRoot();
+    final Topic sourceRoot = source.getRoot();
+    if (targetRoot == null || sourceRoot == null) {
+      throw new IllegalArgumentException("Mind maps must have roots");
+    }
+    mergeTopic(targetRoot, sourceRoot);
+    return this.changed;
+  }
+
+  private void mergeTopic(final Topic target, final Topic source) {
+    if (updateContent(target, source)) {
+      this.changed = true;
+      this.listener.treeNodesChanged(new TreeModelEvent(this.target, target.getPath()));
+    }
+
+    final List<Topic> targetChildren = new ArrayList<Topic>(target.getChildren());
+    final List<Topic> sourceChildren = source.getChildren();
+    final Topic[] matched = matchChildren(targetChildren, sourceChildren);
+
+    boolean structureChanged = targetChildren.size() != sourceChildren.size();
+    for (int i = 0; !structureChanged && i < matched.length; i++) {
+      structureChanged = matched[i] != targetChildren.get(i);
+    }
+
+    if (structureChanged) {
+      final Set<Topic> kept = new HashSet<Topic>();
+      for (final Topic t : matched) {
+        if (t != null) {
+          kept.add(t);
+        }
+      }
+      for (final Topic t : targetChildren) {
+        if (!kept.contains(t)) {
+          t.delete();
+        }
+      }
+      for (int i = 0; i < matched.length; i++) {
+        if (matched[i] == null) {
+          new Topic(this.target, sourceChildren.get(i), true).moveToNewParent(target);
+        } else {
+          matched[i].makeLast();
+        }
+      }
+      this.changed = true;
+      this.listener.treeStructureChanged(new TreeModelEvent(this.target, target.getPath()));
+    }
+
+    for (int i = 0; i < matched.length; i++) {
+      if (matched[i] != null) {
+        mergeTopic(matched[i], sourceChildren.get(i));
+      }
+    }
+  }
+
+  /**
+   * Find target topics for source topics.
+   *
+   * @param targetChildren children of target topic
+   * @param sourceChildren children of source topic
+   * @return array of matched target topics for source children, null for
+   * source topic which should be added as new one
+   */
+  private static Topic[] matchChildren(final List<Topic> targetChildren, final List<Topic> sourceChildren) {
+    final Topic[] result = new Topic[sourceChildren.size()];
+    final Set<Topic> used = new HashSet<Topic>();
+
+    final Map<String, Topic> targetsForUid = new HashMap<String, Topic>();
+    final Map<String, LinkedList<Topic>> targetsForText = new HashMap<String, LinkedList<Topic>>();
+    for (final Topic t : targetChildren) {
+      final String uid = t.getAttribute(ExtraTopic.TOPIC_UID_ATTR);
+      if (uid != null && !targetsForUid.containsKey(uid)) {
+        targetsForUid.put(uid, t);
+      }
+      LinkedList<Topic> sameText = targetsForText.get(t.getText());
+      if (sameText == null) {
+        sameText = new LinkedList<Topic>();
+        targetsForText.put(t.getText(), sameText);
+      }
+      sameText.add(t);
+    }
+
+    for (int i = 0; i < result.length; i++) {
+      final String uid = sourceChildren.get(i).getAttribute(ExtraTopic.TOPIC_UID_ATTR);
+      final Topic found = uid == null ? null : targetsForUid.get(uid);
+      if (found != null && used.add(found)) {
+        result[i] = found;
+      }
+    }
+
+    for (int i = 0; i < result.length; i++) {
+      if (result[i] == null) {
+        final Topic sourceChild = sourceChildren.get(i);
+        final LinkedList<Topic> sameText = targetsForText.get(sourceChild.getText());
+        while (sameText != null && !sameText.isEmpty()) {
+          final Topic candidate = sameText.removeFirst();
+          final String uid = candidate.getAttribute(ExtraTopic.TOPIC_UID_ATTR);
+          // topic with UID can't be matched to topic with another UID
+          if (!used.contains(candidate) && (uid == null || sourceChild.getAttribute(ExtraTopic.TOPIC_UID_ATTR) == null)) {
+            used.add(candidate);
+            result[i] = candidate;
+            break;
+          }
+        }
+      }
+    }
+
+    final List<Topic> restTargets = new ArrayList<Topic>();
+    for (final Topic t : targetChildren) {
+      if (!used.contains(t)) {
+        restTargets.add(t);
+      }
+    }
+    int restSources = 0;
+    for (final Topic t : result) {
+      if (t == null) {
+        restSources++;
+      }
+    }
+    if (restSources == restTargets.size()) {
+      int index = 0;
+      for (int i = 0; i < result.length; i++) {
+        if (result[i] == null) {
+          result[i] = restTargets.get(index++);
+        }
+      }
+    }
+
+    return result;
+  }
+
+  private static boolean updateContent(final Topic target, final Topic source) {
+    boolean result = false;
+
+    if (!target.getText().equals(source.getText())) {
+      target.setText(source.getText());
+      result = true;
+    }
+
+    if (!target.getAttributes().equals(source.getAttributes())) {
+      for (final String key : new ArrayList<String>(target.getAttributes().keySet())) {
+        target.setAttribute(key, null);
+      }
+      for (final Map.Entry<String, String> e : source.getAttributes().entrySet()) {
+        target.setAttribute(e.getKey(), e.getValue());
+      }
+      result = true;
+    }
+
+    if (!target.getCodeSnippets().equals(source.getCodeSnippets())) {
+      for (final String key : new ArrayList<String>(target.getCodeSnippets().keySet())) {
+        target.setCodeSnippet(key, null);
+      }
+      for (final Map.Entry<String, String> e : source.getCodeSnippets().entrySet()) {
+        target.setCodeSnippet(e.getKey(), e.getValue());
+      }
+      result = true;
+    }
+
+    if (!asStrings(target.getExtras()).equals(asStrings(source.getExtras()))) {
+      target.removeExtra(target.getExtras().keySet().toArray(new Extra.ExtraType[0]));
+      target.setExtra(source.getExtras().values().toArray(new Extra<?>[0]));
+      result = true;
+    }
+
+    return result;
+  }
+
+  private static Map<Extra.ExtraType, String> asStrings(final Map<Extra.ExtraType, Extra<?>> extras) {
+    final Map<Extra.ExtraType, String> result = new HashMap<Extra.ExtraType, String>();
+    for (final Map.Entry<Extra.ExtraType, Extra<?>> e : extras.entrySet()) {
+      result.put(e.getKey(), e.getValue().provideAsStringForSave());
+    }
+    return result;
+  }
+}
@@ -1,5 +1,8 @@
 package com.igormaznitsa.nbmindmap.nb.quicksearch;
 
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import com.igormaznitsa.nbmindmap.nb.editor.MMDEditorSupport;
 import com.igormaznitsa.nbmindmap.nb.swing.AboutPanel;
 import com.igormaznitsa.nbmindmap.utils.NbUtils;
 import java.util.Arrays;
@@ -7,9 +10,16 @@ import java.util.List;
 import java.util.regex.Pattern;
 import javax.swing.SwingUtilities;
 import org.netbeans.spi.quicksearch.*;
+import org.openide.filesystems.FileObject;
+import org.openide.loaders.DataObject;
 
 public class QuickSearchProvider implements SearchProvider {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(QuickSearchProvider.class);
+
+  private static final int MIN_TOPIC_SEARCH_TEXT_LENGTH = 2;
+  private static final int MAX_TOPIC_RESULTS = 64;
+
   private static class SearchedItem {
 
     private final String displayName;
@@ -55,11 +65,40 @@ public class QuickSearchProvider implements SearchProvider {
     for (final SearchedItem item : ITEMS) {
       if (item.isSatisfied(text)) {
         if (!response.addResult(item.getRunnable(), item.getDisplayName())) {
+          return;
+        }
+      }
+    }
+
+    if (text.trim().length() >= MIN_TOPIC_SEARCH_TEXT_LENGTH) {
+      for (final TopicSearchIndex.Hit hit : TopicSearchIndex.getInstance().find(text, MAX_TOPIC_RESULTS)) {
+        if (!response.addResult(makeOpenTopicRunnable(hit.getFile(), hit.getPositionPath()), hit.getTopicPath() + " (" + hit.getFile().getNameExt() + ')')) {
           break;
         }
       }
     }
+  }
 
+  private static Runnable makeOpenTopicRunnable(final FileObject file, final int[] positionPath) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        SwingUtilities.invokeLater(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              final MMDEditorSupport editorSupport = DataObject.find(file).getLookup().lookup(MMDEditorSupport.class);
+              if (editorSupport != null) {
+                editorSupport.edit();
+                editorSupport.focusToPosition(true, positionPath);
+              }
+            } catch (Exception ex) {
+              LOGGER.error("Can't open mind map " + file, ex); //NOI18N
+            }
+          }
+        });
+      }
+    };
   }
 
 }
@@ -0,0 +1,455 @@
+/*
+ * Copyright 2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.nbmindmap.nb.quicksearch;
+
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
+import com.igormaznitsa.mindmap.model.Extra;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.Topic;
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import com.igormaznitsa.nbmindmap.nb.refactoring.RefactoringUtils;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.netbeans.api.project.FileOwnerQuery;
+import org.netbeans.api.project.Project;
+import org.netbeans.api.project.ui.OpenProjects;
+import org.openide.filesystems.FileAttributeEvent;
+import org.openide.filesystems.FileChangeListener;
+import org.openide.filesystems.FileEvent;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileRenameEvent;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Index of topic texts and notes of all mind maps in open projects. The index
+ * is built in background after first request, the first search waits for the
+ * build, then the index is incrementally updated for changed, created and
+ * deleted mind map files. Every file keeps sorted array of words of its topics
+ * so that words are found by prefix through binary search.
+ *
+ * @since 1.4.5
+ */
+public final class TopicSearchIndex implements FileChangeListener, PropertyChangeListener {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TopicSearchIndex.class);
+
+  private static final RequestProcessor INDEXER = new RequestProcessor("MMDTopicSearchIndex", 1, true); //NOI18N
+  private static final TopicSearchIndex INSTANCE = new TopicSearchIndex();
+
+  private static final int DELAY_REBUILD_MS = 500;
+  private static final int DELAY_UPDATE_MS = 1000;
+  private static final long FIRST_SEARCH_WAIT_MS = 10000L;
+
+  private final Map<FileObject, FileRecord> records = new ConcurrentHashMap<FileObject, FileRecord>();
+  private final Set<FileObject> changedFiles = new HashSet<FileObject>();
+  private final AtomicBoolean started = new AtomicBoolean();
+  private volatile boolean built;
+
+  private final RequestProcessor.Task rebuildTask = INDEXER.create(new Runnable() {
+    @Override
+    public void run() {
+      rebuild();
+    }
+  });
+
+  private final RequestProcessor.Task updateTask = INDEXER.create(new Runnable() {
+    @Override
+    public void run() {
+      updateChangedFiles();
+    }
+  });
+
+  /**
+   * Found topic.
+   */
+  public static final class Hit {
+
+    private final FileObject file;
+    private final int[] positionPath;
+    private final String topicPath;
+
+    private Hit(@Nonnull final FileObject file, @Nonnull final int[] positionPath, @Nonnull final String topicPath) {
+      this.file = file;
+      this.positionPath = positionPath;
+      this.topicPath = topicPath;
+    }
+
+    @Nonnull
+    public FileObject getFile() {
+      return this.file;
+    }
+
+    @Nonnull
+    public int[] getPositionPath() {
+      return this.positionPath.clone();
+    }
+
+    @Nonnull
+    public String getTopicPath() {
+      return this.topicPath;
+    }
+  }
+
+  private static final class Entry {
+
+    private final int[] positionPath;
+    private final String topicPath;
+
+    private Entry(@Nonnull final Topic topic) {
+      this.positionPath = topic.getPositionPath();
+
+      final StringBuilder buffer = new StringBuilder();
+      for (final Topic t : topic.getPath()) {
+        if (buffer.length() > 0) {
+          buffer.append(" / "); //NOI18N
+        }
+        buffer.append(t.getText().replace('\n', ' '));
+      }
+      this.topicPath = buffer.toString();
+    }
+  }
+
+  private static final class FileRecord {
+
+    private final long lastModified;
+    private final Entry[] entries;
+    private final String[] words;
+    private final int[][] wordEntries;
+
+    private FileRecord(final long lastModified, @Nonnull @MustNotContainNull final List<Topic> topics) {
+      this.lastModified = lastModified;
+      this.entries = new Entry[topics.size()];
+
+      final Map<String, Set<Integer>> wordMap = new TreeMap<String, Set<Integer>>();
+      for (int i = 0; i < this.entries.length; i++) {
+        final Topic topic = topics.get(i);
+        this.entries[i] = new Entry(topic);
+        addWords(wordMap, topic.getText(), i);
+        final Extra<?> note = topic.getExtras().get(Extra.ExtraType.NOTE);
+        if (note != null) {
+          addWords(wordMap, note.getAsString(), i);
+        }
+      }
+
+      this.words = new String[wordMap.size()];
+      this.wordEntries = new int[wordMap.size()][];
+      int index = 0;
+      for (final Map.Entry<String, Set<Integer>> e : wordMap.entrySet()) {
+        this.words[index] = e.getKey();
+        final int[] indexes = new int[e.getValue().size()];
+        int j = 0;
+        for (final Integer v : e.getValue()) {
+          indexes[j++] = v;
+        }
+        this.wordEntries[index++] = indexes;
+      }
+    }
+
+    private static void addWords(@Nonnull final Map<String, Set<Integer>> wordMap, @Nonnull final String text, final int entryIndex) {
+      for (final String w : splitToWords(text)) {
+        Set<Integer> set = wordMap.get(w);
+        if (set == null) {
+          set = new TreeSet<Integer>();
+          wordMap.put(w, set);
+        }
+        set.add(entryIndex);
+      }
+    }
+
+    @Nonnull
+    private BitSet findForPrefix(@Nonnull final String prefix) {
+      final BitSet result = new BitSet(this.entries.length);
+      int index = Arrays.binarySearch(this.words, prefix);
+      if (index < 0) {
+        index = -index - 1;
+      }
+      while (index < this.words.length && this.words[index].startsWith(prefix)) {
+        for (final int e : this.wordEntries[index]) {
+          result.set(e);
+        }
+        index++;
+      }
+      return result;
+    }
+
+    @Nullable
+    private BitSet find(@Nonnull @MustNotContainNull final List<String> prefixes) {
+      BitSet result = null;
+      for (final String p : prefixes) {
+        final BitSet found = findForPrefix(p);
+        if (result == null) {
+          result = found;
+        } else {
+          result.and(found);
+        }
+        if (result.isEmpty()) {
+          return null;
+        }
+      }
+      return result;
+    }
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  static List<String> splitToWords(@Nonnull final String text) {
+    final List<String> result = new ArrayList<String>();
+    final String lowerCased = text.toLowerCase(Locale.ENGLISH);
+    int start = -1;
+    for (int i = 0; i <= lowerCased.length(); i++) {
+      final boolean wordChar = i < lowerCased.length() && Character.isLetterOrDigit(lowerCased.charAt(i));
+      if (wordChar) {
+        if (start < 0) {
+          start = i;
+        }
+      } else if (start >= 0) {
+        result.add(lowerCased.substring(start, i));
+        start = -1;
+      }
+    }
+    return result;
+  }
+
+  private TopicSearchIndex() {
+  }
+
+  @Nonnull
+  public static TopicSearchIndex getInstance() {
+    INSTANCE.ensureStarted();
+    return INSTANCE;
+  }
+
+  /**
+   * Stop the index if it has been started, listeners are removed and indexed
+   * data is released. Called when the module is closed.
+   */
+  public static void shutdown() {
+    INSTANCE.stop();
+  }
+
+  private void ensureStarted() {
+    if (this.started.compareAndSet(false, true)) {
+      OpenProjects.getDefault().addPropertyChangeListener(this);
+      FileUtil.addFileChangeListener(this);
+      this.rebuildTask.schedule(0);
+    }
+  }
+
+  private void stop() {
+    if (this.started.compareAndSet(true, false)) {
+      FileUtil.removeFileChangeListener(this);
+      OpenProjects.getDefault().removePropertyChangeListener(this);
+      this.rebuildTask.cancel();
+      this.updateTask.cancel();
+      synchronized (this.changedFiles) {
+        this.changedFiles.clear();
+      }
+      this.records.clear();
+      this.built = false;
+    }
+  }
+
+  /**
+   * Find topics which text or note contains words started with every word of
+   * the text, search is case insensitive. The first search waits until the
+   * index is built.
+   *
+   * @param text text to be found, must not be null
+   * @param maxResults max number of results
+   * @return list of found topics, must not be null
+   */
+  @Nonnull
+  @MustNotContainNull
+  public List<Hit> find(@Nonnull final String text, final int maxResults) {
+    final List<Hit> result = new ArrayList<Hit>();
+    final List<String> prefixes = splitToWords(text);
+
+    if (!prefixes.isEmpty()) {
+      waitForFirstBuild();
+      for (final Map.Entry<FileObject, FileRecord> r : this.records.entrySet()) {
+        final FileRecord fileRecord = r.getValue();
+        final BitSet found = fileRecord.find(prefixes);
+        if (found != null) {
+          for (int i = found.nextSetBit(0); i >= 0; i = found.nextSetBit(i + 1)) {
+            final Entry e = fileRecord.entries[i];
+            result.add(new Hit(r.getKey(), e.positionPath, e.topicPath));
+            if (result.size() >= maxResults) {
+              return result;
+            }
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  private void waitForFirstBuild() {
+    if (!this.built) {
+      try {
+        if (!this.rebuildTask.waitFinished(FIRST_SEARCH_WAIT_MS)) {
+          LOGGER.warn("Topic search index is not built in " + FIRST_SEARCH_WAIT_MS + " ms"); //NOI18N
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  public int size() {
+    return this.records.size();
+  }
+
+  private void rebuild() {
+    final long start = System.currentTimeMillis();
+
+    final Set<FileObject> actualFiles = new HashSet<FileObject>();
+    for (final Project p : OpenProjects.getDefault().getOpenProjects()) {
+      actualFiles.addAll(RefactoringUtils.findAllMindMapsInProject(p, null));
+    }
+
+    this.records.keySet().retainAll(actualFiles);
+
+    int indexed = 0;
+    for (final FileObject file : actualFiles) {
+      if (Thread.currentThread().isInterrupted()) {
+        return;
+      }
+      final FileRecord record = this.records.get(file);
+      if (record == null || record.lastModified != file.lastModified().getTime()) {
+        indexFile(file);
+        indexed++;
+      }
+    }
+
+    this.built = true;
+    LOGGER.info("Topic search index has been updated, indexed " + indexed + " of " + actualFiles.size() + " mind map(s) in " + (System.currentTimeMillis() - start) + " ms"); //NOI18N
+  }
+
+  private void updateChangedFiles() {
+    final List<FileObject> files;
+    synchronized (this.changedFiles) {
+      files = new ArrayList<FileObject>(this.changedFiles);
+      this.changedFiles.clear();
+    }
+
+    for (final FileObject file : files) {
+      if (Thread.currentThread().isInterrupted()) {
+        return;
+      }
+      if (file.isValid() && FileOwnerQuery.getOwner(file) != null && RefactoringUtils.isFileInOpenProject(file)) {
+        indexFile(file);
+      } else {
+        this.records.remove(file);
+      }
+    }
+  }
+
+  private void indexFile(@Nonnull final FileObject file) {
+    try {
+      final MindMap map = new MindMap(null, new StringReader(file.asText("UTF-8"))); //NOI18N
+      final List<Topic> topics = new ArrayList<Topic>();
+      for (final Topic t : map) {
+        topics.add(t);
+      }
+      this.records.put(file, new FileRecord(file.lastModified().getTime(), topics));
+    } catch (Exception ex) {
+      LOGGER.warn("Can't index mind map " + file + " : " + ex.getMessage()); //NOI18N
+      this.records.remove(file);
+    }
+  }
+
+  private void onFileChanged(@Nullable final FileObject file) {
+    if (file != null && RefactoringUtils.isMMD(file)) {
+      synchronized (this.changedFiles) {
+        this.changedFiles.add(file);
+      }
+      this.updateTask.schedule(DELAY_UPDATE_MS);
+    }
+  }
+
+  @Override
+  public void propertyChange(@Nonnull final PropertyChangeEvent evt) {
+    if (OpenProjects.PROPERTY_OPEN_PROJECTS.equals(evt.getPropertyName())) {
+      this.rebuildTask.schedule(DELAY_REBUILD_MS);
+    }
+  }
+
+  @Override
+  public void fileFolderCreated(@Nonnull final FileEvent fe) {
+    final Enumeration<? extends FileObject> children = fe.getFile().getChildren(true);
+    while (children.hasMoreElements()) {
+      onFileChanged(children.nextElement());
+    }
+  }
+
+  @Override
+  public void fileDataCreated(@Nonnull final FileEvent fe) {
+    onFileChanged(fe.getFile());
+  }
+
+  @Override
+  public void fileChanged(@Nonnull final FileEvent fe) {
+    onFileChanged(fe.getFile());
+  }
+
+  @Override
+  public void fileDeleted(@Nonnull final FileEvent fe) {
+    final FileObject file = fe.getFile();
+    if (file.isFolder()) {
+      final Iterator<FileObject> iterator = this.records.keySet().iterator();
+      while (iterator.hasNext()) {
+        if (!iterator.next().isValid()) {
+          iterator.remove();
+        }
+      }
+    } else {
+      this.records.remove(file);
+    }
+  }
+
+  @Override
+  public void fileRenamed(@Nonnull final FileRenameEvent fe) {
+    final FileObject file = fe.getFile();
+    if (RefactoringUtils.isMMD(file)) {
+      onFileChanged(file);
+    } else {
+      this.records.remove(file);
+    }
+  }
+
+  @Override
+  public void fileAttributeChanged(@Nonnull final FileAttributeEvent fe) {
+  }
+}
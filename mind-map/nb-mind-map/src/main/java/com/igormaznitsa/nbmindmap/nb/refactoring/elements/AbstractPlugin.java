@@ -15,15 +15,16 @@
  */
 package com.igormaznitsa.nbmindmap.nb.refactoring.elements;
 
+import com.igormaznitsa.mindmap.model.ExtraFile;
 import com.igormaznitsa.mindmap.model.MMapURI;
-import com.igormaznitsa.mindmap.model.MindMap;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import com.igormaznitsa.mindmap.model.parser.FileLinkScanner;
 import com.igormaznitsa.nbmindmap.nb.refactoring.RefactoringUtils;
 import java.io.File;
 import java.io.IOException;
-import java.io.StringReader;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.netbeans.api.fileinfo.NonRecursiveFolder;
 import org.netbeans.api.java.source.TreePathHandle;
@@ -40,6 +41,7 @@ import org.netbeans.modules.refactoring.spi.RefactoringPlugin;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
 import org.openide.util.Lookup;
+import org.openide.util.RequestProcessor;
 
 public abstract class AbstractPlugin<T extends AbstractRefactoring> extends ProgressProviderAdapter implements RefactoringPlugin {
 
@@ -48,6 +50,14 @@ public abstract class AbstractPlugin<T extends AbstractRefactoring> extends Prog
   protected static final ResourceBundle BUNDLE = ResourceBundle.getBundle("com/igormaznitsa/nbmindmap/i18n/Bundle");
   private final Map<FileObject, Collection<FileObject>> cache = new HashMap<FileObject, Collection<FileObject>>();
 
+  private static final RequestProcessor SCAN_PROCESSOR = new RequestProcessor("MMDRefactoringScan", Runtime.getRuntime().availableProcessors(), true); //NOI18N
+
+  /**
+   * File links of mind maps, every map is parsed only once per refactoring session.
+   */
+  private final Map<FileObject, List<ExtraFile>> fileLinksCache = new ConcurrentHashMap<FileObject, List<ExtraFile>>();
+  private final Object progressLock = new Object();
+
   private final List<RefactoringElementImplementation> elements = new ArrayList<RefactoringElementImplementation>();
 
   private final AtomicBoolean canceled = new AtomicBoolean(false);
@@ -138,12 +148,21 @@ public abstract class AbstractPlugin<T extends AbstractRefactoring> extends Prog
 
     final Collection<? extends FileObject> files = findFileObjectInLookup(this.refactoring.getRefactoringSource());
 
-    fireProgressListenerStart(RenameRefactoring.PREPARE, files.size());
+    final Set<FileObject> mindMaps = new HashSet<FileObject>();
+    for (final FileObject fileObject : files) {
+      mindMaps.addAll(allMapsInProject(FileOwnerQuery.getOwner(fileObject)));
+    }
+
+    fireProgressListenerStart(RenameRefactoring.PREPARE, files.size() + mindMaps.size());
 
     Problem result = null;
 
     try {
-      for (final FileObject fileObject : findFileObjectInLookup(this.refactoring.getRefactoringSource())) {
+      if (!preloadFileLinks(mindMaps)) {
+        return null;
+      }
+
+      for (final FileObject fileObject : files) {
         if (isCanceled()) {
           return null;
         }
@@ -218,16 +237,85 @@ public abstract class AbstractPlugin<T extends AbstractRefactoring> extends Prog
 
   protected abstract Problem processFile(Project project, int level, File projectFolder, FileObject fileObject);
 
-  protected boolean doesMindMapContainFileLink(final Project project, final FileObject mindMap, final MMapURI fileToCheck) throws IOException {
-    final FileObject baseFolder = project.getProjectDirectory();
+  private void fireProgressStepSafely() {
+    synchronized (this.progressLock) {
+      fireProgressListenerStep(1);
+    }
+  }
+
+  /**
+   * Scan mind maps in parallel to fill cache of their file links.
+   *
+   * @param mindMaps mind maps to be scanned
+   * @return false if the scan has been canceled, true otherwise
+   */
+  private boolean preloadFileLinks(final Collection<FileObject> mindMaps) {
+    final long start = System.currentTimeMillis();
+    final List<RequestProcessor.Task> tasks = new ArrayList<RequestProcessor.Task>(mindMaps.size());
+
+    for (final FileObject mindMap : mindMaps) {
+      tasks.add(SCAN_PROCESSOR.post(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            if (!isCanceled()) {
+              findFileLinks(mindMap);
+            }
+          }
+          catch (IOException ex) {
+            LOGGER.warn("Can't read mind map " + mindMap + " : " + ex.getMessage()); //NOI18N
+          }
+          finally {
+            fireProgressStepSafely();
+          }
+        }
+      }));
+    }
+
     try {
-      final MindMap parsedMap = new MindMap(null,new StringReader(mindMap.asText("UTF-8"))); //NOI18N
-      return parsedMap.doesContainFileLink(FileUtil.toFile(baseFolder), fileToCheck);
+      for (final RequestProcessor.Task task : tasks) {
+        while (!task.waitFinished(100L)) {
+          if (isCanceled()) {
+            for (final RequestProcessor.Task t : tasks) {
+              t.cancel();
+            }
+            return false;
+          }
+        }
+      }
     }
-    catch (IllegalArgumentException ex) {
-      // not mind map
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
       return false;
     }
+
+    LOGGER.info("Scanned " + mindMaps.size() + " mind map(s) for file links in " + (System.currentTimeMillis() - start) + " ms"); //NOI18N
+    return !isCanceled();
+  }
+
+  private List<ExtraFile> findFileLinks(final FileObject mindMap) throws IOException {
+    List<ExtraFile> result = this.fileLinksCache.get(mindMap);
+    if (result == null) {
+      try {
+        result = FileLinkScanner.findFileLinks(mindMap.asText("UTF-8")); //NOI18N
+      }
+      catch (IllegalArgumentException ex) {
+        // not mind map
+        result = Collections.<ExtraFile>emptyList();
+      }
+      this.fileLinksCache.put(mindMap, result);
+    }
+    return result;
+  }
+
+  protected boolean doesMindMapContainFileLink(final Project project, final FileObject mindMap, final MMapURI fileToCheck) throws IOException {
+    final File baseFolder = FileUtil.toFile(project.getProjectDirectory());
+    for (final ExtraFile link : findFileLinks(mindMap)) {
+      if (link.isSame(baseFolder, fileToCheck)) {
+        return true;
+      }
+    }
+    return false;
   }
 
   @Override
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015-2018 Igor Maznitsa.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.igormaznitsa.nbmindmap.nb.navigator;
+
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.Topic;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class NavigatorModelMergerTest {
+
+  private static final String HEADER = "Mind Map generated by NB MindMap plugin\n> __version__=`1.1`\n---\n# root\n";
+
+  private static final class Events implements TreeModelListener {
+
+    private final List<Object> changed = new ArrayList<Object>();
+    private final List<Object> structureChanged = new ArrayList<Object>();
+
+    @Override
+    public void treeNodesChanged(final TreeModelEvent e) {
+      this.changed.add(e.getTreePath().getLastPathComponent());
+    }
+
+    @Override
+    public void treeNodesInserted(final TreeModelEvent e) {
+      fail("Unexpected event");
+    }
+
+    @Override
+    public void treeNodesRemoved(final TreeModelEvent e) {
+      fail("Unexpected event");
+    }
+
+    @Override
+    public void treeStructureChanged(final TreeModelEvent e) {
+      this.structureChanged.add(e.getTreePath().getLastPathComponent());
+    }
+  }
+
+  private static MindMap parse(final String topics) throws Exception {
+    return new MindMap(null, new StringReader(HEADER + topics));
+  }
+
+  @Test
+  public void testInsertedTopicDoesntChangeSiblings() throws Exception {
+    final MindMap target = parse("## one\n### one.1\n## two\n### two.1\n");
+    final Topic one = target.getRoot().getChildren().get(0);
+    final Topic two = target.getRoot().getChildren().get(1);
+    final Events events = new Events();
+
+    assertTrue(new NavigatorModelMerger(target, events).merge(parse("## new\n## one\n### one.1\n## two\n### two.1\n")));
+
+    assertEquals(3, target.getRoot().getChildren().size());
+    assertEquals("new", target.getRoot().getChildren().get(0).getText());
+    assertSame(one, target.getRoot().getChildren().get(1));
+    assertSame(two, target.getRoot().getChildren().get(2));
+    assertEquals("two.1", two.getChildren().get(0).getText());
+    assertTrue(events.changed.isEmpty());
+    assertEquals(1, events.structureChanged.size());
+    assertSame(target.getRoot(), events.structureChanged.get(0));
+  }
+
+  @Test
+  public void testRemovedAndMovedTopicsKeepIdentity() throws Exception {
+    final MindMap target = parse("## one\n## two\n## three\n");
+    final Topic one = target.getRoot().getChildren().get(0);
+    final Topic three = target.getRoot().getChildren().get(2);
+
+    assertTrue(new NavigatorModelMerger(target, new Events()).merge(parse("## three\n## one\n")));
+
+    assertEquals(2, target.getRoot().getChildren().size());
+    assertSame(three, target.getRoot().getChildren().get(0));
+    assertSame(one, target.getRoot().getChildren().get(1));
+  }
+
+  @Test
+  public void testMatchedByUid() throws Exception {
+    final MindMap target = parse("## one\n> topicLinkUID=`AAA`\n## two\n> topicLinkUID=`BBB`\n");
+    final Topic one = target.getRoot().getChildren().get(0);
+    final Topic two = target.getRoot().getChildren().get(1);
+    final Events events = new Events();
+
+    assertTrue(new NavigatorModelMerger(target, events).merge(parse("## two renamed\n> topicLinkUID=`BBB`\n## one\n> topicLinkUID=`AAA`\n")));
+
+    assertSame(two, target.getRoot().getChildren().get(0));
+    assertSame(one, target.getRoot().getChildren().get(1));
+    assertEquals("two renamed", two.getText());
+    assertEquals(1, events.changed.size());
+    assertSame(two, events.changed.get(0));
+  }
+
+  @Test
+  public void testRenamedTopicUpdatedInPlace() throws Exception {
+    final MindMap target = parse("## one\n### one.1\n## two\n");
+    final Topic one = target.getRoot().getChildren().get(0);
+    final Events events = new Events();
+
+    assertTrue(new NavigatorModelMerger(target, events).merge(parse("## first\n### one.1\n## two\n")));
+
+    assertSame(one, target.getRoot().getChildren().get(0));
+    assertEquals("first", one.getText());
+    assertTrue(events.structureChanged.isEmpty());
+    assertEquals(1, events.changed.size());
+  }
+
+  @Test
+  public void testNoChanges() throws Exception {
+    final MindMap target = parse("## one\n### one.1\n## two\n");
+    final Events events = new Events();
+    assertFalse(new NavigatorModelMerger(target, events).merge(parse("## one\n### one.1\n## two\n")));
+    assertTrue(events.changed.isEmpty());
+    assertTrue(events.structureChanged.isEmpty());
+  }
+}
@@ -82,11 +82,13 @@ import com.igormaznitsa.mindmap.swing.panel.MindMapPanelConfig;
 import com.igormaznitsa.mindmap.swing.panel.MindMapPanelController;
 import com.igormaznitsa.mindmap.swing.panel.ui.AbstractElement;
 import com.igormaznitsa.mindmap.swing.panel.ui.ElementPart;
+import com.igormaznitsa.mindmap.swing.panel.utils.PerformanceMetrics;
 import com.igormaznitsa.sciareto.metrics.MetricsService;
 import com.igormaznitsa.sciareto.notifications.MessagesService;
 import com.igormaznitsa.sciareto.plugins.services.PrinterPlugin;
 import com.igormaznitsa.sciareto.preferences.PreferencesManager;
 import com.igormaznitsa.mindmap.swing.panel.utils.PropertiesPreferences;
+import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
 import com.igormaznitsa.sciareto.ui.SystemUtils;
 import com.igormaznitsa.sciareto.ui.UiUtils;
 import com.igormaznitsa.sciareto.ui.UiUtils.SplashScreen;
@@ -108,9 +110,15 @@ public class Main {
 
   public static final Version IDE_VERSION = new Version("sciareto", new long[]{1L, 4L, 5L}, null); //NOI18N
 
+  /**
+   * Folder to keep caches and autosaved files of the current user.
+   */
+  public static final File USER_DATA_FOLDER = Utils.findUserDataFolder("sciareto"); //NOI18N
+
   public static final Random RND = new Random();
 
   private static final String PROPERTY = "nbmmd.plugin.folder"; //NOI18N
+  private static final String PROPERTY_METRICS_REPORT = "sciareto.metrics.report"; //NOI18N
   public static final String PROPERTY_LOOKANDFEEL = "selected.look.and.feel"; //NOI18N
   public static final String PROPERTY_TOTAL_UPSTART = "time.total.upstart"; //NOI18N
 
@@ -244,6 +252,18 @@ public class Main {
     }
   }
 
+  private static void savePerformanceReport() {
+    if (PerformanceMetrics.isEnabled()) {
+      final File reportFile = new File(System.getProperty(PROPERTY_METRICS_REPORT, new File(System.getProperty("java.io.tmpdir"), "sciareto-performance.txt").getAbsolutePath())); //NOI18N
+      try {
+        PerformanceMetrics.writeReport(reportFile);
+        LOGGER.info("Performance report has been saved : " + reportFile); //NOI18N
+      } catch (IOException ex) {
+        LOGGER.error("Can't save performance report : " + reportFile, ex); //NOI18N
+      }
+    }
+  }
+
   public static void main(@Nonnull @MustNotContainNull final String... args) {
     // -- Properties for MAC OSX --  
     System.setProperty("apple.awt.fileDialogForDirectories", "true"); //NOI18N
@@ -315,6 +335,7 @@ public class Main {
           final Preferences prefs = PreferencesManager.getInstance().getPreferences();
           prefs.putLong(PROPERTY_TOTAL_UPSTART, prefs.getLong(PROPERTY_TOTAL_UPSTART, 0L) + (System.currentTimeMillis() - UPSTART));
           PreferencesManager.getInstance().flush();
+          savePerformanceReport();
         } finally {
           PlatformProvider.getPlatform().dispose();
         }
@@ -24,6 +24,11 @@ import javax.annotation.Nullable;
 import java.awt.*;
 
 public final class PrefUtils {
+
+  public static final String PROPERTY_HIDE_GIT_IGNORED_FILES = "hideGitIgnoredFiles"; //NOI18N
+  public static final String PROPERTY_IGNORED_FILES = "ignoredFiles"; //NOI18N
+  public static final String DEFAULT_IGNORED_FILES = ""; //NOI18N
+
   private PrefUtils() {
 
   }
@@ -32,6 +37,15 @@ public final class PrefUtils {
     return PreferencesManager.getInstance().getPreferences().getBoolean("showHiddenFiles", true);
   }
 
+  public static boolean isHideGitIgnoredFiles() {
+    return PreferencesManager.getInstance().getPreferences().getBoolean(PROPERTY_HIDE_GIT_IGNORED_FILES, false);
+  }
+
+  @Nonnull
+  public static String getIgnoredFiles() {
+    return PreferencesManager.getInstance().getPreferences().get(PROPERTY_IGNORED_FILES, DEFAULT_IGNORED_FILES);
+  }
+
   @Nullable
   public static String getPlantUmlDotPath() {
     final String result = PreferencesManager.getInstance().getPreferences().get("plantuml.dotpath", null);
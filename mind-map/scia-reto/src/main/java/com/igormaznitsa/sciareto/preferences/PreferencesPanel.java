@@ -98,7 +98,7 @@ public final class PreferencesPanel extends javax.swing.JPanel {
   public PreferencesPanel(final Context context) {
     this.context = context;
     initComponents();
-    this.textFieldPathToGraphvizDot.getDocument().addDocumentListener(new DocumentListener() {
+    final DocumentListener textChangeListener = new DocumentListener() {
 
       private void onChange() {
         if (changeNotificationAllowed) {
@@ -120,7 +120,9 @@ public final class PreferencesPanel extends javax.swing.JPanel {
       public void changedUpdate(@Nonnull final DocumentEvent e) {
         onChange();
       }
-    });
+    };
+    this.textFieldPathToGraphvizDot.getDocument().addDocumentListener(textChangeListener);
+    this.textFieldIgnoredFiles.getDocument().addDocumentListener(textChangeListener);
   }
 
   public boolean isChanged() {
@@ -212,6 +214,9 @@ public final class PreferencesPanel extends javax.swing.JPanel {
     checkboxMetricsAllowed = new javax.swing.JCheckBox();
     checkboxTrimTopicText = new javax.swing.JCheckBox();
     checkBoxShowHiddenFiles = new javax.swing.JCheckBox();
+    checkBoxHideGitIgnoredFiles = new javax.swing.JCheckBox();
+    labelIgnoredFiles = new javax.swing.JLabel();
+    textFieldIgnoredFiles = new javax.swing.JTextField();
     jPanel9 = new javax.swing.JPanel();
     buttonAbout = new javax.swing.JButton();
     donateButton1 = new com.igormaznitsa.sciareto.ui.misc.DonateButton();
@@ -980,6 +985,35 @@ public final class PreferencesPanel extends javax.swing.JPanel {
     gridBagConstraints.anchor = java.awt.GridBagConstraints.NORTHWEST;
     jPanel1.add(checkBoxShowHiddenFiles, gridBagConstraints);
 
+    checkBoxHideGitIgnoredFiles.setText("Hide files listed in project .gitignore (needs folder reload)");
+    checkBoxHideGitIgnoredFiles.addActionListener(new java.awt.event.ActionListener() {
+      public void actionPerformed(java.awt.event.ActionEvent evt) {
+        checkBoxHideGitIgnoredFilesActionPerformed(evt);
+      }
+    });
+    gridBagConstraints = new java.awt.GridBagConstraints();
+    gridBagConstraints.gridx = 0;
+    gridBagConstraints.gridy = 10;
+    gridBagConstraints.fill = java.awt.GridBagConstraints.HORIZONTAL;
+    gridBagConstraints.anchor = java.awt.GridBagConstraints.NORTHWEST;
+    jPanel1.add(checkBoxHideGitIgnoredFiles, gridBagConstraints);
+
+    labelIgnoredFiles.setText("Ignored files (comma separated globs, needs folder reload):");
+    gridBagConstraints = new java.awt.GridBagConstraints();
+    gridBagConstraints.gridx = 0;
+    gridBagConstraints.gridy = 11;
+    gridBagConstraints.fill = java.awt.GridBagConstraints.HORIZONTAL;
+    gridBagConstraints.anchor = java.awt.GridBagConstraints.NORTHWEST;
+    jPanel1.add(labelIgnoredFiles, gridBagConstraints);
+
+    textFieldIgnoredFiles.setToolTipText("For instance: node_modules, *.class, build/");
+    gridBagConstraints = new java.awt.GridBagConstraints();
+    gridBagConstraints.gridx = 0;
+    gridBagConstraints.gridy = 12;
+    gridBagConstraints.fill = java.awt.GridBagConstraints.HORIZONTAL;
+    gridBagConstraints.anchor = java.awt.GridBagConstraints.NORTHWEST;
+    jPanel1.add(textFieldIgnoredFiles, gridBagConstraints);
+
     gridBagConstraints = new java.awt.GridBagConstraints();
     gridBagConstraints.gridx = 0;
     gridBagConstraints.gridy = 3;
@@ -1412,6 +1446,12 @@ public final class PreferencesPanel extends javax.swing.JPanel {
       }
     }//GEN-LAST:event_checkBoxShowHiddenFilesActionPerformed
 
+    private void checkBoxHideGitIgnoredFilesActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_checkBoxHideGitIgnoredFilesActionPerformed
+      if (this.changeNotificationAllowed) {
+        this.changed = true;
+      }
+    }//GEN-LAST:event_checkBoxHideGitIgnoredFilesActionPerformed
+
     private void buttonGraphvizDotFileActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_buttonGraphvizDotFileActionPerformed
       final JFileChooser fileChooser = new JFileChooser(this.textFieldPathToGraphvizDot.getText());
       fileChooser.setDialogTitle("Select GraphViz dot executable file");
@@ -1441,6 +1481,8 @@ public final class PreferencesPanel extends javax.swing.JPanel {
     try {
       // Common behaviour options
       this.checkBoxShowHiddenFiles.setSelected(preferences.getBoolean("showHiddenFiles", true)); //NOI18N
+      this.checkBoxHideGitIgnoredFiles.setSelected(preferences.getBoolean(PrefUtils.PROPERTY_HIDE_GIT_IGNORED_FILES, false));
+      this.textFieldIgnoredFiles.setText(preferences.get(PrefUtils.PROPERTY_IGNORED_FILES, PrefUtils.DEFAULT_IGNORED_FILES));
       this.checkboxTrimTopicText.setSelected(preferences.getBoolean("trimTopicText", false)); //NOI18N
       this.checkboxUseInsideBrowser.setSelected(preferences.getBoolean("useInsideBrowser", false)); //NOI18N
       this.checkboxRelativePathsForFilesInTheProject.setSelected(preferences.getBoolean("makeRelativePathToProject", true)); //NOI18N
@@ -1562,6 +1604,8 @@ public final class PreferencesPanel extends javax.swing.JPanel {
     preferences.putBoolean("useInsideBrowser", this.checkboxUseInsideBrowser.isSelected()); //NOI18N
     preferences.putBoolean("trimTopicText", this.checkboxTrimTopicText.isSelected()); //NOI18N
     preferences.putBoolean("showHiddenFiles", this.checkBoxShowHiddenFiles.isSelected()); //NOI18N
+    preferences.putBoolean(PrefUtils.PROPERTY_HIDE_GIT_IGNORED_FILES, this.checkBoxHideGitIgnoredFiles.isSelected());
+    preferences.put(PrefUtils.PROPERTY_IGNORED_FILES, this.textFieldIgnoredFiles.getText().trim());
     preferences.putBoolean("makeRelativePathToProject", this.checkboxRelativePathsForFilesInTheProject.isSelected()); //NOI18N
     preferences.putBoolean("unfoldCollapsedTarget", this.checkBoxUnfoldCollapsedTarget.isSelected()); //NOI18N
     preferences.putBoolean("copyColorInfoToNewChildAllowed", this.checkBoxCopyColorInfoToNewAllowed.isSelected()); //NOI18N
@@ -1628,6 +1672,7 @@ public final class PreferencesPanel extends javax.swing.JPanel {
   private javax.swing.JCheckBox checkBoxScalingMETA;
   private javax.swing.JCheckBox checkBoxScalingSHIFT;
   private javax.swing.JCheckBox checkBoxShowGrid;
+  private javax.swing.JCheckBox checkBoxHideGitIgnoredFiles;
   private javax.swing.JCheckBox checkBoxShowHiddenFiles;
   private javax.swing.JCheckBox checkBoxUnfoldCollapsedTarget;
   private javax.swing.JCheckBox checkboxMetricsAllowed;
@@ -1683,6 +1728,7 @@ public final class PreferencesPanel extends javax.swing.JPanel {
   private javax.swing.JPanel jPanel8;
   private javax.swing.JPanel jPanel9;
   private javax.swing.JLabel labelBorderWidth;
+  private javax.swing.JLabel labelIgnoredFiles;
   private javax.swing.JPanel panelScalingModifiers;
   private javax.swing.JSlider slider1stLevelHorzGap;
   private javax.swing.JSlider slider1stLevelVertGap;
@@ -1696,6 +1742,7 @@ public final class PreferencesPanel extends javax.swing.JPanel {
   private javax.swing.JSpinner spinnerJumpLinkWidth;
   private javax.swing.JSpinner spinnerSelectLineGap;
   private javax.swing.JSpinner spinnerSelectLineWidth;
+  private javax.swing.JTextField textFieldIgnoredFiles;
   private javax.swing.JTextField textFieldPathToGraphvizDot;
   // End of variables declaration//GEN-END:variables
 }
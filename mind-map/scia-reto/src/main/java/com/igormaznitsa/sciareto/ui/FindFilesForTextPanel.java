@@ -45,6 +45,7 @@ import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
 import com.igormaznitsa.sciareto.Context;
+import com.igormaznitsa.sciareto.preferences.PrefUtils;
 import com.igormaznitsa.sciareto.ui.misc.FileExaminator;
 import com.igormaznitsa.sciareto.ui.misc.NodeListRenderer;
 import com.igormaznitsa.sciareto.ui.tree.NodeFileOrFolder;
@@ -285,8 +286,13 @@ public final class FindFilesForTextPanel extends javax.swing.JPanel {
       }
 
       private void processFolder(final NodeFileOrFolder folder) {
+        final boolean loaded = folder.isChildrenLoaded();
+        final List<NodeFileOrFolder> children = folder.listChildren(PrefUtils.isShowHiddenFilesAndFolders());
+        if (!loaded) {
+          safeIncreaseProgressMaximum(children.size());
+        }
         value++;
-        for (final NodeFileOrFolder f : folder) {
+        for (final NodeFileOrFolder f : children) {
           if (f.isLeaf()) {
             processFile(f);
           } else {
@@ -372,6 +378,15 @@ public final class FindFilesForTextPanel extends javax.swing.JPanel {
       }
     });
   }
+  private void safeIncreaseProgressMaximum(final int delta) {
+    SwingUtilities.invokeLater(new Runnable() {
+      @Override
+      public void run() {
+        progressBarSearch.setMaximum(progressBarSearch.getMaximum() + delta);
+      }
+    });
+  }
+
 
   /**
    * This method is called from within the constructor to initialize the form.
@@ -18,14 +18,18 @@
  */
 package com.igormaznitsa.sciareto.ui;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -34,13 +38,12 @@ import javax.swing.SwingUtilities;
 import javax.swing.event.ListDataEvent;
 import javax.swing.event.ListDataListener;
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.LineIterator;
 import com.igormaznitsa.meta.annotation.MustNotContainNull;
-import com.igormaznitsa.mindmap.model.MindMap;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
 import com.igormaznitsa.sciareto.Context;
+import com.igormaznitsa.sciareto.preferences.PrefUtils;
 import com.igormaznitsa.sciareto.ui.misc.NodeListRenderer;
 import com.igormaznitsa.sciareto.ui.tree.NodeFileOrFolder;
 import com.igormaznitsa.sciareto.ui.tree.NodeProject;
@@ -147,32 +150,53 @@ public class FindUsagesPanel extends javax.swing.JPanel {
     if (nodeFileToSearch == null) {
       safeSetProgressValue(Integer.MAX_VALUE);
     } else {
+      final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors()), new ThreadFactory() {
+        @Override
+        @Nonnull
+        public Thread newThread(@Nonnull final Runnable r) {
+          final Thread result = new Thread(r, "SciaRetoSearchUsageWorker"); //NOI18N
+          result.setDaemon(true);
+          return result;
+        }
+      });
 
       final Runnable runnable = new Runnable() {
 
-        int value = 0;
-
-        private void processFile(final NodeFileOrFolder file) {
-          value++;
+        private final AtomicInteger value = new AtomicInteger();
+        private final AtomicBoolean progressPosted = new AtomicBoolean();
+        private final List<Future<?>> tasks = new ArrayList<>();
+
+        /**
+         * Show current value of the shared counter. Workers don't post their
+         * own values, so that the bar never goes back, and only one update
+         * is waiting in the Swing queue at a time.
+         */
+        private void postProgress() {
+          if (this.progressPosted.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(new Runnable() {
+              @Override
+              public void run() {
+                progressPosted.set(false);
+                setProgressValue(value.get());
+              }
+            });
+          }
+        }
 
+        private void processFile(@Nonnull final NodeFileOrFolder file) {
           final File f = file.makeFileForNode();
           final NodeProject project = file.findProject();
-          if (project != null) {
+          if (f != null && project != null) {
             final String extension = FilenameUtils.getExtension(f.getName()).toLowerCase(Locale.ENGLISH);
             if ("mmd".equals(extension)) { //NOI18N
-              Reader reader = null;
               try {
-                reader = new BufferedReader(new InputStreamReader(new FileInputStream(f), "UTF-8")); //NOI18N
-                final MindMap map = new MindMap(null, reader);
-                if (!MapUtils.findTopicsRelatedToFile(project.getFolder(), nodeFileToSearch, map).isEmpty()) {
+                if (MapUtils.hasLinkToFile(project.getFolder(), nodeFileToSearch, org.apache.commons.io.FileUtils.readFileToString(f, "UTF-8"))) { //NOI18N
                   addFileIntoList(file);
                 }
               } catch (Exception ex) {
-                LOGGER.error("Can't parse map", ex); //NOI18N
-              } finally {
-                IOUtils.closeQuietly(reader);
+                LOGGER.error("Can't parse map : " + f, ex); //NOI18N
               }
-            } else if (findEverywhere){
+            } else if (findEverywhere) {
               try {
                 final LineIterator lineIterator = org.apache.commons.io.FileUtils.lineIterator(f, "UTF-8"); //NOI18N
                 try {
@@ -194,41 +218,72 @@ public class FindUsagesPanel extends javax.swing.JPanel {
               }
             }
           }
+        }
 
-          if (!Thread.currentThread().isInterrupted()) {
-            safeSetProgressValue(value);
-          }
+        private void submitFile(@Nonnull final NodeFileOrFolder file) {
+          this.tasks.add(executor.submit(new Runnable() {
+            @Override
+            public void run() {
+              if (!Thread.currentThread().isInterrupted()) {
+                processFile(file);
+                value.incrementAndGet();
+                if (!Thread.currentThread().isInterrupted()) {
+                  postProgress();
+                }
+              }
+            }
+          }));
         }
 
-        private void processFolder(final NodeFileOrFolder folder) {
-          value++;
-          for (final NodeFileOrFolder f : folder) {
+        private void processFolder(@Nonnull final NodeFileOrFolder folder) {
+          final boolean loaded = folder.isChildrenLoaded();
+          final List<NodeFileOrFolder> children = folder.listChildren(PrefUtils.isShowHiddenFilesAndFolders());
+          if (!loaded) {
+            safeIncreaseProgressMaximum(children.size());
+          }
+          this.value.incrementAndGet();
+          postProgress();
+          for (final NodeFileOrFolder f : children) {
+            if (Thread.currentThread().isInterrupted()) {
+              return;
+            }
             if (f.isLeaf()) {
-              processFile(f);
+              submitFile(f);
             } else {
               processFolder(f);
             }
           }
-          if (!Thread.currentThread().isInterrupted()) {
-            safeSetProgressValue(value);
-          }
         }
 
         @Override
         public void run() {
-          for (final NodeProject p : scope) {
-            for (final NodeFileOrFolder f : p) {
-              if (Thread.currentThread().isInterrupted()) {
-                return;
-              }
-              if (f.isLeaf()) {
-                processFile(f);
-              } else {
-                processFolder(f);
+          try {
+            for (final NodeProject p : scope) {
+              for (final NodeFileOrFolder f : p) {
+                if (Thread.currentThread().isInterrupted()) {
+                  return;
+                }
+                if (f.isLeaf()) {
+                  submitFile(f);
+                } else {
+                  processFolder(f);
+                }
               }
             }
+            for (final Future<?> task : this.tasks) {
+              task.get();
+            }
+            safeSetProgressValue(Integer.MAX_VALUE);
+          } catch (InterruptedException | CancellationException ex) {
+            Thread.currentThread().interrupt();
+          } catch (ExecutionException ex) {
+            LOGGER.error("Error during search of usages", ex); //NOI18N
+          } finally {
+            for (final Future<?> task : this.tasks) {
+              task.cancel(true);
+            }
+            executor.shutdownNow();
           }
-          safeSetProgressValue(Integer.MAX_VALUE);
         }
       };
 
@@ -254,26 +309,40 @@ public class FindUsagesPanel extends javax.swing.JPanel {
     }
   }
 
+  private void setProgressValue(final int value) {
+    if (value == Integer.MAX_VALUE) {
+      progressBarSearch.setEnabled(false);
+      progressBarSearch.setIndeterminate(false);
+      progressBarSearch.setValue(progressBarSearch.getMaximum());
+    } else if (value < 0) {
+      progressBarSearch.setEnabled(true);
+      progressBarSearch.setIndeterminate(true);
+    } else {
+      progressBarSearch.setEnabled(true);
+      progressBarSearch.setIndeterminate(false);
+      progressBarSearch.setValue(value);
+    }
+  }
+
   private void safeSetProgressValue(final int value) {
     SwingUtilities.invokeLater(new Runnable() {
       @Override
       public void run() {
-        if (value == Integer.MAX_VALUE) {
-          progressBarSearch.setEnabled(false);
-          progressBarSearch.setIndeterminate(false);
-          progressBarSearch.setValue(progressBarSearch.getMaximum());
-        } else if (value < 0) {
-          progressBarSearch.setEnabled(true);
-          progressBarSearch.setIndeterminate(true);
-        } else {
-          progressBarSearch.setEnabled(true);
-          progressBarSearch.setIndeterminate(false);
-          progressBarSearch.setValue(value);
-        }
+        setProgressValue(value);
       }
     });
   }
 
+  private void safeIncreaseProgressMaximum(final int delta) {
+    SwingUtilities.invokeLater(new Runnable() {
+      @Override
+      public void run() {
+        progressBarSearch.setMaximum(progressBarSearch.getMaximum() + delta);
+      }
+    });
+  }
+
+
   public void dispose() {
     final Thread thread = this.searchingThread.getAndSet(null);
     if (thread != null) {
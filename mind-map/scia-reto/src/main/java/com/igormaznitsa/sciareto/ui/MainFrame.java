@@ -402,7 +402,8 @@ public final class MainFrame extends javax.swing.JFrame implements Context, Plat
     });
   }
 
-  public void processTabChanged(@Nullable final TabTitle title) {
+  public void processTabChanged(@Nullable final TabTitle changedTitle) {
+    final TabTitle title = changedTitle == null ? null : materializeTab(changedTitle);
     this.menuSaveAll.setEnabled(this.tabPane.hasEditableAndChangedDocument());
 
     if (title != null && !this.tabPane.isEmpty() && title.getProvider().doesSupportPatternSearch()) {
@@ -522,36 +523,73 @@ public final class MainFrame extends javax.swing.JFrame implements Context, Plat
   }
 
   private void restoreState() {
+    final long start = System.currentTimeMillis();
     try {
-      final File[] activeProjects = FileHistoryManager.getInstance().getActiveProjects();
-      for (final File f : activeProjects) {
-        if (f.isDirectory()) {
-          openProject(f, true);
-        }
-      }
       final File[] activeFiles = FileHistoryManager.getInstance().getActiveFiles();
       for (final File f : activeFiles) {
-        if (f.isFile()) {
-          openFileAsTab(f, -1);
+        if (f.isFile() && !this.tabPane.focusToFile(f, -1)) {
+          this.tabPane.createTab(new EditorPlaceholder(this, f));
         }
       }
+      final long placeholdersCreated = System.currentTimeMillis();
 
-      for (int i = 0; i < this.tabPane.getTabCount(); i++) {
-        final TabTitle tab = (TabTitle) this.tabPane.getTabComponentAt(i);
-        if (tab.getType() == EditorContentType.PLANTUML) {
-          SwingUtilities.invokeLater(new Runnable() {
-            @Override
-            public void run() {
-              ((PlantUmlTextEditor) tab.getProvider()).hideTextPanel();
-            }
-          });
+      final TabTitle visibleTab = this.tabPane.getCurrentTitle();
+      if (visibleTab != null) {
+        materializeTab(visibleTab);
+      }
+      final long visibleTabLoaded = System.currentTimeMillis();
+
+      final File[] activeProjects = FileHistoryManager.getInstance().getActiveProjects();
+      for (final File f : activeProjects) {
+        if (f.isDirectory()) {
+          openProject(f, true);
         }
       }
+
+      LOGGER.info(String.format("Session restored in %d ms (tab placeholders %d ms, visible tab %d ms, scheduling of %d project(s) %d ms)", //NOI18N
+          System.currentTimeMillis() - start,
+          placeholdersCreated - start,
+          visibleTabLoaded - placeholdersCreated,
+          activeProjects.length,
+          System.currentTimeMillis() - visibleTabLoaded));
     } catch (IOException ex) {
       LOGGER.error("Can't restore state", ex); //NOI18N
     }
   }
 
+  /**
+   * Replace placeholder of restored tab by real editor.
+   *
+   * @param title title of tab, if it is not placeholder then nothing happens
+   * @return title of the tab after replacement
+   */
+  @Nullable
+  private TabTitle materializeTab(@Nonnull final TabTitle title) {
+    if (!(title.getProvider() instanceof EditorPlaceholder)) {
+      return title;
+    }
+
+    final long start = System.currentTimeMillis();
+    final EditorPlaceholder placeholder = (EditorPlaceholder) title.getProvider();
+    final File file = title.getAssociatedFile();
+
+    final AbstractEditor editor = file == null || !file.isFile() ? null : makeEditor(file, placeholder.getLine());
+
+    final TabTitle result;
+    if (editor == null) {
+      this.tabPane.removeTab(title);
+      result = this.tabPane.getCurrentTitle();
+    } else {
+      this.tabPane.replaceTab(title, editor);
+      if (editor instanceof PlantUmlTextEditor) {
+        ((PlantUmlTextEditor) editor).hideTextPanel();
+      }
+      result = editor.getTabTitle();
+      LOGGER.info("Restored tab " + file.getName() + " has been loaded in " + (System.currentTimeMillis() - start) + " ms"); //NOI18N
+    }
+    return result;
+  }
+
   private void saveState() {
     try {
       final List<File> files = new ArrayList<>();
@@ -576,6 +614,51 @@ public final class MainFrame extends javax.swing.JFrame implements Context, Plat
     }
   }
 
+  private static boolean isOpenedAsPlainText(@Nonnull final String ext) {
+    return !ext.equals("mmd") //NOI18N
+        && !PictureViewer.SUPPORTED_FORMATS.contains(ext)
+        && !SourceTextEditor.SUPPORTED_EXTENSIONS.contains(ext)
+        && !PlantUmlTextEditor.SUPPORTED_EXTENSIONS.contains(ext);
+  }
+
+  @Nullable
+  private AbstractEditor makeEditor(@Nonnull final File file, final int line) {
+    AbstractEditor result = null;
+    final String ext = FilenameUtils.getExtension(file.getName()).toLowerCase(Locale.ENGLISH);
+    if (ext.equals("mmd")) { //NOI18N
+      try {
+        result = new MMDEditor(this, file);
+      } catch (IOException ex) {
+        LOGGER.error("Can't load mind map", ex); //NOI18N
+      }
+    } else if (PictureViewer.SUPPORTED_FORMATS.contains(ext)) {
+      try {
+        result = new PictureViewer(this, file);
+      } catch (IOException ex) {
+        LOGGER.error("Can't load file as image", ex); //NOI18N
+      }
+    } else if (SourceTextEditor.SUPPORTED_EXTENSIONS.contains(ext)) {
+      try {
+        result = new SourceTextEditor(this, file, line, false);
+      } catch (IOException ex) {
+        LOGGER.error("Can't load file as sources", ex); //NOI18N
+      }
+    } else if (PlantUmlTextEditor.SUPPORTED_EXTENSIONS.contains(ext)) {
+      try {
+        result = new PlantUmlTextEditor(this, file);
+      } catch (IOException ex) {
+        LOGGER.error("Can't load file as plant uml text", ex); //NOI18N
+      }
+    } else {
+      try {
+        result = new SourceTextEditor(this, file, line, true);
+      } catch (IOException ex) {
+        LOGGER.error("Can't load file as text", ex); //NOI18N
+      }
+    }
+    return result;
+  }
+
   @Override
   public boolean openFileAsTab(@Nonnull final File file, final int line) {
     boolean result = false;
@@ -584,60 +667,22 @@ public final class MainFrame extends javax.swing.JFrame implements Context, Plat
         result = true;
       } else {
         final String ext = FilenameUtils.getExtension(file.getName()).toLowerCase(Locale.ENGLISH);
-        if (ext.equals("mmd")) { //NOI18N
-          try {
-            final MMDEditor panel = new MMDEditor(this, file);
-            this.tabPane.createTab(panel);
-            result = true;
-          } catch (IOException ex) {
-            LOGGER.error("Can't load mind map", ex); //NOI18N
-          }
-        } else if (PictureViewer.SUPPORTED_FORMATS.contains(ext)) {
-          try {
-            final PictureViewer panel = new PictureViewer(this, file);
-            this.tabPane.createTab(panel);
-            result = true;
-          } catch (IOException ex) {
-            LOGGER.error("Can't load file as image", ex); //NOI18N
-          }
-        } else if (SourceTextEditor.SUPPORTED_EXTENSIONS.contains(ext)) {
-          try {
-            final SourceTextEditor panel = new SourceTextEditor(this, file, line, false);
-            this.tabPane.createTab(panel);
-            result = true;
-          } catch (IOException ex) {
-            LOGGER.error("Can't load file as sources", ex); //NOI18N
-          } finally {
-            processTabChange();
-          }
-        } else if (PlantUmlTextEditor.SUPPORTED_EXTENSIONS.contains(ext)) {
-          try {
-            final PlantUmlTextEditor panel = new PlantUmlTextEditor(this, file);
-            this.tabPane.createTab(panel);
-            result = true;
-          } catch (IOException ex) {
-            LOGGER.error("Can't load file as plant uml text", ex); //NOI18N
-          } finally {
-            processTabChange();
-          }
+        if (isOpenedAsPlainText(ext) && SystemFileExtensionManager.getInstance().isSystemFileExtension(FilenameUtils.getExtension(file.getName()))) {
+          LOGGER.info("Exension of file " + file.getName() + " among extensions to be opened in system browser");
+          result = false;
         } else {
-          if (SystemFileExtensionManager.getInstance().isSystemFileExtension(FilenameUtils.getExtension(file.getName()))) {
-            LOGGER.info("Exension of file " + file.getName() + " among extensions to be opened in system browser");
-            result = false;
-          } else {
-            if (file.length() >= (2L * 1024L * 1024L) && !DialogProviderManager.getInstance().getDialogProvider().msgConfirmYesNo(null, "Very big file", "It is a very big file! Are you sure to open it?")) {
-              return true;
-            }
+          if (isOpenedAsPlainText(ext) && file.length() >= (2L * 1024L * 1024L) && !DialogProviderManager.getInstance().getDialogProvider().msgConfirmYesNo(null, "Very big file", "It is a very big file! Are you sure to open it?")) {
+            return true;
+          }
 
-            try {
-              final SourceTextEditor panel = new SourceTextEditor(this, file, line, true);
-              this.tabPane.createTab(panel);
+          try {
+            final AbstractEditor editor = makeEditor(file, line);
+            if (editor != null) {
+              this.tabPane.createTab(editor);
               result = true;
-            } catch (IOException ex) {
-              LOGGER.error("Can't load file as text", ex); //NOI18N
-            } finally {
-              processTabChange();
             }
+          } finally {
+            processTabChange();
           }
         }
       }
@@ -1520,18 +1565,15 @@ public final class MainFrame extends javax.swing.JFrame implements Context, Plat
   private void menuGoToFileActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_menuGoToFileActionPerformed
     final GoToFilePanel panel = new GoToFilePanel(this.explorerTree, JOptionPane.OK_OPTION);
     if (DialogProviderManager.getInstance().getDialogProvider().msgOkCancel(null, "Go To File", panel)) {
-      final NodeFileOrFolder selected = panel.getSelected();
-      if (selected != null) {
-        final File file = selected.makeFileForNode();
-        if (file != null) {
-          this.focusInTree(file);
-          SwingUtilities.invokeLater(new Runnable() {
-            @Override
-            public void run() {
-              explorerTree.requestFocus();
-            }
-          });
-        }
+      final File file = panel.getSelected();
+      if (file != null) {
+        this.focusInTree(file);
+        SwingUtilities.invokeLater(new Runnable() {
+          @Override
+          public void run() {
+            explorerTree.requestFocus();
+          }
+        });
       }
     }
   }//GEN-LAST:event_menuGoToFileActionPerformed
@@ -30,6 +30,7 @@ import com.igormaznitsa.mindmap.model.ExtraFile;
 import com.igormaznitsa.mindmap.model.MMapURI;
 import com.igormaznitsa.mindmap.model.MindMap;
 import com.igormaznitsa.mindmap.model.Topic;
+import com.igormaznitsa.mindmap.model.parser.FileLinkScanner;
 
 public final class MapUtils {
 
@@ -56,25 +57,50 @@ public final class MapUtils {
 
     final List<Topic> result = new ArrayList<>();
 
-    final Path theFile = file.isAbsolute() ? file.toPath() : new File(baseFolder, file.getAbsolutePath()).toPath();
-
+    final Path theFile = makePathToFind(baseFolder, file);
     final boolean folder = file.isDirectory();
 
     for (final Topic t : map) {
       final ExtraFile linkToFile = (ExtraFile) t.getExtras().get(Extra.ExtraType.FILE);
-      if (linkToFile != null) {
-        final MMapURI uri = linkToFile.getAsURI();
-        final Path linkFile = uri.asFile(baseFolder).toPath();
-        if (folder) {
-          if (linkFile.startsWith(theFile)) {
-            result.add(t);
-          }
-        } else if (linkFile.equals(theFile)) {
-          result.add(t);
-        }
+      if (linkToFile != null && isLinkRelatedToFile(baseFolder, theFile, folder, linkToFile)) {
+        result.add(t);
       }
     }
 
     return result;
   }
+
+  /**
+   * Check that mind map text contains link to file. Only file links are
+   * scanned, topics are not created and scanning is stopped at the first
+   * found link.
+   *
+   * @param baseFolder base folder for relative links, can be null
+   * @param file file or folder to be found
+   * @param mindMapText text of mind map
+   * @return true if there is link to the file or to something inside the
+   * folder
+   * @throws IllegalArgumentException if the text is not mind map
+   */
+  public static boolean hasLinkToFile(@Nullable final File baseFolder, @Nonnull final File file, @Nonnull final CharSequence mindMapText) {
+    final Path theFile = makePathToFind(baseFolder, file);
+    final boolean folder = file.isDirectory();
+
+    return !FileLinkScanner.scan(mindMapText, new FileLinkScanner.Visitor() {
+      @Override
+      public boolean onFileLink(@Nonnull final ExtraFile link) {
+        return !Thread.currentThread().isInterrupted() && !isLinkRelatedToFile(baseFolder, theFile, folder, link);
+      }
+    }) && !Thread.currentThread().isInterrupted();
+  }
+
+  @Nonnull
+  private static Path makePathToFind(@Nullable final File baseFolder, @Nonnull final File file) {
+    return file.isAbsolute() ? file.toPath() : new File(baseFolder, file.getAbsolutePath()).toPath();
+  }
+
+  private static boolean isLinkRelatedToFile(@Nullable final File baseFolder, @Nonnull final Path theFile, final boolean folder, @Nonnull final ExtraFile link) {
+    final Path linkFile = link.getAsURI().asFile(baseFolder).toPath();
+    return folder ? linkFile.startsWith(theFile) : linkFile.equals(theFile);
+  }
 }
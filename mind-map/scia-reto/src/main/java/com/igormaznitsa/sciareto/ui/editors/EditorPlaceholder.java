@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2018 Igor Maznitsa.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package com.igormaznitsa.sciareto.ui.editors;
+
+import com.igormaznitsa.sciareto.Context;
+import com.igormaznitsa.sciareto.ui.FindTextScopeProvider;
+import com.igormaznitsa.sciareto.ui.tabs.TabTitle;
+import java.awt.BorderLayout;
+import java.io.File;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import javax.annotation.Nonnull;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.SwingConstants;
+import javax.swing.filechooser.FileFilter;
+import org.apache.commons.io.FilenameUtils;
+
+/**
+ * Lightweight tab content for a file restored from previous session. It
+ * doesn't read the file, the real editor replaces it on first activation of
+ * the tab.
+ */
+public final class EditorPlaceholder extends AbstractEditor {
+
+  private static final FileFilter ALL_FILES = new FileFilter() {
+    @Override
+    public boolean accept(@Nonnull final File f) {
+      return true;
+    }
+
+    @Override
+    @Nonnull
+    public String getDescription() {
+      return "All files";
+    }
+  };
+
+  private final TabTitle title;
+  private final JPanel mainPanel = new JPanel(new BorderLayout(0, 0));
+  private final EditorContentType contentType;
+  private volatile int line = -1;
+
+  public EditorPlaceholder(@Nonnull final Context context, @Nonnull final File file) {
+    super();
+    this.title = new TabTitle(context, this, file);
+    this.contentType = findContentType(file);
+    this.mainPanel.add(new JLabel("Loading " + file.getName() + "...", SwingConstants.CENTER), BorderLayout.CENTER);
+  }
+
+  @Nonnull
+  private static EditorContentType findContentType(@Nonnull final File file) {
+    final String ext = FilenameUtils.getExtension(file.getName()).toLowerCase(Locale.ENGLISH);
+    final EditorContentType result;
+    if (ext.equals("mmd")) { //NOI18N
+      result = EditorContentType.MINDMAP;
+    } else if (PictureViewer.SUPPORTED_FORMATS.contains(ext)) {
+      result = EditorContentType.IMAGE;
+    } else if (SourceTextEditor.SUPPORTED_EXTENSIONS.contains(ext)) {
+      result = EditorContentType.SOURCES;
+    } else if (PlantUmlTextEditor.SUPPORTED_EXTENSIONS.contains(ext)) {
+      result = EditorContentType.PLANTUML;
+    } else {
+      result = EditorContentType.TEXT;
+    }
+    return result;
+  }
+
+  /**
+   * Get line requested for focus before the real editor has been created.
+   *
+   * @return line number or -1 if not defined
+   */
+  public int getLine() {
+    return this.line;
+  }
+
+  @Nonnull
+  @Override
+  public String getDefaultExtension() {
+    final File file = this.title.getAssociatedFile();
+    return file == null ? "" : FilenameUtils.getExtension(file.getName());
+  }
+
+  @Override
+  public void focusToEditor(final int line) {
+    this.line = line;
+  }
+
+  @Override
+  @Nonnull
+  public FileFilter getFileFilter() {
+    return ALL_FILES;
+  }
+
+  @Override
+  public void loadContent(@Nonnull final File file) {
+  }
+
+  @Override
+  public boolean saveDocument() {
+    return true;
+  }
+
+  @Override
+  public boolean saveDocumentAs() {
+    return false;
+  }
+
+  @Override
+  public boolean isEditable() {
+    return false;
+  }
+
+  @Override
+  public boolean isSaveable() {
+    return false;
+  }
+
+  @Override
+  @Nonnull
+  public TabTitle getTabTitle() {
+    return this.title;
+  }
+
+  @Override
+  @Nonnull
+  public EditorContentType getEditorContentType() {
+    return this.contentType;
+  }
+
+  @Override
+  @Nonnull
+  public JComponent getMainComponent() {
+    return this.mainPanel;
+  }
+
+  @Override
+  @Nonnull
+  public JComponent getContainerToShow() {
+    return this.mainPanel;
+  }
+
+  @Override
+  @Nonnull
+  public AbstractEditor getEditor() {
+    return this;
+  }
+
+  @Override
+  public boolean isRedo() {
+    return false;
+  }
+
+  @Override
+  public boolean isUndo() {
+    return false;
+  }
+
+  @Override
+  public boolean redo() {
+    return false;
+  }
+
+  @Override
+  public boolean undo() {
+    return false;
+  }
+
+  @Override
+  public boolean findNext(@Nonnull final Pattern pattern, @Nonnull final FindTextScopeProvider provider) {
+    return false;
+  }
+
+  @Override
+  public boolean findPrev(@Nonnull final Pattern pattern, @Nonnull final FindTextScopeProvider provider) {
+    return false;
+  }
+
+  @Override
+  public boolean doesSupportPatternSearch() {
+    return false;
+  }
+
+  @Override
+  public boolean doesSupportCutCopyPaste() {
+    return false;
+  }
+
+  @Override
+  public boolean isCutAllowed() {
+    return false;
+  }
+
+  @Override
+  public boolean doCut() {
+    return false;
+  }
+
+  @Override
+  public boolean isCopyAllowed() {
+    return false;
+  }
+
+  @Override
+  public boolean isPasteAllowed() {
+    return false;
+  }
+
+  @Override
+  public boolean doCopy() {
+    return false;
+  }
+
+  @Override
+  public boolean doPaste() {
+    return false;
+  }
+}
@@ -30,6 +30,7 @@ import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
 import com.igormaznitsa.mindmap.plugins.api.CustomJob;
 import com.igormaznitsa.mindmap.plugins.api.PopUpMenuItemPlugin;
+import com.igormaznitsa.mindmap.plugins.attributes.images.ImageBlobStorage;
 import com.igormaznitsa.mindmap.plugins.processors.ExtraFilePlugin;
 import com.igormaznitsa.mindmap.plugins.processors.ExtraJumpPlugin;
 import com.igormaznitsa.mindmap.plugins.processors.ExtraNotePlugin;
@@ -40,6 +41,7 @@ import com.igormaznitsa.mindmap.swing.panel.ui.AbstractElement;
 import com.igormaznitsa.mindmap.swing.panel.ui.ElementPart;
 import com.igormaznitsa.mindmap.swing.panel.utils.KeyEventType;
 import com.igormaznitsa.mindmap.swing.panel.utils.MindMapUtils;
+import com.igormaznitsa.mindmap.swing.panel.utils.PerformanceMetrics;
 import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
 import com.igormaznitsa.sciareto.Context;
 import com.igormaznitsa.sciareto.Main;
@@ -74,6 +76,7 @@ import java.io.StringReader;
 import java.io.StringWriter;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.List;
 import java.util.regex.Pattern;
@@ -84,12 +87,16 @@ import com.igormaznitsa.sciareto.preferences.SystemFileExtensionManager;
 import static com.igormaznitsa.sciareto.ui.UiUtils.BUNDLE;
 import org.apache.commons.io.FilenameUtils;
 
-public final class MMDEditor extends AbstractEditor implements MindMapPanelController, MindMapController, MindMapListener, DropTargetListener {
+public final class MMDEditor extends AbstractEditor implements MindMapPanelController, MindMapController, MindMapListener, DropTargetListener, ImageBlobStorage.Provider {
 
   private static final long serialVersionUID = -1011638261448046208L;
 
   private static final Logger LOGGER = LoggerFactory.getLogger(MMDEditor.class);
 
+  private static final long MODEL_CACHE_MIN_FILE_SIZE = 256L * 1024L;
+  private static final String IMAGE_STORAGE_FOLDER = "images"; //NOI18N
+  private static final MindMapBinaryCache MODEL_CACHE = new MindMapBinaryCache(new File(Main.USER_DATA_FOLDER, "model-cache")); //NOI18N
+
   private final MindMapPanel mindMapPanel;
 
   private final TabTitle title;
@@ -101,11 +108,14 @@ public final class MMDEditor extends AbstractEditor implements MindMapPanelContr
 
   private boolean preventAddUndo = false;
   private String currentModelState;
+  private MindMap currentModelCopy;
 
   private boolean firstLayouting = true;
 
   private final JScrollPane scrollPane;
 
+  private final MindMapAutosaver autosaver;
+
   public void refreshConfig() {
     this.mindMapPanel.refreshConfiguration();
   }
@@ -163,13 +173,61 @@ public final class MMDEditor extends AbstractEditor implements MindMapPanelContr
     if (file == null || file.length() == 0L) {
       map = new MindMap(this, true);
     } else {
-      map = new MindMap(this, new StringReader(FileUtils.readFileToString(file, "UTF-8"))); //NOI18N
+      map = loadMindMap(file);
     }
 
     this.mindMapPanel.setModel(Assertions.assertNotNull(map), false);
 
+    this.autosaver = new MindMapAutosaver(new MindMapAutosaver.ModelProvider() {
+      @Override
+      @Nullable
+      public MindMap getModelToSave() {
+        return isDisposed() || !title.isChanged() ? null : mindMapPanel.getModel();
+      }
+
+      @Override
+      @Nullable
+      public File getDocumentFile() {
+        return title.getAssociatedFile();
+      }
+    });
+
     loadContent(file);
-    this.currentModelState = this.mindMapPanel.getModel().packToString();
+    if (file != null) {
+      recoverAutosave(file);
+    }
+    // copy shares not parsed text of the model, so that it is packed only on first change
+    this.currentModelCopy = new MindMap(this.mindMapPanel.getModel(), null);
+  }
+
+  @Nullable
+  private String takeCurrentModelState() {
+    if (this.currentModelState == null && this.currentModelCopy != null) {
+      this.currentModelState = this.currentModelCopy.packToString();
+      this.currentModelCopy = null;
+    }
+    return this.currentModelState;
+  }
+
+  private void recoverAutosave(@Nonnull final File file) {
+    final File autosave = MindMapAutosaver.findForRecovery(file);
+    if (autosave != null) {
+      if (DialogProviderManager.getInstance().getDialogProvider().msgConfirmYesNo(null, BUNDLE.getString("MMDGraphEditor.recoverAutosave.title"), String.format(BUNDLE.getString("MMDGraphEditor.recoverAutosave.msg"), file.getName()))) {
+        try {
+          this.mindMapPanel.setModel(new MindMap(this, new StringReader(FileUtils.readFileToString(autosave, "UTF-8")), true), false); //NOI18N
+          this.title.setChanged(true);
+          return;
+        } catch (IOException ex) {
+          LOGGER.error("Can't load autosave file : " + autosave, ex); //NOI18N
+        }
+      }
+      this.autosaver.discard(file);
+    }
+  }
+
+  @Override
+  protected void doDispose() {
+    this.autosaver.dispose(this.title.getAssociatedFile());
   }
 
   public void rootToCentre() {
@@ -192,7 +250,7 @@ public final class MMDEditor extends AbstractEditor implements MindMapPanelContr
       }
 
       if (element != null) {
-        final Rectangle2D bounds = element.getBounds();
+        final Rectangle2D bounds = this.mindMapPanel.getBoundsOnPanel(element.getModel());
         final Dimension viewPortSize = this.scrollPane.getViewport().getExtentSize();
 
         final int x = Math.max(0, (int) Math.round(bounds.getX() - (viewPortSize.getWidth() - bounds.getWidth()) / 2));
@@ -272,7 +330,7 @@ public final class MMDEditor extends AbstractEditor implements MindMapPanelContr
     if (file == null || file.length() == 0L) {
       map = new MindMap(this, true);
     } else {
-      map = new MindMap(this, new StringReader(FileUtils.readFileToString(file, "UTF-8"))); //NOI18N
+      map = loadMindMap(file);
     }
     this.mindMapPanel.setModel(Assertions.assertNotNull(map), false);
 
@@ -284,6 +342,19 @@ public final class MMDEditor extends AbstractEditor implements MindMapPanelContr
     this.scrollPane.revalidate();
   }
 
+  @Nonnull
+  private MindMap loadMindMap(@Nonnull final File file) throws IOException {
+    final long start = PerformanceMetrics.start();
+    final MindMap result;
+    if (file.length() >= MODEL_CACHE_MIN_FILE_SIZE) {
+      result = MODEL_CACHE.load(this, file, true);
+    } else {
+      result = new MindMap(this, new StringReader(FileUtils.readFileToString(file, "UTF-8")), true); //NOI18N
+    }
+    PerformanceMetrics.stop(PerformanceMetrics.PARSE, start);
+    return result;
+  }
+
   @Override
   public boolean saveDocument() throws IOException {
     boolean result = false;
@@ -295,7 +366,16 @@ public final class MMDEditor extends AbstractEditor implements MindMapPanelContr
           return result;
         }
       }
-      FileUtils.write(file, this.mindMapPanel.getModel().write(new StringWriter(16384)).toString(), "UTF-8", false); //NOI18N
+      final long start = PerformanceMetrics.start();
+      final String text = this.mindMapPanel.getModel().write(new StringWriter(16384)).toString();
+      final byte[] data = text.getBytes(StandardCharsets.UTF_8);
+      FileUtils.writeByteArrayToFile(file, data, false);
+      PerformanceMetrics.stop(PerformanceMetrics.SAVE, start);
+      this.autosaver.discard(file);
+      // the same size in bytes as checked during load
+      if (data.length >= MODEL_CACHE_MIN_FILE_SIZE) {
+        MODEL_CACHE.update(file, text);
+      }
       this.title.setChanged(false);
       result = true;
       this.undoStorage.setFlagThatSomeStateLost();
@@ -395,14 +475,18 @@ public final class MMDEditor extends AbstractEditor implements MindMapPanelContr
 
   @Override
   public void onMindMapModelChanged(@Nonnull final MindMapPanel source) {
-    if (!this.preventAddUndo && this.currentModelState != null) {
-      this.undoStorage.addToUndo(this.currentModelState);
+    final String previousState = this.preventAddUndo ? null : takeCurrentModelState();
+    if (previousState != null) {
+      this.undoStorage.addToUndo(previousState);
       this.undoStorage.clearRedo();
       this.currentModelState = source.getModel().packToString();
     }
 
     try {
       this.title.setChanged(true);
+      if (this.title.getAssociatedFile() != null) {
+        this.autosaver.requestSave();
+      }
       this.scrollPane.revalidate();
       this.scrollPane.repaint();
     } finally {
@@ -414,11 +498,11 @@ public final class MMDEditor extends AbstractEditor implements MindMapPanelContr
   public boolean redo() {
     if (!this.mindMapPanel.endEdit(false)) {
       if (this.undoStorage.hasRedo()) {
-        this.undoStorage.addToUndo(this.currentModelState);
+        this.undoStorage.addToUndo(Assertions.assertNotNull(takeCurrentModelState()));
         this.currentModelState = this.undoStorage.fromRedo();
         this.preventAddUndo = true;
         try {
-          this.mindMapPanel.setModel(new MindMap(null, new StringReader(this.currentModelState)), true);
+          this.mindMapPanel.setModel(new MindMap(this, new StringReader(this.currentModelState)), true);
           this.title.setChanged(this.undoStorage.hasUndo() || this.undoStorage.hasRemovedUndoStateForFullBuffer());
         } catch (IOException ex) {
           LOGGER.error("Can't redo mind map", ex); //NOI18N
@@ -434,11 +518,11 @@ public final class MMDEditor extends AbstractEditor implements MindMapPanelContr
   public boolean undo() {
     if (!this.mindMapPanel.endEdit(false)) {
       if (this.undoStorage.hasUndo()) {
-        this.undoStorage.addToRedo(this.currentModelState);
+        this.undoStorage.addToRedo(Assertions.assertNotNull(takeCurrentModelState()));
         this.currentModelState = this.undoStorage.fromUndo();
         this.preventAddUndo = true;
         try {
-          this.mindMapPanel.setModel(new MindMap(null, new StringReader(this.currentModelState)), true);
+          this.mindMapPanel.setModel(new MindMap(this, new StringReader(this.currentModelState)), true);
           this.title.setChanged(this.undoStorage.hasUndo() || this.undoStorage.hasRemovedUndoStateForFullBuffer());
         } catch (IOException ex) {
           LOGGER.error("Can't redo mind map", ex); //NOI18N
@@ -469,7 +553,7 @@ public final class MMDEditor extends AbstractEditor implements MindMapPanelContr
           return;
         }
 
-        final Rectangle2D orig = element.getBounds();
+        final Rectangle2D orig = mindMapPanel.getBoundsOnPanel(element.getModel());
         final int GAP = 30;
 
         final Rectangle bounds = orig.getBounds();
@@ -868,6 +952,13 @@ public final class MMDEditor extends AbstractEditor implements MindMapPanelContr
     return result;
   }
 
+  @Override
+  @Nullable
+  public ImageBlobStorage getImageBlobStorage(@Nonnull final MindMap map) {
+    final File projectFolder = getProjectFolder();
+    return projectFolder == null ? null : new ImageBlobStorage(new File(new File(projectFolder, Context.KNOWLEDGE_FOLDER), IMAGE_STORAGE_FOLDER));
+  }
+
   private void editFileLinkForTopic(@Nullable final Topic topic) {
     if (topic != null) {
       final ExtraFile currentFilePath = (ExtraFile) topic.getExtras().get(Extra.ExtraType.FILE);
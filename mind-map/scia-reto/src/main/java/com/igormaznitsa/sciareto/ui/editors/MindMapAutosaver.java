@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2018 Igor Maznitsa.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package com.igormaznitsa.sciareto.ui.editors;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import com.igormaznitsa.meta.annotation.UiThread;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import com.igormaznitsa.mindmap.swing.panel.utils.Utils;
+import com.igormaznitsa.sciareto.Main;
+
+/**
+ * Background autosave of mind map. Bursts of changes are coalesced, the save
+ * is started when there were no changes during the debounce delay but not
+ * later than the max latency after the first not saved change. The Swing
+ * thread only remembers the model to be saved, the model is serialized by a
+ * worker thread under the model lock (all model modifications take the same
+ * lock, so that the text is consistent), the lock is held only during
+ * serialization into memory, so that an edit in Swing thread can wait at
+ * most for the serialization time. Writing is made without the lock and the
+ * autosave file is replaced atomically through a temporary file.
+ * <p>
+ * Autosave files are kept in the user data folder, their names are made from
+ * the document name and digest of its path.
+ */
+public final class MindMapAutosaver {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MindMapAutosaver.class);
+
+  private static final long DEBOUNCE_DELAY_MS = 2000L;
+  private static final long MAX_LATENCY_MS = 15000L;
+
+  private static final File AUTOSAVE_FOLDER = new File(Main.USER_DATA_FOLDER, "autosave"); //NOI18N
+
+  private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+    @Override
+    @Nonnull
+    public Thread newThread(@Nonnull final Runnable r) {
+      final Thread result = new Thread(r, "MMD-AUTOSAVE-THREAD"); //NOI18N
+      result.setDaemon(true);
+      return result;
+    }
+  });
+
+  /**
+   * Source of model to be saved, it is called in Swing thread.
+   */
+  public interface ModelProvider {
+
+    /**
+     * Get current model.
+     *
+     * @return model or null if there is nothing to save
+     */
+    @Nullable
+    MindMap getModelToSave();
+
+    /**
+     * Get file of the document.
+     *
+     * @return file or null if the document is not saved yet
+     */
+    @Nullable
+    File getDocumentFile();
+  }
+
+  private final ModelProvider provider;
+  private ScheduledFuture<?> scheduledSave;
+  private long firstRequestTime;
+  private MindMap modelToSave;
+  private File documentFile;
+  private volatile boolean disposed;
+
+  private final Runnable saveTask = new Runnable() {
+    @Override
+    public void run() {
+      doSave();
+    }
+  };
+
+  public MindMapAutosaver(@Nonnull final ModelProvider provider) {
+    this.provider = provider;
+  }
+
+  /**
+   * Find autosave file for document.
+   *
+   * @param documentFile document file
+   * @return autosave file, it may not exist
+   */
+  @Nonnull
+  public static File makeAutosaveFile(@Nonnull final File documentFile) {
+    final String path = documentFile.getAbsolutePath();
+    return new File(AUTOSAVE_FOLDER, FilenameUtils.getBaseName(path) + '_' + Utils.makeDigestName(path) + ".mmd"); //NOI18N
+  }
+
+  /**
+   * Find autosave file which is newer than document, it means that the editor
+   * was not closed normally.
+   *
+   * @param documentFile document file
+   * @return autosave file or null if there is no one to recover
+   */
+  @Nullable
+  public static File findForRecovery(@Nonnull final File documentFile) {
+    final File autosave = makeAutosaveFile(documentFile);
+    return autosave.isFile() && autosave.lastModified() > documentFile.lastModified() ? autosave : null;
+  }
+
+  /**
+   * Notify about model change. Should be called from Swing thread, it doesn't
+   * make any heavy work.
+   */
+  @UiThread
+  public void requestSave() {
+    final MindMap model = this.provider.getModelToSave();
+    final File file = this.provider.getDocumentFile();
+    synchronized (this) {
+      if (this.disposed || model == null || file == null) {
+        return;
+      }
+      this.modelToSave = model;
+      this.documentFile = file;
+      final long now = System.currentTimeMillis();
+      if (this.firstRequestTime == 0L) {
+        this.firstRequestTime = now;
+      }
+      if (this.scheduledSave != null) {
+        this.scheduledSave.cancel(false);
+      }
+      final long delay = Math.max(0L, Math.min(DEBOUNCE_DELAY_MS, this.firstRequestTime + MAX_LATENCY_MS - now));
+      this.scheduledSave = EXECUTOR.schedule(this.saveTask, delay, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Cancel planned save and remove autosave file, should be called when
+   * document is saved or closed normally.
+   *
+   * @param documentFile document file, can be null
+   */
+  public void discard(@Nullable final File documentFile) {
+    synchronized (this) {
+      this.firstRequestTime = 0L;
+      this.modelToSave = null;
+      this.documentFile = null;
+      if (this.scheduledSave != null) {
+        this.scheduledSave.cancel(false);
+        this.scheduledSave = null;
+      }
+    }
+    if (documentFile != null) {
+      EXECUTOR.execute(new Runnable() {
+        @Override
+        public void run() {
+          FileUtils.deleteQuietly(makeAutosaveFile(documentFile));
+        }
+      });
+    }
+  }
+
+  public void dispose(@Nullable final File documentFile) {
+    this.disposed = true;
+    discard(documentFile);
+  }
+
+  private void doSave() {
+    final MindMap map;
+    final File file;
+    synchronized (this) {
+      this.firstRequestTime = 0L;
+      this.scheduledSave = null;
+      map = this.modelToSave;
+      file = this.documentFile;
+      this.modelToSave = null;
+      this.documentFile = null;
+    }
+    if (map == null || file == null || this.disposed) {
+      return;
+    }
+
+    final File target = makeAutosaveFile(file);
+    final File tempFile = new File(AUTOSAVE_FOLDER, target.getName() + ".tmp"); //NOI18N
+    try {
+      // write() holds the model lock, so that the text is made from consistent state,
+      // not parsed collapsed subtrees are copied as text so that lazily opened map is not parsed
+      final String text = map.write(new StringWriter(16384)).toString();
+      FileUtils.forceMkdir(AUTOSAVE_FOLDER);
+      try (final Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8), 65536)) {
+        writer.write(text);
+      }
+      try {
+        Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException ex) {
+        Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+      LOGGER.info("Autosaved mind map : " + target); //NOI18N
+    } catch (IOException ex) {
+      FileUtils.deleteQuietly(tempFile);
+      LOGGER.error("Can't autosave mind map : " + target, ex); //NOI18N
+    }
+  }
+}
@@ -27,7 +27,12 @@ import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.Comparator;
+import java.util.List;
+import javax.swing.JTextField;
 import javax.swing.JTree;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.tree.TreePath;
 import javax.swing.tree.TreeSelectionModel;
 
@@ -39,8 +44,22 @@ public final class MindMapTreePanel extends javax.swing.JPanel implements Compar
 
   private final MindMapTreeCellRenderer cellRenderer = new MindMapTreeCellRenderer();
 
+  /**
+   * Max number of topics in map to be fully expanded on open, bigger maps are
+   * expanded only on the first level.
+   */
+  private static final int EXPAND_ALL_LIMIT = 2000;
+  /**
+   * Max number of found topics to be made visible after filtering.
+   */
+  private static final int MAX_SHOWN_FOUND = 256;
+  private static final int FILTER_DELAY_MS = 300;
+
   private final SortedTreeModelWrapper sortedModel;
-  
+
+  private final JTextField textFieldFilter = new JTextField(16);
+  private final Timer filterTimer;
+
   public MindMapTreePanel(final MindMap map, final ExtraTopic selectedTopicUid, final boolean expandAll, final ActionListener listener) {
     initComponents();
     this.treeMindMap.setCellRenderer(this.cellRenderer);
@@ -72,9 +91,74 @@ public final class MindMapTreePanel extends javax.swing.JPanel implements Compar
 
     
     this.setPreferredSize(new Dimension(450, 400));
-    
-    if (expandAll){
-      Utils.foldUnfoldTree(this.treeMindMap,true);
+
+    this.filterTimer = new Timer(FILTER_DELAY_MS, new ActionListener() {
+      @Override
+      public void actionPerformed(final ActionEvent e) {
+        applyFilter();
+      }
+    });
+    this.filterTimer.setRepeats(false);
+
+    if (this.sortedModel != null) {
+      this.textFieldFilter.setMaximumSize(this.textFieldFilter.getPreferredSize());
+      this.textFieldFilter.getDocument().addDocumentListener(new DocumentListener() {
+        @Override
+        public void insertUpdate(final DocumentEvent e) {
+          filterTimer.restart();
+        }
+
+        @Override
+        public void removeUpdate(final DocumentEvent e) {
+          filterTimer.restart();
+        }
+
+        @Override
+        public void changedUpdate(final DocumentEvent e) {
+          filterTimer.restart();
+        }
+      });
+      this.toolBar.addSeparator();
+      this.toolBar.add(this.textFieldFilter);
+    }
+
+    if (expandAll && map != null && map.getRoot() != null) {
+      if (countTopics(map.getRoot(), 0) < EXPAND_ALL_LIMIT) {
+        Utils.foldUnfoldTree(this.treeMindMap, true);
+      } else {
+        this.treeMindMap.expandPath(new TreePath(map.getRoot()));
+      }
+    }
+  }
+
+  private static int countTopics(final Topic topic, final int counter) {
+    int result = counter + 1;
+    if (!topic.hasPendingChildren()) {
+      for (final Topic t : topic.getChildren()) {
+        if (result >= EXPAND_ALL_LIMIT) {
+          break;
+        }
+        result = countTopics(t, result);
+      }
+    }
+    return result;
+  }
+
+  private void applyFilter() {
+    if (this.sortedModel != null) {
+      final TreePath selected = this.treeMindMap.getSelectionPath();
+      final List<Topic> found = this.sortedModel.setFilter(this.textFieldFilter.getText());
+      if (this.sortedModel.isFiltered()) {
+        for (int i = 0; i < found.size() && i < MAX_SHOWN_FOUND; i++) {
+          this.treeMindMap.makeVisible(new TreePath(found.get(i).getPath()));
+        }
+      } else {
+        this.treeMindMap.expandPath(new TreePath(this.sortedModel.getRoot()));
+      }
+      if (selected != null && this.sortedModel.isVisible(selected.getLastPathComponent())) {
+        this.treeMindMap.setSelectionPath(selected);
+        this.treeMindMap.scrollPathToVisible(selected);
+      }
     }
   }
   
@@ -165,6 +249,7 @@ public final class MindMapTreePanel extends javax.swing.JPanel implements Compar
   }//GEN-LAST:event_buttonCollapseAllActionPerformed
 
   public void dispose(){
+    this.filterTimer.stop();
     if (this.sortedModel != null){
       this.sortedModel.dispose();
     }
@@ -28,11 +28,23 @@ import java.awt.Window;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
+import java.awt.geom.Point2D;
 import java.io.File;
-import java.io.StringReader;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -41,17 +53,20 @@ import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JLabel;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang.StringEscapeUtils;
 import com.google.common.base.Function;
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
+import com.igormaznitsa.mindmap.model.ExtraFile;
 import com.igormaznitsa.mindmap.model.MMapURI;
-import com.igormaznitsa.mindmap.model.MindMap;
 import com.igormaznitsa.mindmap.model.logger.Logger;
 import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
-import com.igormaznitsa.sciareto.ui.MapUtils;
+import com.igormaznitsa.mindmap.model.parser.FileLinkScanner;
 import com.igormaznitsa.sciareto.ui.UiUtils;
 import edu.uci.ics.jung.algorithms.layout.ISOMLayout;
+import edu.uci.ics.jung.algorithms.layout.StaticLayout;
 import edu.uci.ics.jung.graph.DirectedSparseGraph;
 import edu.uci.ics.jung.graph.Graph;
 import edu.uci.ics.jung.graph.util.EdgeType;
@@ -77,6 +92,34 @@ public final class FileLinkGraphPanel extends javax.swing.JPanel {
 
   private FileVertex selectedVertex;
 
+  private static final Dimension LAYOUT_SIZE = new Dimension(2000, 2000);
+  private static final int UPDATE_INTERVAL_MS = 200;
+  private static final int MAX_RESULTS_PER_UPDATE = 256;
+  private static final int MAX_LAYOUT_ITERATIONS = 1000;
+  private static final int LAYOUT_PUBLISH_INTERVAL = 100;
+  private static final double NEW_VERTEX_SPREAD = 200.0d;
+
+  private final DirectedSparseGraph<FileVertex, Number> graph = new DirectedSparseGraph<>();
+  private final StaticLayout<FileVertex, Number> graphLayout;
+  private final VisualizationViewer<FileVertex, Number> graphViewer;
+  private final GraphZoomScrollPane scrollPane;
+  private final JLabel statusLabel;
+  private final Timer updateTimer;
+
+  private final File projectFolder;
+  private final File startMindMap;
+  private volatile ExecutorService scanExecutor;
+  private volatile ExecutorService layoutExecutor;
+  private final Set<File> scheduledMindMaps = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+  private final Queue<ScanResult> scanResults = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger activeScans = new AtomicInteger();
+  private final AtomicInteger layoutGeneration = new AtomicInteger();
+  private final List<FileVertex[]> pendingEdges = new ArrayList<>();
+  private final Map<FileVertex, Point2D> locationHints = new HashMap<>();
+  private final Random rnd = new Random();
+  private int edgeCounter;
+  private volatile boolean disposed;
+
   private static final Color COLOR_BACKGROUND = Color.WHITE;
   private static final Color COLOR_ARROW = Color.ORANGE.darker();
   private static final Color COLOR_LABELS = Color.BLACK;
@@ -157,96 +200,233 @@ public final class FileLinkGraphPanel extends javax.swing.JPanel {
     }
   }
 
-  @Nonnull
-  private Graph<FileVertex, Number> makeGraph(@Nullable final File projectFolder, @Nullable final File startMindMap) {
-    final DirectedSparseGraph<FileVertex, Number> result = new DirectedSparseGraph<>();
+  private static final class ScanResult {
 
-    final AtomicInteger edgeCounter = new AtomicInteger();
+    private final FileVertex mindMap;
+    private final List<FileVertex> links;
 
-    final Set<File> mapFilesInProcessing = new HashSet<>();
+    private ScanResult(@Nonnull final FileVertex mindMap, @Nonnull @MustNotContainNull final List<FileVertex> links) {
+      this.mindMap = mindMap;
+      this.links = links;
+    }
+  }
 
+  private void startGraphDiscovery(@Nullable final File projectFolder, @Nullable final File startMindMap) {
     if (startMindMap != null) {
-      addMindMapAndFillByItsLinks(null, result, projectFolder, startMindMap, edgeCounter, mapFilesInProcessing);
+      scheduleMindMapScan(projectFolder, startMindMap);
     } else if (projectFolder != null) {
-      final Iterator<File> iterator = FileUtils.iterateFiles(projectFolder, new String[]{"mmd"}, true); //NOI18N
-      while (iterator.hasNext()) {
-        final File mmdFile = iterator.next();
-        if (mmdFile.isFile()) {
-          addMindMapAndFillByItsLinks(null, result, projectFolder, mmdFile, edgeCounter, mapFilesInProcessing);
+      this.activeScans.incrementAndGet();
+      this.scanExecutor.submit(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            final Iterator<File> iterator = FileUtils.iterateFiles(projectFolder, new String[]{"mmd"}, true); //NOI18N
+            while (iterator.hasNext() && !disposed) {
+              final File mmdFile = iterator.next();
+              if (mmdFile.isFile()) {
+                scheduleMindMapScan(projectFolder, mmdFile);
+              }
+            }
+          } catch (Exception ex) {
+            LOGGER.error("Can't collect mind maps in project folder : " + projectFolder, ex); //NOI18N
+          } finally {
+            activeScans.decrementAndGet();
+          }
         }
-      }
+      });
     }
-
-    return result;
   }
 
-  @Nullable
-  private static FileVertex addMindMapAndFillByItsLinks(@Nullable final FileVertex parent, @Nonnull final @Nullable Graph<FileVertex, Number> graph, @Nullable final File projectFolder, @Nonnull final File mindMapFile, @Nonnull final AtomicInteger edgeCounter, @Nonnull Set<File> mapFilesInProcessing) {
-
-    MindMap map;
-
-    FileVertex thisVertex;
+  private void scheduleMindMapScan(@Nullable final File projectFolder, @Nonnull final File mindMapFile) {
+    if (!this.disposed && this.scheduledMindMaps.add(mindMapFile)) {
+      this.activeScans.incrementAndGet();
+      try {
+        this.scanExecutor.submit(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              if (!disposed) {
+                scanResults.add(scanMindMap(projectFolder, mindMapFile));
+              }
+            } finally {
+              activeScans.decrementAndGet();
+            }
+          }
+        });
+      } catch (RejectedExecutionException ex) {
+        this.activeScans.decrementAndGet();
+      }
+    }
+  }
 
+  @Nonnull
+  private ScanResult scanMindMap(@Nullable final File projectFolder, @Nonnull final File mindMapFile) {
+    final List<ExtraFile> fileLinks;
     try {
+      fileLinks = FileLinkScanner.findFileLinks(FileUtils.readFileToString(mindMapFile, "UTF-8")); //NOI18N
+    } catch (final Exception ex) {
+      LOGGER.error("Can't load mind map : " + mindMapFile, ex); //NOI18N
+      return new ScanResult(new FileVertex(mindMapFile, FileVertexType.UNKNOWN), Collections.<FileVertex>emptyList());
+    }
 
-      thisVertex = new FileVertex(mindMapFile, FileVertexType.MINDMAP);
-      map = new MindMap(null, new StringReader(FileUtils.readFileToString(mindMapFile, "UTF-8"))); //NOI18N
-
-      if (parent != null) {
-        for (final MMapURI fileUri : MapUtils.extractAllFileLinks(map)) {
-          if (parent.getFile().equals(fileUri.asFile(projectFolder))) {
-            graph.addEdge(edgeCounter.getAndIncrement(), thisVertex, parent, EdgeType.DIRECTED);
-            break;
-          }
+    final List<FileVertex> links = new ArrayList<>();
+    for (final ExtraFile link : fileLinks) {
+      final MMapURI fileUri = link.getValue();
+      final File convertedFile = convertUriInFile(mindMapFile, projectFolder, fileUri);
+
+      if (convertedFile == null) {
+        links.add(new FileVertex(fileUri.asFile(projectFolder), FileVertexType.NOTFOUND));
+      } else if (convertedFile.isDirectory()) {
+        links.add(new FileVertex(convertedFile, FileVertexType.FOLDER));
+      } else if (convertedFile.isFile()) {
+        if (convertedFile.getName().endsWith(".mmd")) { //NOI18N
+          links.add(new FileVertex(convertedFile, FileVertexType.MINDMAP));
+          scheduleMindMapScan(projectFolder, convertedFile);
+        } else {
+          links.add(new FileVertex(convertedFile, FileVertexType.DOCUMENT));
         }
-        if (mapFilesInProcessing.contains(mindMapFile)) {
-          return null;
+      } else {
+        links.add(new FileVertex(convertedFile, convertedFile.exists() ? FileVertexType.UNKNOWN : FileVertexType.NOTFOUND));
+      }
+    }
+
+    return new ScanResult(new FileVertex(mindMapFile, FileVertexType.MINDMAP), links);
+  }
+
+  private void processScanResults() {
+    boolean graphChanged = false;
+
+    ScanResult result;
+    int processed = 0;
+    while (processed < MAX_RESULTS_PER_UPDATE && (result = this.scanResults.poll()) != null) {
+      processed++;
+      graphChanged |= addVertex(result.mindMap, null);
+      for (final FileVertex link : result.links) {
+        if (link.getType() == FileVertexType.MINDMAP) {
+          // vertex of linked mind map will be added by its own scan result
+          this.pendingEdges.add(new FileVertex[]{result.mindMap, link});
+        } else {
+          graphChanged |= addVertex(link, result.mindMap);
+          this.graph.addEdge(this.edgeCounter++, result.mindMap, link, EdgeType.DIRECTED);
         }
       }
     }
-    catch (final Exception ex) {
-      LOGGER.error("Can't load mind map : " + mindMapFile, ex); //NOI18N
-      thisVertex = new FileVertex(mindMapFile, FileVertexType.UNKNOWN);
-      map = null;
+
+    final Iterator<FileVertex[]> edges = this.pendingEdges.iterator();
+    while (edges.hasNext()) {
+      final FileVertex[] edge = edges.next();
+      if (this.graph.containsVertex(edge[0]) && this.graph.containsVertex(edge[1])) {
+        this.graph.addEdge(this.edgeCounter++, edge[0], edge[1], EdgeType.DIRECTED);
+        edges.remove();
+        graphChanged = true;
+      }
     }
 
-    mapFilesInProcessing.add(mindMapFile);
+    final boolean finished = this.activeScans.get() == 0 && this.scanResults.isEmpty();
 
-    graph.addVertex(thisVertex);
+    if (graphChanged) {
+      this.graphViewer.repaint();
+    }
 
-    if (map != null) {
-      for (final MMapURI fileUri : MapUtils.extractAllFileLinks(map)) {
-        final FileVertex that;
+    if (finished) {
+      this.updateTimer.stop();
+      this.scanExecutor.shutdown();
+      if (this.graph.getVertexCount() == 0) {
+        this.remove(this.scrollPane);
+        this.statusLabel.setText("There is not any Mind map in the project!");
+        this.add(this.statusLabel, BorderLayout.CENTER);
+        this.revalidate();
+        this.repaint();
+      } else {
+        this.statusLabel.setText("Found " + this.graph.getVertexCount() + " file(s), " + this.graph.getEdgeCount() + " link(s)");
+        startLayout(null, true);
+      }
+    } else {
+      this.statusLabel.setText("Scanning mind maps... found " + this.graph.getVertexCount() + " file(s)");
+    }
+  }
 
-        final File convertedFile = convertUriInFile(mindMapFile, projectFolder, fileUri);
+  private boolean addVertex(@Nonnull final FileVertex vertex, @Nullable final FileVertex near) {
+    if (this.graph.containsVertex(vertex)) {
+      return false;
+    }
+    final Point2D base;
+    if (near != null && this.graph.containsVertex(near)) {
+      base = this.graphLayout.apply(near);
+    } else {
+      base = new Point2D.Double(LAYOUT_SIZE.width / 2, LAYOUT_SIZE.height / 2);
+    }
+    this.locationHints.put(vertex, new Point2D.Double(
+        Math.max(0, Math.min(LAYOUT_SIZE.width, base.getX() + (this.rnd.nextDouble() - 0.5d) * NEW_VERTEX_SPREAD)),
+        Math.max(0, Math.min(LAYOUT_SIZE.height, base.getY() + (this.rnd.nextDouble() - 0.5d) * NEW_VERTEX_SPREAD))));
+    this.graph.addVertex(vertex);
+    return true;
+  }
 
-        if (convertedFile == null) {
-          that = new FileVertex(fileUri.asFile(projectFolder), FileVertexType.NOTFOUND);
-        } else if (convertedFile.isDirectory()) {
-          that = new FileVertex(convertedFile, FileVertexType.FOLDER);
-        } else if (convertedFile.isFile()) {
+  private void startLayout(@Nullable final Dimension size, final boolean keepLocations) {
+    final int generation = this.layoutGeneration.incrementAndGet();
 
-          if (convertedFile.getName().endsWith(".mmd")) { //NOI18N
-            if (convertedFile.equals(mindMapFile)) {
-              that = thisVertex;
-            } else {
-              that = addMindMapAndFillByItsLinks(thisVertex, graph, projectFolder, convertedFile, edgeCounter, mapFilesInProcessing);
-            }
-          } else {
-            that = new FileVertex(convertedFile, FileVertexType.DOCUMENT);
-          }
+    final DirectedSparseGraph<FileVertex, Number> snapshot = new DirectedSparseGraph<>();
+    for (final FileVertex v : this.graph.getVertices()) {
+      snapshot.addVertex(v);
+    }
+    for (final Number e : this.graph.getEdges()) {
+      snapshot.addEdge(e, this.graph.getSource(e), this.graph.getDest(e), EdgeType.DIRECTED);
+    }
 
-        } else {
-          that = new FileVertex(convertedFile, convertedFile.exists() ? FileVertexType.UNKNOWN : FileVertexType.NOTFOUND);
+    final Map<FileVertex, Point2D> locations = new HashMap<>();
+    if (keepLocations) {
+      for (final FileVertex v : snapshot.getVertices()) {
+        locations.put(v, new Point2D.Double(this.graphLayout.getX(v), this.graphLayout.getY(v)));
+      }
+    }
+    final Dimension layoutSize = size == null ? this.graphLayout.getSize() : size;
+
+    this.layoutExecutor.submit(new Runnable() {
+      @Override
+      public void run() {
+        final long start = System.currentTimeMillis();
+        final ISOMLayout<FileVertex, Number> layout = new ISOMLayout<>(snapshot);
+        layout.setSize(layoutSize);
+        for (final Map.Entry<FileVertex, Point2D> e : locations.entrySet()) {
+          layout.setLocation(e.getKey(), e.getValue());
         }
 
-        if (that != null) {
-          graph.addEdge(edgeCounter.getAndIncrement(), thisVertex, that, EdgeType.DIRECTED);
+        int iteration = 0;
+        while (iteration < MAX_LAYOUT_ITERATIONS && !layout.done()) {
+          if (disposed || layoutGeneration.get() != generation) {
+            return;
+          }
+          layout.step();
+          iteration++;
+          if (iteration % LAYOUT_PUBLISH_INTERVAL == 0) {
+            publishLayout(layout, snapshot, generation);
+          }
         }
+        publishLayout(layout, snapshot, generation);
+        LOGGER.info("Graph layout has been made for " + snapshot.getVertexCount() + " vertexes, " + iteration + " iteration(s), " + (System.currentTimeMillis() - start) + " ms"); //NOI18N
       }
-    }
+    });
+  }
 
-    return thisVertex;
+  private void publishLayout(@Nonnull final ISOMLayout<FileVertex, Number> layout, @Nonnull final Graph<FileVertex, Number> snapshot, final int generation) {
+    final Map<FileVertex, Point2D> locations = new HashMap<>();
+    for (final FileVertex v : snapshot.getVertices()) {
+      locations.put(v, new Point2D.Double(layout.getX(v), layout.getY(v)));
+    }
+    SwingUtilities.invokeLater(new Runnable() {
+      @Override
+      public void run() {
+        if (!disposed && layoutGeneration.get() == generation) {
+          for (final Map.Entry<FileVertex, Point2D> e : locations.entrySet()) {
+            if (graph.containsVertex(e.getKey())) {
+              graphLayout.setLocation(e.getKey(), e.getValue());
+            }
+          }
+          graphViewer.repaint();
+        }
+      }
+    });
   }
 
   @Nullable
@@ -274,110 +454,166 @@ public final class FileLinkGraphPanel extends javax.swing.JPanel {
 
     final Dimension SCROLL_COMPONENT_SIZE = new Dimension(600, 450);
 
-    final Graph<FileVertex, Number> graph = makeGraph(projectFolder, startMindMap);
+    this.projectFolder = projectFolder;
+    this.startMindMap = startMindMap;
 
-    if (graph.getVertexCount() == 0) {
-    
-      this.add(new JLabel("There is not any Mind map in the project!"), BorderLayout.CENTER);
-    
-    } else {
-      final ISOMLayout<FileVertex, Number> graphLayout = new ISOMLayout<>(graph);
+    this.graphLayout = new StaticLayout<>(this.graph, new Function<FileVertex, Point2D>() {
+      @Override
+      @Nonnull
+      public Point2D apply(@Nonnull final FileVertex v) {
+        final Point2D hint = locationHints.remove(v);
+        return hint == null ? new Point2D.Double(rnd.nextDouble() * LAYOUT_SIZE.width, rnd.nextDouble() * LAYOUT_SIZE.height) : hint;
+      }
+    }, LAYOUT_SIZE);
+
+    final VisualizationModel<FileVertex, Number> viewModel = new DefaultVisualizationModel<>(this.graphLayout, LAYOUT_SIZE);
+    this.graphViewer = new VisualizationViewer<>(viewModel, new Dimension(800, 800));
+
+    final DefaultModalGraphMouse graphMouse = new DefaultModalGraphMouse() {
+      @Override
+      protected void loadPlugins() {
+        this.scalingPlugin = new ScalingGraphMousePlugin(new ViewScalingControl(), 0);
+        this.pickingPlugin = new PickingGraphMousePlugin();
+        add(this.scalingPlugin);
+        add(this.pickingPlugin);
+        setMode(Mode.PICKING);
+      }
 
-      final VisualizationModel<FileVertex, Number> viewModel = new DefaultVisualizationModel<>(graphLayout, new Dimension(2000, 2000));
-      final VisualizationViewer<FileVertex, Number> graphViewer = new VisualizationViewer<>(viewModel, new Dimension(800, 800));
+    };
+    this.graphViewer.setGraphMouse(graphMouse);
 
-      final DefaultModalGraphMouse graphMouse = new DefaultModalGraphMouse() {
-        @Override
-        protected void loadPlugins() {
-          this.scalingPlugin = new ScalingGraphMousePlugin(new ViewScalingControl(), 0);
-          this.pickingPlugin = new PickingGraphMousePlugin();
-          add(this.scalingPlugin);
-          add(this.pickingPlugin);
-          setMode(Mode.PICKING);
-        }
+    this.graphViewer.getRenderContext().setVertexIconTransformer(new Function<FileVertex, Icon>() {
+      @Override
+      public Icon apply(@Nonnull final FileVertex f) {
+        return f.getType().getIcon();
+      }
+    });
 
-      };
-      graphViewer.setGraphMouse(graphMouse);
+    this.graphViewer.setBackground(COLOR_BACKGROUND);
+    this.graphViewer.getRenderContext().setVertexLabelTransformer(new ToStringLabeller());
 
-      graphViewer.getRenderContext().setVertexIconTransformer(new Function<FileVertex, Icon>() {
-        @Override
-        public Icon apply(@Nonnull final FileVertex f) {
-          return f.getType().getIcon();
-        }
-      });
+    final DefaultVertexLabelRenderer labelRenderer = new DefaultVertexLabelRenderer(COLOR_LABELS);
 
-      graphViewer.setBackground(COLOR_BACKGROUND);
-      graphViewer.getRenderContext().setVertexLabelTransformer(new ToStringLabeller());
+    this.graphViewer.getRenderContext().setVertexLabelRenderer(labelRenderer);
+    this.graphViewer.getRenderer().getVertexLabelRenderer().setPosition(Renderer.VertexLabel.Position.S);
 
-      final DefaultVertexLabelRenderer labelRenderer = new DefaultVertexLabelRenderer(COLOR_LABELS);
+    final Function<Number, Paint> edgePaintTransformer = new Function<Number, Paint>() {
+      @Override
+      public Paint apply(@Nonnull final Number input) {
+        return COLOR_ARROW;
+      }
+    };
 
-      graphViewer.getRenderContext().setVertexLabelRenderer(labelRenderer);
-      graphViewer.getRenderer().getVertexLabelRenderer().setPosition(Renderer.VertexLabel.Position.S);
+    this.graphViewer.getRenderContext().setEdgeDrawPaintTransformer(edgePaintTransformer);
+    this.graphViewer.getRenderContext().setArrowFillPaintTransformer(edgePaintTransformer);
+    this.graphViewer.getRenderContext().setArrowDrawPaintTransformer(edgePaintTransformer);
 
-      final Function<Number, Paint> edgePaintTransformer = new Function<Number, Paint>() {
-        @Override
-        public Paint apply(@Nonnull final Number input) {
-          return COLOR_ARROW;
+    this.graphViewer.setVertexToolTipTransformer(new Function<FileVertex, String>() {
+      @Override
+      @Nonnull
+      public String apply(@Nonnull final FileVertex f) {
+        return f.getTooltip();
+      }
+    });
+
+    this.graphViewer.addGraphMouseListener(new GraphMouseListener<FileVertex>() {
+      @Override
+      public void graphClicked(@Nonnull final FileVertex v, @Nonnull final MouseEvent me) {
+        if (!me.isPopupTrigger() && me.getClickCount() > 1 && v.getType() != FileVertexType.NOTFOUND) {
+          selectedVertex = v;
+          final Window window = SwingUtilities.getWindowAncestor(graphViewer);
+          if (window != null) {
+            window.setVisible(false);
+          }
         }
-      };
+      }
+
+      @Override
+      public void graphPressed(@Nonnull final FileVertex v, @Nonnull final MouseEvent me) {
+      }
 
-      graphViewer.getRenderContext().setEdgeDrawPaintTransformer(edgePaintTransformer);
-      graphViewer.getRenderContext().setArrowFillPaintTransformer(edgePaintTransformer);
-      graphViewer.getRenderContext().setArrowDrawPaintTransformer(edgePaintTransformer);
+      @Override
+      public void graphReleased(@Nonnull final FileVertex v, @Nonnull final MouseEvent me) {
+      }
+    });
+
+    this.scrollPane = new GraphZoomScrollPane(this.graphViewer);
+    this.scrollPane.setPreferredSize(SCROLL_COMPONENT_SIZE);
+
+    UiUtils.makeOwningDialogResizable(this);
+
+    this.graphViewer.scaleToLayout(new LayoutScalingControl());
+
+    final JButton layoutButton = new JButton(RELAYOUT_ICON);
+    layoutButton.setToolTipText("Relayout graph");
+    layoutButton.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+    layoutButton.addActionListener(new ActionListener() {
+      @Override
+      public void actionPerformed(@Nonnull final ActionEvent e) {
+        final Rectangle visible = scrollPane.getVisibleRect();
+        final Dimension newSize = new Dimension(Math.max(1, visible.width), Math.max(1, visible.height));
+        graphLayout.setSize(newSize);
+        graphViewer.repaint();
+        startLayout(newSize, false);
+      }
+    });
 
-      graphViewer.setVertexToolTipTransformer(new Function<FileVertex, String>() {
-        @Override
-        @Nonnull
-        public String apply(@Nonnull final FileVertex f) {
-          return f.getTooltip();
-        }
-      });
+    this.scrollPane.setCorner(layoutButton);
 
-      graphViewer.addGraphMouseListener(new GraphMouseListener<FileVertex>() {
-        @Override
-        public void graphClicked(@Nonnull final FileVertex v, @Nonnull final MouseEvent me) {
-          if (!me.isPopupTrigger() && me.getClickCount() > 1 && v.getType() != FileVertexType.NOTFOUND) {
-            selectedVertex = v;
-            final Window window = SwingUtilities.getWindowAncestor(graphViewer);
-            if (window != null) {
-              window.setVisible(false);
-            }
-          }
-        }
+    this.statusLabel = new JLabel("Scanning mind maps...");
+    this.add(this.scrollPane, BorderLayout.CENTER);
+    this.add(this.statusLabel, BorderLayout.SOUTH);
 
-        @Override
-        public void graphPressed(@Nonnull final FileVertex v, @Nonnull final MouseEvent me) {
-        }
+    this.updateTimer = new Timer(UPDATE_INTERVAL_MS, new ActionListener() {
+      @Override
+      public void actionPerformed(@Nonnull final ActionEvent e) {
+        processScanResults();
+      }
+    });
+  }
 
+  /**
+   * Executors are created only when the panel is shown, so that they are
+   * always stopped by {@link #removeNotify()} when the dialog is closed.
+   */
+  @Override
+  public void addNotify() {
+    super.addNotify();
+    if (this.scanExecutor == null && !this.disposed) {
+      this.scanExecutor = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors()), new ThreadFactory() {
         @Override
-        public void graphReleased(@Nonnull final FileVertex v, @Nonnull final MouseEvent me) {
+        @Nonnull
+        public Thread newThread(@Nonnull final Runnable r) {
+          final Thread result = new Thread(r, "FILE-LINK-GRAPH-SCAN-THREAD"); //NOI18N
+          result.setDaemon(true);
+          return result;
         }
       });
 
-      final GraphZoomScrollPane scroll = new GraphZoomScrollPane(graphViewer);
-      scroll.setPreferredSize(SCROLL_COMPONENT_SIZE);
-
-      UiUtils.makeOwningDialogResizable(this);
-
-      graphViewer.scaleToLayout(new LayoutScalingControl());
-
-      final JButton layoutButton = new JButton(RELAYOUT_ICON);
-      layoutButton.setToolTipText("Relayout graph");
-      layoutButton.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
-      layoutButton.addActionListener(new ActionListener() {
+      this.layoutExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
         @Override
-        public void actionPerformed(@Nonnull final ActionEvent e) {
-          final Rectangle visible = scroll.getVisibleRect();
-          graphViewer.getGraphLayout().reset();
-          graphViewer.getGraphLayout().setSize(new Dimension(visible.width, visible.height));
-          graphViewer.repaint();
+        @Nonnull
+        public Thread newThread(@Nonnull final Runnable r) {
+          final Thread result = new Thread(r, "FILE-LINK-GRAPH-LAYOUT-THREAD"); //NOI18N
+          result.setDaemon(true);
+          return result;
         }
       });
 
-      scroll.setCorner(layoutButton);
+      startGraphDiscovery(this.projectFolder, this.startMindMap);
+      this.updateTimer.start();
+    }
+  }
 
-      this.add(scroll, BorderLayout.CENTER);
+  @Override
+  public void removeNotify() {
+    this.disposed = true;
+    this.updateTimer.stop();
+    if (this.scanExecutor != null) {
+      this.scanExecutor.shutdownNow();
+      this.layoutExecutor.shutdownNow();
     }
+    super.removeNotify();
   }
 
   @Nullable
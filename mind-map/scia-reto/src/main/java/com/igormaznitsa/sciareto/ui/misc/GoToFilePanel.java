@@ -23,37 +23,51 @@ import java.awt.event.KeyEvent;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Locale;
-import java.util.regex.Pattern;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.swing.ListModel;
+import javax.swing.SwingUtilities;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import javax.swing.event.ListDataEvent;
 import javax.swing.event.ListDataListener;
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.sciareto.ui.Focuser;
 import com.igormaznitsa.sciareto.ui.UiUtils;
 import com.igormaznitsa.sciareto.ui.tree.ExplorerTree;
-import com.igormaznitsa.sciareto.ui.tree.NodeFileOrFolder;
+import com.igormaznitsa.sciareto.ui.tree.NodeProjectGroup;
 
-public class GoToFilePanel extends javax.swing.JPanel implements Comparator<NodeFileOrFolder> {
+public class GoToFilePanel extends javax.swing.JPanel {
 
   private static final long serialVersionUID = 6372355072139143322L;
 
+  private static final int MAX_FOUND_FILES = 512;
+
+  private static final ExecutorService SEARCH_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+    @Override
+    @Nonnull
+    public Thread newThread(@Nonnull final Runnable r) {
+      final Thread result = new Thread(r, "GOTO-FILE-SEARCH-THREAD"); //NOI18N
+      result.setDaemon(true);
+      return result;
+    }
+  });
+
   private final ExplorerTree tree;
 
-  private final transient List<NodeFileOrFolder> foundNodeList = new ArrayList<>();
+  private final transient List<File> foundFileList = new ArrayList<>();
   private final transient List<ListDataListener> listeners = new ArrayList<>();
 
   private final Object dialogOkObject;
-  
-  @Override
-  public int compare(@Nonnull final NodeFileOrFolder o1, @Nonnull final NodeFileOrFolder o2) {
-    return o1.toString().compareTo(o2.toString());
-  }
+
+  private final AtomicInteger searchGeneration = new AtomicInteger();
+  private transient Future<?> currentSearch;
 
   @SuppressWarnings("ResultOfObjectAllocationIgnored")
   public GoToFilePanel(@Nonnull final ExplorerTree tree, @Nullable final Object dialogOkObject) {
@@ -62,7 +76,16 @@ public class GoToFilePanel extends javax.swing.JPanel implements Comparator<Node
     this.dialogOkObject = dialogOkObject;
     initComponents();
 
-    this.listFoundFiles.setCellRenderer(new NodeListRenderer());
+    final NodeProjectGroup group = tree.getCurrentGroup();
+    this.listFoundFiles.setCellRenderer(new NodeListRenderer(group));
+
+    SEARCH_EXECUTOR.submit(new Runnable() {
+      @Override
+      public void run() {
+        // prepare index while user types the first chars
+        group.getFileNameIndex();
+      }
+    });
 
     final Dimension dim = new Dimension(512, 400);
     setPreferredSize(dim);
@@ -87,17 +110,17 @@ public class GoToFilePanel extends javax.swing.JPanel implements Comparator<Node
       }
     });
 
-    this.listFoundFiles.setModel(new ListModel<NodeFileOrFolder>() {
+    this.listFoundFiles.setModel(new ListModel<File>() {
 
       @Override
       public int getSize() {
-        return foundNodeList.size();
+        return foundFileList.size();
       }
 
       @Override
       @Nonnull
-      public NodeFileOrFolder getElementAt(final int index) {
-        return foundNodeList.get(index);
+      public File getElementAt(final int index) {
+        return foundFileList.get(index);
       }
 
       @Override
@@ -114,52 +137,53 @@ public class GoToFilePanel extends javax.swing.JPanel implements Comparator<Node
   }
 
   @Nullable
-  public NodeFileOrFolder getSelected() {
+  public File getSelected() {
     return this.listFoundFiles.getSelectedValue();
   }
 
   private void processEnteredPattern() {
-    this.foundNodeList.clear();
-    this.foundNodeList.addAll(this.tree.findForNamePattern(makePattern(this.textFieldMask.getText())));
-    for (final ListDataListener l : this.listeners) {
-      l.contentsChanged(new ListDataEvent(this.listFoundFiles.getModel(), ListDataEvent.CONTENTS_CHANGED, 0, this.foundNodeList.size()));
-    }
+    final String text = this.textFieldMask.getText();
+    final int generation = this.searchGeneration.incrementAndGet();
 
-    Collections.sort(this.foundNodeList, this);
-
-    if (!this.foundNodeList.isEmpty()) {
-      this.listFoundFiles.setSelectedIndex(0);
-      this.listFoundFiles.ensureIndexIsVisible(0);
+    if (this.currentSearch != null) {
+      this.currentSearch.cancel(true);
+      this.currentSearch = null;
     }
-  }
 
-  @Nullable
-  private Pattern makePattern(@Nonnull final String text) {
     if (text.isEmpty()) {
-      return null;
-    }
-    final StringBuilder buffer = new StringBuilder();
-    for (final char c : text.toCharArray()) {
-      switch (c) {
-        case '?':
-          buffer.append('.');
-          break;
-        case '*':
-          buffer.append(".*"); //NOI18N
-          break;
-        default: {
-          if (Character.isWhitespace(c) || Character.isISOControl(c)) {
-            buffer.append("\\s"); //NOI18N
-          } else {
-            final String code = Integer.toHexString(c).toUpperCase(Locale.ENGLISH);
-            buffer.append("\\u").append("0000", 0, 4 - code.length()).append(code); //NOI18N
+      showFoundFiles(Collections.<File>emptyList());
+    } else {
+      final NodeProjectGroup group = this.tree.getCurrentGroup();
+      this.currentSearch = SEARCH_EXECUTOR.submit(new Runnable() {
+        @Override
+        public void run() {
+          final List<File> found = group.getFileNameIndex().find(text, MAX_FOUND_FILES);
+          if (!Thread.currentThread().isInterrupted()) {
+            SwingUtilities.invokeLater(new Runnable() {
+              @Override
+              public void run() {
+                if (generation == searchGeneration.get()) {
+                  showFoundFiles(found);
+                }
+              }
+            });
           }
         }
-        break;
-      }
+      });
+    }
+  }
+
+  private void showFoundFiles(@Nonnull @MustNotContainNull final List<File> files) {
+    this.foundFileList.clear();
+    this.foundFileList.addAll(files);
+    for (final ListDataListener l : this.listeners) {
+      l.contentsChanged(new ListDataEvent(this.listFoundFiles.getModel(), ListDataEvent.CONTENTS_CHANGED, 0, this.foundFileList.size()));
+    }
+
+    if (!this.foundFileList.isEmpty()) {
+      this.listFoundFiles.setSelectedIndex(0);
+      this.listFoundFiles.ensureIndexIsVisible(0);
     }
-    buffer.append(".*"); //NOI18N
-    return Pattern.compile(buffer.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
   }
 
   /**
@@ -178,7 +202,7 @@ public class GoToFilePanel extends javax.swing.JPanel implements Comparator<Node
 
     setLayout(new java.awt.GridBagLayout());
 
-    labelFilenameMask.setText("File Name prefix (wildcards: ? and *)");
+    labelFilenameMask.setText("File Name (fuzzy search, or prefix with wildcards: ? and *)");
     gridBagConstraints = new java.awt.GridBagConstraints();
     gridBagConstraints.gridx = 0;
     gridBagConstraints.gridy = 0;
@@ -227,8 +251,8 @@ public class GoToFilePanel extends javax.swing.JPanel implements Comparator<Node
     if (index < 0) {
       this.listFoundFiles.setToolTipText(null);
     } else {
-      final File file = ((NodeFileOrFolder) model.getElementAt(index)).makeFileForNode();
-      this.listFoundFiles.setToolTipText(file == null ? null : file.getAbsolutePath());
+      final File file = (File) model.getElementAt(index);
+      this.listFoundFiles.setToolTipText(file.getAbsolutePath());
     }
   }//GEN-LAST:event_listFoundFilesMouseMoved
 
@@ -255,10 +279,10 @@ public class GoToFilePanel extends javax.swing.JPanel implements Comparator<Node
         break;
       }
 
-      if (processed && !this.foundNodeList.isEmpty()) {
+      if (processed && !this.foundFileList.isEmpty()) {
         if (selectedIndex < 0) {
-          selectedIndex = this.foundNodeList.size() - 1;
-        } else if (selectedIndex >= this.foundNodeList.size()) {
+          selectedIndex = this.foundFileList.size() - 1;
+        } else if (selectedIndex >= this.foundFileList.size()) {
           selectedIndex = 0;
         }
         this.listFoundFiles.setSelectedIndex(selectedIndex);
@@ -278,7 +302,7 @@ public class GoToFilePanel extends javax.swing.JPanel implements Comparator<Node
   // Variables declaration - do not modify//GEN-BEGIN:variables
   private javax.swing.JScrollPane jScrollPane1;
   private javax.swing.JLabel labelFilenameMask;
-  private javax.swing.JList<NodeFileOrFolder> listFoundFiles;
+  private javax.swing.JList<File> listFoundFiles;
   private javax.swing.JTextField textFieldMask;
   // End of variables declaration//GEN-END:variables
 }
@@ -20,8 +20,10 @@ package com.igormaznitsa.sciareto.ui.misc;
 
 import java.awt.Color;
 import java.awt.Component;
+import java.io.File;
 import java.util.Locale;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.swing.DefaultListCellRenderer;
 import javax.swing.JList;
 import javax.swing.UIManager;
@@ -30,6 +32,7 @@ import com.igormaznitsa.sciareto.ui.Icons;
 import com.igormaznitsa.sciareto.ui.editors.PictureViewer;
 import com.igormaznitsa.sciareto.ui.tree.NodeFileOrFolder;
 import com.igormaznitsa.sciareto.ui.tree.NodeProject;
+import com.igormaznitsa.sciareto.ui.tree.NodeProjectGroup;
 import com.igormaznitsa.sciareto.ui.tree.TreeCellRenderer;
 
 public final class NodeListRenderer extends DefaultListCellRenderer {
@@ -39,8 +42,20 @@ public final class NodeListRenderer extends DefaultListCellRenderer {
   private final Color COLOR_ROW_EVEN;
   private final Color COLOR_ROW_ODD;
 
+  private final transient NodeProjectGroup group;
+
   public NodeListRenderer() {
+    this(null);
+  }
+
+  /**
+   * Make renderer which can show both nodes and files.
+   *
+   * @param group group to find projects of shown files, can be null
+   */
+  public NodeListRenderer(@Nullable final NodeProjectGroup group) {
     super();
+    this.group = group;
     final Color defaultBackground = UIManager.getLookAndFeelDefaults().getColor("List.background"); //NOI18N
     if (defaultBackground == null) {
       COLOR_ROW_EVEN = null;
@@ -66,13 +81,36 @@ public final class NodeListRenderer extends DefaultListCellRenderer {
     }
   }
 
+  @Nonnull
+  private String makeTextForFile(@Nonnull final File file) {
+    final NodeProject project = this.group == null ? null : this.group.findProjectForFile(file);
+    if (project == null) {
+      return file.getName();
+    } else {
+      return file.getName() + " (found in " + project.toString() + ')';
+    }
+  }
+
   @Override
   @Nonnull
   public Component getListCellRendererComponent(@Nonnull final JList<?> list, @Nonnull final Object value, final int index, final boolean isSelected, final boolean cellHasFocus) {
     super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
-    final NodeFileOrFolder node = (NodeFileOrFolder) value;
+    final String name;
+    final boolean folder;
+    final String text;
+    if (value instanceof File) {
+      final File file = (File) value;
+      name = file.getName();
+      folder = file.isDirectory();
+      text = makeTextForFile(file);
+    } else {
+      final NodeFileOrFolder node = (NodeFileOrFolder) value;
+      name = node.toString();
+      folder = node instanceof NodeProject || !node.isLeaf();
+      text = makeTextForNode(node);
+    }
 
-    final String ext = FilenameUtils.getExtension(node.toString()).toLowerCase(Locale.ENGLISH);
+    final String ext = FilenameUtils.getExtension(name).toLowerCase(Locale.ENGLISH);
 
     if (!isSelected && COLOR_ROW_EVEN != null && COLOR_ROW_ODD != null) {
       if (index % 2 == 0) {
@@ -82,7 +120,7 @@ public final class NodeListRenderer extends DefaultListCellRenderer {
       }
     }
 
-    if (node instanceof NodeProject || !node.isLeaf()) {
+    if (folder) {
       this.setIcon(TreeCellRenderer.DEFAULT_FOLDER_CLOSED);
     } else if (ext.equals("mmd")) { //NOI18N
       this.setIcon(Icons.DOCUMENT.getIcon());
@@ -91,7 +129,7 @@ public final class NodeListRenderer extends DefaultListCellRenderer {
     } else {
       this.setIcon(TreeCellRenderer.DEFAULT_FILE);
     }
-    this.setText(makeTextForNode(node));
+    this.setText(text);
     return this;
   }
 
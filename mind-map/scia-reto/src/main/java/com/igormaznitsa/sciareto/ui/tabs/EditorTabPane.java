@@ -313,6 +313,27 @@ public class EditorTabPane extends JTabbedPane implements Iterable<TabTitle> {
     this.setToolTipTextAt(count, tabTitle.getToolTipText());
   }
 
+  /**
+   * Replace content of tab by new provider, the tab keeps its position.
+   *
+   * @param title title of tab to be replaced
+   * @param provider new provider for the tab
+   * @return true if the tab has been found and replaced, false otherwise
+   */
+  public boolean replaceTab(@Nonnull final TabTitle title, @Nonnull final TabProvider provider) {
+    for (int i = 0; i < this.getTabCount(); i++) {
+      if (this.getTabComponentAt(i) == title) {
+        final TabTitle newTitle = provider.getTabTitle();
+        this.setComponentAt(i, provider.getEditor().getContainerToShow());
+        this.setTabComponentAt(i, newTitle);
+        this.setToolTipTextAt(i, newTitle.getToolTipText());
+        title.disposeEditor();
+        return true;
+      }
+    }
+    return false;
+  }
+
   public boolean focusToFile(@Nonnull final File file, final int line) {
     for (int i = 0; i < this.getTabCount(); i++) {
       final TabTitle title = (TabTitle) this.getTabComponentAt(i);
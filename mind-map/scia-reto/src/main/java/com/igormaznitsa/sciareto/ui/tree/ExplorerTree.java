@@ -45,6 +45,8 @@ import javax.swing.JScrollPane;
 import javax.swing.JSeparator;
 import javax.swing.SwingUtilities;
 import javax.swing.ToolTipManager;
+import javax.swing.event.TreeExpansionEvent;
+import javax.swing.event.TreeWillExpandListener;
 import javax.swing.tree.TreePath;
 import javax.swing.tree.TreeSelectionModel;
 
@@ -101,6 +103,32 @@ public final class ExplorerTree extends JScrollPane {
     this.projectTree.setCellRenderer(new TreeCellRenderer());
     this.projectTree.setModel(new NodeProjectGroup(context, ".")); //NOI18N
     this.projectTree.setRootVisible(false);
+    this.projectTree.addTreeWillExpandListener(new TreeWillExpandListener() {
+      @Override
+      public void treeWillExpand(@Nonnull final TreeExpansionEvent event) {
+        final Object last = event.getPath().getLastPathComponent();
+        if (last instanceof NodeFileOrFolder) {
+          final NodeFileOrFolder node = (NodeFileOrFolder) last;
+          final boolean showHiddenFiles = PrefUtils.isShowHiddenFilesAndFolders();
+          if (node.isChildrenLoaded()) {
+            node.prefetchChildFolders(showHiddenFiles);
+          } else {
+            final NodeProjectGroup group = getCurrentGroup();
+            node.loadChildrenInBackground(showHiddenFiles, new Runnable() {
+              @Override
+              public void run() {
+                group.notifyFolderLoaded(node);
+                node.prefetchChildFolders(showHiddenFiles);
+              }
+            });
+          }
+        }
+      }
+
+      @Override
+      public void treeWillCollapse(@Nonnull final TreeExpansionEvent event) {
+      }
+    });
     this.setViewportView(this.projectTree);
 
     this.projectTree.addKeyListener(new KeyAdapter() {
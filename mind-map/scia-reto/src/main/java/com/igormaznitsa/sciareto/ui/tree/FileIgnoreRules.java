@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2018 Igor Maznitsa.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package com.igormaznitsa.sciareto.ui.tree;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.commons.io.FileUtils;
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+
+/**
+ * Rules to skip files and folders during project tree traversal. Rules are
+ * written in .gitignore syntax: a rule without slash matches name on any
+ * level, a rule with slash matches path relative to the project folder, a
+ * rule ended by slash matches only folders, * and ? don't match slash, **
+ * matches any number of folders and ! makes exception from previous rules.
+ * Content of ignored folders is not read at all.
+ */
+public final class FileIgnoreRules {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FileIgnoreRules.class);
+
+  public static final FileIgnoreRules NONE = new FileIgnoreRules(new Rule[0]);
+
+  private static final String GIT_IGNORE = ".gitignore"; //NOI18N
+
+  private static final class Rule {
+
+    private final Pattern pattern;
+    private final boolean exception;
+    private final boolean onlyFolder;
+    private final boolean nameOnly;
+
+    private Rule(@Nonnull final Pattern pattern, final boolean exception, final boolean onlyFolder, final boolean nameOnly) {
+      this.pattern = pattern;
+      this.exception = exception;
+      this.onlyFolder = onlyFolder;
+      this.nameOnly = nameOnly;
+    }
+  }
+
+  private final Rule[] rules;
+
+  private FileIgnoreRules(@Nonnull @MustNotContainNull final Rule[] rules) {
+    this.rules = rules;
+  }
+
+  /**
+   * Make rules for project.
+   *
+   * @param projectFolder project folder, its .gitignore file is read if
+   * allowed
+   * @param globs comma separated list of rules, can be null
+   * @param useGitIgnore true if rules from .gitignore should be used
+   * @return rules, must not be null
+   */
+  @Nonnull
+  public static FileIgnoreRules make(@Nonnull final File projectFolder, @Nullable final String globs, final boolean useGitIgnore) {
+    final List<Rule> result = new ArrayList<>();
+    if (globs != null) {
+      for (final String glob : globs.split(",")) { //NOI18N
+        addRule(result, glob);
+      }
+    }
+    if (useGitIgnore) {
+      final File gitIgnore = new File(projectFolder, GIT_IGNORE);
+      if (gitIgnore.isFile()) {
+        try {
+          for (final String line : FileUtils.readLines(gitIgnore, StandardCharsets.UTF_8)) {
+            addRule(result, line);
+          }
+        } catch (IOException ex) {
+          LOGGER.error("Can't read " + gitIgnore, ex); //NOI18N
+        }
+      }
+    }
+    return result.isEmpty() ? NONE : new FileIgnoreRules(result.toArray(new Rule[result.size()]));
+  }
+
+  public boolean isEmpty() {
+    return this.rules.length == 0;
+  }
+
+  /**
+   * Check that file or folder must be skipped.
+   *
+   * @param relativePath path relative to the project folder, parts must be
+   * separated by slash
+   * @param folder true if the path points to folder
+   * @return true if the file must be skipped
+   */
+  public boolean isIgnored(@Nonnull final String relativePath, final boolean folder) {
+    if (this.rules.length == 0) {
+      return false;
+    }
+    final String name = relativePath.substring(relativePath.lastIndexOf('/') + 1);
+    boolean result = false;
+    for (final Rule r : this.rules) {
+      if (result == r.exception && (folder || !r.onlyFolder) && r.pattern.matcher(r.nameOnly ? name : relativePath).matches()) {
+        result = !r.exception;
+      }
+    }
+    return result;
+  }
+
+  private static void addRule(@Nonnull @MustNotContainNull final List<Rule> rules, @Nonnull final String line) {
+    String text = line.trim();
+    if (text.isEmpty() || text.startsWith("#")) { //NOI18N
+      return;
+    }
+
+    final boolean exception = text.startsWith("!"); //NOI18N
+    if (exception) {
+      text = text.substring(1);
+    } else if (text.startsWith("\\")) { //NOI18N
+      text = text.substring(1);
+    }
+
+    final boolean onlyFolder = text.endsWith("/"); //NOI18N
+    while (text.endsWith("/")) { //NOI18N
+      text = text.substring(0, text.length() - 1);
+    }
+
+    final boolean nameOnly = text.indexOf('/') < 0;
+    while (text.startsWith("/")) { //NOI18N
+      text = text.substring(1);
+    }
+
+    if (!text.isEmpty()) {
+      rules.add(new Rule(Pattern.compile(globToRegex(text)), exception, onlyFolder, nameOnly));
+    }
+  }
+
+  @Nonnull
+  private static String globToRegex(@Nonnull final String glob) {
+    final StringBuilder result = new StringBuilder(glob.length() * 2);
+    int i = 0;
+    while (i < glob.length()) {
+      final char c = glob.charAt(i);
+      if (c == '*') {
+        if (glob.startsWith("**/", i)) { //NOI18N
+          result.append("(?:.*/)?"); //NOI18N
+          i += 3;
+          continue;
+        } else if (glob.startsWith("**", i)) { //NOI18N
+          result.append(".*"); //NOI18N
+          i += 2;
+          continue;
+        } else {
+          result.append("[^/]*"); //NOI18N
+        }
+      } else if (c == '?') {
+        result.append("[^/]"); //NOI18N
+      } else if (c == '[') {
+        final int end = glob.indexOf(']', i + 1);
+        if (end < 0) {
+          result.append("\\["); //NOI18N
+        } else {
+          String set = glob.substring(i + 1, end);
+          if (set.startsWith("!")) { //NOI18N
+            set = '^' + set.substring(1);
+          }
+          result.append('[').append(set.replace("\\", "\\\\")).append(']'); //NOI18N
+          i = end;
+        }
+      } else if (Character.isLetterOrDigit(c) || c == '/') {
+        result.append(c);
+      } else {
+        result.append('\\').append(c);
+      }
+      i++;
+    }
+    return result.toString();
+  }
+}
@@ -0,0 +1,580 @@
+/*
+ * Copyright (C) 2018 Igor Maznitsa.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package com.igormaznitsa.sciareto.ui.tree;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import com.igormaznitsa.meta.annotation.MustNotContainNull;
+import com.igormaznitsa.mindmap.model.logger.Logger;
+import com.igormaznitsa.mindmap.model.logger.LoggerFactory;
+import com.igormaznitsa.sciareto.Context;
+import com.igormaznitsa.sciareto.preferences.PrefUtils;
+
+/**
+ * Index of file names of projects. Files are read directly from disk with the
+ * same filters as the project tree, so that tree nodes are not created for not
+ * expanded folders. Names are indexed by trigrams to find typo-tolerant
+ * candidates fast, results are ranked by fuzzy match score.
+ * <p>
+ * The index is built once and then updated by changed subtrees only, entries
+ * are kept in a sorted path map so that a subtree is found by path prefix.
+ * Removed entries leave holes which are skipped by search, the index is
+ * compacted when there are more holes than live entries.
+ */
+public final class FileNameIndex {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FileNameIndex.class);
+
+  private static final int MIN_TRIGRAM_SIMILARITY_PERCENT = 50;
+  private static final int MIN_REMOVED_ENTRIES_FOR_COMPACTION = 1024;
+
+  private static final Comparator<Hit> HIT_COMPARATOR = new Comparator<Hit>() {
+    @Override
+    public int compare(@Nonnull final Hit o1, @Nonnull final Hit o2) {
+      int result = Integer.compare(o2.score, o1.score);
+      if (result == 0) {
+        result = o1.name.compareTo(o2.name);
+      }
+      return result;
+    }
+  };
+
+  private final List<Entry> entries = new ArrayList<>();
+  private final TreeMap<String, Integer> ids = new TreeMap<>();
+  private final Map<Long, int[]> trigrams = new HashMap<>();
+  private int removedEntries;
+
+  private static final class Entry {
+
+    private final File file;
+    private final String name;
+    private final String lowerCasedName;
+    private final long charMask;
+
+    private Entry(@Nonnull final File file) {
+      this.file = file;
+      this.name = file.getName();
+      this.lowerCasedName = this.name.toLowerCase(Locale.ENGLISH);
+      this.charMask = makeCharMask(this.lowerCasedName);
+    }
+  }
+
+  private static final class Hit {
+
+    private final File file;
+    private final String name;
+    private final int score;
+
+    private Hit(@Nonnull final Entry entry, final int score) {
+      this.file = entry.file;
+      this.name = entry.name;
+      this.score = score;
+    }
+  }
+
+  FileNameIndex() {
+  }
+
+  /**
+   * Replace whole content of the index by all files of project group. Folders
+   * are read from disk, so that it should not be called from Swing thread.
+   *
+   * @param group project group, must not be null
+   */
+  void rebuild(@Nonnull final NodeProjectGroup group) {
+    final boolean showHiddenFiles = PrefUtils.isShowHiddenFilesAndFolders();
+    final List<File> files = new ArrayList<>();
+    for (final NodeFileOrFolder project : group) {
+      collectFiles((NodeProject) project, ((NodeProject) project).getFolder(), showHiddenFiles, Integer.MAX_VALUE, files);
+    }
+    synchronized (this) {
+      this.entries.clear();
+      this.ids.clear();
+      this.trigrams.clear();
+      this.removedEntries = 0;
+      for (final File f : files) {
+        add(f);
+      }
+    }
+  }
+
+  /**
+   * Synchronize indexed file or folder with its current state on disk, the
+   * subtree is removed from the index if the file doesn't exist anymore or
+   * it is not visible in the project tree.
+   *
+   * @param group project group which contains the file, must not be null
+   * @param file file or folder to be updated, must not be null
+   */
+  void updateSubtree(@Nonnull final NodeProjectGroup group, @Nonnull final File file) {
+    final NodeProject project = group.findProjectForFile(file);
+    final List<File> files = new ArrayList<>();
+    if (project != null && file.exists()) {
+      collectFiles(project, file, PrefUtils.isShowHiddenFilesAndFolders(), Integer.MAX_VALUE, files);
+    }
+    synchronized (this) {
+      removeSubtree(file);
+      for (final File f : files) {
+        add(f);
+      }
+    }
+  }
+
+  /**
+   * Synchronize direct children of indexed folder with their current state on
+   * disk. Only removed and new children are processed, so that rename of file
+   * or folder doesn't rescan the rest of the folder.
+   *
+   * @param group project group which contains the folder, must not be null
+   * @param folder folder which children should be updated, must not be null
+   */
+  void updateChildren(@Nonnull final NodeProjectGroup group, @Nonnull final File folder) {
+    final NodeProject project = group.findProjectForFile(folder);
+    final boolean showHiddenFiles = PrefUtils.isShowHiddenFilesAndFolders();
+
+    final Set<File> children = new HashSet<>();
+    if (project != null && folder.isDirectory()) {
+      final List<File> found = new ArrayList<>();
+      collectFiles(project, folder, showHiddenFiles, 1, found);
+      children.addAll(found);
+      children.remove(folder);
+    }
+
+    final List<File> removed = new ArrayList<>();
+    synchronized (this) {
+      for (final File f : findIndexedChildren(folder)) {
+        if (!children.remove(f)) {
+          removed.add(f);
+        }
+      }
+    }
+
+    final List<File> added = new ArrayList<>();
+    for (final File f : children) {
+      collectFiles(project, f, showHiddenFiles, Integer.MAX_VALUE, added);
+    }
+
+    synchronized (this) {
+      for (final File f : removed) {
+        removeSubtree(f);
+      }
+      for (final File f : added) {
+        add(f);
+      }
+    }
+  }
+
+  /**
+   * Collect file and all its visible descendants, the project tree filters are
+   * used: hidden files and files ignored by project rules are skipped.
+   *
+   * @param project project which contains the file, must not be null
+   * @param start file or folder to be collected, must not be null
+   * @param showHiddenFiles true if hidden files should be collected
+   * @param maxDepth max depth of collected descendants
+   * @param result list to collect files, must not be null
+   */
+  static void collectFiles(@Nonnull final NodeProject project, @Nonnull final File start, final boolean showHiddenFiles, final int maxDepth, @Nonnull @MustNotContainNull final List<File> result) {
+    final Path projectFolder = project.getFolder().toPath();
+    final FileIgnoreRules ignoreRules = project.getIgnoreRules();
+    try {
+      Files.walkFileTree(start.toPath(), EnumSet.noneOf(FileVisitOption.class), maxDepth, new SimpleFileVisitor<Path>() {
+        @Nonnull
+        private FileVisitResult collect(@Nonnull final Path path, final boolean folder) throws IOException {
+          if (Thread.currentThread().isInterrupted()) {
+            return FileVisitResult.TERMINATE;
+          }
+          if (!path.equals(projectFolder)) {
+            final String relativePath = projectFolder.relativize(path).toString().replace(File.separatorChar, '/');
+            if ((!showHiddenFiles && Files.isHidden(path) && !Context.KNOWLEDGE_FOLDER.equals(relativePath)) || ignoreRules.isIgnored(relativePath, folder)) {
+              return folder ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+          }
+          result.add(path.toFile());
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        @Nonnull
+        public FileVisitResult preVisitDirectory(@Nonnull final Path dir, @Nonnull final BasicFileAttributes attrs) throws IOException {
+          return collect(dir, true);
+        }
+
+        @Override
+        @Nonnull
+        public FileVisitResult visitFile(@Nonnull final Path file, @Nonnull final BasicFileAttributes attrs) throws IOException {
+          return collect(file, attrs.isDirectory());
+        }
+
+        @Override
+        @Nonnull
+        public FileVisitResult visitFileFailed(@Nonnull final Path file, @Nonnull final IOException exc) {
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    } catch (IOException ex) {
+      LOGGER.error("Can't collect files : " + start, ex); //NOI18N
+    }
+  }
+
+  private void add(@Nonnull final File file) {
+    final String path = file.getPath();
+    if (this.ids.containsKey(path)) {
+      return;
+    }
+    final int id = this.entries.size();
+    final Entry entry = new Entry(file);
+    this.entries.add(entry);
+    this.ids.put(path, id);
+
+    for (final Long trigram : makeTrigrams(entry.lowerCasedName)) {
+      int[] buffer = this.trigrams.get(trigram);
+      if (buffer == null) {
+        buffer = new int[4];
+        this.trigrams.put(trigram, buffer);
+      } else if (buffer[0] + 1 == buffer.length) {
+        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        this.trigrams.put(trigram, buffer);
+      }
+      buffer[++buffer[0]] = id;
+    }
+  }
+
+  private void removeSubtree(@Nonnull final File file) {
+    final String path = file.getPath();
+    final String prefix = path + File.separatorChar;
+
+    final List<Integer> removed = new ArrayList<>();
+    final Integer id = this.ids.remove(path);
+    if (id != null) {
+      removed.add(id);
+    }
+    final Map<String, Integer> subtree = this.ids.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    removed.addAll(subtree.values());
+    subtree.clear();
+
+    for (final Integer i : removed) {
+      this.entries.set(i, null);
+    }
+    this.removedEntries += removed.size();
+
+    if (this.removedEntries > MIN_REMOVED_ENTRIES_FOR_COMPACTION && this.removedEntries > this.ids.size()) {
+      compact();
+    }
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  private List<File> findIndexedChildren(@Nonnull final File folder) {
+    final String prefix = folder.getPath() + File.separatorChar;
+    final List<File> result = new ArrayList<>();
+    for (final Map.Entry<String, Integer> e : this.ids.subMap(prefix, true, prefix + Character.MAX_VALUE, false).entrySet()) {
+      if (e.getKey().indexOf(File.separatorChar, prefix.length()) < 0) {
+        result.add(this.entries.get(e.getValue()).file);
+      }
+    }
+    return result;
+  }
+
+  private void compact() {
+    final List<File> files = new ArrayList<>(this.ids.size());
+    for (final Entry e : this.entries) {
+      if (e != null) {
+        files.add(e.file);
+      }
+    }
+    this.entries.clear();
+    this.ids.clear();
+    this.trigrams.clear();
+    this.removedEntries = 0;
+    for (final File f : files) {
+      add(f);
+    }
+  }
+
+  public synchronized int size() {
+    return this.ids.size();
+  }
+
+  /**
+   * Find files for entered text. If the text contains wildcards (? and *) then
+   * it is processed as name prefix mask, else fuzzy search is used. The search
+   * is interrupted if the current thread is interrupted.
+   *
+   * @param text text entered by user, must not be null
+   * @param maxResults max number of returned files
+   * @return found files sorted by relevance, must not be null
+   */
+  @Nonnull
+  @MustNotContainNull
+  public List<File> find(@Nonnull final String text, final int maxResults) {
+    if (text.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    final List<Hit> hits;
+    synchronized (this) {
+      hits = text.indexOf('*') >= 0 || text.indexOf('?') >= 0 ? findForMask(text) : findFuzzy(text.toLowerCase(Locale.ENGLISH));
+    }
+    if (hits == null) {
+      return Collections.emptyList();
+    }
+
+    Collections.sort(hits, HIT_COMPARATOR);
+
+    final List<File> result = new ArrayList<>(Math.min(maxResults, hits.size()));
+    for (final Hit h : hits) {
+      if (result.size() >= maxResults) {
+        break;
+      }
+      result.add(h.file);
+    }
+    return result;
+  }
+
+  @Nullable
+  @MustNotContainNull
+  private List<Hit> findForMask(@Nonnull final String mask) {
+    final Pattern pattern = makePattern(mask);
+
+    String longestFragment = ""; //NOI18N
+    for (final String fragment : mask.toLowerCase(Locale.ENGLISH).split("[\\*\\?]")) { //NOI18N
+      if (fragment.length() > longestFragment.length()) {
+        longestFragment = fragment;
+      }
+    }
+
+    final List<Hit> result = new ArrayList<>();
+    final int[] candidates = longestFragment.length() < 3 ? null : findContainingAllTrigrams(longestFragment);
+    final int limit = candidates == null ? this.entries.size() : candidates.length;
+
+    for (int i = 0; i < limit; i++) {
+      if ((i & 0xFF) == 0 && Thread.currentThread().isInterrupted()) {
+        return null;
+      }
+      final Entry entry = this.entries.get(candidates == null ? i : candidates[i]);
+      if (entry != null && pattern.matcher(entry.name).matches()) {
+        result.add(new Hit(entry, -entry.name.length()));
+      }
+    }
+    return result;
+  }
+
+  @Nullable
+  @MustNotContainNull
+  private List<Hit> findFuzzy(@Nonnull final String text) {
+    final List<Hit> result = new ArrayList<>();
+    final long textMask = makeCharMask(text);
+    final int size = this.entries.size();
+    final boolean[] matched = new boolean[size];
+
+    for (int i = 0; i < size; i++) {
+      if ((i & 0xFF) == 0 && Thread.currentThread().isInterrupted()) {
+        return null;
+      }
+      final Entry entry = this.entries.get(i);
+      if (entry != null && (entry.charMask & textMask) == textMask) {
+        final int score = fuzzyScore(entry.name, entry.lowerCasedName, text);
+        if (score > 0) {
+          matched[i] = true;
+          result.add(new Hit(entry, score));
+        }
+      }
+    }
+
+    // names with typos, they are placed after all fuzzy matched ones
+    final Set<Long> textTrigrams = makeTrigrams(text);
+    if (!textTrigrams.isEmpty()) {
+      final int[] counters = new int[size];
+      for (final Long t : textTrigrams) {
+        final int[] buffer = this.trigrams.get(t);
+        if (buffer != null) {
+          for (int i = 1; i <= buffer[0]; i++) {
+            counters[buffer[i]]++;
+          }
+        }
+      }
+      if (Thread.currentThread().isInterrupted()) {
+        return null;
+      }
+      for (int i = 0; i < counters.length; i++) {
+        final int similarity = counters[i] * 100 / textTrigrams.size();
+        final Entry entry = this.entries.get(i);
+        if (entry != null && !matched[i] && similarity >= MIN_TRIGRAM_SIMILARITY_PERCENT) {
+          result.add(new Hit(entry, similarity - 100));
+        }
+      }
+    }
+
+    return result;
+  }
+
+  @Nullable
+  private int[] findContainingAllTrigrams(@Nonnull final String fragment) {
+    int[] result = null;
+    for (final Long t : makeTrigrams(fragment)) {
+      final int[] buffer = this.trigrams.get(t);
+      if (buffer == null) {
+        return new int[0];
+      }
+      result = intersect(result == null ? Arrays.copyOfRange(buffer, 1, buffer[0] + 1) : result, buffer);
+    }
+    return result;
+  }
+
+  @Nonnull
+  private static int[] intersect(@Nonnull final int[] ids, @Nonnull final int[] buffer) {
+    final int[] result = new int[Math.min(ids.length, buffer[0])];
+    int size = 0;
+    int ia = 0;
+    int ib = 1;
+    while (ia < ids.length && ib <= buffer[0]) {
+      if (ids[ia] == buffer[ib]) {
+        result[size++] = ids[ia];
+        ia++;
+        ib++;
+      } else if (ids[ia] < buffer[ib]) {
+        ia++;
+      } else {
+        ib++;
+      }
+    }
+    return Arrays.copyOf(result, size);
+  }
+
+  /**
+   * Calculate score of fuzzy match, all chars of text must be presented in
+   * the name in the same order. Matches in start of name, on word boundaries
+   * and consecutive matches get bonuses.
+   *
+   * @param name original name, must not be null
+   * @param lowerCasedName lower cased name, must not be null
+   * @param text lower cased text to be found, must not be null
+   * @return score of match, zero or negative if there is no match
+   */
+  static int fuzzyScore(@Nonnull final String name, @Nonnull final String lowerCasedName, @Nonnull final String text) {
+    if (lowerCasedName.equals(text)) {
+      return 100000;
+    }
+
+    int score = 0;
+    int position = 0;
+    int previous = -2;
+
+    for (int i = 0; i < text.length(); i++) {
+      final int found = lowerCasedName.indexOf(text.charAt(i), position);
+      if (found < 0) {
+        return 0;
+      }
+      score += 10;
+      if (found == previous + 1) {
+        score += 15;
+      }
+      if (found == 0) {
+        score += 20;
+      } else if (isWordStart(name, found)) {
+        score += 10;
+      }
+      score -= Math.min(found - position, 5);
+      previous = found;
+      position = found + 1;
+    }
+
+    if (lowerCasedName.startsWith(text)) {
+      score += 1000;
+    } else if (lowerCasedName.contains(text)) {
+      score += 500;
+    }
+
+    score -= (lowerCasedName.length() - text.length()) / 8;
+
+    return Math.max(1, score);
+  }
+
+  private static boolean isWordStart(@Nonnull final String name, final int index) {
+    final char prev = name.charAt(index - 1);
+    final char cur = name.charAt(index);
+    return !Character.isLetterOrDigit(prev) || (Character.isLowerCase(prev) && Character.isUpperCase(cur));
+  }
+
+  private static long makeCharMask(@Nonnull final String text) {
+    long result = 0L;
+    for (int i = 0; i < text.length(); i++) {
+      result |= 1L << (text.charAt(i) & 0x3F);
+    }
+    return result;
+  }
+
+  @Nonnull
+  @MustNotContainNull
+  private static Set<Long> makeTrigrams(@Nonnull final String text) {
+    final Set<Long> result = new HashSet<>();
+    for (int i = 0; i + 3 <= text.length(); i++) {
+      result.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+    }
+    return result;
+  }
+
+  @Nonnull
+  private static Pattern makePattern(@Nonnull final String text) {
+    final StringBuilder buffer = new StringBuilder();
+    for (final char c : text.toCharArray()) {
+      switch (c) {
+        case '?':
+          buffer.append('.');
+          break;
+        case '*':
+          buffer.append(".*"); //NOI18N
+          break;
+        default: {
+          if (Character.isWhitespace(c) || Character.isISOControl(c)) {
+            buffer.append("\\s"); //NOI18N
+          } else {
+            final String code = Integer.toHexString(c).toUpperCase(Locale.ENGLISH);
+            buffer.append("\\u").append("0000", 0, 4 - code.length()).append(code); //NOI18N
+          }
+        }
+        break;
+      }
+    }
+    buffer.append(".*"); //NOI18N
+    return Pattern.compile(buffer.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+  }
+}
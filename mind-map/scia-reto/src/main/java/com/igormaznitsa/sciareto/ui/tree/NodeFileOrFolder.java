@@ -20,6 +20,7 @@ package com.igormaznitsa.sciareto.ui.tree;
 
 import com.igormaznitsa.meta.annotation.MustNotContainNull;
 import com.igormaznitsa.meta.annotation.ReturnsOriginal;
+import com.igormaznitsa.meta.annotation.UiThread;
 import com.igormaznitsa.meta.common.utils.ArrayUtils;
 import com.igormaznitsa.meta.common.utils.Assertions;
 import com.igormaznitsa.meta.common.utils.IOUtils;
@@ -37,9 +38,13 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.RecursiveTask;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.regex.Pattern;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -73,38 +78,25 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
     }
   };
 
-  protected static final class ForkedLoadNodeTask extends RecursiveTask<NodeFileOrFolder> {
-
-    private final long serialVersionUID = 289347923874323L;
-
-    private final NodeFileOrFolder parent;
-    private final boolean isdir;
-    private final String name;
-    private final boolean addhidden;
-    private final boolean writable;
-    private final Cancelable cancelable;
-
-    protected ForkedLoadNodeTask(@Nonnull final NodeFileOrFolder parent, @Nonnull final Cancelable cancelable, final boolean isdir, @Nonnull final String name, final boolean addhidden, final boolean writable) {
-      this.parent = parent;
-      this.name = name;
-      this.addhidden = addhidden;
-      this.writable = writable;
-      this.isdir = isdir;
-      this.cancelable = cancelable;
+  private static final ExecutorService PREFETCH_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+    @Override
+    @Nonnull
+    public Thread newThread(@Nonnull final Runnable r) {
+      final Thread result = new Thread(r, "SR-EXPLORER-PREFETCH"); //NOI18N
+      result.setDaemon(true);
+      return result;
     }
+  });
 
+  private static final ExecutorService LOAD_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
     @Override
     @Nonnull
-    protected NodeFileOrFolder compute() {
-      try {
-        final NodeFileOrFolder result = new NodeFileOrFolder(this.parent, this.isdir, this.name, this.addhidden, this.writable);
-        result.reloadSubtree(this.addhidden, this.cancelable);
-        return result;
-      } catch (final IOException ex) {
-        throw new RuntimeException(ex);
-      }
+    public Thread newThread(@Nonnull final Runnable r) {
+      final Thread result = new Thread(r, "SR-EXPLORER-LOADER"); //NOI18N
+      result.setDaemon(true);
+      return result;
     }
-  }
+  });
 
   protected final NodeFileOrFolder parent;
 
@@ -113,6 +105,7 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
 
   protected volatile String name;
   private volatile boolean noAccess;
+  private volatile boolean childrenLoaded;
   private final boolean readonly;
 
   private volatile boolean disposed = false;
@@ -122,7 +115,7 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
     this.name = name;
 
     if (folder) {
-      this.children = Collections.synchronizedList(new ArrayList<NodeFileOrFolder>());
+      this.children = Collections.synchronizedList(new ArrayList<NodeFileOrFolder>(0));
       this.folderFlag = true;
     } else {
       this.children = Collections.EMPTY_LIST;
@@ -139,7 +132,7 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
   public int size() {
     if (this.folderFlag) {
       int counter = 1;
-      for (final NodeFileOrFolder f : this.children) {
+      for (final NodeFileOrFolder f : this) {
         counter += f.size();
       }
       return counter;
@@ -190,9 +183,19 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
   @Nonnull
   public NodeFileOrFolder addFile(@Nonnull final File file, final boolean showHiddenFiles) throws IOException {
     Assertions.assertTrue("Unexpected state!", this.folderFlag && file.getParentFile().equals(this.makeFileForNode())); //NOI18N
+    if (!isChildrenLoaded()) {
+      ensureChildrenLoaded(showHiddenFiles);
+      for (final NodeFileOrFolder c : this) {
+        if (c.name.equals(file.getName())) {
+          return c;
+        }
+      }
+    }
     final NodeFileOrFolder result = new NodeFileOrFolder(this, file.isDirectory(), file.getName(), showHiddenFiles, !Files.isWritable(file.toPath()));
-    this.children.add(0, result);
-    Collections.sort(this.children, this);
+    synchronized (this.children) {
+      this.children.add(0, result);
+      Collections.sort(this.children, this);
+    }
     return result;
   }
 
@@ -201,9 +204,189 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
     reloadSubtree(PrefUtils.isShowHiddenFilesAndFolders(), THREAD_CANCELABLE);
   }
 
+  /**
+   * Reload list of children. Only direct children are read, folders which
+   * children were loaded before are reloaded too so that their state is kept.
+   *
+   * @param addHiddenFilesAndFolders true if hidden files should be added
+   * @param cancelable cancel flag provider
+   * @throws IOException if error during folder read
+   */
   public void reloadSubtree(final boolean addHiddenFilesAndFolders, @Nonnull final Cancelable cancelable) throws IOException {
-    clearChildren();
-    this.children.addAll(_reloadSubtree(addHiddenFilesAndFolders, cancelable));
+    final List<NodeFileOrFolder> loaded = _reloadSubtree(addHiddenFilesAndFolders, cancelable);
+    synchronized (this.children) {
+      clearChildren();
+      this.children.addAll(loaded);
+      this.childrenLoaded = this.folderFlag && !cancelable.isCanceled();
+    }
+  }
+
+  /**
+   * Check that children of the node are read. Files always have loaded
+   * children.
+   *
+   * @return true if children are loaded
+   */
+  public boolean isChildrenLoaded() {
+    return !this.folderFlag || this.childrenLoaded;
+  }
+
+  /**
+   * Load children if they are not loaded yet. Must be called in Swing thread,
+   * the caller is responsible to notify the tree model about the change.
+   *
+   * @param showHiddenFiles true if hidden files should be shown
+   * @return true if children have been loaded by the call, false otherwise
+   */
+  @UiThread
+  public boolean ensureChildrenLoaded(final boolean showHiddenFiles) {
+    boolean result = false;
+    if (!isChildrenLoaded() && !isLoading() && !this.disposed) {
+      final List<NodeFileOrFolder> loaded = readChildren(showHiddenFiles);
+      result = loaded != null && acceptLoadedChildren(loaded);
+    }
+    return result;
+  }
+
+  /**
+   * Get children of the node without any change in the tree. If children are
+   * loaded then their snapshot is returned, otherwise folder is read into
+   * detached nodes. Can be called from any thread.
+   *
+   * @param showHiddenFiles true if hidden files should be shown
+   * @return list of children, must not be null
+   */
+  @Nonnull
+  @MustNotContainNull
+  public List<NodeFileOrFolder> listChildren(final boolean showHiddenFiles) {
+    if (isChildrenLoaded()) {
+      return makeChildrenSnapshot();
+    } else {
+      final List<NodeFileOrFolder> result = readChildren(showHiddenFiles);
+      return result == null ? Collections.<NodeFileOrFolder>emptyList() : result;
+    }
+  }
+
+  @Nullable
+  @MustNotContainNull
+  private List<NodeFileOrFolder> readChildren(final boolean showHiddenFiles) {
+    try {
+      return _reloadSubtree(showHiddenFiles, THREAD_CANCELABLE);
+    } catch (IOException ex) {
+      LOGGER.error("Can't load folder : " + makeFileForNode(), ex); //NOI18N
+      return null;
+    }
+  }
+
+  @UiThread
+  private boolean acceptLoadedChildren(@Nonnull @MustNotContainNull final List<NodeFileOrFolder> loaded) {
+    boolean accepted = false;
+    synchronized (this.children) {
+      if (!this.childrenLoaded && !this.disposed) {
+        clearChildren();
+        this.children.addAll(loaded);
+        this.childrenLoaded = true;
+        accepted = true;
+      }
+    }
+
+    if (!accepted) {
+      for (final NodeFileOrFolder c : loaded) {
+        c.dispose();
+      }
+    }
+    return accepted;
+  }
+
+  /**
+   * Read children in background if they are not loaded yet. Folder is read
+   * without any lock so that Swing thread is never blocked by the load, read
+   * children are placed into the node in Swing thread.
+   *
+   * @param showHiddenFiles true if hidden files should be shown
+   * @param swingCallback called in Swing thread after children placed into
+   * the node, it should notify the tree model
+   */
+  public void loadChildrenInBackground(final boolean showHiddenFiles, @Nonnull final Runnable swingCallback) {
+    LOAD_EXECUTOR.execute(new Runnable() {
+      @Override
+      public void run() {
+        if (!isChildrenLoaded() && !isDisposed()) {
+          final List<NodeFileOrFolder> loaded = readChildren(showHiddenFiles);
+          if (loaded != null && !Thread.currentThread().isInterrupted()) {
+            SwingUtilities.invokeLater(new Runnable() {
+              @Override
+              public void run() {
+                if (acceptLoadedChildren(loaded)) {
+                  swingCallback.run();
+                }
+              }
+            });
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * Start background read of children for child folders, so that they are
+   * ready when the user expands them. Read children are placed into nodes in
+   * Swing thread and the group is notified.
+   *
+   * @param showHiddenFiles true if hidden files should be shown
+   */
+  public void prefetchChildFolders(final boolean showHiddenFiles) {
+    final List<NodeFileOrFolder> folders = new ArrayList<>();
+    for (final NodeFileOrFolder c : this) {
+      if (!c.isChildrenLoaded()) {
+        folders.add(c);
+      }
+    }
+    final NodeProject project = findProject();
+    if (!folders.isEmpty() && project != null) {
+      final NodeProjectGroup group = project.getGroup();
+      PREFETCH_EXECUTOR.execute(new Runnable() {
+        @Override
+        public void run() {
+          for (final NodeFileOrFolder f : folders) {
+            if (f.isDisposed() || Thread.currentThread().isInterrupted()) {
+              break;
+            }
+            final List<NodeFileOrFolder> loaded = f.readChildren(showHiddenFiles);
+            if (loaded != null) {
+              SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                  if (f.acceptLoadedChildren(loaded)) {
+                    group.notifyFolderLoaded(f);
+                  }
+                }
+              });
+            }
+          }
+        }
+      });
+    }
+  }
+
+  /**
+   * Make path of the node relative to its project, parts of the path are
+   * separated by slash.
+   *
+   * @return relative path, empty string for project
+   */
+  @Nonnull
+  String makeProjectRelativePath() {
+    final StringBuilder result = new StringBuilder();
+    NodeFileOrFolder node = this;
+    while (node != null && !(node instanceof NodeProject)) {
+      if (result.length() > 0) {
+        result.insert(0, '/');
+      }
+      result.insert(0, node.name);
+      node = node.parent;
+    }
+    return result.toString();
   }
 
   private void clearChildren() {
@@ -222,7 +405,17 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
       result = new ArrayList<>();
       final File generatedFile = makeFileForNode();
       if (generatedFile != null && generatedFile.isDirectory()) {
-        final List<ForkedLoadNodeTask> forks = new ArrayList<>();
+        final Set<String> loadedFolders = new HashSet<>();
+        for (final NodeFileOrFolder c : this) {
+          if (c.folderFlag && c.childrenLoaded) {
+            loadedFolders.add(c.name);
+          }
+        }
+
+        final NodeProject project = findProject();
+        final FileIgnoreRules ignoreRules = project == null ? FileIgnoreRules.NONE : project.getIgnoreRules();
+        final String relativePath = makeProjectRelativePath();
+        final String pathPrefix = relativePath.isEmpty() ? "" : relativePath + '/'; //NOI18N
 
         DirectoryStream<Path> stream;
         try {
@@ -239,41 +432,30 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
               break;
             }
             if (addHiddenFilesAndFolders || !Files.isHidden(p)) {
-              forks.add(new ForkedLoadNodeTask(this, cancelableObject, Files.isDirectory(p), p.getFileName().toString(), addHiddenFilesAndFolders, !Files.isWritable(p)));
+              final String fileName = p.getFileName().toString();
+              final boolean folder = Files.isDirectory(p);
+              if (!ignoreRules.isIgnored(pathPrefix + fileName, folder)) {
+                result.add(new NodeFileOrFolder(this, folder, fileName, addHiddenFilesAndFolders, !Files.isWritable(p)));
+              }
             }
           }
         } finally {
           IOUtils.closeQuetly(stream);
         }
 
-        for (final ForkedLoadNodeTask f : forks) {
-          if (cancelableObject.isCanceled()) {
-            break;
-          }
-          f.fork();
-        }
-
-        if (!cancelableObject.isCanceled()) {
-          Collections.reverse(forks);
-
-          for (final ForkedLoadNodeTask f : forks) {
+        if (!loadedFolders.isEmpty()) {
+          for (final NodeFileOrFolder c : result) {
             if (cancelableObject.isCanceled()) {
               break;
             }
-            try {
-              result.add(f.join());
-            } catch (final RuntimeException ex) {
-              if (ex.getCause() instanceof IOException) {
-                throw (IOException) ex.getCause();
-              } else {
-                throw new IOException(ex);
-              }
+            if (c.folderFlag && loadedFolders.contains(c.name)) {
+              c.reloadSubtree(addHiddenFilesAndFolders, cancelableObject);
             }
           }
+        }
 
-          if (!cancelableObject.isCanceled()) {
-            Collections.sort(result, this);
-          }
+        if (!cancelableObject.isCanceled()) {
+          Collections.sort(result, this);
         }
       }
     } else {
@@ -293,10 +475,11 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
 
   void fireNotifySubtreeChanged(@Nonnull TreeModel model, @Nonnull @MustNotContainNull final List<TreeModelListener> listeners) {
     if (this.parent != null && this.folderFlag) {
-      final Object[] childrenObject = new Object[children.size()];
-      final int[] indexes = new int[children.size()];
-      for (int i = 0; i < this.children.size(); i++) {
-        final NodeFileOrFolder c = this.children.get(i);
+      final List<NodeFileOrFolder> snapshot = makeChildrenSnapshot();
+      final Object[] childrenObject = new Object[snapshot.size()];
+      final int[] indexes = new int[snapshot.size()];
+      for (int i = 0; i < snapshot.size(); i++) {
+        final NodeFileOrFolder c = snapshot.get(i);
         childrenObject[i] = c;
         indexes[i] = i;
         c.fireNotifySubtreeChanged(model, listeners);
@@ -316,7 +499,7 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
     if (theFile != null) {
       if (file.equals(theFile) || theFile.toPath().startsWith(file.toPath())) {
         list.add(this);
-        for (final NodeFileOrFolder f : this.children) {
+        for (final NodeFileOrFolder f : this) {
           f.findRelatedNodes(file, list);
         }
       }
@@ -374,7 +557,7 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
   @Override
   @Nonnull
   public Enumeration children() {
-    final Iterator<NodeFileOrFolder> iterator = this.children.iterator();
+    final Iterator<NodeFileOrFolder> iterator = makeChildrenSnapshot().iterator();
     return new Enumeration() {
 
       @Override
@@ -410,13 +593,20 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
   }
 
   @Nullable
+  @UiThread
   public TreePath findPathToFile(@Nonnull final File file) {
     final File generatedFile = makeFileForNode();
     if (file.equals(generatedFile)) {
       return new TreePath(new Object[]{this});
     }
-    if (!this.isLeaf()) {
-      for (final NodeFileOrFolder c : this.children) {
+    if (!this.isLeaf() && generatedFile != null && file.toPath().startsWith(generatedFile.toPath())) {
+      if (ensureChildrenLoaded(PrefUtils.isShowHiddenFilesAndFolders())) {
+        final NodeProject project = findProject();
+        if (project != null) {
+          project.getGroup().notifyFolderLoaded(this);
+        }
+      }
+      for (final NodeFileOrFolder c : this) {
         final TreePath result = c.findPathToFile(file);
         if (result != null) {
           return new TreePath(ArrayUtils.joinArrays(new Object[]{this}, result.getPath()));
@@ -441,7 +631,7 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
       resultList.add(this);
     }
     if (!this.isLeaf()) {
-      for (final NodeFileOrFolder c : this.children) {
+      for (final NodeFileOrFolder c : listChildren(PrefUtils.isShowHiddenFilesAndFolders())) {
         c.fillAllMatchNamePattern(namePattern, resultList);
       }
     }
@@ -451,11 +641,24 @@ public class NodeFileOrFolder implements TreeNode, Comparator<NodeFileOrFolder>,
     return !this.folderFlag && this.name.endsWith(".mmd"); //NOI18N
   }
 
+  /**
+   * Make copy of children list under its lock, the copy can be iterated in
+   * any thread while the list is reloaded.
+   *
+   * @return copy of current children list, must not be null
+   */
+  @Nonnull
+  @MustNotContainNull
+  protected List<NodeFileOrFolder> makeChildrenSnapshot() {
+    synchronized (this.children) {
+      return new ArrayList<>(this.children);
+    }
+  }
+
   @Override
   @Nonnull
   public Iterator<NodeFileOrFolder> iterator() {
-    final List<NodeFileOrFolder> projects = new ArrayList<>(this.children);
-    final Iterator<NodeFileOrFolder> result = projects.iterator();
+    final Iterator<NodeFileOrFolder> result = makeChildrenSnapshot().iterator();
     return new Iterator<NodeFileOrFolder>() {
       @Override
       public boolean hasNext() {
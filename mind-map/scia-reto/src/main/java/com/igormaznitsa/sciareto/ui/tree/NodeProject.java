@@ -46,6 +46,7 @@ public class NodeProject extends NodeFileOrFolder implements NodeFileOrFolder.Ca
 
   private volatile File folder = null;
   private volatile boolean knowledgeFolderPresented;
+  private volatile FileIgnoreRules ignoreRules = FileIgnoreRules.NONE;
   private final AtomicBoolean loading = new AtomicBoolean();
 
   public NodeProject(@Nonnull final NodeProjectGroup group, @Nonnull final File folder) throws IOException {
@@ -64,6 +65,21 @@ public class NodeProject extends NodeFileOrFolder implements NodeFileOrFolder.Ca
     return this.knowledgeFolderPresented;
   }
 
+  /**
+   * Children of project are loaded only by project reload.
+   *
+   * @return always true
+   */
+  @Override
+  public boolean isChildrenLoaded() {
+    return true;
+  }
+
+  @Nonnull
+  public FileIgnoreRules getIgnoreRules() {
+    return this.ignoreRules;
+  }
+
   @Override
   public void setName(@Nonnull final String name) throws IOException {
     this.name = name;
@@ -102,8 +118,7 @@ public class NodeProject extends NodeFileOrFolder implements NodeFileOrFolder.Ca
     final List<File> result = new ArrayList<>();
     for (final File mindMapFile : FileUtils.listFiles(baseFolder, new String[]{"mmd", "MMD"}, true)) { //NOI18N
       try {
-        final MindMap map = new MindMap(null, new StringReader(FileUtils.readFileToString(mindMapFile, "UTF-8"))); //NOI18N
-        if (!MapUtils.findTopicsRelatedToFile(baseFolder, changedFile, map).isEmpty()) {
+        if (MapUtils.hasLinkToFile(baseFolder, changedFile, FileUtils.readFileToString(mindMapFile, "UTF-8"))) { //NOI18N
           result.add(mindMapFile);
         }
       } catch (IOException ex) {
@@ -154,6 +169,9 @@ public class NodeProject extends NodeFileOrFolder implements NodeFileOrFolder.Ca
     final long startTime = System.currentTimeMillis();
     super.reloadSubtree(addHiddenFilesAndFolders, cancelable);
     LOGGER.info(String.format("Project %s reloaded, spent %d ms", this.toString(), System.currentTimeMillis() - startTime));
+    if (!this.isDisposed()) {
+      prefetchChildFolders(addHiddenFilesAndFolders);
+    }
   }
 
   @Override
@@ -164,6 +182,7 @@ public class NodeProject extends NodeFileOrFolder implements NodeFileOrFolder.Ca
 
     this.getGroup().notifyProjectStateChanged(this);
     try {
+      this.ignoreRules = FileIgnoreRules.make(this.folder, PrefUtils.getIgnoredFiles(), PrefUtils.isHideGitIgnoredFiles());
       final List<NodeFileOrFolder> result = new ArrayList<>(super._reloadSubtree(showHiddenFiles, cancelable));
       final File knowledgeFolder = new File(this.folder, Context.KNOWLEDGE_FOLDER);
       this.knowledgeFolderPresented = knowledgeFolder.isDirectory();
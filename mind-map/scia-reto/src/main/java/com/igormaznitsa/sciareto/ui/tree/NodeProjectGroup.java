@@ -22,8 +22,15 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.regex.Pattern;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -53,6 +60,21 @@ public class NodeProjectGroup extends NodeFileOrFolder implements TreeModel {
   protected final List<TreeModelListener> listeners = new CopyOnWriteArrayList<>();
   private final Context context;
 
+  private static final ExecutorService FILE_NAME_INDEX_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+    @Override
+    @Nonnull
+    public Thread newThread(@Nonnull final Runnable r) {
+      final Thread result = new Thread(r, "SR-FILE-NAME-INDEX"); //NOI18N
+      result.setDaemon(true);
+      return result;
+    }
+  });
+
+  private final FileNameIndex fileNameIndex = new FileNameIndex();
+  private final Object fileNameIndexLock = new Object();
+  private final Set<String> pendingFileNameIndexUpdates = new HashSet<>();
+  private Future<?> fileNameIndexBuild;
+
   public static final Pattern FILE_NAME = Pattern.compile("^[^\\+\\*\\?\\{\\}\\&\\|\\;\\:\\\\\\/]+$"); //NOI18N
 
   private static final Logger LOGGER = LoggerFactory.getLogger(NodeProjectGroup.class);
@@ -61,6 +83,144 @@ public class NodeProjectGroup extends NodeFileOrFolder implements TreeModel {
     super(null, true, ".", PrefUtils.isShowHiddenFilesAndFolders(), false); //NOI18N
     this.groupName = name;
     this.context = context;
+
+    this.listeners.add(new TreeModelListener() {
+      @Override
+      public void treeNodesChanged(@Nonnull final TreeModelEvent e) {
+        final Object[] changed = e.getChildren();
+        for (final Object c : changed == null ? new Object[]{e.getTreePath().getLastPathComponent()} : changed) {
+          final NodeFileOrFolder node = (NodeFileOrFolder) c;
+          final NodeFileOrFolder parent = node.getNodeParent();
+          if (node instanceof NodeProject || parent == null) {
+            rebuildFileNameIndex();
+          } else {
+            final File folder = parent.makeFileForNode();
+            if (folder != null) {
+              updateFileNameIndexChildren(folder);
+            }
+          }
+        }
+      }
+
+      @Override
+      public void treeNodesInserted(@Nonnull final TreeModelEvent e) {
+        for (final Object c : e.getChildren()) {
+          final File file = ((NodeFileOrFolder) c).makeFileForNode();
+          if (file != null) {
+            updateFileNameIndexSubtree(file);
+          }
+        }
+      }
+
+      @Override
+      public void treeNodesRemoved(@Nonnull final TreeModelEvent e) {
+        final File folder = ((NodeFileOrFolder) e.getTreePath().getLastPathComponent()).makeFileForNode();
+        for (final Object c : e.getChildren()) {
+          updateFileNameIndexSubtree(c instanceof NodeProject ? ((NodeProject) c).getFolder() : new File(folder, c.toString()));
+        }
+      }
+
+      @Override
+      public void treeStructureChanged(@Nonnull final TreeModelEvent e) {
+        // structure of folder below project is changed by lazy load of its children only
+        final Object last = e.getTreePath().getLastPathComponent();
+        if (last instanceof NodeProject) {
+          updateFileNameIndexSubtree(((NodeProject) last).getFolder());
+        } else if (last instanceof NodeProjectGroup) {
+          rebuildFileNameIndex();
+        }
+      }
+    });
+  }
+
+  private void rebuildFileNameIndex() {
+    scheduleFileNameIndexUpdate("*", new Runnable() { //NOI18N
+      @Override
+      public void run() {
+        fileNameIndex.rebuild(NodeProjectGroup.this);
+      }
+    });
+  }
+
+  private void updateFileNameIndexSubtree(@Nonnull final File file) {
+    scheduleFileNameIndexUpdate("S:" + file.getPath(), new Runnable() { //NOI18N
+      @Override
+      public void run() {
+        fileNameIndex.updateSubtree(NodeProjectGroup.this, file);
+      }
+    });
+  }
+
+  private void updateFileNameIndexChildren(@Nonnull final File folder) {
+    scheduleFileNameIndexUpdate("C:" + folder.getPath(), new Runnable() { //NOI18N
+      @Override
+      public void run() {
+        fileNameIndex.updateChildren(NodeProjectGroup.this, folder);
+      }
+    });
+  }
+
+  /**
+   * Schedule update of file name index. Every update reads current state of
+   * disk when it is executed, so that an update is skipped if the same one
+   * is still waiting in the queue. Nothing is scheduled before the first
+   * build because it reads everything anyway.
+   *
+   * @param key key of the update, must not be null
+   * @param update update to be executed, must not be null
+   */
+  private void scheduleFileNameIndexUpdate(@Nonnull final String key, @Nonnull final Runnable update) {
+    synchronized (this.fileNameIndexLock) {
+      if (this.fileNameIndexBuild == null || !this.pendingFileNameIndexUpdates.add(key)) {
+        return;
+      }
+    }
+    FILE_NAME_INDEX_EXECUTOR.execute(new Runnable() {
+      @Override
+      public void run() {
+        synchronized (fileNameIndexLock) {
+          pendingFileNameIndexUpdates.remove(key);
+        }
+        try {
+          update.run();
+        } catch (Exception ex) {
+          LOGGER.error("Can't update file name index", ex); //NOI18N
+        }
+      }
+    });
+  }
+
+  /**
+   * Get index of file names in the group. The index is built on the first
+   * call and then it is updated in background by tree changes. Can be called
+   * from any thread except Swing one because it waits for the first build.
+   *
+   * @return index of file names, must not be null
+   */
+  @Nonnull
+  public FileNameIndex getFileNameIndex() {
+    final Future<?> build;
+    synchronized (this.fileNameIndexLock) {
+      if (this.fileNameIndexBuild == null) {
+        this.fileNameIndexBuild = FILE_NAME_INDEX_EXECUTOR.submit(new Runnable() {
+          @Override
+          public void run() {
+            final long startTime = System.currentTimeMillis();
+            fileNameIndex.rebuild(NodeProjectGroup.this);
+            LOGGER.info(String.format("File name index for group '%s' built, %d file(s), spent %d ms", groupName, fileNameIndex.size(), System.currentTimeMillis() - startTime)); //NOI18N
+          }
+        });
+      }
+      build = this.fileNameIndexBuild;
+    }
+    try {
+      build.get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException ex) {
+      LOGGER.error("Can't build file name index", ex); //NOI18N
+    }
+    return this.fileNameIndex;
   }
 
   @Override
@@ -72,7 +232,7 @@ public class NodeProjectGroup extends NodeFileOrFolder implements TreeModel {
   @Nullable
   public NodeProject findForFolder(@Nonnull final File folder) {
     NodeProject result = null;
-    for (final NodeFileOrFolder n : this.children) {
+    for (final NodeFileOrFolder n : this) {
       if (folder.equals(((NodeProject) n).getFolder())) {
         result = (NodeProject) n;
       }
@@ -104,7 +264,7 @@ public class NodeProjectGroup extends NodeFileOrFolder implements TreeModel {
   @Nonnull
   @MustNotContainNull
   protected List<NodeFileOrFolder> _reloadSubtree(final boolean addHiddenFilesAndFolders, @Nonnull final Cancelable cancelableObject) throws IOException {
-    for (final NodeFileOrFolder f : this.children) {
+    for (final NodeFileOrFolder f : this) {
       if (cancelableObject.isCanceled()) {
         break;
       }
@@ -255,10 +415,20 @@ public class NodeProjectGroup extends NodeFileOrFolder implements TreeModel {
     });
   }
 
+  @UiThread
+  void notifyFolderLoaded(@Nonnull final NodeFileOrFolder folder) {
+    if (!folder.isDisposed()) {
+      final TreeModelEvent event = new TreeModelEvent(this, folder.makeTreePath());
+      for (final TreeModelListener l : this.listeners) {
+        l.treeStructureChanged(event);
+      }
+    }
+  }
+
   @Nullable
   public NodeProject findProjectForFile(@Nonnull final File file) {
     final Path filepath = Paths.toPath(file);
-    for (final NodeFileOrFolder t : this.children) {
+    for (final NodeFileOrFolder t : this) {
       final File projectFolder = ((NodeProject) t).getFolder();
       if (filepath.startsWith(Paths.toPath(projectFolder))) {
         return (NodeProject) t;
@@ -271,7 +441,7 @@ public class NodeProjectGroup extends NodeFileOrFolder implements TreeModel {
   @Nullable
   public TreePath findPathToFile(@Nonnull final File file) {
     TreePath path = null;
-    for (final NodeFileOrFolder p : this.children) {
+    for (final NodeFileOrFolder p : this) {
       path = p.findPathToFile(file);
       if (path != null) {
         break;
@@ -304,6 +474,11 @@ public class NodeProjectGroup extends NodeFileOrFolder implements TreeModel {
           for (final TreeModelListener l : this.listeners) {
             l.treeNodesRemoved(event);
           }
+        } else {
+          final File file = node.makeFileForNode();
+          if (file != null) {
+            updateFileNameIndexSubtree(file);
+          }
         }
         return true;
       }
@@ -313,10 +488,15 @@ public class NodeProjectGroup extends NodeFileOrFolder implements TreeModel {
 
   @Nonnull
   public NodeFileOrFolder addChild(@Nonnull final NodeFileOrFolder folder, final boolean showHiddenFiles, @Nonnull final File childFile) throws IOException {
+    final boolean childrenLoaded = folder.isChildrenLoaded();
     final NodeFileOrFolder newNode = folder.addFile(childFile, showHiddenFiles);
-    final TreeModelEvent event = new TreeModelEvent(this, folder.makeTreePath(), new int[]{newNode.getIndexAtParent()}, new Object[]{newNode});
-    for (final TreeModelListener l : this.listeners) {
-      l.treeNodesInserted(event);
+    if (childrenLoaded) {
+      final TreeModelEvent event = new TreeModelEvent(this, folder.makeTreePath(), new int[]{newNode.getIndexAtParent()}, new Object[]{newNode});
+      for (final TreeModelListener l : this.listeners) {
+        l.treeNodesInserted(event);
+      }
+    } else {
+      notifyFolderLoaded(folder);
     }
     return newNode;
   }
@@ -327,7 +507,7 @@ public class NodeProjectGroup extends NodeFileOrFolder implements TreeModel {
     final List<NodeFileOrFolder> result = new ArrayList<>();
 
     if (namePattern != null) {
-      for (final NodeFileOrFolder f : this.children) {
+      for (final NodeFileOrFolder f : this) {
         f.fillAllMatchNamePattern(namePattern, result);
       }
     }
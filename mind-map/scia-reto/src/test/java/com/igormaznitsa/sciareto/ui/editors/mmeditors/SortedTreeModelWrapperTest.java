@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2018 Igor Maznitsa.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package com.igormaznitsa.sciareto.ui.editors.mmeditors;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.SwingUtilities;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreePath;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.igormaznitsa.mindmap.model.Topic;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SortedTreeModelWrapperTest {
+
+  private static final Comparator<Object> BY_TEXT = new Comparator<Object>() {
+    @Override
+    public int compare(final Object o1, final Object o2) {
+      return ((Topic) o1).getText().compareTo(((Topic) o2).getText());
+    }
+  };
+
+  private static final String MAP_TEXT = "Mind Map generated by NB MindMap plugin\n"
+      + "> __version__=`1.1`\n"
+      + "---\n"
+      + "# root\n"
+      + "## beta\n"
+      + "### needle one\n"
+      + "### other\n"
+      + "## alpha\n"
+      + "### hidden\n"
+      + "## gamma\n"
+      + "> collapsed=`true`\n"
+      + "### needle two\n";
+
+  private static MindMap makeMap(final boolean lazy) throws Exception {
+    return new MindMap(null, new StringReader(MAP_TEXT), lazy);
+  }
+
+  private static List<String> children(final SortedTreeModelWrapper wrapper, final Object parent) {
+    final List<String> result = new ArrayList<>();
+    for (int i = 0; i < wrapper.getChildCount(parent); i++) {
+      result.add(((Topic) wrapper.getChild(parent, i)).getText());
+    }
+    return result;
+  }
+
+  private static Topic find(final MindMap map, final String text) {
+    for (final Topic t : map) {
+      if (t.getText().equals(text)) {
+        return t;
+      }
+    }
+    throw new AssertionError("Not found " + text);
+  }
+
+  private static void flushSwingQueue() throws Exception {
+    SwingUtilities.invokeAndWait(new Runnable() {
+      @Override
+      public void run() {
+      }
+    });
+  }
+
+  @Test
+  public void testSorting_StaleListRebuiltAfterRename() throws Exception {
+    final MindMap map = makeMap(false);
+    final SortedTreeModelWrapper wrapper = new SortedTreeModelWrapper(map, BY_TEXT);
+    final Topic root = map.getRoot();
+    assertEquals(Arrays.asList("alpha", "beta", "gamma"), children(wrapper, root));
+
+    final Topic alpha = find(map, "alpha");
+    wrapper.valueForPathChanged(new TreePath(alpha.getPath()), "zeta");
+    assertEquals(Arrays.asList("beta", "gamma", "zeta"), children(wrapper, root));
+    assertEquals(2, wrapper.getIndexOfChild(root, alpha));
+  }
+
+  @Test
+  public void testFilter_MatchesAndAncestorsVisible() throws Exception {
+    final MindMap map = makeMap(false);
+    final SortedTreeModelWrapper wrapper = new SortedTreeModelWrapper(map, BY_TEXT);
+
+    final List<Topic> found = wrapper.setFilter(" NEEDLE ");
+    assertEquals(2, found.size());
+    assertTrue(wrapper.isFiltered());
+    assertEquals(Arrays.asList("beta", "gamma"), children(wrapper, map.getRoot()));
+    assertEquals(Arrays.asList("needle one"), children(wrapper, find(map, "beta")));
+    assertFalse(wrapper.isVisible(find(map, "alpha")));
+    assertFalse(wrapper.isVisible(find(map, "other")));
+
+    assertTrue(wrapper.setFilter("").isEmpty());
+    assertFalse(wrapper.isFiltered());
+    assertEquals(Arrays.asList("alpha", "beta", "gamma"), children(wrapper, map.getRoot()));
+  }
+
+  @Test
+  public void testFilter_UpdatedByRename() throws Exception {
+    final MindMap map = makeMap(false);
+    final SortedTreeModelWrapper wrapper = new SortedTreeModelWrapper(map, BY_TEXT);
+    wrapper.setFilter("needle");
+
+    final Topic hidden = find(map, "hidden");
+    wrapper.valueForPathChanged(new TreePath(hidden.getPath()), "needle three");
+    assertTrue(wrapper.isVisible(hidden));
+    assertEquals(Arrays.asList("alpha", "beta", "gamma"), children(wrapper, map.getRoot()));
+    assertEquals(Arrays.asList("needle three"), children(wrapper, find(map, "alpha")));
+
+    final Topic needleOne = find(map, "needle one");
+    wrapper.valueForPathChanged(new TreePath(needleOne.getPath()), "plain");
+    assertFalse(wrapper.isVisible(needleOne));
+    assertFalse(wrapper.isVisible(find(map, "beta")));
+    assertEquals(Arrays.asList("alpha", "gamma"), children(wrapper, map.getRoot()));
+  }
+
+  @Test
+  public void testSorting_DeletedTopicDroppedFromStaleList() throws Exception {
+    final MindMap map = makeMap(false);
+    final SortedTreeModelWrapper wrapper = new SortedTreeModelWrapper(map, BY_TEXT);
+    final Topic beta = find(map, "beta");
+    assertEquals(Arrays.asList("needle one", "other"), children(wrapper, beta));
+
+    final Topic other = find(map, "other");
+    other.delete();
+    assertSame(beta, other.getParent());
+    beta.makeChild("another", null);
+    map.setRoot(map.getRoot(), true);
+    assertEquals(Arrays.asList("another", "needle one"), children(wrapper, beta));
+  }
+
+  @Test
+  public void testFilter_UpdatedByStructureChange() throws Exception {
+    final MindMap map = makeMap(false);
+    final SortedTreeModelWrapper wrapper = new SortedTreeModelWrapper(map, BY_TEXT);
+    wrapper.setFilter("needle");
+
+    final Topic beta = find(map, "beta");
+    find(map, "needle one").delete();
+    beta.makeChild("needle four", null);
+    wrapper.treeStructureChanged(new TreeModelEvent(map, beta.getPath()));
+    assertTrue(children(wrapper, beta).isEmpty());
+    flushSwingQueue();
+    assertEquals(Arrays.asList("needle four"), children(wrapper, beta));
+
+    find(map, "gamma").delete();
+    map.setRoot(map.getRoot(), true);
+    flushSwingQueue();
+    assertEquals(Arrays.asList("beta"), children(wrapper, map.getRoot()));
+    assertEquals(1, wrapper.setFilter("needle").size());
+  }
+
+  @Test
+  public void testFilter_StructureChangesAppliedOnceInSwingThread() throws Exception {
+    final MindMap map = makeMap(false);
+    final SortedTreeModelWrapper wrapper = new SortedTreeModelWrapper(map, BY_TEXT);
+    wrapper.setFilter("needle");
+
+    final AtomicInteger events = new AtomicInteger();
+    wrapper.addTreeModelListener(new TreeModelListener() {
+      @Override
+      public void treeNodesChanged(final TreeModelEvent e) {
+      }
+
+      @Override
+      public void treeNodesInserted(final TreeModelEvent e) {
+      }
+
+      @Override
+      public void treeNodesRemoved(final TreeModelEvent e) {
+      }
+
+      @Override
+      public void treeStructureChanged(final TreeModelEvent e) {
+        events.incrementAndGet();
+      }
+    });
+
+    final Topic alpha = find(map, "alpha");
+    final Topic added = alpha.makeChild("new needle", null);
+    map.setRoot(map.getRoot(), true);
+    alpha.makeChild("plain", null);
+    map.setRoot(map.getRoot(), true);
+    assertEquals(2, events.get());
+    assertFalse(wrapper.isVisible(added));
+
+    flushSwingQueue();
+    assertEquals(3, events.get());
+    assertTrue(wrapper.isVisible(added));
+    assertEquals(Arrays.asList("new needle"), children(wrapper, alpha));
+  }
+
+  @Test
+  public void testNoFilter_RenameDoesntParseCollapsedBranches() throws Exception {
+    final MindMap map = makeMap(true);
+    final SortedTreeModelWrapper wrapper = new SortedTreeModelWrapper(map, BY_TEXT);
+    final Topic gamma = map.getRoot().getChildren().get(2);
+    assertTrue(gamma.hasPendingChildren());
+
+    assertEquals(Arrays.asList("alpha", "beta", "gamma"), children(wrapper, map.getRoot()));
+    final Topic beta = map.getRoot().getChildren().get(0);
+    wrapper.valueForPathChanged(new TreePath(beta.getPath()), "delta");
+    assertEquals(Arrays.asList("alpha", "delta", "gamma"), children(wrapper, map.getRoot()));
+    assertTrue(gamma.hasPendingChildren());
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2018 Igor Maznitsa.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package com.igormaznitsa.sciareto.ui.tree;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class FileIgnoreRulesTest {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private static FileIgnoreRules make(final String globs) {
+    return FileIgnoreRules.make(new File("."), globs, false);
+  }
+
+  @Test
+  public void testEmpty() {
+    assertSame(FileIgnoreRules.NONE, make(null));
+    assertSame(FileIgnoreRules.NONE, make(" , #comment,"));
+    assertTrue(make(null).isEmpty());
+    assertFalse(make(null).isIgnored("some/file.txt", false));
+  }
+
+  @Test
+  public void testNameOnlyRuleMatchesOnAnyLevel() {
+    final FileIgnoreRules rules = make("*.class");
+    assertFalse(rules.isEmpty());
+    assertTrue(rules.isIgnored("Main.class", false));
+    assertTrue(rules.isIgnored("a/b/Main.class", false));
+    assertFalse(rules.isIgnored("Main.java", false));
+    assertFalse(rules.isIgnored("a/Main.class/file.txt", false));
+  }
+
+  @Test
+  public void testAnchoring() {
+    final FileIgnoreRules rules = make("/build,docs/out");
+    assertTrue(rules.isIgnored("build", true));
+    assertFalse(rules.isIgnored("module/build", true));
+    assertTrue(rules.isIgnored("docs/out", true));
+    assertFalse(rules.isIgnored("module/docs/out", true));
+    assertFalse(rules.isIgnored("out", true));
+  }
+
+  @Test
+  public void testTrailingSlashMatchesOnlyFolders() {
+    final FileIgnoreRules rules = make("target/");
+    assertTrue(rules.isIgnored("target", true));
+    assertTrue(rules.isIgnored("module/target", true));
+    assertFalse(rules.isIgnored("target", false));
+    assertFalse(rules.isIgnored("module/target", false));
+  }
+
+  @Test
+  public void testStarAndQuestionDontMatchSlash() {
+    final FileIgnoreRules rules = make("doc/*.txt,img/?.png");
+    assertTrue(rules.isIgnored("doc/readme.txt", false));
+    assertFalse(rules.isIgnored("doc/sub/readme.txt", false));
+    assertTrue(rules.isIgnored("img/a.png", false));
+    assertFalse(rules.isIgnored("img/ab.png", false));
+    assertFalse(rules.isIgnored("img/a/b.png", false));
+  }
+
+  @Test
+  public void testDoubleStar() {
+    final FileIgnoreRules rules = make("**/logs,src/**/gen,tmp/**");
+    assertTrue(rules.isIgnored("logs", true));
+    assertTrue(rules.isIgnored("a/b/logs", true));
+    assertTrue(rules.isIgnored("src/gen", true));
+    assertTrue(rules.isIgnored("src/a/b/gen", true));
+    assertFalse(rules.isIgnored("test/a/gen", true));
+    assertTrue(rules.isIgnored("tmp/file.txt", false));
+    assertTrue(rules.isIgnored("tmp/a/b/file.txt", false));
+    assertFalse(rules.isIgnored("other/tmp/file.txt", false));
+  }
+
+  @Test
+  public void testNegation() {
+    final FileIgnoreRules rules = make("*.log,!important.log");
+    assertTrue(rules.isIgnored("debug.log", false));
+    assertFalse(rules.isIgnored("important.log", false));
+    assertFalse(rules.isIgnored("a/important.log", false));
+  }
+
+  @Test
+  public void testLastMatchedRuleWins() {
+    assertTrue(make("!important.log,*.log").isIgnored("important.log", false));
+    assertTrue(make("*.log,!important.log,important.*").isIgnored("important.log", false));
+  }
+
+  @Test
+  public void testCharClasses() {
+    final FileIgnoreRules rules = make("file[0-9].txt,data[!ab].bin");
+    assertTrue(rules.isIgnored("file1.txt", false));
+    assertFalse(rules.isIgnored("fileA.txt", false));
+    assertTrue(rules.isIgnored("datac.bin", false));
+    assertFalse(rules.isIgnored("dataa.bin", false));
+    assertFalse(rules.isIgnored("datab.bin", false));
+  }
+
+  @Test
+  public void testSpecialCharsAreEscaped() {
+    final FileIgnoreRules rules = make("a+b.(1).txt,\\#hash,[broken");
+    assertTrue(rules.isIgnored("a+b.(1).txt", false));
+    assertFalse(rules.isIgnored("aab.(1).txt", false));
+    assertFalse(rules.isIgnored("a+bx(1).txt", false));
+    assertTrue(rules.isIgnored("#hash", false));
+    assertTrue(rules.isIgnored("[broken", false));
+  }
+
+  @Test
+  public void testGitIgnoreFile() throws Exception {
+    final File folder = this.tempFolder.newFolder();
+    FileUtils.write(new File(folder, ".gitignore"), "# comment\n\n/target/\n*.tmp\n!keep.tmp\n", StandardCharsets.UTF_8);
+
+    final FileIgnoreRules rules = FileIgnoreRules.make(folder, "*.bak", true);
+    assertTrue(rules.isIgnored("target", true));
+    assertFalse(rules.isIgnored("module/target", true));
+    assertTrue(rules.isIgnored("a/file.tmp", false));
+    assertFalse(rules.isIgnored("a/keep.tmp", false));
+    assertTrue(rules.isIgnored("file.bak", false));
+
+    final FileIgnoreRules withoutGit = FileIgnoreRules.make(folder, "*.bak", false);
+    assertFalse(withoutGit.isIgnored("target", true));
+    assertTrue(withoutGit.isIgnored("file.bak", false));
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2018 Igor Maznitsa.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package com.igormaznitsa.sciareto.ui.tree;
+
+import java.io.File;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class FileNameIndexTest {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private File projectFolder;
+  private NodeProjectGroup group;
+
+  @Before
+  public void before() throws Exception {
+    this.projectFolder = this.tempFolder.newFolder("project");
+    assertTrue(new File(this.projectFolder, "src/main").mkdirs());
+    assertTrue(new File(this.projectFolder, "src/main/MainClass.java").createNewFile());
+    assertTrue(new File(this.projectFolder, "readme.txt").createNewFile());
+
+    this.group = new NodeProjectGroup(null, "test");
+    final NodeProject project = this.group.addProjectFolder(this.projectFolder);
+    project.reloadSubtree(false, project);
+  }
+
+  private FileNameIndex makeIndex() {
+    final FileNameIndex result = new FileNameIndex();
+    result.rebuild(this.group);
+    return result;
+  }
+
+  @Test
+  public void testRebuild() {
+    final FileNameIndex index = makeIndex();
+    assertEquals(5, index.size());
+    assertEquals(Collections.singletonList(new File(this.projectFolder, "src/main/MainClass.java")), index.find("mainclass", 10));
+    assertEquals(Collections.singletonList(new File(this.projectFolder, "src/main/MainClass.java")), index.find("maincls", 10));
+    assertEquals(Collections.singletonList(new File(this.projectFolder, "readme.txt")), index.find("read*.txt", 10));
+    assertTrue(index.find("unknown", 10).isEmpty());
+  }
+
+  @Test
+  public void testUpdateSubtree_AddedAndRemovedFolder() throws Exception {
+    final FileNameIndex index = makeIndex();
+
+    final File docs = new File(this.projectFolder, "docs");
+    assertTrue(new File(docs, "guide").mkdirs());
+    assertTrue(new File(docs, "guide/UserGuide.md").createNewFile());
+    index.updateSubtree(this.group, docs);
+    assertEquals(8, index.size());
+    assertEquals(Collections.singletonList(new File(docs, "guide/UserGuide.md")), index.find("userguide", 10));
+
+    assertTrue(new File(docs, "guide/UserGuide.md").delete());
+    assertTrue(new File(docs, "guide").delete());
+    assertTrue(docs.delete());
+    index.updateSubtree(this.group, docs);
+    assertEquals(5, index.size());
+    assertTrue(index.find("userguide", 10).isEmpty());
+    assertFalse(index.find("mainclass", 10).isEmpty());
+  }
+
+  @Test
+  public void testUpdateChildren_Rename() throws Exception {
+    final FileNameIndex index = makeIndex();
+
+    final File src = new File(this.projectFolder, "src");
+    assertTrue(src.renameTo(new File(this.projectFolder, "sources")));
+    index.updateChildren(this.group, this.projectFolder);
+
+    assertEquals(5, index.size());
+    assertEquals(Collections.singletonList(new File(this.projectFolder, "sources/main/MainClass.java")), index.find("mainclass", 10));
+    assertEquals(Collections.singletonList(new File(this.projectFolder, "sources")), index.find("sources", 10));
+    assertFalse(index.find("src", 10).contains(src));
+  }
+
+  @Test
+  public void testCompaction() throws Exception {
+    final File many = new File(this.projectFolder, "many");
+    assertTrue(many.mkdir());
+    for (int i = 0; i < 1500; i++) {
+      assertTrue(new File(many, "file" + i + ".txt").createNewFile());
+    }
+    final FileNameIndex index = makeIndex();
+    assertEquals(1506, index.size());
+
+    for (int i = 0; i < 1500; i++) {
+      assertTrue(new File(many, "file" + i + ".txt").delete());
+    }
+    index.updateChildren(this.group, many);
+
+    assertEquals(6, index.size());
+    assertTrue(index.find("file1*", 10).isEmpty());
+    assertEquals(Collections.singletonList(new File(this.projectFolder, "src/main/MainClass.java")), index.find("mainclass", 10));
+
+    assertTrue(new File(many, "newfile.txt").createNewFile());
+    index.updateChildren(this.group, many);
+    assertEquals(Collections.singletonList(new File(many, "newfile.txt")), index.find("newfile.txt", 10));
+  }
+}